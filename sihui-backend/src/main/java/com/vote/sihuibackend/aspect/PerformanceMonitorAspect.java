@@ -21,8 +21,10 @@ public class PerformanceMonitorAspect {
 
     /**
      * 监控Service层方法执行时间
+     * 排除监控服务自身，否则记录耗时会再次进入切面导致无限递归
      */
-    @Around("execution(* com.vote.sihuibackend.service.impl.*.*(..))")
+    @Around("execution(* com.vote.sihuibackend.service.impl.*.*(..))"
+            + " && !within(com.vote.sihuibackend.service.impl.PerformanceMonitorServiceImpl)")
     public Object monitorServiceMethods(ProceedingJoinPoint joinPoint) throws Throwable {
         long startTime = System.currentTimeMillis();
         String methodName = joinPoint.getSignature().getDeclaringTypeName() + "." + joinPoint.getSignature().getName();
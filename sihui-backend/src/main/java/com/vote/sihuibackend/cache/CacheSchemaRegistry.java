@@ -0,0 +1,87 @@
+package com.vote.sihuibackend.cache;
+
+import com.vote.sihuibackend.dto.QuestionnaireStatsResponse;
+import com.vote.sihuibackend.dto.UserResponse;
+import com.vote.sihuibackend.entity.Document;
+import com.vote.sihuibackend.entity.Role;
+import com.vote.sihuibackend.entity.User;
+import com.vote.sihuibackend.enums.Permission;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缓存值类型注册表
+ * 为缓存中出现的类型分配固定的数字ID，紧凑序列化时写入ID而不是完整类名。
+ *
+ * 注意：ID一旦分配就不能修改或复用，否则会把Redis中的旧数据反序列化成错误的类型。
+ * 新类型只能追加新的ID；未注册的类型会回退为带类名的JSON编码。
+ *
+ * @author Sihui Team
+ */
+public class CacheSchemaRegistry {
+
+    private final Map<Integer, Class<?>> classesById = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Integer> idsByClass = new ConcurrentHashMap<>();
+
+    /**
+     * 创建包含业务缓存类型的默认注册表
+     */
+    public static CacheSchemaRegistry defaultRegistry() {
+        CacheSchemaRegistry registry = new CacheSchemaRegistry();
+
+        // 实体类型
+        registry.register(1, Document.class);
+        registry.register(2, User.class);
+        registry.register(3, Role.class);
+
+        // DTO类型
+        registry.register(10, UserResponse.class);
+        registry.register(11, UserResponse.RoleInfo.class);
+        registry.register(12, QuestionnaireStatsResponse.class);
+
+        // 枚举类型
+        registry.register(30, Permission.class);
+        registry.register(31, User.UserStatus.class);
+        registry.register(32, Role.RoleStatus.class);
+
+        return registry;
+    }
+
+    /**
+     * 注册类型
+     *
+     * @param schemaId 类型ID，必须为正数且全局唯一
+     * @param type     类型
+     */
+    public void register(int schemaId, Class<?> type) {
+        if (schemaId <= 0) {
+            throw new IllegalArgumentException("类型ID必须为正数: " + schemaId);
+        }
+        Class<?> existing = classesById.putIfAbsent(schemaId, type);
+        if (existing != null && existing != type) {
+            throw new IllegalStateException("类型ID " + schemaId + " 已被 " + existing.getName() + " 占用");
+        }
+        idsByClass.put(type, schemaId);
+    }
+
+    /**
+     * 获取类型ID
+     *
+     * @param type 类型
+     * @return 类型ID，未注册返回null
+     */
+    public Integer getSchemaId(Class<?> type) {
+        return idsByClass.get(type);
+    }
+
+    /**
+     * 根据类型ID获取类型
+     *
+     * @param schemaId 类型ID
+     * @return 类型，未注册返回null
+     */
+    public Class<?> getType(int schemaId) {
+        return classesById.get(schemaId);
+    }
+}
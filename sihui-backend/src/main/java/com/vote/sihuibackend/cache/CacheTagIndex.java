@@ -0,0 +1,31 @@
+package com.vote.sihuibackend.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 缓存标签索引
+ * 记录每个标签关联的缓存条目（缓存名称 + 键），用于按标签精确失效
+ *
+ * @author Sihui Team
+ */
+public interface CacheTagIndex {
+
+    /**
+     * 为缓存条目登记标签
+     *
+     * @param cacheName 缓存名称
+     * @param key       缓存键
+     * @param tags      标签集合
+     */
+    void tag(String cacheName, Object key, Collection<String> tags);
+
+    /**
+     * 取出并删除标签关联的所有缓存条目
+     *
+     * @param tag 标签
+     * @return 缓存名称到缓存键集合的映射
+     */
+    Map<String, Set<Object>> removeTag(String tag);
+}
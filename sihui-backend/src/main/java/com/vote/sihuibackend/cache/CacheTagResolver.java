@@ -0,0 +1,22 @@
+package com.vote.sihuibackend.cache;
+
+import java.util.Set;
+
+/**
+ * 缓存标签解析器
+ * 根据缓存键和缓存值计算条目依赖的实体标签
+ *
+ * @author Sihui Team
+ */
+@FunctionalInterface
+public interface CacheTagResolver {
+
+    /**
+     * 计算缓存条目的标签
+     *
+     * @param key   缓存键
+     * @param value 缓存值，可能为null
+     * @return 标签集合
+     */
+    Set<String> resolveTags(Object key, Object value);
+}
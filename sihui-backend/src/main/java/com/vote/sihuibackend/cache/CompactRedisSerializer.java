@@ -0,0 +1,525 @@
+package com.vote.sihuibackend.cache;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 紧凑二进制Redis序列化器
+ * 用带标签的二进制格式编码缓存值，对象类型写入 {@link CacheSchemaRegistry} 中的数字ID而不是类名，
+ * 同一个值内重复出现的字段名只写一次；编码后超过阈值的值使用Deflate压缩。
+ *
+ * 格式：魔数(1字节) + 标志位(1字节) + 数据体。
+ * 不以魔数开头的数据按旧的JSON格式读取，便于迁移期间兼容Redis中已有的条目。
+ *
+ * @author Sihui Team
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xC5;
+    private static final int FLAG_DEFLATED = 0x01;
+
+    // 值标签
+    private static final int T_NULL = 0;
+    private static final int T_TRUE = 1;
+    private static final int T_FALSE = 2;
+    private static final int T_INT = 3;
+    private static final int T_LONG = 4;
+    private static final int T_DOUBLE = 5;
+    private static final int T_STRING = 6;
+    private static final int T_LIST = 7;
+    private static final int T_SET = 8;
+    private static final int T_MAP = 9;
+    private static final int T_ARRAY = 10;
+    private static final int T_ENUM = 11;
+    private static final int T_OBJECT = 12;
+    private static final int T_TIMESTAMPED = 13;
+    private static final int T_JSON = 14;
+
+    // 对象字段树节点标签
+    private static final int N_NULL = 0;
+    private static final int N_TRUE = 1;
+    private static final int N_FALSE = 2;
+    private static final int N_LONG = 3;
+    private static final int N_DOUBLE = 4;
+    private static final int N_TEXT = 5;
+    private static final int N_ARRAY = 6;
+    private static final int N_OBJECT = 7;
+    private static final int N_DECIMAL = 8;
+    private static final int N_BIGINT = 9;
+    private static final int N_BINARY = 10;
+
+    private final CacheSchemaRegistry schemaRegistry;
+    private final int compressionThreshold;
+    private final RedisSerializer<Object> legacySerializer;
+    private final ObjectMapper beanMapper;
+
+    /**
+     * @param schemaRegistry       类型注册表
+     * @param compressionThreshold 压缩阈值（字节），编码后达到该大小的值会被压缩
+     * @param legacySerializer     旧格式序列化器，用于读取旧条目和编码未注册的类型
+     */
+    public CompactRedisSerializer(CacheSchemaRegistry schemaRegistry, int compressionThreshold,
+            RedisSerializer<Object> legacySerializer) {
+        this.schemaRegistry = schemaRegistry;
+        this.compressionThreshold = compressionThreshold;
+        this.legacySerializer = legacySerializer;
+        this.beanMapper = createBeanMapper();
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+            new Writer(new DataOutputStream(buffer)).writeValue(value);
+            byte[] body = buffer.toByteArray();
+
+            int flags = 0;
+            if (body.length >= compressionThreshold) {
+                byte[] deflated = deflate(body);
+                if (deflated.length < body.length) {
+                    body = deflated;
+                    flags |= FLAG_DEFLATED;
+                }
+            }
+
+            byte[] result = new byte[body.length + 2];
+            result[0] = MAGIC;
+            result[1] = (byte) flags;
+            System.arraycopy(body, 0, result, 2, body.length);
+            return result;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new SerializationException("缓存值序列化失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            // 迁移期间兼容旧的JSON条目
+            return legacySerializer.deserialize(bytes);
+        }
+        InputStream raw = new ByteArrayInputStream(bytes, 2, bytes.length - 2);
+        // 关闭InflaterInputStream时释放Inflater占用的本地内存
+        try (InputStream body = (bytes[1] & FLAG_DEFLATED) != 0 ? new InflaterInputStream(raw) : raw) {
+            return new Reader(new DataInputStream(body)).readValue();
+        } catch (IOException | IllegalArgumentException e) {
+            throw new SerializationException("缓存值反序列化失败: " + e.getMessage(), e);
+        }
+    }
+
+    private static ObjectMapper createBeanMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        // 直接读写字段，避免把计算型getter也写入缓存
+        mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        mapper.setVisibility(PropertyAccessor.GETTER, JsonAutoDetect.Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.IS_GETTER, JsonAutoDetect.Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.SETTER, JsonAutoDetect.Visibility.NONE);
+        mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        return mapper;
+    }
+
+    private static byte[] deflate(byte[] data) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 2);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(buffer, deflater)) {
+            out.write(data);
+        } finally {
+            deflater.end();
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * 编码器，每次序列化创建一个实例，持有字段名表
+     */
+    private class Writer {
+
+        private final DataOutputStream out;
+        private final Map<String, Integer> fieldNames = new HashMap<>();
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(T_NULL);
+            } else if (value instanceof Boolean) {
+                out.writeByte((Boolean) value ? T_TRUE : T_FALSE);
+            } else if (value instanceof Integer) {
+                out.writeByte(T_INT);
+                writeSignedVarLong((Integer) value);
+            } else if (value instanceof Long) {
+                out.writeByte(T_LONG);
+                writeSignedVarLong((Long) value);
+            } else if (value instanceof Double) {
+                out.writeByte(T_DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (value instanceof String) {
+                out.writeByte(T_STRING);
+                writeString((String) value);
+            } else if (value instanceof RefreshAheadCache.TimestampedValue) {
+                RefreshAheadCache.TimestampedValue timestamped = (RefreshAheadCache.TimestampedValue) value;
+                out.writeByte(T_TIMESTAMPED);
+                writeVarLong(timestamped.getWrittenAt());
+                writeValue(timestamped.getValue());
+            } else if (value instanceof Enum) {
+                writeEnum((Enum<?>) value);
+            } else if (value.getClass() == Object[].class) {
+                Object[] array = (Object[]) value;
+                out.writeByte(T_ARRAY);
+                writeVarLong(array.length);
+                for (Object element : array) {
+                    writeValue(element);
+                }
+            } else if (value instanceof Collection) {
+                Collection<?> collection = (Collection<?>) value;
+                out.writeByte(value instanceof Set ? T_SET : T_LIST);
+                writeVarLong(collection.size());
+                for (Object element : collection) {
+                    writeValue(element);
+                }
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                out.writeByte(T_MAP);
+                writeVarLong(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeValue(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            } else {
+                Integer schemaId = schemaRegistry.getSchemaId(value.getClass());
+                if (schemaId != null) {
+                    out.writeByte(T_OBJECT);
+                    writeVarLong(schemaId);
+                    writeNode(beanMapper.valueToTree(value));
+                } else {
+                    writeLegacy(value);
+                }
+            }
+        }
+
+        private void writeEnum(Enum<?> value) throws IOException {
+            Integer schemaId = schemaRegistry.getSchemaId(value.getDeclaringClass());
+            if (schemaId == null) {
+                writeLegacy(value);
+                return;
+            }
+            out.writeByte(T_ENUM);
+            writeVarLong(schemaId);
+            writeString(value.name());
+        }
+
+        private void writeLegacy(Object value) throws IOException {
+            byte[] json = legacySerializer.serialize(value);
+            out.writeByte(T_JSON);
+            writeVarLong(json.length);
+            out.write(json);
+        }
+
+        private void writeNode(JsonNode node) throws IOException {
+            switch (node.getNodeType()) {
+                case NULL:
+                case MISSING:
+                    out.writeByte(N_NULL);
+                    break;
+                case BOOLEAN:
+                    out.writeByte(node.booleanValue() ? N_TRUE : N_FALSE);
+                    break;
+                case NUMBER:
+                    if (node.isIntegralNumber() && node.canConvertToLong()) {
+                        out.writeByte(N_LONG);
+                        writeSignedVarLong(node.longValue());
+                    } else if (node.isBigInteger()) {
+                        out.writeByte(N_BIGINT);
+                        writeString(node.bigIntegerValue().toString());
+                    } else if (node.isBigDecimal()) {
+                        out.writeByte(N_DECIMAL);
+                        writeString(node.decimalValue().toString());
+                    } else {
+                        out.writeByte(N_DOUBLE);
+                        out.writeDouble(node.doubleValue());
+                    }
+                    break;
+                case BINARY:
+                    byte[] data = node.binaryValue();
+                    out.writeByte(N_BINARY);
+                    writeVarLong(data.length);
+                    out.write(data);
+                    break;
+                case ARRAY:
+                    out.writeByte(N_ARRAY);
+                    writeVarLong(node.size());
+                    for (JsonNode element : node) {
+                        writeNode(element);
+                    }
+                    break;
+                case OBJECT:
+                    out.writeByte(N_OBJECT);
+                    writeVarLong(node.size());
+                    Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+                    while (fields.hasNext()) {
+                        Map.Entry<String, JsonNode> field = fields.next();
+                        writeFieldName(field.getKey());
+                        writeNode(field.getValue());
+                    }
+                    break;
+                default:
+                    out.writeByte(N_TEXT);
+                    writeString(node.asText());
+            }
+        }
+
+        /**
+         * 字段名首次出现时写入原文，之后写入其在字段名表中的序号
+         */
+        private void writeFieldName(String name) throws IOException {
+            Integer index = fieldNames.get(name);
+            if (index != null) {
+                writeVarLong(index + 1L);
+                return;
+            }
+            writeVarLong(0);
+            writeString(name);
+            fieldNames.put(name, fieldNames.size());
+        }
+
+        private void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeSignedVarLong(long value) throws IOException {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+    }
+
+    /**
+     * 解码器，与 {@link Writer} 对应
+     */
+    private class Reader {
+
+        private final DataInputStream in;
+        private final List<String> fieldNames = new ArrayList<>();
+
+        Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        Object readValue() throws IOException {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case T_NULL:
+                    return null;
+                case T_TRUE:
+                    return Boolean.TRUE;
+                case T_FALSE:
+                    return Boolean.FALSE;
+                case T_INT:
+                    return (int) readSignedVarLong();
+                case T_LONG:
+                    return readSignedVarLong();
+                case T_DOUBLE:
+                    return in.readDouble();
+                case T_STRING:
+                    return readString();
+                case T_TIMESTAMPED:
+                    long writtenAt = readVarLong();
+                    return new RefreshAheadCache.TimestampedValue(readValue(), writtenAt);
+                case T_ENUM:
+                    return readEnum();
+                case T_ARRAY: {
+                    Object[] array = new Object[readLength()];
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = readValue();
+                    }
+                    return array;
+                }
+                case T_LIST: {
+                    int size = readLength();
+                    List<Object> list = new ArrayList<>(Math.min(size, 1024));
+                    for (int i = 0; i < size; i++) {
+                        list.add(readValue());
+                    }
+                    return list;
+                }
+                case T_SET: {
+                    int size = readLength();
+                    Set<Object> set = new LinkedHashSet<>(Math.min(size, 1024) * 2);
+                    for (int i = 0; i < size; i++) {
+                        set.add(readValue());
+                    }
+                    return set;
+                }
+                case T_MAP: {
+                    int size = readLength();
+                    Map<Object, Object> map = new LinkedHashMap<>(Math.min(size, 1024) * 2);
+                    for (int i = 0; i < size; i++) {
+                        map.put(readValue(), readValue());
+                    }
+                    return map;
+                }
+                case T_OBJECT: {
+                    Class<?> type = requireType((int) readVarLong());
+                    return beanMapper.treeToValue(readNode(), type);
+                }
+                case T_JSON: {
+                    byte[] json = new byte[readLength()];
+                    in.readFully(json);
+                    return legacySerializer.deserialize(json);
+                }
+                default:
+                    throw new IOException("未知的值标签: " + tag);
+            }
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private Object readEnum() throws IOException {
+            Class<?> type = requireType((int) readVarLong());
+            if (!type.isEnum()) {
+                throw new IOException("类型ID对应的不是枚举: " + type.getName());
+            }
+            return Enum.valueOf((Class) type, readString());
+        }
+
+        private JsonNode readNode() throws IOException {
+            JsonNodeFactory factory = JsonNodeFactory.instance;
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case N_NULL:
+                    return factory.nullNode();
+                case N_TRUE:
+                    return factory.booleanNode(true);
+                case N_FALSE:
+                    return factory.booleanNode(false);
+                case N_LONG:
+                    return factory.numberNode(readSignedVarLong());
+                case N_DOUBLE:
+                    return factory.numberNode(in.readDouble());
+                case N_TEXT:
+                    return factory.textNode(readString());
+                case N_DECIMAL:
+                    return factory.numberNode(new BigDecimal(readString()));
+                case N_BIGINT:
+                    return factory.numberNode(new BigInteger(readString()));
+                case N_BINARY: {
+                    byte[] data = new byte[readLength()];
+                    in.readFully(data);
+                    return factory.binaryNode(data);
+                }
+                case N_ARRAY: {
+                    int size = readLength();
+                    ArrayNode array = factory.arrayNode(size);
+                    for (int i = 0; i < size; i++) {
+                        array.add(readNode());
+                    }
+                    return array;
+                }
+                case N_OBJECT: {
+                    int size = readLength();
+                    ObjectNode object = factory.objectNode();
+                    for (int i = 0; i < size; i++) {
+                        String name = readFieldName();
+                        object.set(name, readNode());
+                    }
+                    return object;
+                }
+                default:
+                    throw new IOException("未知的字段节点标签: " + tag);
+            }
+        }
+
+        private String readFieldName() throws IOException {
+            int index = (int) readVarLong();
+            if (index == 0) {
+                String name = readString();
+                fieldNames.add(name);
+                return name;
+            }
+            if (index > fieldNames.size()) {
+                throw new IOException("字段名序号越界: " + index);
+            }
+            return fieldNames.get(index - 1);
+        }
+
+        private Class<?> requireType(int schemaId) throws IOException {
+            Class<?> type = schemaRegistry.getType(schemaId);
+            if (type == null) {
+                throw new IOException("未注册的类型ID: " + schemaId);
+            }
+            return type;
+        }
+
+        private String readString() throws IOException {
+            byte[] bytes = new byte[readLength()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private int readLength() throws IOException {
+            long length = readVarLong();
+            if (length < 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("长度非法: " + length);
+            }
+            return (int) length;
+        }
+
+        private long readSignedVarLong() throws IOException {
+            long raw = readVarLong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        private long readVarLong() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.readUnsignedByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("变长整数格式错误");
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.vote.sihuibackend.cache;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于内存的缓存标签索引
+ * 与内存缓存管理器配合使用，保留原始缓存键对象
+ *
+ * @author Sihui Team
+ */
+public class InMemoryCacheTagIndex implements CacheTagIndex {
+
+    private final Map<String, Set<Map.Entry<String, Object>>> entriesByTag = new ConcurrentHashMap<>();
+
+    @Override
+    public void tag(String cacheName, Object key, Collection<String> tags) {
+        Map.Entry<String, Object> entry = new AbstractMap.SimpleImmutableEntry<>(cacheName, key);
+        for (String tag : tags) {
+            entriesByTag.computeIfAbsent(tag, t -> ConcurrentHashMap.newKeySet()).add(entry);
+        }
+    }
+
+    @Override
+    public Map<String, Set<Object>> removeTag(String tag) {
+        Set<Map.Entry<String, Object>> entries = entriesByTag.remove(tag);
+        if (entries == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Set<Object>> keysByCache = new HashMap<>();
+        for (Map.Entry<String, Object> entry : entries) {
+            keysByCache.computeIfAbsent(entry.getKey(), name -> new HashSet<>()).add(entry.getValue());
+        }
+        return keysByCache;
+    }
+}
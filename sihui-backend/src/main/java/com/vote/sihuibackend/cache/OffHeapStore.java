@@ -0,0 +1,308 @@
+package com.vote.sihuibackend.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 堆外缓存存储区
+ * 值序列化后顺序写入固定大小的slab（直接内存或内存映射文件），堆上只保留键到位置的索引。
+ * 每个索引条目在堆上仍有约两百字节的开销，只适合存放较大的值；条目数按slab平均分配上限，
+ * slab的空间或条目数用尽时切换到下一块；容量用尽时整块回收最早写入的slab，按该slab记录的键丢弃索引条目。
+ * 读取时把只读视图交给调用方，按需反序列化或直接在缓冲区上计算。
+ *
+ * @author Sihui Team
+ */
+@Slf4j
+public class OffHeapStore {
+
+    private final String name;
+    private final int slabSize;
+    private final int maxSlabs;
+    private final int entriesPerSlab;
+    private final Path mappedDirectory;
+
+    private final List<Slab> slabs = new ArrayList<>();
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int currentSlab = -1;
+    private final AtomicLong evictedEntries = new AtomicLong(0);
+
+    /**
+     * @param name            存储区名称，用于日志和映射文件名
+     * @param capacityBytes   总容量（字节）
+     * @param slabSize        单个slab大小（字节），也是单个条目的最大长度
+     * @param maxEntries      最多保存的条目数
+     * @param mappedDirectory 内存映射文件目录，为null时使用直接内存
+     */
+    public OffHeapStore(String name, long capacityBytes, int slabSize, int maxEntries, Path mappedDirectory) {
+        if (slabSize <= 0 || capacityBytes < slabSize) {
+            throw new IllegalArgumentException("堆外存储容量必须不小于slab大小: " + name);
+        }
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("堆外存储条目数上限必须大于0: " + name);
+        }
+        this.name = name;
+        this.slabSize = slabSize;
+        this.maxSlabs = (int) Math.min(Integer.MAX_VALUE, capacityBytes / slabSize);
+        this.entriesPerSlab = Math.max(1, maxEntries / maxSlabs);
+        this.mappedDirectory = mappedDirectory;
+    }
+
+    /**
+     * 写入条目
+     *
+     * @param key       键
+     * @param length    序列化后的长度
+     * @param expiresAt 过期时间戳（毫秒）
+     * @param writer    写入器，从缓冲区当前位置写入恰好 length 个字节
+     * @return 是否写入成功，条目超过slab大小时返回false
+     */
+    public boolean put(String key, int length, long expiresAt, Consumer<ByteBuffer> writer) {
+        if (length > slabSize) {
+            log.debug("条目超过slab大小，不写入堆外存储 - Store: {}, Key: {}, Length: {}", name, key, length);
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            Slab slab = slabFor(length);
+            int offset = slab.writePosition;
+            ByteBuffer target = slab.buffer.duplicate();
+            target.position(offset);
+            target.limit(offset + length);
+            writer.accept(target);
+            if (target.position() != offset + length) {
+                throw new IllegalStateException("写入长度与声明长度不一致: " + key);
+            }
+            slab.writePosition += length;
+            slab.liveEntries++;
+            slab.keys.add(key);
+
+            Location previous = index.put(key, new Location(slab, slab.generation, offset, length, expiresAt));
+            if (previous != null && previous.isCurrent()) {
+                previous.slab.liveEntries--;
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 读取条目
+     *
+     * @param key    键
+     * @param reader 读取器，参数为只包含该条目的只读缓冲区
+     * @return 读取结果，条目不存在或已过期时返回null
+     */
+    public <T> T read(String key, Function<ByteBuffer, T> reader) {
+        Location location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        if (location.expiresAt < System.currentTimeMillis()) {
+            remove(key);
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            // 持有读锁期间slab不会被回收，代数不变说明位置仍然有效
+            if (!location.isCurrent()) {
+                index.remove(key, location);
+                return null;
+            }
+            ByteBuffer view = location.slab.buffer.asReadOnlyBuffer();
+            view.position(location.offset);
+            view.limit(location.offset + location.length);
+            return reader.apply(view.slice());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String key) {
+        Location location = index.get(key);
+        return location != null && location.isCurrent() && location.expiresAt >= System.currentTimeMillis();
+    }
+
+    public void remove(String key) {
+        lock.writeLock().lock();
+        try {
+            Location location = index.remove(key);
+            if (location != null && location.isCurrent()) {
+                location.slab.liveEntries--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除键满足条件的所有条目
+     */
+    public void removeIf(Predicate<String> keyPredicate) {
+        lock.writeLock().lock();
+        try {
+            Iterator<Map.Entry<String, Location>> iterator = index.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Location> entry = iterator.next();
+                if (keyPredicate.test(entry.getKey())) {
+                    iterator.remove();
+                    if (entry.getValue().isCurrent()) {
+                        entry.getValue().slab.liveEntries--;
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 清空索引并重置所有slab，已分配的缓冲区保留复用
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            for (Slab slab : slabs) {
+                slab.reset();
+            }
+            currentSlab = slabs.isEmpty() ? -1 : 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * 已分配的堆外内存（字节）
+     */
+    public long allocatedBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) slabs.size() * slabSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getEvictedEntries() {
+        return evictedEntries.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 选择能容纳该长度的slab：当前slab剩余空间或条目数不足时切换到下一块，必要时分配新slab或回收最早写入的slab
+     */
+    private Slab slabFor(int length) {
+        if (currentSlab >= 0 && slabs.get(currentSlab).hasRoom(length)) {
+            return slabs.get(currentSlab);
+        }
+        if (slabs.size() < maxSlabs) {
+            slabs.add(new Slab(allocate(slabs.size())));
+            currentSlab = slabs.size() - 1;
+            return slabs.get(currentSlab);
+        }
+        // slab按环形顺序写入，下一块即最早写入的一块
+        currentSlab = (currentSlab + 1) % slabs.size();
+        Slab victim = slabs.get(currentSlab);
+        if (victim.liveEntries > 0) {
+            evictedEntries.addAndGet(victim.liveEntries);
+            // 只检查写入该slab的键；键后来被覆盖到其他slab时保留新位置
+            for (String key : victim.keys) {
+                Location location = index.get(key);
+                if (location != null && location.slab == victim) {
+                    index.remove(key, location);
+                }
+            }
+            log.debug("回收堆外slab - Store: {}, Slab: {}, Entries: {}", name, currentSlab, victim.liveEntries);
+        }
+        victim.reset();
+        return victim;
+    }
+
+    private ByteBuffer allocate(int slabIndex) {
+        if (mappedDirectory == null) {
+            return ByteBuffer.allocateDirect(slabSize);
+        }
+        try {
+            Files.createDirectories(mappedDirectory);
+            Path file = Files.createTempFile(mappedDirectory, name + "-" + slabIndex + "-", ".slab");
+            file.toFile().deleteOnExit();
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw");
+                    FileChannel channel = raf.getChannel()) {
+                // 映射在通道关闭后仍然有效
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, slabSize);
+            }
+        } catch (IOException e) {
+            log.warn("创建内存映射slab失败，改用直接内存 - Store: {}, Error: {}", name, e.getMessage());
+            return ByteBuffer.allocateDirect(slabSize);
+        }
+    }
+
+    private final class Slab {
+        private final ByteBuffer buffer;
+        private final List<String> keys = new ArrayList<>();
+        private int writePosition;
+        private int liveEntries;
+        private volatile long generation;
+
+        private Slab(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private boolean hasRoom(int length) {
+            return slabSize - writePosition >= length && keys.size() < entriesPerSlab;
+        }
+
+        private void reset() {
+            keys.clear();
+            writePosition = 0;
+            liveEntries = 0;
+            generation++;
+        }
+    }
+
+    private static final class Location {
+        private final Slab slab;
+        private final long generation;
+        private final int offset;
+        private final int length;
+        private final long expiresAt;
+
+        private Location(Slab slab, long generation, int offset, int length, long expiresAt) {
+            this.slab = slab;
+            this.generation = generation;
+            this.offset = offset;
+            this.length = length;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isCurrent() {
+            return slab.generation == generation;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.vote.sihuibackend.cache;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * 基于Redis的缓存标签索引
+ * 每个标签对应一个Redis集合，成员为"缓存名称|缓存键"。
+ * RedisCache会把缓存键转换为字符串，因此这里按字符串形式保存键。
+ *
+ * @author Sihui Team
+ */
+public class RedisCacheTagIndex implements CacheTagIndex {
+
+    private static final char SEPARATOR = '|';
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final Duration tagTtl;
+
+    /**
+     * @param redisTemplate Redis模板
+     * @param keyPrefix     标签集合的键前缀
+     * @param tagTtl        标签集合的过期时间，应不小于被标记缓存的最长过期时间
+     */
+    public RedisCacheTagIndex(StringRedisTemplate redisTemplate, String keyPrefix, Duration tagTtl) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.tagTtl = tagTtl;
+    }
+
+    @Override
+    public void tag(String cacheName, Object key, Collection<String> tags) {
+        String member = cacheName + SEPARATOR + key;
+        for (String tag : tags) {
+            String tagKey = keyPrefix + tag;
+            redisTemplate.opsForSet().add(tagKey, member);
+            redisTemplate.expire(tagKey, tagTtl);
+        }
+    }
+
+    @Override
+    public Map<String, Set<Object>> removeTag(String tag) {
+        String tagKey = keyPrefix + tag;
+        Set<String> members = redisTemplate.opsForSet().members(tagKey);
+        if (members == null || members.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        // 只移除已读取的成员，读取期间新登记的条目保留
+        redisTemplate.opsForSet().remove(tagKey, members.toArray());
+
+        Map<String, Set<Object>> keysByCache = new HashMap<>();
+        for (String member : members) {
+            int separator = member.indexOf(SEPARATOR);
+            if (separator > 0) {
+                keysByCache.computeIfAbsent(member.substring(0, separator), name -> new HashSet<>())
+                        .add(member.substring(separator + 1));
+            }
+        }
+        return keysByCache;
+    }
+}
@@ -0,0 +1,209 @@
+package com.vote.sihuibackend.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 提前刷新缓存装饰器（stale-while-revalidate）
+ * 条目超过软过期时间后继续返回旧值，同时在专用线程池中后台重新加载；
+ * 超过硬过期时间后才淘汰并同步加载。
+ *
+ * 后台刷新依赖 {@link #get(Object, Callable)} 提供的加载器，
+ * 因此对应的 {@code @Cacheable} 需声明 {@code sync = true}。
+ *
+ * @author Sihui Team
+ */
+@Slf4j
+public class RefreshAheadCache implements Cache {
+
+    private final Cache delegate;
+    private final long softTtlMillis;
+    private final long hardTtlMillis;
+    private final Executor refreshExecutor;
+
+    // 正在后台刷新的键，避免同一个键重复提交刷新任务
+    private final Set<Object> refreshingKeys = ConcurrentHashMap.newKeySet();
+
+    public RefreshAheadCache(Cache delegate, Duration softTtl, Duration hardTtl, Executor refreshExecutor) {
+        if (softTtl.compareTo(hardTtl) > 0) {
+            throw new IllegalArgumentException("缓存 [" + delegate.getName() + "] 的软过期时间不能大于硬过期时间");
+        }
+        this.delegate = delegate;
+        this.softTtlMillis = softTtl.toMillis();
+        this.hardTtlMillis = hardTtl.toMillis();
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper == null) {
+            return null;
+        }
+        Object stored = wrapper.get();
+        if (!(stored instanceof TimestampedValue)) {
+            return wrapper;
+        }
+        TimestampedValue entry = (TimestampedValue) stored;
+        if (isHardExpired(entry)) {
+            delegate.evict(key);
+            return null;
+        }
+        // 没有加载器时无法后台刷新，在硬过期前继续返回旧值
+        return new SimpleValueWrapper(entry.getValue());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("缓存值不是所需类型 [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper != null) {
+            Object stored = wrapper.get();
+            if (!(stored instanceof TimestampedValue)) {
+                return (T) stored;
+            }
+            TimestampedValue entry = (TimestampedValue) stored;
+            if (!isHardExpired(entry)) {
+                if (isSoftExpired(entry)) {
+                    scheduleRefresh(key, valueLoader);
+                }
+                return (T) entry.getValue();
+            }
+            delegate.evict(key);
+        }
+
+        Object loaded = delegate.get(key, () -> wrap(valueLoader.call()));
+        return (T) unwrap(loaded);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, wrap(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, wrap(value));
+        return existing != null ? new SimpleValueWrapper(unwrap(existing.get())) : null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    /**
+     * 提交后台刷新任务，同一个键同时只允许一个刷新任务
+     */
+    private void scheduleRefresh(Object key, Callable<?> valueLoader) {
+        if (!refreshingKeys.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    delegate.put(key, wrap(valueLoader.call()));
+                    log.debug("缓存后台刷新完成 - Cache: {}, Key: {}", getName(), key);
+                } catch (Exception e) {
+                    log.warn("缓存后台刷新失败 - Cache: {}, Key: {}, Error: {}", getName(), key, e.getMessage());
+                } finally {
+                    refreshingKeys.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 刷新线程池已满，继续返回旧值，下次访问时再尝试
+            refreshingKeys.remove(key);
+            log.debug("缓存刷新任务被拒绝 - Cache: {}, Key: {}", getName(), key);
+        }
+    }
+
+    private boolean isSoftExpired(TimestampedValue entry) {
+        return System.currentTimeMillis() - entry.getWrittenAt() > softTtlMillis;
+    }
+
+    private boolean isHardExpired(TimestampedValue entry) {
+        return System.currentTimeMillis() - entry.getWrittenAt() > hardTtlMillis;
+    }
+
+    private Object wrap(Object value) {
+        // null值交给底层缓存自身的null值策略处理
+        return value != null ? new TimestampedValue(value, System.currentTimeMillis()) : null;
+    }
+
+    private Object unwrap(Object stored) {
+        return stored instanceof TimestampedValue ? ((TimestampedValue) stored).getValue() : stored;
+    }
+
+    /**
+     * 带写入时间的缓存值
+     */
+    public static class TimestampedValue implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Object value;
+        private long writtenAt;
+
+        public TimestampedValue() {
+            // 供反序列化使用
+        }
+
+        public TimestampedValue(Object value, long writtenAt) {
+            this.value = value;
+            this.writtenAt = writtenAt;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public long getWrittenAt() {
+            return writtenAt;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.vote.sihuibackend.cache;
+
+import com.vote.sihuibackend.config.CachePolicyProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * 提前刷新缓存管理器
+ * 包装任意底层缓存管理器（Redis或内存），为配置了刷新策略的缓存加上 {@link RefreshAheadCache}
+ *
+ * @author Sihui Team
+ */
+@Slf4j
+public class RefreshAheadCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final CachePolicyProperties cachePolicyProperties;
+    private final Executor refreshExecutor;
+
+    private final Map<String, Cache> decoratedCaches = new ConcurrentHashMap<>();
+
+    public RefreshAheadCacheManager(CacheManager delegate, CachePolicyProperties cachePolicyProperties,
+            Executor refreshExecutor) {
+        this.delegate = delegate;
+        this.cachePolicyProperties = cachePolicyProperties;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cached = decoratedCaches.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return decoratedCaches.computeIfAbsent(name, key -> decorate(target));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    /**
+     * 获取被包装的底层缓存管理器
+     */
+    public CacheManager getDelegate() {
+        return delegate;
+    }
+
+    private Cache decorate(Cache target) {
+        CachePolicyProperties.Policy policy = cachePolicyProperties.getRefreshPolicy(target.getName());
+        if (policy == null) {
+            return target;
+        }
+        log.info("缓存 [{}] 启用提前刷新 - 软过期: {}, 硬过期: {}",
+                target.getName(), policy.getSoftTtl(), policy.getHardTtl());
+        return new RefreshAheadCache(target, policy.getSoftTtl(), policy.getHardTtl(), refreshExecutor);
+    }
+}
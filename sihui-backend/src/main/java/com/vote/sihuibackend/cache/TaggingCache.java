@@ -0,0 +1,106 @@
+package com.vote.sihuibackend.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * 标签缓存装饰器
+ * 写入缓存后通过 {@link CacheTagResolver} 计算条目依赖的实体标签并登记到 {@link CacheTagIndex}。
+ * 先写入再登记标签：并发失效发生在两者之间时，条目仍会被登记，下次按标签失效时一并清除；
+ * 反过来先登记，失效可能在写入前取走标签，之后写入的条目就不再被任何标签跟踪。
+ *
+ * @author Sihui Team
+ */
+@Slf4j
+public class TaggingCache implements Cache {
+
+    private final Cache delegate;
+    private final CacheTagResolver tagResolver;
+    private final CacheTagIndex tagIndex;
+
+    public TaggingCache(Cache delegate, CacheTagResolver tagResolver, CacheTagIndex tagIndex) {
+        this.delegate = delegate;
+        this.tagResolver = tagResolver;
+        this.tagIndex = tagIndex;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        boolean[] loaded = new boolean[1];
+        T value = delegate.get(key, () -> {
+            loaded[0] = true;
+            return valueLoader.call();
+        });
+        // 只有本次加载写入的条目需要登记，命中已有条目时不重复登记
+        if (loaded[0]) {
+            registerTags(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        registerTags(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        if (existing == null) {
+            registerTags(key, value);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    private void registerTags(Object key, Object value) {
+        Set<String> tags = tagResolver.resolveTags(key, value);
+        if (!tags.isEmpty()) {
+            tagIndex.tag(getName(), key, tags);
+            log.debug("缓存条目登记标签 - Cache: {}, Key: {}, Tags: {}", getName(), key, tags);
+        }
+    }
+}
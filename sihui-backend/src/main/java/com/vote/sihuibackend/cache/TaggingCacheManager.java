@@ -0,0 +1,80 @@
+package com.vote.sihuibackend.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 标签缓存管理器
+ * 为配置了 {@link CacheTagResolver} 的缓存加上 {@link TaggingCache}，并支持按标签失效缓存条目
+ *
+ * @author Sihui Team
+ */
+@Slf4j
+public class TaggingCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final CacheTagIndex tagIndex;
+    private final Map<String, CacheTagResolver> tagResolvers;
+
+    private final Map<String, Cache> decoratedCaches = new ConcurrentHashMap<>();
+
+    public TaggingCacheManager(CacheManager delegate, CacheTagIndex tagIndex,
+            Map<String, CacheTagResolver> tagResolvers) {
+        this.delegate = delegate;
+        this.tagIndex = tagIndex;
+        this.tagResolvers = tagResolvers;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cached = decoratedCaches.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return decoratedCaches.computeIfAbsent(name, key -> decorate(target));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    /**
+     * 失效带有任一指定标签的缓存条目
+     *
+     * @param tags 标签集合
+     * @return 失效的条目数
+     */
+    public int evictTags(Collection<String> tags) {
+        int evicted = 0;
+        for (String tag : tags) {
+            for (Map.Entry<String, Set<Object>> entry : tagIndex.removeTag(tag).entrySet()) {
+                Cache cache = getCache(entry.getKey());
+                if (cache == null) {
+                    continue;
+                }
+                for (Object key : entry.getValue()) {
+                    cache.evict(key);
+                    evicted++;
+                }
+            }
+        }
+        log.debug("按标签失效缓存 - Tags: {}, 条目数: {}", tags, evicted);
+        return evicted;
+    }
+
+    private Cache decorate(Cache target) {
+        CacheTagResolver resolver = tagResolvers.get(target.getName());
+        return resolver != null ? new TaggingCache(target, resolver, tagIndex) : target;
+    }
+}
@@ -0,0 +1,175 @@
+package com.vote.sihuibackend.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * TF-IDF向量的堆外编码
+ * 布局：词项数(int) + 向量模长(double) + 词项偏移表(int[]) + 按UTF-8字节序排列的词项(长度short + 字节 + 权重double)。
+ * 词项有序且有偏移表，计算相似度时可以直接在缓冲区上二分查找，无需反序列化整个向量。
+ *
+ * @author Sihui Team
+ */
+public final class TfIdfVectorCodec {
+
+    private static final int HEADER_BYTES = 4 + 8;
+
+    private TfIdfVectorCodec() {
+    }
+
+    /**
+     * 预先编码好的向量，先计算长度再写入缓冲区
+     */
+    public static final class Encoded {
+        private final byte[][] terms;
+        private final double[] weights;
+        private final double norm;
+        private final int length;
+
+        private Encoded(byte[][] terms, double[] weights, double norm, int length) {
+            this.terms = terms;
+            this.weights = weights;
+            this.norm = norm;
+            this.length = length;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public void writeTo(ByteBuffer buffer) {
+            buffer.putInt(terms.length);
+            buffer.putDouble(norm);
+            int offset = HEADER_BYTES + terms.length * 4;
+            for (byte[] term : terms) {
+                buffer.putInt(offset);
+                offset += 2 + term.length + 8;
+            }
+            for (int i = 0; i < terms.length; i++) {
+                buffer.putShort((short) terms[i].length);
+                buffer.put(terms[i]);
+                buffer.putDouble(weights[i]);
+            }
+        }
+    }
+
+    public static Encoded encode(Map<String, Double> vector) {
+        byte[][] terms = new byte[vector.size()][];
+        Map<byte[], Double> weightsByTerm = new IdentityHashMap<>(vector.size());
+        int index = 0;
+        for (Map.Entry<String, Double> entry : vector.entrySet()) {
+            byte[] term = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            if (term.length > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("词项过长: " + term.length);
+            }
+            terms[index++] = term;
+            weightsByTerm.put(term, entry.getValue() != null ? entry.getValue() : 0.0);
+        }
+        Arrays.sort(terms, TfIdfVectorCodec::compareBytes);
+
+        double[] weights = new double[terms.length];
+        double sumOfSquares = 0.0;
+        int length = HEADER_BYTES + terms.length * 4;
+        for (int i = 0; i < terms.length; i++) {
+            weights[i] = weightsByTerm.get(terms[i]);
+            sumOfSquares += weights[i] * weights[i];
+            length += 2 + terms[i].length + 8;
+        }
+        return new Encoded(terms, weights, Math.sqrt(sumOfSquares), length);
+    }
+
+    /**
+     * 完整反序列化为Map
+     */
+    public static Map<String, Double> decode(ByteBuffer buffer) {
+        int count = buffer.getInt(0);
+        Map<String, Double> vector = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            int offset = buffer.getInt(HEADER_BYTES + i * 4);
+            int termLength = buffer.getShort(offset);
+            byte[] term = new byte[termLength];
+            for (int j = 0; j < termLength; j++) {
+                term[j] = buffer.get(offset + 2 + j);
+            }
+            vector.put(new String(term, StandardCharsets.UTF_8), buffer.getDouble(offset + 2 + termLength));
+        }
+        return vector;
+    }
+
+    /**
+     * 直接在编码后的向量上计算与查询向量的余弦相似度
+     *
+     * @param buffer      编码后的文档向量
+     * @param queryVector 查询向量
+     * @return 余弦相似度
+     */
+    public static double cosineSimilarity(ByteBuffer buffer, Map<String, Double> queryVector) {
+        int count = buffer.getInt(0);
+        double norm = buffer.getDouble(4);
+        if (count == 0 || norm == 0.0 || queryVector.isEmpty()) {
+            return 0.0;
+        }
+
+        double dotProduct = 0.0;
+        double querySumOfSquares = 0.0;
+        for (Map.Entry<String, Double> entry : queryVector.entrySet()) {
+            double weight = entry.getValue() != null ? entry.getValue() : 0.0;
+            querySumOfSquares += weight * weight;
+            if (weight != 0.0) {
+                int offset = find(buffer, count, entry.getKey().getBytes(StandardCharsets.UTF_8));
+                if (offset >= 0) {
+                    dotProduct += weight * buffer.getDouble(offset + 2 + buffer.getShort(offset));
+                }
+            }
+        }
+        return querySumOfSquares > 0 ? dotProduct / (norm * Math.sqrt(querySumOfSquares)) : 0.0;
+    }
+
+    /**
+     * 二分查找词项，返回条目偏移，不存在时返回-1
+     */
+    private static int find(ByteBuffer buffer, int count, byte[] term) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int offset = buffer.getInt(HEADER_BYTES + mid * 4);
+            int cmp = compareTerm(buffer, offset, term);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private static int compareTerm(ByteBuffer buffer, int offset, byte[] term) {
+        int length = buffer.getShort(offset);
+        int common = Math.min(length, term.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = (buffer.get(offset + 2 + i) & 0xFF) - (term[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - term.length;
+    }
+
+    private static int compareBytes(byte[] a, byte[] b) {
+        int common = Math.min(a.length, b.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return a.length - b.length;
+    }
+}
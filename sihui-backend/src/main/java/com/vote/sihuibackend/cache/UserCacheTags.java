@@ -0,0 +1,149 @@
+package com.vote.sihuibackend.cache;
+
+import com.vote.sihuibackend.dto.UserResponse;
+import com.vote.sihuibackend.entity.User;
+
+import java.util.*;
+
+/**
+ * 用户相关缓存的标签定义
+ * 缓存条目按其依赖的用户ID、角色、状态和登录标识打标签，用户变更时只失效受影响的条目。
+ *
+ * @author Sihui Team
+ */
+public final class UserCacheTags {
+
+    /**
+     * 依赖用户全集的条目（全部用户列表、状态统计），用户新增、删除或状态变化时失效
+     */
+    public static final String USER_SET = "user-set";
+
+    private static final List<String> IDENTITY_KEY_PREFIXES = Arrays.asList(
+            "username:", "email:", "phone:", "login:", "loginAll:");
+
+    private UserCacheTags() {
+    }
+
+    public static String user(Long userId) {
+        return "user:" + userId;
+    }
+
+    public static String status(User.UserStatus status) {
+        return "status:" + status.name();
+    }
+
+    public static String role(Long roleId) {
+        return "role:" + roleId;
+    }
+
+    public static String roleName(String roleName) {
+        return "role-name:" + roleName;
+    }
+
+    /**
+     * 登录标识（用户名、邮箱、手机号）标签，覆盖按标识查询的缓存，包括查询结果为空的条目
+     */
+    public static String identity(String identifier) {
+        return "identity:" + identifier;
+    }
+
+    /**
+     * 创建用户相关缓存的标签解析器
+     *
+     * @return 缓存名称到解析器的映射
+     */
+    public static Map<String, CacheTagResolver> resolvers() {
+        Map<String, CacheTagResolver> resolvers = new HashMap<>();
+
+        resolvers.put("users", (key, value) -> {
+            Set<String> tags = valueTags(value);
+            String keyString = String.valueOf(key);
+            if (keyString.startsWith("id:")) {
+                tags.add("user:" + keyString.substring(3));
+            }
+            for (String prefix : IDENTITY_KEY_PREFIXES) {
+                if (keyString.startsWith(prefix)) {
+                    tags.add(identity(keyString.substring(prefix.length())));
+                    break;
+                }
+            }
+            return tags;
+        });
+        resolvers.put("usersByStatus", (key, value) -> {
+            Set<String> tags = valueTags(value);
+            tags.add("all".equals(key) ? USER_SET : "status:" + key);
+            return tags;
+        });
+        resolvers.put("usersByRole", (key, value) -> {
+            Set<String> tags = valueTags(value);
+            tags.add("role:" + key);
+            return tags;
+        });
+        resolvers.put("usersByRoleName", (key, value) -> {
+            Set<String> tags = valueTags(value);
+            tags.add(roleName(String.valueOf(key)));
+            return tags;
+        });
+        resolvers.put("userStats", (key, value) -> new HashSet<>(Collections.singleton(USER_SET)));
+
+        // 权限缓存的键以用户ID开头（"1_user:read"、"1_all"或1）
+        CacheTagResolver userKeyResolver = (key, value) -> {
+            String keyString = String.valueOf(key);
+            int separator = keyString.indexOf('_');
+            String userId = separator > 0 ? keyString.substring(0, separator) : keyString;
+            return new HashSet<>(Collections.singleton("user:" + userId));
+        };
+        resolvers.put("userPermissions", userKeyResolver);
+        resolvers.put("userPermissionCodes", userKeyResolver);
+        resolvers.put("userAdmin", userKeyResolver);
+
+        return resolvers;
+    }
+
+    /**
+     * 计算用户变更时需要失效的标签
+     *
+     * @param user 用户（变更前或变更后的状态）
+     * @return 标签集合
+     */
+    public static Set<String> tagsOf(User user) {
+        Set<String> tags = new HashSet<>();
+        tags.add(user(user.getId()));
+        if (user.getStatus() != null) {
+            tags.add(status(user.getStatus()));
+        }
+        addIdentity(tags, user.getUsername());
+        addIdentity(tags, user.getEmail());
+        addIdentity(tags, user.getPhone());
+        return tags;
+    }
+
+    private static void addIdentity(Set<String> tags, String identifier) {
+        if (identifier != null && !identifier.isEmpty()) {
+            tags.add(identity(identifier));
+        }
+    }
+
+    /**
+     * 从缓存值中收集用户ID标签，支持单个用户和用户列表
+     */
+    private static Set<String> valueTags(Object value) {
+        Set<String> tags = new HashSet<>();
+        if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                addValueTag(tags, element);
+            }
+        } else {
+            addValueTag(tags, value);
+        }
+        return tags;
+    }
+
+    private static void addValueTag(Set<String> tags, Object value) {
+        if (value instanceof User && ((User) value).getId() != null) {
+            tags.add(user(((User) value).getId()));
+        } else if (value instanceof UserResponse && ((UserResponse) value).getId() != null) {
+            tags.add(user(((UserResponse) value).getId()));
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.vote.sihuibackend.config;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 /**
@@ -15,6 +16,7 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 @EnableCaching
 @EnableAspectJAutoProxy
 @EnableTransactionManagement
+@EnableScheduling
 public class ApplicationConfig {
 
     // 其他配置Bean可以在这里添加
@@ -1,6 +1,7 @@
 package com.vote.sihuibackend.config;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -40,8 +41,8 @@ public class AsyncConfig {
         // 线程名前缀
         executor.setThreadNamePrefix("DocProcess-");
 
-        // 拒绝策略：调用者运行
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        // 拒绝策略：抛出异常，繁忙时不让请求线程执行上传解析；批量上传由调用线程自行处理剩余文件
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
 
         // 等待所有任务完成后再关闭线程池
         executor.setWaitForTasksToCompleteOnShutdown(true);
@@ -58,38 +59,35 @@ public class AsyncConfig {
     }
 
     /**
-     * 索引构建线程池
-     * 用于TF-IDF索引构建和更新
+     * 后台任务线程池
+     * 执行从processing_jobs表领取的任务（文档索引等），只按空闲线程数领取，不在内存中排队
      */
-    @Bean("indexBuildingExecutor")
-    public Executor indexBuildingExecutor() {
+    @Bean("processingJobExecutor")
+    public Executor processingJobExecutor(@Value("${app.jobs.concurrency:2}") int concurrency) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
 
-        // 核心线程数：较少，因为索引构建是CPU密集型任务
-        executor.setCorePoolSize(Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+        // 核心线程数与最大线程数：本实例同时执行的任务数
+        executor.setCorePoolSize(Math.max(1, concurrency));
+        executor.setMaxPoolSize(Math.max(1, concurrency));
 
-        // 最大线程数：CPU核心数
-        executor.setMaxPoolSize(Runtime.getRuntime().availableProcessors());
-
-        // 队列容量：200个任务
-        executor.setQueueCapacity(200);
+        // 不排队：任务留在数据库中，由有空闲线程的实例领取
+        executor.setQueueCapacity(0);
 
         // 线程名前缀
-        executor.setThreadNamePrefix("IndexBuild-");
+        executor.setThreadNamePrefix("ProcessingJob-");
 
-        // 拒绝策略：调用者运行
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        // 拒绝策略：抛出异常，已领取的任务放回队列
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
 
-        // 等待所有任务完成后再关闭线程池
+        // 等待执行中的任务完成后再关闭线程池，超时未完成的在租约过期后由其他实例重新执行
         executor.setWaitForTasksToCompleteOnShutdown(true);
 
-        // 等待时间120秒（索引构建可能需要更长时间）
-        executor.setAwaitTerminationSeconds(120);
+        // 等待时间60秒
+        executor.setAwaitTerminationSeconds(60);
 
         executor.initialize();
 
-        log.info("索引构建线程池初始化完成 - 核心线程数: {}, 最大线程数: {}",
-                executor.getCorePoolSize(), executor.getMaxPoolSize());
+        log.info("后台任务线程池初始化完成 - 线程数: {}", executor.getMaxPoolSize());
 
         return executor;
     }
@@ -131,6 +129,250 @@ public class AsyncConfig {
         return executor;
     }
 
+    /**
+     * 缓存刷新线程池
+     * 用于提前刷新缓存的后台重新加载，与业务线程池隔离
+     */
+    @Bean("cacheRefreshExecutor")
+    public Executor cacheRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        // 核心线程数：刷新任务是少量慢查询，2个线程足够
+        executor.setCorePoolSize(2);
+
+        // 最大线程数：4个
+        executor.setMaxPoolSize(4);
+
+        // 队列容量：50个任务
+        executor.setQueueCapacity(50);
+
+        // 线程名前缀
+        executor.setThreadNamePrefix("CacheRefresh-");
+
+        // 拒绝策略：抛出异常，由缓存装饰器继续返回旧值，不能让请求线程执行刷新
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+
+        // 关闭时不等待刷新任务，旧值仍在缓存中
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+
+        executor.initialize();
+
+        log.info("缓存刷新线程池初始化完成 - 核心线程数: {}, 最大线程数: {}",
+                executor.getCorePoolSize(), executor.getMaxPoolSize());
+
+        return executor;
+    }
+
+    /**
+     * 文档摄取上传线程池
+     * 流式摄取时OSS上传在独立线程消费有界管道，与请求线程上的解析并行
+     */
+    @Bean("ingestionUploadExecutor")
+    public Executor ingestionUploadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        // 核心线程数：4个
+        executor.setCorePoolSize(4);
+
+        // 最大线程数：16个，上传以网络等待为主
+        executor.setMaxPoolSize(16);
+
+        // 不排队：上传任务必须立即开始消费管道，否则生产方会阻塞
+        executor.setQueueCapacity(0);
+
+        // 线程名前缀
+        executor.setThreadNamePrefix("IngestUpload-");
+
+        // 拒绝策略：抛出异常，由摄取管道退回到先解析后上传的顺序处理
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+
+        // 等待上传完成后再关闭线程池
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+
+        // 等待时间60秒
+        executor.setAwaitTerminationSeconds(60);
+
+        executor.initialize();
+
+        log.info("文档摄取上传线程池初始化完成 - 核心线程数: {}, 最大线程数: {}",
+                executor.getCorePoolSize(), executor.getMaxPoolSize());
+
+        return executor;
+    }
+
+    /**
+     * 文档文本抽取线程池
+     * PDF、Office文档的文本抽取在独立线程中执行，调用方按时间预算等待，超时后取消
+     */
+    @Bean("documentExtractionExecutor")
+    public Executor documentExtractionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        // 核心线程数：CPU核心数，文本抽取是CPU密集型任务
+        executor.setCorePoolSize(Runtime.getRuntime().availableProcessors());
+
+        // 最大线程数：CPU核心数
+        executor.setMaxPoolSize(Runtime.getRuntime().availableProcessors());
+
+        // 队列容量：50个文件
+        executor.setQueueCapacity(50);
+
+        // 线程名前缀
+        executor.setThreadNamePrefix("DocExtract-");
+
+        // 拒绝策略：抛出异常，由摄取管道在调用线程中抽取（仍受检查点超时限制）
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+
+        // 关闭时不等待抽取任务，未完成的上传会因抽取失败而清理
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+
+        executor.initialize();
+
+        log.info("文档文本抽取线程池初始化完成 - 核心线程数: {}, 最大线程数: {}",
+                executor.getCorePoolSize(), executor.getMaxPoolSize());
+
+        return executor;
+    }
+
+    /**
+     * OSS分片上传线程池
+     * 所有分片上传共享，限制同时占用的网络连接数
+     */
+    @Bean("ossMultipartExecutor")
+    public Executor ossMultipartExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        // 核心线程数：8个
+        executor.setCorePoolSize(8);
+
+        // 最大线程数：8个，分片上传以网络等待为主，线程数即并发连接数
+        executor.setMaxPoolSize(8);
+
+        // 队列容量：32个分片，每个上传任务自身还限制在途分片数
+        executor.setQueueCapacity(32);
+
+        // 线程名前缀
+        executor.setThreadNamePrefix("OssPart-");
+
+        // 拒绝策略：调用者运行，由读取分片的线程自己上传，形成背压
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+
+        // 等待分片上传完成后再关闭线程池
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+
+        // 等待时间60秒
+        executor.setAwaitTerminationSeconds(60);
+
+        executor.initialize();
+
+        log.info("OSS分片上传线程池初始化完成 - 核心线程数: {}, 最大线程数: {}",
+                executor.getCorePoolSize(), executor.getMaxPoolSize());
+
+        return executor;
+    }
+
+    /**
+     * 知识增强问答线程池
+     * 一次问答的查询分析、检索、会话历史加载等阶段在其中并行执行
+     */
+    @Bean("knowledgeChatExecutor")
+    public Executor knowledgeChatExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        // 核心线程数：8个
+        executor.setCorePoolSize(8);
+
+        // 最大线程数：32个，各阶段以等待AI接口和数据库为主
+        executor.setMaxPoolSize(32);
+
+        // 队列容量：64个阶段任务
+        executor.setQueueCapacity(64);
+
+        // 线程名前缀
+        executor.setThreadNamePrefix("KnowledgeChat-");
+
+        // 拒绝策略：调用者运行，线程池满时退化为在请求线程中顺序执行
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+
+        // 超时被丢弃的阶段无需等待
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+
+        executor.initialize();
+
+        log.info("知识增强问答线程池初始化完成 - 核心线程数: {}, 最大线程数: {}",
+                executor.getCorePoolSize(), executor.getMaxPoolSize());
+
+        return executor;
+    }
+
+    /**
+     * AI流式对话线程池
+     * 每个流式回复占用一个线程读取上游响应并推送给客户端，线程数即同时进行的流式对话数
+     */
+    @Bean("aiStreamingExecutor")
+    public Executor aiStreamingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        // 核心线程数：8个
+        executor.setCorePoolSize(8);
+
+        // 最大线程数：32个，读取上游响应以网络等待为主
+        executor.setMaxPoolSize(32);
+
+        // 队列容量：16个，排队过久首个分片就会明显变慢
+        executor.setQueueCapacity(16);
+
+        // 线程名前缀
+        executor.setThreadNamePrefix("AiStream-");
+
+        // 拒绝策略：直接拒绝，由控制器返回服务繁忙，不占用请求线程
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+
+        // 关闭时不等待进行中的流式回复，客户端连接会随服务停止断开
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+
+        executor.initialize();
+
+        log.info("AI流式对话线程池初始化完成 - 核心线程数: {}, 最大线程数: {}",
+                executor.getCorePoolSize(), executor.getMaxPoolSize());
+
+        return executor;
+    }
+
+    /**
+     * 会话摘要线程池
+     * 每轮对话后在后台把超出上下文预算的早期消息折叠进会话摘要
+     */
+    @Bean("chatSummaryExecutor")
+    public Executor chatSummaryExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        // 核心线程数：2个
+        executor.setCorePoolSize(2);
+
+        // 最大线程数：4个，摘要是低优先级的AI调用，不与对话争抢上游配额
+        executor.setMaxPoolSize(4);
+
+        // 队列容量：100个任务
+        executor.setQueueCapacity(100);
+
+        // 线程名前缀
+        executor.setThreadNamePrefix("ChatSummary-");
+
+        // 拒绝策略：丢弃，未折叠的消息会在该会话下一轮对话后重新摘要
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+
+        // 关闭时不等待摘要任务
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+
+        executor.initialize();
+
+        log.info("会话摘要线程池初始化完成 - 核心线程数: {}, 最大线程数: {}",
+                executor.getCorePoolSize(), executor.getMaxPoolSize());
+
+        return executor;
+    }
+
     /**
      * 默认异步执行器
      * 用于其他一般性异步任务
@@ -0,0 +1,147 @@
+package com.vote.sihuibackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 缓存策略配置类
+ * 按缓存名称配置刷新策略，对Redis和内存缓存管理器同时生效
+ *
+ * @author Sihui Team
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.cache")
+@Data
+public class CachePolicyProperties {
+
+    /**
+     * 提前刷新（stale-while-revalidate）配置
+     */
+    private RefreshAhead refreshAhead = new RefreshAhead();
+
+    /**
+     * Redis缓存值序列化配置
+     */
+    private Serializer serializer = new Serializer();
+
+    /**
+     * 检索派生数据（TF-IDF向量、IDF值、相似度）的堆外存储配置
+     */
+    private OffHeap offHeap = new OffHeap();
+
+    @Data
+    public static class RefreshAhead {
+
+        /**
+         * 是否启用提前刷新
+         */
+        private boolean enabled = true;
+
+        /**
+         * 按缓存名称配置的刷新策略
+         */
+        private Map<String, Policy> policies = new LinkedHashMap<>();
+    }
+
+    @Data
+    public static class Serializer {
+
+        /**
+         * 序列化格式：compact（紧凑二进制）或 json（带类名的JSON）
+         */
+        private String type = "compact";
+
+        /**
+         * 压缩阈值（字节），紧凑编码后达到该大小的值使用Deflate压缩
+         */
+        private int compressionThreshold = 1024;
+
+        public boolean isCompact() {
+            return "compact".equalsIgnoreCase(type);
+        }
+    }
+
+    @Data
+    public static class OffHeap {
+
+        /**
+         * 是否启用堆外存储
+         */
+        private boolean enabled = true;
+
+        /**
+         * 按区域名称（tfidf-vectors）配置的堆外存储，未配置的区域保留在堆内
+         */
+        private Map<String, Region> regions = new LinkedHashMap<>();
+    }
+
+    @Data
+    public static class Region {
+
+        /**
+         * 区域总容量
+         */
+        private DataSize capacity = DataSize.ofMegabytes(64);
+
+        /**
+         * 单个slab大小，也是单个条目的最大长度
+         */
+        private DataSize slabSize = DataSize.ofMegabytes(4);
+
+        /**
+         * 最多保存的条目数，每个条目的索引仍占用堆内存
+         */
+        private int maxEntries = 10000;
+
+        /**
+         * 内存映射文件目录，为空时使用直接内存
+         */
+        private String mappedDirectory;
+    }
+
+    @Data
+    public static class Policy {
+
+        /**
+         * 软过期时间：超过后仍返回旧值，同时在后台重新加载
+         */
+        private Duration softTtl = Duration.ofMinutes(5);
+
+        /**
+         * 硬过期时间：超过后条目被淘汰，请求同步加载
+         */
+        private Duration hardTtl = Duration.ofMinutes(30);
+    }
+
+    /**
+     * 获取指定缓存的刷新策略
+     *
+     * @param cacheName 缓存名称
+     * @return 刷新策略，未启用或未配置时返回null
+     */
+    public Policy getRefreshPolicy(String cacheName) {
+        if (!refreshAhead.isEnabled()) {
+            return null;
+        }
+        return refreshAhead.getPolicies().get(cacheName);
+    }
+
+    /**
+     * 获取指定区域的堆外存储配置
+     *
+     * @param regionName 区域名称
+     * @return 堆外存储配置，未启用或未配置时返回null（使用堆内存储）
+     */
+    public Region getOffHeapRegion(String regionName) {
+        if (!offHeap.isEnabled()) {
+            return null;
+        }
+        return offHeap.getRegions().get(regionName);
+    }
+}
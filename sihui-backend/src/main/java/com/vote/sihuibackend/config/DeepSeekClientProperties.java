@@ -0,0 +1,117 @@
+package com.vote.sihuibackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * DeepSeek HTTP客户端配置类
+ * 连接池、超时、重试和熔断参数
+ *
+ * @author Sihui Team
+ */
+@Configuration
+@ConfigurationProperties(prefix = "deepseek.client")
+@Data
+public class DeepSeekClientProperties {
+
+    /**
+     * 连接池最大连接数（只访问一个主机，同时也是单路由上限）
+     */
+    private int maxConnections = 50;
+
+    /**
+     * 建立连接超时
+     */
+    private Duration connectTimeout = Duration.ofSeconds(3);
+
+    /**
+     * 从连接池获取连接的等待时间，连接耗尽时快速失败而不是阻塞请求线程
+     */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(2);
+
+    /**
+     * 读取超时（两次收到数据之间的最长间隔）
+     */
+    private Duration readTimeout = Duration.ofSeconds(60);
+
+    /**
+     * 非流式调用的总时长上限，包括所有重试和等待
+     */
+    private Duration totalTimeout = Duration.ofSeconds(90);
+
+    /**
+     * 空闲连接的保活时间，服务端未声明Keep-Alive时使用，声明更长时也以此为上限
+     */
+    private Duration keepAlive = Duration.ofSeconds(30);
+
+    /**
+     * 重试配置
+     */
+    private Retry retry = new Retry();
+
+    /**
+     * 熔断配置
+     */
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    @Data
+    public static class Retry {
+
+        /**
+         * 最多尝试次数（含首次）
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * 首次重试的退避上限，之后每次翻倍，实际等待时间在0到上限之间随机
+         */
+        private Duration initialBackoff = Duration.ofMillis(500);
+
+        /**
+         * 退避上限
+         */
+        private Duration maxBackoff = Duration.ofSeconds(8);
+
+        /**
+         * 服务端Retry-After超过该值时不再重试
+         */
+        private Duration maxRetryAfter = Duration.ofSeconds(20);
+    }
+
+    @Data
+    public static class CircuitBreaker {
+
+        /**
+         * 是否启用熔断
+         */
+        private boolean enabled = true;
+
+        /**
+         * 统计失败率的最近调用数
+         */
+        private int windowSize = 20;
+
+        /**
+         * 窗口内至少有这么多次调用才计算失败率
+         */
+        private int minimumCalls = 10;
+
+        /**
+         * 打开熔断的失败率（0-1）
+         */
+        private double failureRateThreshold = 0.5;
+
+        /**
+         * 熔断打开后拒绝调用的时长，之后放行少量试探调用
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * 半开状态下放行的试探调用数，全部成功后关闭熔断
+         */
+        private int halfOpenCalls = 2;
+    }
+}
@@ -0,0 +1,40 @@
+package com.vote.sihuibackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 文档文本抽取配置类
+ * 限制PDF、Word、PowerPoint文档抽取文本时单个文件占用的时间和内存
+ *
+ * @author Sihui Team
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.document.extraction")
+@Data
+public class DocumentExtractionProperties {
+
+    /**
+     * 单个文件的抽取时间上限
+     */
+    private Duration timeout = Duration.ofSeconds(60);
+
+    /**
+     * 解析PDF时可占用的堆内存，超出部分使用临时文件
+     */
+    private DataSize maxMemory = DataSize.ofMegabytes(32);
+
+    /**
+     * 单个文件抽取出的最大字符数
+     */
+    private int maxChars = 5_000_000;
+
+    /**
+     * Office文档中单个XML部件解压后的最大大小，防止压缩炸弹
+     */
+    private DataSize maxEntrySize = DataSize.ofMegabytes(256);
+}
@@ -0,0 +1,71 @@
+package com.vote.sihuibackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 大模型调用网关配置类
+ * 全局并发、每用户和每会话的进行中调用数，以及排队上限
+ *
+ * @author Sihui Team
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.ai.gateway")
+@Data
+public class LlmGatewayProperties {
+
+    /**
+     * 是否启用网关，关闭后直接调用上游
+     */
+    private boolean enabled = true;
+
+    /**
+     * 同时进行的上游调用总数
+     */
+    private int maxConcurrent = 16;
+
+    /**
+     * 后台调用（查询分析、重排序、会话摘要等）最多占用的并发数，为交互式对话保留余量
+     */
+    private int maxBackgroundConcurrent = 4;
+
+    /**
+     * 每个用户同时进行的调用数
+     */
+    private int maxPerUser = 2;
+
+    /**
+     * 每个会话同时进行的交互式调用数
+     */
+    private int maxPerSession = 1;
+
+    /**
+     * 全局排队上限，超过后直接拒绝
+     */
+    private int maxQueueSize = 200;
+
+    /**
+     * 每个用户最多排队的调用数
+     */
+    private int maxQueuedPerUser = 4;
+
+    /**
+     * 排队的最长等待时间
+     */
+    private Duration maxWait = Duration.ofSeconds(15);
+
+    /**
+     * 轮询时每个用户每轮可连续获得的调用数
+     */
+    private int defaultWeight = 1;
+
+    /**
+     * 按调用方设置的权重，键为调用方标识（如 user:1）
+     */
+    private Map<String, Integer> weights = new HashMap<>();
+}
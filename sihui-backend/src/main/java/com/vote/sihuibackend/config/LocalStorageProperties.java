@@ -0,0 +1,71 @@
+package com.vote.sihuibackend.config;
+
+import lombok.Data;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 本地文件存储配置类
+ * app.storage.type=local 时启用，替代阿里云OSS用于私有化部署和离线测试
+ *
+ * @author Sihui Team
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "local")
+@ConfigurationProperties(prefix = "app.storage.local")
+@Data
+public class LocalStorageProperties {
+
+    /**
+     * 存储根目录
+     */
+    private String rootDir = "./storage";
+
+    /**
+     * 文件访问URL前缀，由本地文件下载接口提供服务
+     */
+    private String baseUrl = "/api/public/files";
+
+    /**
+     * 最大文件大小
+     */
+    private DataSize maxFileSize = DataSize.ofMegabytes(50);
+
+    /**
+     * 允许的文件类型（逗号分隔）
+     */
+    private String allowedFileTypes = "mp4,avi,mov,wmv,flv,mkv,pdf,doc,docx,ppt,pptx,xls,xlsx,txt,jpg,jpeg,png,gif";
+
+    /**
+     * 分块上传的分片大小
+     */
+    private DataSize partSize = DataSize.ofMegabytes(2);
+
+    /**
+     * 分块上传会话的保留时间，超过该时间没有上传分片的会话连同已上传的分片一起清理
+     */
+    private Duration multipartTtl = Duration.ofHours(24);
+
+    /**
+     * 签名URL的HMAC密钥，为空时每次启动随机生成（重启后旧签名失效）
+     */
+    private String signingSecret;
+
+    /**
+     * 是否要求所有下载都携带有效签名；关闭时与公共读的OSS存储桶行为一致
+     */
+    private boolean requireSignature = false;
+
+    /**
+     * 获取允许的文件类型列表
+     */
+    public List<String> getAllowedFileTypesList() {
+        return Arrays.asList(allowedFileTypes.toLowerCase().split(","));
+    }
+}
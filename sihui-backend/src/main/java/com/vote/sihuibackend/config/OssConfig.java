@@ -3,6 +3,7 @@ package com.vote.sihuibackend.config;
 import com.aliyun.oss.OSS;
 import com.aliyun.oss.OSSClientBuilder;
 import lombok.Data;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -19,6 +20,7 @@ import java.util.List;
  * @author Sihui Team
  */
 @Configuration
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "oss", matchIfMissing = true)
 @ConfigurationProperties(prefix = "aliyun.oss")
 @Data
 @Validated
@@ -65,6 +67,36 @@ public class OssConfig {
     @NotBlank(message = "允许的文件类型不能为空")
     private String allowedFileTypes;
 
+    /**
+     * 超过该大小的文件使用分片并发上传（如：8MB）
+     */
+    private String multipartThreshold = "8MB";
+
+    /**
+     * 分片大小（如：2MB），OSS要求除最后一片外不小于100KB
+     */
+    private String multipartPartSize = "2MB";
+
+    /**
+     * 单个文件同时上传的分片数
+     */
+    private int multipartParallelism = 4;
+
+    /**
+     * 单个分片失败后的重试次数
+     */
+    private int multipartPartRetries = 3;
+
+    /**
+     * 分片上传断点文件目录
+     */
+    private String multipartCheckpointDir = System.getProperty("java.io.tmpdir") + "/sihui-oss-checkpoints";
+
+    /**
+     * 断点保留时长（小时），超时未完成的分片上传会被中止
+     */
+    private int multipartCheckpointTtlHours = 24;
+
     /**
      * 创建OSS客户端Bean
      */
@@ -84,7 +116,29 @@ public class OssConfig {
      * 获取最大文件大小（字节）
      */
     public long getMaxFileSizeInBytes() {
-        String size = maxFileSize.toUpperCase();
+        // 默认100MB
+        return parseSize(maxFileSize, 100 * 1024 * 1024);
+    }
+
+    /**
+     * 获取分片上传阈值（字节）
+     */
+    public long getMultipartThresholdInBytes() {
+        return parseSize(multipartThreshold, 8 * 1024 * 1024);
+    }
+
+    /**
+     * 获取分片大小（字节）
+     */
+    public int getMultipartPartSizeInBytes() {
+        return (int) Math.max(100 * 1024, parseSize(multipartPartSize, 2 * 1024 * 1024));
+    }
+
+    private static long parseSize(String value, long defaultBytes) {
+        if (value == null || value.trim().isEmpty()) {
+            return defaultBytes;
+        }
+        String size = value.toUpperCase();
         long multiplier = 1;
 
         if (size.endsWith("KB")) {
@@ -101,8 +155,7 @@ public class OssConfig {
         try {
             return Long.parseLong(size.trim()) * multiplier;
         } catch (NumberFormatException e) {
-            // 默认100MB
-            return 100 * 1024 * 1024;
+            return defaultBytes;
         }
     }
 
@@ -1,5 +1,10 @@
 package com.vote.sihuibackend.config;
 
+import com.vote.sihuibackend.cache.InMemoryCacheTagIndex;
+import com.vote.sihuibackend.cache.RefreshAheadCacheManager;
+import com.vote.sihuibackend.cache.TaggingCacheManager;
+import com.vote.sihuibackend.cache.UserCacheTags;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -30,14 +35,18 @@ public class PerformanceConfig {
      */
     @Bean("memoryCacheManager")
     @ConditionalOnMissingBean(CacheManager.class)
-    public CacheManager memoryCacheManager() {
-        return new ConcurrentMapCacheManager(
+    public CacheManager memoryCacheManager(CachePolicyProperties cachePolicyProperties,
+            @Qualifier("cacheRefreshExecutor") Executor cacheRefreshExecutor) {
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(
                 "users", "usersByStatus", "usersByRole", "usersByRoleName", "userStats",
                 "userPermissions", "userPermissionCodes", "rolePermissions", "userAdmin",
                 "documents", "documentsByStatus", "documentsByCategory", "documentsByCategoryStatus",
                 "publicDocuments", "documentsByUploader", "similarDocuments", "documentStats",
                 "recentDocuments", "popularDocuments", "documentsByFileType",
-                "questionnaireStats", "questionnaireAnalysis", "reportTemplates");
+                "questionnaireStats", "questionnaireAnalysis", "reportTemplates", "aiResponses");
+        return new TaggingCacheManager(
+                new RefreshAheadCacheManager(cacheManager, cachePolicyProperties, cacheRefreshExecutor),
+                new InMemoryCacheTagIndex(), UserCacheTags.resolvers());
     }
 
     /**
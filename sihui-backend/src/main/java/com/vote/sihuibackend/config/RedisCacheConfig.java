@@ -6,7 +6,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.type.CollectionType;
 import com.fasterxml.jackson.databind.type.MapType;
 import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.vote.sihuibackend.cache.CacheSchemaRegistry;
+import com.vote.sihuibackend.cache.CompactRedisSerializer;
+import com.vote.sihuibackend.cache.RedisCacheTagIndex;
+import com.vote.sihuibackend.cache.RefreshAheadCacheManager;
+import com.vote.sihuibackend.cache.TaggingCacheManager;
+import com.vote.sihuibackend.cache.UserCacheTags;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
@@ -22,14 +29,17 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 
 /**
  * Redis缓存配置类
@@ -50,6 +60,9 @@ public class RedisCacheConfig extends CachingConfigurerSupport {
     @Value("${spring.cache.redis.key-prefix:sihui:cache:}")
     private String keyPrefix;
 
+    @Value("${app.ai.cache.ttl:PT1H}")
+    private Duration aiResponseTtl;
+
     /**
      * 自定义键生成器
      */
@@ -112,23 +125,29 @@ public class RedisCacheConfig extends CachingConfigurerSupport {
 
     /**
      * Redis缓存管理器
+     * 配置了提前刷新策略的缓存由 {@link RefreshAheadCacheManager} 包装，
+     * 用户相关缓存由 {@link TaggingCacheManager} 按实体标签登记，支持精确失效
      */
     @Bean
     @Primary
-    public CacheManager redisCacheManager(RedisConnectionFactory redisConnectionFactory) {
+    public CacheManager redisCacheManager(RedisConnectionFactory redisConnectionFactory,
+            CachePolicyProperties cachePolicyProperties,
+            @Qualifier("cacheRefreshExecutor") Executor cacheRefreshExecutor) {
         // 创建自定义的JSON序列化器
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
         objectMapper.enableDefaultTyping(ObjectMapper.DefaultTyping.NON_FINAL);
 
         GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+        RedisSerializer<Object> valueSerializer = createValueSerializer(jsonSerializer,
+                cachePolicyProperties.getSerializer());
 
         // 默认缓存配置
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(defaultTtl)
                 .serializeKeysWith(
                         RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(jsonSerializer))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer))
                 .computePrefixWith(cacheName -> keyPrefix + cacheName + ":")
                 .disableCachingNullValues();
 
@@ -139,11 +158,49 @@ public class RedisCacheConfig extends CachingConfigurerSupport {
         // 为不同业务场景配置不同的缓存策略
         Map<String, RedisCacheConfiguration> cacheConfigurations = createCacheConfigurations(defaultConfig);
 
-        return RedisCacheManager.builder(redisConnectionFactory)
+        // 提前刷新的缓存在Redis中保留到硬过期时间，软过期由装饰器判断
+        for (String cacheName : cachePolicyProperties.getRefreshAhead().getPolicies().keySet()) {
+            CachePolicyProperties.Policy policy = cachePolicyProperties.getRefreshPolicy(cacheName);
+            if (policy != null) {
+                cacheConfigurations.put(cacheName, defaultConfig.entryTtl(policy.getHardTtl()));
+            }
+        }
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
                 .transactionAware() // 支持事务
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        // 标签集合保留到被标记缓存中最长的过期时间
+        Duration tagTtl = defaultTtl;
+        for (RedisCacheConfiguration configuration : cacheConfigurations.values()) {
+            if (configuration.getTtl().compareTo(tagTtl) > 0) {
+                tagTtl = configuration.getTtl();
+            }
+        }
+        StringRedisTemplate tagRedisTemplate = new StringRedisTemplate(redisConnectionFactory);
+        RedisCacheTagIndex tagIndex = new RedisCacheTagIndex(tagRedisTemplate, keyPrefix + "tags:", tagTtl);
+
+        return new TaggingCacheManager(
+                new RefreshAheadCacheManager(redisCacheManager, cachePolicyProperties, cacheRefreshExecutor),
+                tagIndex, UserCacheTags.resolvers());
+    }
+
+    /**
+     * 创建缓存值序列化器
+     * compact格式仍能读取旧的JSON条目，切换格式无需清空Redis
+     */
+    private RedisSerializer<Object> createValueSerializer(GenericJackson2JsonRedisSerializer jsonSerializer,
+            CachePolicyProperties.Serializer serializerProperties) {
+        if (!serializerProperties.isCompact()) {
+            log.info("缓存值序列化格式: JSON");
+            return jsonSerializer;
+        }
+        log.info("缓存值序列化格式: 紧凑二进制, 压缩阈值: {} 字节", serializerProperties.getCompressionThreshold());
+        return new CompactRedisSerializer(CacheSchemaRegistry.defaultRegistry(),
+                serializerProperties.getCompressionThreshold(), jsonSerializer);
     }
 
     /**
@@ -185,8 +242,8 @@ public class RedisCacheConfig extends CachingConfigurerSupport {
         configurations.put("questionnaireAnalysis", defaultConfig.entryTtl(Duration.ofMinutes(30)));
         configurations.put("reportTemplates", defaultConfig.entryTtl(Duration.ofHours(2)));
 
-        // AI相关缓存 - 1小时，计算成本较高
-        configurations.put("aiResponses", defaultConfig.entryTtl(Duration.ofHours(1)));
+        // AI相关缓存 - 1小时，计算成本较高；回复缓存与本地缓存使用相同的过期时间
+        configurations.put("aiResponses", defaultConfig.entryTtl(aiResponseTtl));
         configurations.put("documentVectors", defaultConfig.entryTtl(Duration.ofHours(2)));
         configurations.put("similarityResults", defaultConfig.entryTtl(Duration.ofMinutes(30)));
 
@@ -0,0 +1,71 @@
+package com.vote.sihuibackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 检索结果重排序配置类
+ * 本地重排序按各特征的加权和打分，各特征取值均归一化到0-1
+ *
+ * @author Sihui Team
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.ai.rerank")
+@Data
+public class RerankProperties {
+
+    public static final String MODE_LOCAL = "local";
+    public static final String MODE_LLM = "llm";
+    public static final String MODE_NONE = "none";
+
+    /**
+     * 重排序方式：local（本地特征打分）、llm（调用大模型）、none（保持检索顺序）
+     */
+    private String mode = MODE_LOCAL;
+
+    /**
+     * 检索相关性（TF-IDF）权重
+     */
+    private double tfidfWeight = 0.45;
+
+    /**
+     * 标题命中查询词的权重
+     */
+    private double titleWeight = 0.2;
+
+    /**
+     * 文档关键词命中查询词的权重
+     */
+    private double keywordWeight = 0.15;
+
+    /**
+     * 查询词在正文中彼此靠近程度的权重
+     */
+    private double proximityWeight = 0.1;
+
+    /**
+     * 查询词在正文中首次出现位置的权重，越靠前越高
+     */
+    private double positionWeight = 0.05;
+
+    /**
+     * 文档热度（浏览、下载次数）的权重
+     */
+    private double popularityWeight = 0.05;
+
+    /**
+     * 邻近度窗口（字符数），所有命中的查询词落在该窗口内时邻近度为满分
+     */
+    private int proximityWindow = 40;
+
+    /**
+     * 首次出现位置的衰减范围（字符数），超过该位置才出现的得分为0
+     */
+    private int positionHorizon = 2000;
+
+    /**
+     * 每个文档最多扫描的正文字符数
+     */
+    private int maxScanChars = 20000;
+}
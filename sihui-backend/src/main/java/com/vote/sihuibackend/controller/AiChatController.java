@@ -1,5 +1,9 @@
 package com.vote.sihuibackend.controller;
 
+import com.vote.sihuibackend.llm.ChatCompletionResult;
+import com.vote.sihuibackend.llm.LlmCallContext;
+import com.vote.sihuibackend.llm.LlmGatewayRejectedException;
+import com.vote.sihuibackend.security.UserPrincipal;
 import com.vote.sihuibackend.service.ChatMemoryService;
 import com.vote.sihuibackend.service.DeepSeekService;
 import com.vote.sihuibackend.service.KnowledgeEnhancedChatService;
@@ -9,14 +13,28 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * AI聊天控制器
@@ -31,13 +49,22 @@ public class AiChatController {
     private final DeepSeekService deepSeekService;
     private final ChatMemoryService chatMemoryService;
     private final KnowledgeEnhancedChatService knowledgeEnhancedChatService;
+    private final Executor aiStreamingExecutor;
+
+    /**
+     * 流式回复的最长时间（毫秒）
+     */
+    @Value("${app.ai.stream.timeout-ms:120000}")
+    private long streamTimeoutMs = 120000;
 
     @Autowired
     public AiChatController(DeepSeekService deepSeekService, ChatMemoryService chatMemoryService,
-            KnowledgeEnhancedChatService knowledgeEnhancedChatService) {
+            KnowledgeEnhancedChatService knowledgeEnhancedChatService,
+            @Qualifier("aiStreamingExecutor") Executor aiStreamingExecutor) {
         this.deepSeekService = deepSeekService;
         this.chatMemoryService = chatMemoryService;
         this.knowledgeEnhancedChatService = knowledgeEnhancedChatService;
+        this.aiStreamingExecutor = aiStreamingExecutor;
     }
 
     /**
@@ -64,15 +91,24 @@ public class AiChatController {
             }
 
             // 调用DeepSeek API
-            String aiResponse = deepSeekService.chat(message.trim());
+            ChatCompletionResult result;
+            try (LlmCallContext.Scope ignored = LlmCallContext.open(callContext(null, null))) {
+                result = deepSeekService.complete(message.trim(), null);
+            }
+            String aiResponse = result.getContent();
 
             response.put("success", true);
             response.put("message", "请求成功");
             response.put("data", aiResponse);
+            response.put("cached", result.isCached());
 
             log.info("AI回复: {}", aiResponse);
             return ResponseEntity.ok(response);
 
+        } catch (LlmGatewayRejectedException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
         } catch (IOException e) {
             log.error("AI聊天服务调用失败", e);
             response.put("success", false);
@@ -110,17 +146,26 @@ public class AiChatController {
             }
 
             // 调用DeepSeek API
-            String aiResponse = deepSeekService.chat(
-                    chatRequest.getMessage().trim(),
-                    chatRequest.getHistory());
+            ChatCompletionResult result;
+            try (LlmCallContext.Scope ignored = LlmCallContext.open(callContext(null, null))) {
+                result = deepSeekService.complete(
+                        chatRequest.getMessage().trim(),
+                        chatRequest.getHistory());
+            }
+            String aiResponse = result.getContent();
 
             response.put("success", true);
             response.put("message", "请求成功");
             response.put("data", aiResponse);
+            response.put("cached", result.isCached());
 
             log.info("AI回复: {}", aiResponse);
             return ResponseEntity.ok(response);
 
+        } catch (LlmGatewayRejectedException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
         } catch (IOException e) {
             log.error("AI聊天服务调用失败", e);
             response.put("success", false);
@@ -189,10 +234,14 @@ public class AiChatController {
             }
 
             // 调用带记忆的DeepSeek API
-            String aiResponse = deepSeekService.chatWithMemory(
-                    memoryRequest.getUserId(),
-                    memoryRequest.getMessage().trim(),
-                    memoryRequest.getSessionId());
+            String aiResponse;
+            try (LlmCallContext.Scope ignored = LlmCallContext.open(
+                    callContext(memoryRequest.getUserId(), memoryRequest.getSessionId()))) {
+                aiResponse = deepSeekService.chatWithMemory(
+                        memoryRequest.getUserId(),
+                        memoryRequest.getMessage().trim(),
+                        memoryRequest.getSessionId());
+            }
 
             response.put("success", true);
             response.put("message", "请求成功");
@@ -201,6 +250,14 @@ public class AiChatController {
             log.info("记忆聊天AI回复: {}", aiResponse);
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (LlmGatewayRejectedException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
         } catch (IOException e) {
             log.error("记忆聊天服务调用失败", e);
             response.put("success", false);
@@ -214,6 +271,157 @@ public class AiChatController {
         }
     }
 
+    /**
+     * 流式对话聊天接口
+     * 以Server-Sent Events推送回复：每个文本分片一个token事件，结束时发送done事件，失败时发送error事件
+     * 
+     * @param chatRequest 聊天请求对象
+     * @return 事件流
+     */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "流式对话聊天", description = "以SSE逐段推送AI回复，可包含对话历史")
+    public ResponseEntity<SseEmitter> streamChat(@RequestBody ChatRequest chatRequest) {
+        if (chatRequest.getMessage() == null || chatRequest.getMessage().trim().isEmpty()) {
+            return errorStream(HttpStatus.BAD_REQUEST, "消息内容不能为空");
+        }
+        log.info("收到流式聊天请求: {}", chatRequest.getMessage());
+
+        String message = chatRequest.getMessage().trim();
+        return startStream(null, callContext(null, null),
+                onToken -> deepSeekService.streamChat(message, chatRequest.getHistory(), onToken));
+    }
+
+    /**
+     * 流式带记忆的聊天接口
+     * 事件格式同流式对话聊天接口，完整回复在流正常结束后保存到会话
+     * 
+     * @param memoryRequest 带记忆的聊天请求
+     * @return 事件流
+     */
+    @PostMapping(value = "/chat/memory/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "流式智能记忆聊天", description = "以SSE逐段推送AI回复，自动管理对话历史")
+    public ResponseEntity<SseEmitter> streamChatWithMemory(@RequestBody MemoryRequest memoryRequest) {
+        if (memoryRequest.getUserId() == null) {
+            return errorStream(HttpStatus.BAD_REQUEST, "用户ID不能为空");
+        }
+        if (memoryRequest.getMessage() == null || memoryRequest.getMessage().trim().isEmpty()) {
+            return errorStream(HttpStatus.BAD_REQUEST, "消息内容不能为空");
+        }
+        log.info("收到流式记忆聊天请求 - 用户: {}, 消息: {}", memoryRequest.getUserId(), memoryRequest.getMessage());
+
+        String sessionId = memoryRequest.getSessionId();
+        if (sessionId == null || sessionId.trim().isEmpty()) {
+            sessionId = chatMemoryService.getOrCreateDefaultSession(memoryRequest.getUserId());
+        } else if (!chatMemoryService.isSessionOwnedBy(sessionId, memoryRequest.getUserId())) {
+            return errorStream(HttpStatus.BAD_REQUEST, "会话不存在或不属于当前用户");
+        }
+        String actualSessionId = sessionId;
+        String message = memoryRequest.getMessage().trim();
+        return startStream(actualSessionId, callContext(memoryRequest.getUserId(), actualSessionId),
+                onToken -> deepSeekService.streamChatWithMemory(actualSessionId, message, onToken));
+    }
+
+    /**
+     * 在流式对话线程池中执行调用，请求线程立即返回
+     */
+    private ResponseEntity<SseEmitter> startStream(String sessionId, LlmCallContext callContext, StreamCall call) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        AtomicBoolean closed = new AtomicBoolean(false);
+        emitter.onTimeout(() -> closed.set(true));
+        emitter.onError(e -> closed.set(true));
+        emitter.onCompletion(() -> closed.set(true));
+
+        try {
+            aiStreamingExecutor.execute(() -> {
+                try (LlmCallContext.Scope ignored = LlmCallContext.open(callContext)) {
+                    String content = call.run(token -> {
+                        if (closed.get()) {
+                            throw new UncheckedIOException(new IOException("客户端已断开连接"));
+                        }
+                        try {
+                            emitter.send(SseEmitter.event().name("token")
+                                    .data(Collections.singletonMap("content", token)));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+
+                    Map<String, Object> done = new HashMap<>();
+                    done.put("content", content);
+                    done.put("sessionId", sessionId);
+                    emitter.send(SseEmitter.event().name("done").data(done));
+                    emitter.complete();
+                } catch (UncheckedIOException e) {
+                    // 客户端断开或超时，上游请求已中止
+                    log.debug("流式聊天客户端已断开: {}", e.getMessage());
+                    emitter.complete();
+                } catch (LlmGatewayRejectedException e) {
+                    sendErrorAndComplete(emitter, e.getMessage());
+                } catch (IOException e) {
+                    log.error("流式聊天服务调用失败", e);
+                    sendErrorAndComplete(emitter, "AI服务暂时不可用，请稍后重试");
+                } catch (Exception e) {
+                    log.error("流式聊天接口异常", e);
+                    sendErrorAndComplete(emitter, "系统异常，请稍后重试");
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("流式聊天线程池已满，拒绝请求");
+            return errorStream(HttpStatus.SERVICE_UNAVAILABLE, "AI服务繁忙，请稍后重试");
+        }
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                // 禁止反向代理缓冲事件流
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
+    /**
+     * 本次请求的大模型调用方信息，网关按调用方排队和限流
+     * 优先使用登录用户，未登录时使用请求中的用户ID
+     */
+    private LlmCallContext callContext(Long userId, String sessionId) {
+        String callerKey = "anonymous";
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal) {
+            callerKey = "user:" + ((UserPrincipal) authentication.getPrincipal()).getId();
+        } else if (userId != null) {
+            callerKey = "user:" + userId;
+        }
+        return LlmCallContext.interactive(callerKey, sessionId);
+    }
+
+    /**
+     * 返回只包含一个error事件的事件流
+     */
+    private ResponseEntity<SseEmitter> errorStream(HttpStatus status, String message) {
+        SseEmitter emitter = new SseEmitter();
+        sendErrorAndComplete(emitter, message);
+        return ResponseEntity.status(status).body(emitter);
+    }
+
+    private void sendErrorAndComplete(SseEmitter emitter, String message) {
+        try {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("message", message);
+            emitter.send(SseEmitter.event().name("error").data(error));
+            emitter.complete();
+        } catch (Exception e) {
+            log.debug("发送流式错误事件失败: {}", e.getMessage());
+            emitter.complete();
+        }
+    }
+
+    /**
+     * 流式调用
+     */
+    @FunctionalInterface
+    private interface StreamCall {
+        String run(Consumer<String> onToken) throws IOException;
+    }
+
     /**
      * 带记忆的聊天请求对象
      */
@@ -278,17 +486,22 @@ public class AiChatController {
             }
 
             // 调用知识增强聊天服务
-            KnowledgeEnhancedChatService.KnowledgeEnhancedResponse knowledgeResponse = knowledgeEnhancedChatService
-                    .chatWithKnowledge(
-                            knowledgeRequest.getUserId(),
-                            knowledgeRequest.getMessage().trim(),
-                            knowledgeRequest.getSessionId());
+            KnowledgeEnhancedChatService.KnowledgeEnhancedResponse knowledgeResponse;
+            try (LlmCallContext.Scope ignored = LlmCallContext.open(
+                    callContext(knowledgeRequest.getUserId(), knowledgeRequest.getSessionId()))) {
+                knowledgeResponse = knowledgeEnhancedChatService.chatWithKnowledge(
+                        knowledgeRequest.getUserId(),
+                        knowledgeRequest.getMessage().trim(),
+                        knowledgeRequest.getSessionId());
+            }
 
             // 构建响应数据
             Map<String, Object> responseData = new HashMap<>();
             responseData.put("answer", knowledgeResponse.getAnswer());
             responseData.put("hasKnowledgeSupport", knowledgeResponse.isHasKnowledgeSupport());
             responseData.put("confidenceScore", knowledgeResponse.getConfidenceScore());
+            responseData.put("stageTimings", knowledgeResponse.getStageTimings());
+            responseData.put("skippedStages", knowledgeResponse.getSkippedStages());
 
             // 添加查询分析信息
             Map<String, Object> queryAnalysis = new HashMap<>();
@@ -320,6 +533,10 @@ public class AiChatController {
                     knowledgeResponse.getConfidenceScore(), knowledgeResponse.isHasKnowledgeSupport());
             return ResponseEntity.ok(response);
 
+        } catch (LlmGatewayRejectedException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
         } catch (IOException e) {
             log.error("知识增强聊天服务调用失败", e);
             response.put("success", false);
@@ -3,15 +3,23 @@ package com.vote.sihuibackend.controller;
 import com.vote.sihuibackend.dto.FileInfo;
 import com.vote.sihuibackend.dto.FileUploadRequest;
 import com.vote.sihuibackend.dto.FileUploadResponse;
+import com.vote.sihuibackend.dto.MultipartUploadStatus;
+import com.vote.sihuibackend.dto.SignedUrlBatchRequest;
+import com.vote.sihuibackend.entity.Document;
+import com.vote.sihuibackend.security.UserPrincipal;
+import com.vote.sihuibackend.service.DocumentService;
 import com.vote.sihuibackend.service.OssService;
+import com.vote.sihuibackend.service.SignedUrlService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +29,7 @@ import javax.validation.Valid;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 培训内容文件管理控制器
@@ -36,6 +45,8 @@ import java.util.List;
 public class ContentController {
 
     private final OssService ossService;
+    private final SignedUrlService signedUrlService;
+    private final DocumentService documentService;
 
     /**
      * 单文件上传
@@ -184,6 +195,176 @@ public class ContentController {
         return ResponseEntity.ok(FileUploadResponse.partialSuccess(successFiles, failedFiles));
     }
 
+    /**
+     * 创建分块上传
+     */
+    @PostMapping("/multipart")
+    @Operation(summary = "创建分块上传", description = "大文件按返回的分片大小切分后逐片上传，支持断点续传")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    public ResponseEntity<MultipartUploadStatus> initiateMultipartUpload(
+            @Parameter(description = "原始文件名", required = true) @RequestParam("fileName") String fileName,
+
+            @Parameter(description = "文件大小（字节）", required = true) @RequestParam("fileSize") long fileSize,
+
+            @Parameter(description = "文件分类") @RequestParam(value = "category", required = false) String category,
+
+            @Parameter(description = "文件夹路径") @RequestParam(value = "folder", required = false) String folder,
+
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+
+        try {
+            String uploadFolder = determineUploadFolder(category, folder);
+            return ResponseEntity.ok(ossService.initiateMultipartUpload(fileName, fileSize, uploadFolder,
+                    userPrincipal.getId()));
+        } catch (IllegalArgumentException e) {
+            log.warn("创建分块上传参数错误: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("创建分块上传失败: {}", fileName, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 上传分片
+     */
+    @PutMapping(value = "/multipart/{uploadId}/parts/{partNumber}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "上传分片", description = "上传指定分片，失败后可重复提交同一分片")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    public ResponseEntity<MultipartUploadStatus> uploadPart(
+            @Parameter(description = "上传ID", required = true) @PathVariable String uploadId,
+
+            @Parameter(description = "分片号（从1开始）", required = true) @PathVariable int partNumber,
+
+            @Parameter(description = "分片内容", required = true) @RequestParam("file") MultipartFile part,
+
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+
+        try {
+            if (!isUploadOwner(ossService.getMultipartUploadStatus(uploadId), userPrincipal)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            return ResponseEntity.ok(ossService.uploadPart(uploadId, partNumber, part.getInputStream(),
+                    part.getSize()));
+        } catch (IllegalArgumentException e) {
+            log.warn("分片上传参数错误: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("分片上传失败: {} #{}", uploadId, partNumber, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 查询分块上传进度
+     */
+    @GetMapping("/multipart/{uploadId}")
+    @Operation(summary = "查询分块上传进度", description = "返回已完成的分片，断点续传时只需上传其余分片")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    public ResponseEntity<MultipartUploadStatus> getMultipartUploadStatus(
+            @Parameter(description = "上传ID", required = true) @PathVariable String uploadId,
+
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+
+        try {
+            MultipartUploadStatus status = ossService.getMultipartUploadStatus(uploadId);
+            if (!isUploadOwner(status, userPrincipal)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            return ResponseEntity.ok(status);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("查询分块上传进度失败: {}", uploadId, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 完成分块上传
+     */
+    @PostMapping("/multipart/{uploadId}/complete")
+    @Operation(summary = "完成分块上传", description = "合并全部分片并登记文件，返回文件信息")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    public ResponseEntity<FileUploadResponse> completeMultipartUpload(
+            @Parameter(description = "上传ID", required = true) @PathVariable String uploadId,
+
+            @Parameter(description = "文件分类") @RequestParam(value = "category", required = false) String category,
+
+            @Parameter(description = "文件描述") @RequestParam(value = "description", required = false) String description,
+
+            @Parameter(description = "是否公开访问") @RequestParam(value = "isPublic", required = false, defaultValue = "false") Boolean isPublic,
+
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+
+        try {
+            MultipartUploadStatus status = ossService.getMultipartUploadStatus(uploadId);
+            if (!isUploadOwner(status, userPrincipal)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body(FileUploadResponse.failure("无权操作该分块上传"));
+            }
+            String fileUrl = ossService.completeMultipartUpload(uploadId);
+
+            String fileName = status.getOriginalFilename();
+            Document document = documentService.registerUploadedFile(fileName, fileUrl, status.getFileSize(),
+                    category, description, isPublic, userPrincipal.getId());
+
+            FileInfo fileInfo = FileInfo.builder()
+                    .id(document.getId())
+                    .originalName(fileName)
+                    .fileName(extractFileNameFromUrl(fileUrl))
+                    .fileUrl(fileUrl)
+                    .fileSize(status.getFileSize())
+                    .fileType(getFileExtension(fileName))
+                    .category(category)
+                    .description(description)
+                    .uploadTime(LocalDateTime.now())
+                    .status("ACTIVE")
+                    .downloadCount(0)
+                    .isPublic(isPublic != null ? isPublic : false)
+                    .uploaderId(userPrincipal.getId())
+                    .build();
+
+            List<FileInfo> files = new ArrayList<>();
+            files.add(fileInfo);
+            return ResponseEntity.ok(FileUploadResponse.success(files));
+
+        } catch (IllegalArgumentException e) {
+            log.warn("完成分块上传参数错误: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(FileUploadResponse.failure(e.getMessage()));
+        } catch (Exception e) {
+            log.error("完成分块上传失败: {}", uploadId, e);
+            return ResponseEntity.internalServerError()
+                    .body(FileUploadResponse.failure("文件上传失败：" + e.getMessage()));
+        }
+    }
+
+    /**
+     * 取消分块上传
+     */
+    @DeleteMapping("/multipart/{uploadId}")
+    @Operation(summary = "取消分块上传", description = "中止分块上传并删除已上传的分片")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    public ResponseEntity<String> abortMultipartUpload(
+            @Parameter(description = "上传ID", required = true) @PathVariable String uploadId,
+
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+
+        try {
+            if (!isUploadOwner(ossService.getMultipartUploadStatus(uploadId), userPrincipal)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("无权操作该分块上传");
+            }
+            ossService.abortMultipartUpload(uploadId);
+            return ResponseEntity.ok("分块上传已取消");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            log.error("取消分块上传失败: {}", uploadId, e);
+            return ResponseEntity.internalServerError().body("取消分块上传失败：" + e.getMessage());
+        }
+    }
+
     /**
      * 删除文件
      */
@@ -196,6 +377,7 @@ public class ContentController {
         try {
             boolean deleted = ossService.deleteFile(fileName);
             if (deleted) {
+                signedUrlService.evict(fileName);
                 // TODO: 更新数据库中的文件状态
                 return ResponseEntity.ok("文件删除成功");
             } else {
@@ -237,14 +419,35 @@ public class ContentController {
             @Parameter(description = "过期时间（秒），默认3600秒（1小时）") @RequestParam(value = "expiredInSeconds", required = false, defaultValue = "3600") int expiredInSeconds) {
 
         try {
-            String signedUrl = ossService.getSignedUrl(fileName, expiredInSeconds);
+            String signedUrl = signedUrlService.getSignedUrl(fileName, expiredInSeconds);
             return ResponseEntity.ok(signedUrl);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             log.error("获取签名URL失败: {}", fileName, e);
             return ResponseEntity.internalServerError().body("获取签名URL失败：" + e.getMessage());
         }
     }
 
+    /**
+     * 批量获取文件签名URL
+     */
+    @PostMapping("/signed-urls")
+    @Operation(summary = "批量获取文件签名URL", description = "一次请求获取多个文件的临时访问URL，列表页缩略图等场景使用")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
+    public ResponseEntity<Map<String, String>> getSignedUrls(@Valid @RequestBody SignedUrlBatchRequest request) {
+        try {
+            return ResponseEntity.ok(signedUrlService.getSignedUrls(request.getFileNames(),
+                    request.getExpiredInSeconds()));
+        } catch (IllegalArgumentException e) {
+            log.warn("批量获取签名URL参数错误: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("批量获取签名URL失败", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     /**
      * 确定上传文件夹路径
      */
@@ -275,6 +478,14 @@ public class ContentController {
         return "training/general";
     }
 
+    /**
+     * 分块上传会话只允许发起上传的用户操作
+     */
+    private boolean isUploadOwner(MultipartUploadStatus status, UserPrincipal userPrincipal) {
+        return userPrincipal != null && status.getOwnerId() != null
+                && status.getOwnerId().equals(userPrincipal.getId());
+    }
+
     /**
      * 构建文件信息对象
      */
@@ -1,8 +1,12 @@
 package com.vote.sihuibackend.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vote.sihuibackend.dto.DocumentBatchItemResult;
 import com.vote.sihuibackend.entity.Document;
 import com.vote.sihuibackend.security.UserPrincipal;
+import com.vote.sihuibackend.service.AsyncDocumentProcessingService;
 import com.vote.sihuibackend.service.DocumentService;
+import com.vote.sihuibackend.service.ProcessingJobService;
 import com.vote.sihuibackend.service.TextSearchService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,6 +16,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -21,6 +27,11 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -38,8 +49,14 @@ import java.util.stream.Collectors;
 @Validated
 public class KnowledgeDocumentController {
 
+    private static final String RETRY_AFTER_SECONDS = "30";
+    private static final String QUEUE_SATURATED_MESSAGE = "处理队列已满，请稍后重试";
+
     private final DocumentService documentService;
     private final TextSearchService textSearchService;
+    private final AsyncDocumentProcessingService asyncDocumentProcessingService;
+    private final ProcessingJobService processingJobService;
+    private final ObjectMapper objectMapper;
 
     /**
      * 上传单个知识文档
@@ -65,13 +82,25 @@ public class KnowledgeDocumentController {
             String filename = file.getOriginalFilename();
             if (!isValidDocumentFormat(filename)) {
                 return ResponseEntity.badRequest()
-                        .body(createErrorResponse("不支持的文件格式，仅支持 .txt, .md, .markdown 格式"));
+                        .body(createErrorResponse("不支持的文件格式，仅支持 .txt, .md, .markdown, .pdf, .docx, .pptx 格式"));
+            }
+
+            // 索引队列已满时直接拒绝，不占用请求线程排队
+            if (processingJobService.isSaturated()) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                        .body(createErrorResponse(QUEUE_SATURATED_MESSAGE));
             }
 
             // 上传文档
             Document document = documentService.uploadDocument(
                     file, title, category, keywords, isPublic, userPrincipal.getId());
 
+            // 提交索引任务（内容重复的文档已复用已有索引）
+            if (!textSearchService.hasDocumentIndex(document.getId())) {
+                asyncDocumentProcessingService.buildDocumentIndexAsync(document.getId());
+            }
+
             Map<String, Object> response = createSuccessResponse("文档上传成功");
             response.put("document", convertToResponse(document));
 
@@ -88,6 +117,55 @@ public class KnowledgeDocumentController {
         }
     }
 
+    /**
+     * 批量上传知识文档
+     * 以NDJSON逐行返回每个文件的处理结果，整批完成后提交一个索引任务
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = "application/x-ndjson")
+    @Operation(summary = "批量上传知识文档", description = "并行解析上传多个文档，逐个返回处理结果")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    public void uploadDocumentsBatch(
+            @Parameter(description = "要上传的文档文件", required = true) @RequestParam("files") MultipartFile[] files,
+
+            @Parameter(description = "文档分类") @RequestParam(value = "category", required = false, defaultValue = "四会文档") String category,
+
+            @Parameter(description = "是否公开访问") @RequestParam(value = "isPublic", required = false, defaultValue = "false") Boolean isPublic,
+
+            @AuthenticationPrincipal UserPrincipal userPrincipal,
+            HttpServletResponse response) throws IOException {
+
+        // 索引队列已满时直接拒绝，不占用请求线程排队
+        if (processingJobService.isSaturated()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), QUEUE_SATURATED_MESSAGE);
+            return;
+        }
+
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream out = response.getOutputStream();
+
+        List<DocumentBatchItemResult> results = documentService.uploadDocuments(files, category, isPublic,
+                userPrincipal.getId(), result -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(result));
+                        out.write('\n');
+                        out.flush();
+                    } catch (IOException e) {
+                        // 客户端断开不影响批量上传本身
+                        throw new UncheckedIOException(e);
+                    }
+                });
+
+        List<Long> documentIds = results.stream()
+                .filter(result -> Boolean.TRUE.equals(result.getSuccess()))
+                .map(DocumentBatchItemResult::getDocumentId)
+                .collect(Collectors.toList());
+        if (!documentIds.isEmpty()) {
+            asyncDocumentProcessingService.buildDocumentIndexesBatchAsync(documentIds);
+        }
+    }
+
     /**
      * 获取文档详情
      */
@@ -186,7 +264,8 @@ public class KnowledgeDocumentController {
         }
 
         String extension = filename.substring(filename.lastIndexOf(".") + 1).toLowerCase();
-        return "txt".equals(extension) || "md".equals(extension) || "markdown".equals(extension);
+        return "txt".equals(extension) || "md".equals(extension) || "markdown".equals(extension)
+                || "pdf".equals(extension) || "docx".equals(extension) || "pptx".equals(extension);
     }
 
     /**
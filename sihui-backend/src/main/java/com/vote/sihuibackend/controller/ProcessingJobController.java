@@ -0,0 +1,118 @@
+package com.vote.sihuibackend.controller;
+
+import com.vote.sihuibackend.entity.ProcessingJob;
+import com.vote.sihuibackend.job.IndexRebuildJobHandler;
+import com.vote.sihuibackend.job.JobQueueSaturatedException;
+import com.vote.sihuibackend.security.UserPrincipal;
+import com.vote.sihuibackend.service.ProcessingJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 后台处理任务控制器
+ * 查询任务状态和进度、队列状态，提交全量索引重建
+ *
+ * @author Sihui Team
+ */
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "后台处理任务", description = "文档索引等后台任务的状态查询与提交")
+public class ProcessingJobController {
+
+    /**
+     * 队列已满时建议客户端的重试间隔（秒）
+     */
+    private static final String RETRY_AFTER_SECONDS = "30";
+
+    private final ProcessingJobService processingJobService;
+
+    /**
+     * 查询任务状态和进度
+     */
+    @GetMapping("/{id}")
+    @Operation(summary = "查询任务状态", description = "返回任务状态、进度、执行次数和失败原因")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    public ResponseEntity<Map<String, Object>> getJob(
+            @Parameter(description = "任务ID", required = true) @PathVariable Long id) {
+
+        Optional<ProcessingJob> job = processingJobService.findJob(id);
+        if (!job.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> response = createResponse(true, "查询成功");
+        response.put("job", convertToResponse(job.get()));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 查询队列状态
+     */
+    @GetMapping("/status")
+    @Operation(summary = "查询队列状态", description = "所有实例共享的待执行、执行中、成功、失败任务数")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getQueueStatus() {
+        Map<String, Object> response = createResponse(true, "查询成功");
+        response.put("queue", processingJobService.getQueueStatus());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 提交全量索引重建
+     */
+    @PostMapping("/index-rebuild")
+    @Operation(summary = "重建全部索引", description = "提交全量索引重建任务，队列已满时返回429")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildIndexes(@AuthenticationPrincipal UserPrincipal userPrincipal) {
+        try {
+            ProcessingJob job = processingJobService.submit(IndexRebuildJobHandler.JOB_TYPE, null,
+                    ProcessingJob.PRIORITY_LOW, userPrincipal != null ? userPrincipal.getId() : null);
+            Map<String, Object> response = createResponse(true, "任务已提交");
+            response.put("job", convertToResponse(job));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (JobQueueSaturatedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .body(createResponse(false, e.getMessage()));
+        }
+    }
+
+    private Map<String, Object> convertToResponse(ProcessingJob job) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", job.getId());
+        response.put("jobType", job.getJobType());
+        response.put("status", job.getStatus());
+        response.put("progress", job.getProgress());
+        response.put("priority", job.getPriority());
+        response.put("attempts", job.getAttempts());
+        response.put("maxAttempts", job.getMaxAttempts());
+        response.put("message", job.getMessage());
+        response.put("nextRunAt", job.getNextRunAt());
+        response.put("startedAt", job.getStartedAt());
+        response.put("finishedAt", job.getFinishedAt());
+        response.put("createdAt", job.getCreatedAt());
+        return response;
+    }
+
+    private Map<String, Object> createResponse(boolean success, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", success);
+        response.put("message", message);
+        response.put("timestamp", System.currentTimeMillis());
+        return response;
+    }
+}
@@ -7,6 +7,7 @@ import com.vote.sihuibackend.dto.UserUpdateRequest;
 import com.vote.sihuibackend.dto.UserResponse;
 import com.vote.sihuibackend.entity.User;
 import com.vote.sihuibackend.enums.Permission;
+import com.vote.sihuibackend.service.UserIdentifierFilterService;
 import com.vote.sihuibackend.service.UserManagementService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,6 +22,7 @@ import org.springframework.web.bind.annotation.*;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -34,6 +36,7 @@ import java.util.Optional;
 public class UserManagementController {
 
     private final UserManagementService userManagementService;
+    private final UserIdentifierFilterService identifierFilterService;
 
     /**
      * 创建用户
@@ -196,4 +199,23 @@ public class UserManagementController {
         boolean exists = userManagementService.existsByPhone(phone);
         return ResponseEntity.ok(ApiResponse.success(exists));
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取登录标识过滤器统计信息
+     */
+    @GetMapping("/identifier-filter/stats")
+    @RequirePermission(Permission.SYSTEM_MONITOR)
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getIdentifierFilterStats() {
+        return ResponseEntity.ok(ApiResponse.success(identifierFilterService.getStats()));
+    }
+
+    /**
+     * 从用户表重建登录标识过滤器
+     */
+    @PostMapping("/identifier-filter/rebuild")
+    @RequirePermission(Permission.SYSTEM_ADMIN)
+    public ResponseEntity<ApiResponse<Map<String, Object>>> rebuildIdentifierFilter() {
+        log.info("Rebuilding user identifier filter");
+        return ResponseEntity.ok(ApiResponse.success(identifierFilterService.rebuild()));
+    }
+}
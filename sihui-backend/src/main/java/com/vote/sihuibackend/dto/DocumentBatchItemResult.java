@@ -0,0 +1,53 @@
+package com.vote.sihuibackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量上传中单个文档的处理结果
+ * 
+ * @author Sihui Team
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentBatchItemResult {
+
+    /**
+     * 文件在本批次中的序号（从0开始）
+     */
+    private Integer index;
+
+    /**
+     * 原始文件名
+     */
+    private String filename;
+
+    /**
+     * 是否成功
+     */
+    private Boolean success;
+
+    /**
+     * 文档ID
+     */
+    private Long documentId;
+
+    /**
+     * 文档标题
+     */
+    private String title;
+
+    /**
+     * 内容与已有文档相同，复用了已有的存储
+     */
+    private Boolean duplicate;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+}
@@ -0,0 +1,32 @@
+package com.vote.sihuibackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 文档计数增量
+ * 一个刷新周期内单个文档累计的查看、下载次数
+ *
+ * @author Sihui Team
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentCounterDelta {
+
+    /**
+     * 文档ID
+     */
+    private Long documentId;
+
+    /**
+     * 新增查看次数
+     */
+    private long views;
+
+    /**
+     * 新增下载次数
+     */
+    private long downloads;
+}
@@ -0,0 +1,58 @@
+package com.vote.sihuibackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 后台处理队列状态（所有实例共享的数据库统计）
+ *
+ * @author Sihui Team
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobQueueStatus {
+
+    /**
+     * 等待执行的任务数
+     */
+    private Long pending;
+
+    /**
+     * 执行中的任务数
+     */
+    private Long running;
+
+    /**
+     * 已成功的任务数（保留期内）
+     */
+    private Long succeeded;
+
+    /**
+     * 最终失败的任务数（保留期内）
+     */
+    private Long failed;
+
+    /**
+     * 排队任务数上限，达到后拒绝新任务
+     */
+    private Integer capacity;
+
+    /**
+     * 是否已满
+     */
+    private Boolean saturated;
+
+    /**
+     * 成功任务的平均耗时（毫秒）
+     */
+    private Double averageDurationMs;
+
+    /**
+     * 本实例正在执行的任务数
+     */
+    private Integer localRunning;
+}
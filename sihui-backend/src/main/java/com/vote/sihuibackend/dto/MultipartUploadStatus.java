@@ -0,0 +1,65 @@
+package com.vote.sihuibackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 分块上传会话状态DTO
+ *
+ * @author Sihui Team
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultipartUploadStatus {
+
+    /**
+     * 上传ID
+     */
+    private String uploadId;
+
+    /**
+     * 原始文件名
+     */
+    private String originalFilename;
+
+    /**
+     * 存储文件名（OSS中的文件名）
+     */
+    private String fileName;
+
+    /**
+     * 文件大小（字节）
+     */
+    private Long fileSize;
+
+    /**
+     * 分片大小（字节），最后一片可以更小
+     */
+    private Integer partSize;
+
+    /**
+     * 分片总数
+     */
+    private Integer partCount;
+
+    /**
+     * 已完成的分片号，断点续传时只需上传其余分片
+     */
+    private List<Integer> completedParts;
+
+    /**
+     * 已上传字节数
+     */
+    private Long uploadedBytes;
+
+    /**
+     * 发起上传的用户ID
+     */
+    private Long ownerId;
+}
@@ -0,0 +1,20 @@
+package com.vote.sihuibackend.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+/**
+ * 批量获取签名URL请求 DTO
+ */
+@Data
+public class SignedUrlBatchRequest {
+
+    @NotEmpty(message = "文件列表不能为空")
+    private List<String> fileNames;
+
+    @Min(value = 1, message = "过期时间必须大于0")
+    private int expiredInSeconds = 3600;
+}
@@ -54,6 +54,32 @@ public class ChatSession {
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
 
+    /**
+     * 早期对话的滚动摘要，超出上下文预算的消息折叠进摘要
+     * 只通过ChatSessionRepository.updateSummary更新，保存会话实体时不覆盖
+     */
+    @Column(name = "summary", columnDefinition = "TEXT", insertable = false, updatable = false)
+    private String summary;
+
+    /**
+     * 摘要已覆盖到的最后一条消息ID
+     */
+    @Column(name = "summarized_message_id", insertable = false, updatable = false)
+    private Long summarizedMessageId;
+
+    /**
+     * 归档时间，非空表示消息已移到冷存储，读取时按需恢复
+     * 只通过ChatSessionRepository的归档、恢复方法更新
+     */
+    @Column(name = "archived_at", insertable = false, updatable = false)
+    private LocalDateTime archivedAt;
+
+    /**
+     * 最近一次从归档恢复的时间，恢复后在不活跃期满前不会再次归档
+     */
+    @Column(name = "restored_at", insertable = false, updatable = false)
+    private LocalDateTime restoredAt;
+
     @PrePersist
     protected void onCreate() {
         LocalDateTime now = LocalDateTime.now();
@@ -0,0 +1,62 @@
+package com.vote.sihuibackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 聊天会话归档
+ * 长期不活跃会话的全部消息序列化为JSON后压缩存储在一行中，从消息表中删除；读取会话时按需恢复
+ *
+ * @author Sihui Team
+ */
+@Entity
+@Table(name = "chat_session_archives")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSessionArchive {
+
+    /**
+     * 会话数据库ID（chat_sessions.id）
+     */
+    @Id
+    @Column(name = "session_id")
+    private Long sessionId;
+
+    /**
+     * 消息列表的JSON，数据库中压缩存储
+     */
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "payload", nullable = false, columnDefinition = "LONGBLOB")
+    private String payload;
+
+    /**
+     * 消息条数
+     */
+    @Column(name = "message_count", nullable = false)
+    private Integer messageCount;
+
+    /**
+     * 第一条消息时间
+     */
+    @Column(name = "first_message_at")
+    private LocalDateTime firstMessageAt;
+
+    /**
+     * 最后一条消息时间
+     */
+    @Column(name = "last_message_at")
+    private LocalDateTime lastMessageAt;
+
+    /**
+     * 归档时间
+     */
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
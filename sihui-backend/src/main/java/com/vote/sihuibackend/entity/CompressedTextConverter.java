@@ -0,0 +1,26 @@
+package com.vote.sihuibackend.entity;
+
+import com.vote.sihuibackend.util.TextCompressionUtil;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * 压缩文本字段转换器
+ * 实体中为字符串，数据库中以 {@link TextCompressionUtil} 格式的二进制存储，读写时自动解压/压缩
+ *
+ * @author Sihui Team
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(String attribute) {
+        return TextCompressionUtil.compress(attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] dbData) {
+        return TextCompressionUtil.decompress(dbData);
+    }
+}
@@ -28,7 +28,8 @@ import java.time.LocalDateTime;
         @Index(name = "idx_category_created_at", columnList = "category, created_at"),
         @Index(name = "idx_is_public", columnList = "is_public"),
         @Index(name = "idx_parent_id", columnList = "parent_id"),
-        @Index(name = "idx_original_filename_uploader", columnList = "original_filename, uploader_id, status")
+        @Index(name = "idx_original_filename_uploader", columnList = "original_filename, uploader_id, status"),
+        @Index(name = "idx_content_hash", columnList = "content_hash")
 })
 @Data
 @Builder
@@ -61,9 +62,10 @@ public class Document {
 
     /**
      * 文档内容（文本格式）
+     * 正文存放在 {@link DocumentContent}（document_contents表），查询文档时不加载；
+     * 保存新文档时由服务层写入正文表，查看详情时按需填充
      */
-    @Lob
-    @Column(name = "content", columnDefinition = "LONGTEXT")
+    @Transient
     private String content;
 
     /**
@@ -96,6 +98,12 @@ public class Document {
     @Column(name = "file_url", length = 500)
     private String fileUrl;
 
+    /**
+     * 文件内容SHA-256摘要（十六进制），内容相同的文档共享同一个OSS对象
+     */
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     /**
      * 文档状态：ACTIVE, DELETED, ARCHIVED
      */
@@ -0,0 +1,62 @@
+package com.vote.sihuibackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 知识文档正文
+ * 正文与文档元数据分表存储，列表和统计查询不读取正文；正文压缩存储，只在查看详情、建立索引时按需加载
+ *
+ * @author Sihui Team
+ */
+@Entity
+@Table(name = "document_contents")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class DocumentContent {
+
+    /**
+     * 文档ID
+     */
+    @Id
+    @Column(name = "document_id")
+    private Long documentId;
+
+    /**
+     * 文档正文，数据库中压缩存储
+     */
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "content", columnDefinition = "LONGBLOB")
+    private String content;
+
+    /**
+     * 正文字符数
+     */
+    @Column(name = "content_length")
+    private Integer contentLength;
+
+    /**
+     * 更新时间
+     */
+    @LastModifiedDate
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public static DocumentContent of(Long documentId, String content) {
+        return DocumentContent.builder()
+                .documentId(documentId)
+                .content(content)
+                .contentLength(content != null ? content.length() : 0)
+                .build();
+    }
+}
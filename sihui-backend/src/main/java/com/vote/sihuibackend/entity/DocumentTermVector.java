@@ -0,0 +1,88 @@
+package com.vote.sihuibackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 文档词频向量
+ * 持久化的检索索引：索引任务计算后保存，任一实例都可以直接加载，不必重新读取正文分词；
+ * 只保存词频，TF-IDF权重在加载时按当前的文档频率计算
+ *
+ * @author Sihui Team
+ */
+@Entity
+@Table(name = "document_term_vectors")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class DocumentTermVector {
+
+    /**
+     * 文档ID
+     */
+    @Id
+    @Column(name = "document_id")
+    private Long documentId;
+
+    /**
+     * 词频，每行一个"词\t次数"，数据库中压缩存储
+     */
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "term_counts", nullable = false, columnDefinition = "LONGBLOB")
+    private String termCounts;
+
+    /**
+     * 总词数
+     */
+    @Column(name = "term_total", nullable = false)
+    private Integer termTotal;
+
+    /**
+     * 更新时间
+     */
+    @LastModifiedDate
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public static DocumentTermVector of(Long documentId, Map<String, Integer> counts) {
+        StringBuilder encoded = new StringBuilder();
+        int total = 0;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            encoded.append(entry.getKey()).append('\t').append(entry.getValue()).append('\n');
+            total += entry.getValue();
+        }
+        return DocumentTermVector.builder()
+                .documentId(documentId)
+                .termCounts(encoded.toString())
+                .termTotal(total)
+                .build();
+    }
+
+    /**
+     * 解析词频（分词结果不含空白字符，可以直接按制表符和换行拆分）
+     */
+    public Map<String, Integer> counts() {
+        Map<String, Integer> counts = new HashMap<>();
+        if (termCounts == null) {
+            return counts;
+        }
+        for (String line : termCounts.split("\n")) {
+            int separator = line.indexOf('\t');
+            if (separator > 0) {
+                counts.put(line.substring(0, separator), Integer.valueOf(line.substring(separator + 1)));
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,171 @@
+package com.vote.sihuibackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 后台处理任务实体
+ * 文档索引等后台任务持久化在processing_jobs表中，各实例按租约领取执行，
+ * 实例重启或宕机后租约过期的任务由其他实例重新领取
+ *
+ * @author Sihui Team
+ */
+@Entity
+@Table(name = "processing_jobs", indexes = {
+        @Index(name = "idx_jobs_claim", columnList = "status, priority, next_run_at"),
+        @Index(name = "idx_jobs_lease", columnList = "status, lease_expires_at"),
+        @Index(name = "idx_jobs_type_status", columnList = "job_type, status")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessingJob {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_SUCCEEDED = "SUCCEEDED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    public static final int PRIORITY_LOW = 0;
+    public static final int PRIORITY_NORMAL = 5;
+    public static final int PRIORITY_HIGH = 10;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 任务类型，对应一个任务处理器
+     */
+    @Column(name = "job_type", nullable = false, length = 50)
+    private String jobType;
+
+    /**
+     * 任务参数
+     */
+    @Column(name = "payload", columnDefinition = "TEXT")
+    private String payload;
+
+    /**
+     * 任务状态（PENDING、RUNNING、SUCCEEDED、FAILED）
+     */
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private String status = STATUS_PENDING;
+
+    /**
+     * 优先级，数值越大越先执行
+     */
+    @Column(name = "priority", nullable = false)
+    @Builder.Default
+    private Integer priority = PRIORITY_NORMAL;
+
+    /**
+     * 已执行次数
+     */
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    /**
+     * 最多执行次数
+     */
+    @Column(name = "max_attempts", nullable = false)
+    @Builder.Default
+    private Integer maxAttempts = 3;
+
+    /**
+     * 执行进度（0-100）
+     */
+    @Column(name = "progress", nullable = false)
+    @Builder.Default
+    private Integer progress = 0;
+
+    /**
+     * 最近一次失败原因或完成说明
+     */
+    @Column(name = "message", length = 1000)
+    private String message;
+
+    /**
+     * 持有租约的实例
+     */
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    /**
+     * 租约到期时间，到期未续约的任务可被其他实例领取
+     */
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    /**
+     * 最早可执行时间，失败重试时按退避时间推后
+     */
+    @Column(name = "next_run_at", nullable = false)
+    private LocalDateTime nextRunAt;
+
+    /**
+     * 创建者ID
+     */
+    @Column(name = "created_by")
+    private Long createdBy;
+
+    /**
+     * 最近一次开始执行时间
+     */
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    /**
+     * 完成时间
+     */
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    /**
+     * 最近一次执行耗时（毫秒）
+     */
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    /**
+     * 创建时间
+     */
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        LocalDateTime now = LocalDateTime.now();
+        this.createdAt = now;
+        this.updatedAt = now;
+        if (this.nextRunAt == null) {
+            this.nextRunAt = now;
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * 是否已结束（成功或最终失败）
+     */
+    public boolean isFinished() {
+        return STATUS_SUCCEEDED.equals(status) || STATUS_FAILED.equals(status);
+    }
+}
@@ -0,0 +1,157 @@
+package com.vote.sihuibackend.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 有界字节管道
+ * 生产方按块写入，消费方通过 {@link #inputStream()} 读取；队列满时生产方阻塞，
+ * 因此管道中最多驻留 capacity 个块。任一方关闭或失败后另一方会立即感知，不会永久阻塞。
+ *
+ * @author Sihui Team
+ */
+public class BoundedPipe {
+
+    private static final byte[] END = new byte[0];
+    private static final long POLL_MILLIS = 200;
+
+    private final BlockingQueue<byte[]> chunks;
+    private final PipeInputStream inputStream = new PipeInputStream();
+
+    private volatile boolean consumerClosed;
+    private volatile boolean producerClosed;
+    private volatile Throwable producerFailure;
+
+    /**
+     * @param capacity 最多缓冲的块数
+     */
+    public BoundedPipe(int capacity) {
+        this.chunks = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * 写入一块数据（复制后入队），队列满时阻塞
+     *
+     * @throws IOException 消费方已关闭
+     */
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        byte[] chunk = new byte[length];
+        System.arraycopy(buffer, offset, chunk, 0, length);
+        offer(chunk);
+    }
+
+    /**
+     * 写入结束标记
+     */
+    public void close() throws IOException {
+        offer(END);
+        producerClosed = true;
+    }
+
+    /**
+     * 以异常终止管道，消费方下次读取时抛出该异常；已写入结束标记时数据已完整，不再影响消费方
+     */
+    public void fail(Throwable cause) {
+        if (producerClosed) {
+            return;
+        }
+        producerFailure = cause;
+        chunks.clear();
+        chunks.offer(END);
+    }
+
+    public InputStream inputStream() {
+        return inputStream;
+    }
+
+    /**
+     * 关闭消费端，之后生产方的写入会失败；消费方提前结束（如上传任务异常退出）时调用
+     */
+    public void closeConsumer() {
+        inputStream.close();
+    }
+
+    public boolean isConsumerClosed() {
+        return consumerClosed;
+    }
+
+    private void offer(byte[] chunk) throws IOException {
+        try {
+            while (!chunks.offer(chunk, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (consumerClosed) {
+                    throw new IOException("管道消费方已关闭");
+                }
+            }
+            if (consumerClosed && chunk != END) {
+                throw new IOException("管道消费方已关闭");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("写入管道被中断");
+        }
+    }
+
+    private final class PipeInputStream extends InputStream {
+        private byte[] current;
+        private int position;
+        private boolean finished;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int n = read(single, 0, 1);
+            return n == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!nextChunk()) {
+                return -1;
+            }
+            int n = Math.min(length, current.length - position);
+            System.arraycopy(current, position, buffer, offset, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return current != null ? current.length - position : 0;
+        }
+
+        @Override
+        public void close() {
+            consumerClosed = true;
+            chunks.clear();
+        }
+
+        private boolean nextChunk() throws IOException {
+            while (!finished && (current == null || position >= current.length)) {
+                try {
+                    current = chunks.take();
+                    position = 0;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("读取管道被中断");
+                }
+                if (current == END) {
+                    finished = true;
+                }
+            }
+            if (producerFailure != null) {
+                throw new IOException("管道生产方失败: " + producerFailure.getMessage(), producerFailure);
+            }
+            return !finished;
+        }
+    }
+}
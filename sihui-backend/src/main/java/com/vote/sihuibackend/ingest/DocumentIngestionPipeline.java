@@ -0,0 +1,403 @@
+package com.vote.sihuibackend.ingest;
+
+import com.vote.sihuibackend.config.DocumentExtractionProperties;
+import com.vote.sihuibackend.service.OssService;
+import com.vote.sihuibackend.util.StorageFileUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * 文档流式摄取管道
+ * 上传文件只读取一次，每个数据块同时送入SHA-256摘要、OSS上传和文本分析（解析、摘要、分词）。
+ * OSS上传在独立线程中消费有界管道，与请求线程上的解析并行；管道最多缓冲
+ * {@link #PIPE_CAPACITY} 个 {@link #CHUNK_SIZE} 字节的块，大文件不会在堆中产生多份完整副本。
+ * 上传线程池已满时退回到先解析、再重新打开文件上传的顺序处理。
+ * PDF、Word、PowerPoint等二进制文档在同一次读取中写入临时文件，读取结束后由对应的
+ * {@link TextExtractor} 在文本抽取线程池中按页/段落抽取文本送入分析器，受单文件时间和内存预算限制。
+ *
+ * @author Sihui Team
+ */
+@Component
+@Slf4j
+public class DocumentIngestionPipeline {
+
+    static final int CHUNK_SIZE = 64 * 1024;
+    static final int PIPE_CAPACITY = 16;
+    private static final int KEYWORD_LIMIT = 10;
+
+    private final OssService ossService;
+    private final Executor uploadExecutor;
+    private final Executor extractionExecutor;
+    private final DocumentExtractionProperties extractionProperties;
+    private final Map<String, TextExtractor> extractors = new HashMap<>();
+
+    public DocumentIngestionPipeline(OssService ossService,
+            @Qualifier("ingestionUploadExecutor") Executor uploadExecutor,
+            @Qualifier("documentExtractionExecutor") Executor extractionExecutor,
+            DocumentExtractionProperties extractionProperties, List<TextExtractor> textExtractors) {
+        this.ossService = ossService;
+        this.uploadExecutor = uploadExecutor;
+        this.extractionExecutor = extractionExecutor;
+        this.extractionProperties = extractionProperties;
+        for (TextExtractor extractor : textExtractors) {
+            for (String format : extractor.getSupportedFormats()) {
+                extractors.put(format, extractor);
+            }
+        }
+    }
+
+    /**
+     * 是否需要通过文本抽取器解析（非纯文本格式）
+     *
+     * @param format 文件扩展名
+     */
+    public boolean isExtractable(String format) {
+        return format != null && extractors.containsKey(format.toLowerCase());
+    }
+
+    /**
+     * 摄取上传的文本文件
+     *
+     * @param file      上传文件
+     * @param folder    OSS文件夹
+     * @param stopWords 关键词统计时忽略的停用词
+     * @return 摄取结果
+     */
+    public IngestionResult ingest(MultipartFile file, String folder, Set<String> stopWords) throws IOException {
+        String format = StorageFileUtil.getFileExtension(file.getOriginalFilename()).toLowerCase();
+        TextExtractor extractor = extractors.get(format);
+        if (extractor == null) {
+            return ingest(file, folder, new AnalyzingSink(new StreamingTextAnalyzer(file.getSize(), stopWords)));
+        }
+
+        Path tempFile = Files.createTempFile("sihui-extract-", "." + format);
+        ExtractingSink sink = null;
+        try {
+            sink = new ExtractingSink(tempFile, format, extractor, stopWords);
+            return ingest(file, folder, sink);
+        } finally {
+            if (sink != null) {
+                sink.close();
+            }
+            deleteQuietly(tempFile);
+        }
+    }
+
+    private IngestionResult ingest(MultipartFile file, String folder, ChunkSink sink) throws IOException {
+        MessageDigest digest = newDigest();
+        BoundedPipe pipe = new BoundedPipe(PIPE_CAPACITY);
+
+        CompletableFuture<String> upload;
+        try {
+            upload = CompletableFuture.supplyAsync(
+                    () -> ossService.uploadStream(pipe.inputStream(), file.getOriginalFilename(), file.getSize(),
+                            folder),
+                    uploadExecutor);
+        } catch (RejectedExecutionException e) {
+            log.warn("上传线程池已满，改为顺序摄取：{}", file.getOriginalFilename());
+            return ingestSequentially(file, folder, digest, sink);
+        }
+        // 上传任务结束后不再接收数据，避免上传提前退出时生产方阻塞在已满的管道上
+        upload.whenComplete((objectName, failure) -> pipe.closeConsumer());
+
+        long byteCount = 0;
+        StreamingTextAnalyzer analyzer;
+        try {
+            try (InputStream in = file.getInputStream()) {
+                byte[] buffer = new byte[CHUNK_SIZE];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, n);
+                    pipe.write(buffer, 0, n);
+                    sink.accept(buffer, 0, n);
+                    byteCount += n;
+                }
+            }
+            // 先结束管道，文本抽取与上传的收尾并行
+            pipe.close();
+            analyzer = sink.complete();
+        } catch (IOException | RuntimeException e) {
+            // 消费方已关闭说明上传先失败，此时以上传异常为准
+            boolean uploadFailedFirst = pipe.isConsumerClosed();
+            pipe.fail(e);
+            String uploadedObject;
+            try {
+                uploadedObject = awaitUpload(upload);
+            } catch (IOException | RuntimeException uploadFailure) {
+                if (uploadFailedFirst) {
+                    uploadFailure.addSuppressed(e);
+                    throw uploadFailure;
+                }
+                throw e;
+            }
+            ossService.deleteFile(uploadedObject);
+            throw e;
+        }
+
+        String objectName = awaitUpload(upload);
+        return buildResult(objectName, digest, byteCount, analyzer);
+    }
+
+    /**
+     * 只计算文件内容的SHA-256摘要，不上传也不解析
+     * 上传文件已由容器缓存在本地，读取代价远小于一次上传，用于在上传前判断内容是否已存在
+     *
+     * @param file 上传文件
+     * @return 十六进制摘要
+     */
+    public String contentHash(MultipartFile file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream in = file.getInputStream()) {
+            byte[] buffer = new byte[CHUNK_SIZE];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * 删除已上传但未被使用的对象（例如内容校验失败或保存失败）
+     */
+    public void discard(IngestionResult result) {
+        try {
+            ossService.deleteFile(result.getObjectName());
+        } catch (Exception e) {
+            log.warn("清理已上传对象失败：{}", result.getObjectName(), e);
+        }
+    }
+
+    /**
+     * 抽取上传的PDF、Word、PowerPoint文档的文本，不上传
+     *
+     * @param file 上传文件
+     * @return 抽取出的文本
+     */
+    public String extractText(MultipartFile file) throws IOException {
+        String format = StorageFileUtil.getFileExtension(file.getOriginalFilename()).toLowerCase();
+        TextExtractor extractor = extractors.get(format);
+        if (extractor == null) {
+            throw new IllegalArgumentException("不支持的文件格式：" + format);
+        }
+        Path tempFile = Files.createTempFile("sihui-extract-", "." + format);
+        try {
+            try (InputStream in = file.getInputStream()) {
+                Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            StringBuilder text = new StringBuilder();
+            extract(tempFile, format, extractor, text::append);
+            return text.toString();
+        } finally {
+            deleteQuietly(tempFile);
+        }
+    }
+
+    private IngestionResult ingestSequentially(MultipartFile file, String folder, MessageDigest digest,
+            ChunkSink sink) throws IOException {
+        long byteCount = 0;
+        try (InputStream in = file.getInputStream()) {
+            byte[] buffer = new byte[CHUNK_SIZE];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+                sink.accept(buffer, 0, n);
+                byteCount += n;
+            }
+        }
+        StreamingTextAnalyzer analyzer = sink.complete();
+        String objectName = ossService.uploadStream(file.getInputStream(), file.getOriginalFilename(),
+                file.getSize(), folder);
+        return buildResult(objectName, digest, byteCount, analyzer);
+    }
+
+    /**
+     * 在文本抽取线程池中执行抽取，超过时间预算时取消并失败
+     * 线程池已满时在当前线程执行，此时由抽取器在每页/每段的检查点上执行超时
+     */
+    private void extract(Path file, String format, TextExtractor extractor, Consumer<CharSequence> sink)
+            throws IOException {
+        ExtractionBudget budget = new ExtractionBudget(extractionProperties);
+        CompletableFuture<Void> task;
+        try {
+            task = CompletableFuture.runAsync(() -> {
+                try {
+                    extractor.extract(file, format, budget, sink);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, extractionExecutor);
+        } catch (RejectedExecutionException e) {
+            extractor.extract(file, format, budget, sink);
+            return;
+        }
+
+        try {
+            task.get(extractionProperties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            budget.cancel();
+            throw new IllegalArgumentException("文档解析超时");
+        } catch (InterruptedException e) {
+            budget.cancel();
+            Thread.currentThread().interrupt();
+            throw new IOException("文档解析被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("文档解析失败：" + cause.getMessage(), cause);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除临时文件失败：{}", file, e);
+        }
+    }
+
+    private String awaitUpload(CompletableFuture<String> upload) throws IOException {
+        try {
+            return upload.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待文件上传被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("文件上传失败：" + cause.getMessage(), cause);
+        }
+    }
+
+    private IngestionResult buildResult(String objectName, MessageDigest digest, long byteCount,
+            StreamingTextAnalyzer analyzer) {
+        return new IngestionResult(objectName, ossService.getFileUrl(objectName), toHex(digest.digest()),
+                byteCount, analyzer.getContent(), analyzer.getSummary(), analyzer.getTopKeywords(KEYWORD_LIMIT));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * 接收读取到的每一块原始数据，读取结束后给出文本分析结果
+     */
+    private interface ChunkSink {
+
+        void accept(byte[] buffer, int offset, int length) throws IOException;
+
+        StreamingTextAnalyzer complete() throws IOException;
+    }
+
+    /**
+     * 纯文本：数据块直接解码送入分析器
+     */
+    private static final class AnalyzingSink implements ChunkSink {
+
+        private final StreamingTextAnalyzer analyzer;
+
+        AnalyzingSink(StreamingTextAnalyzer analyzer) {
+            this.analyzer = analyzer;
+        }
+
+        @Override
+        public void accept(byte[] buffer, int offset, int length) {
+            analyzer.accept(buffer, offset, length);
+        }
+
+        @Override
+        public StreamingTextAnalyzer complete() {
+            analyzer.finish();
+            return analyzer;
+        }
+    }
+
+    /**
+     * 二进制文档：数据块写入临时文件，读取结束后抽取文本送入分析器
+     */
+    private final class ExtractingSink implements ChunkSink {
+
+        private final Path tempFile;
+        private final String format;
+        private final TextExtractor extractor;
+        private final Set<String> stopWords;
+        private final OutputStream out;
+
+        ExtractingSink(Path tempFile, String format, TextExtractor extractor, Set<String> stopWords)
+                throws IOException {
+            this.tempFile = tempFile;
+            this.format = format;
+            this.extractor = extractor;
+            this.stopWords = stopWords;
+            this.out = Files.newOutputStream(tempFile);
+        }
+
+        @Override
+        public void accept(byte[] buffer, int offset, int length) throws IOException {
+            out.write(buffer, offset, length);
+        }
+
+        @Override
+        public StreamingTextAnalyzer complete() throws IOException {
+            out.close();
+            // 抽取出的文本量与文件大小无关，不按文件大小预分配
+            StreamingTextAnalyzer analyzer = new StreamingTextAnalyzer(0, stopWords);
+            extract(tempFile, format, extractor, analyzer::accept);
+            analyzer.finish();
+            return analyzer;
+        }
+
+        void close() {
+            try {
+                out.close();
+            } catch (IOException e) {
+                log.warn("关闭临时文件失败：{}", tempFile, e);
+            }
+        }
+    }
+}
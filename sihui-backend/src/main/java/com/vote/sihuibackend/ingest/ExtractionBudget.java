@@ -0,0 +1,61 @@
+package com.vote.sihuibackend.ingest;
+
+import com.vote.sihuibackend.config.DocumentExtractionProperties;
+
+/**
+ * 单个文件的文本抽取预算
+ * 抽取器在处理每页、每段时调用 {@link #checkpoint()}，超时或被取消时立即停止，
+ * 抽取出的字符数通过 {@link #consumeChars(int)} 计入上限。
+ *
+ * @author Sihui Team
+ */
+public class ExtractionBudget {
+
+    private final long deadline;
+    private final long maxMainMemoryBytes;
+    private final long maxEntryBytes;
+    private final long maxChars;
+    private long chars;
+    private volatile boolean cancelled;
+
+    public ExtractionBudget(DocumentExtractionProperties properties) {
+        this.deadline = System.currentTimeMillis() + properties.getTimeout().toMillis();
+        this.maxMainMemoryBytes = properties.getMaxMemory().toBytes();
+        this.maxEntryBytes = properties.getMaxEntrySize().toBytes();
+        this.maxChars = properties.getMaxChars();
+    }
+
+    /**
+     * 检查是否仍可继续抽取
+     */
+    public void checkpoint() {
+        if (cancelled || System.currentTimeMillis() > deadline) {
+            throw new IllegalArgumentException("文档解析超时");
+        }
+    }
+
+    /**
+     * 计入抽取出的字符数
+     */
+    public void consumeChars(int count) {
+        chars += count;
+        if (chars > maxChars) {
+            throw new IllegalArgumentException("文档文本内容超出限制");
+        }
+    }
+
+    /**
+     * 取消抽取，抽取线程在下一个检查点退出
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public long getMaxMainMemoryBytes() {
+        return maxMainMemoryBytes;
+    }
+
+    public long getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+}
@@ -0,0 +1,51 @@
+package com.vote.sihuibackend.ingest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 文档摄取结果
+ *
+ * @author Sihui Team
+ */
+@Getter
+@AllArgsConstructor
+public class IngestionResult {
+
+    /**
+     * OSS对象名（包含路径）
+     */
+    private final String objectName;
+
+    /**
+     * 文件访问URL
+     */
+    private final String fileUrl;
+
+    /**
+     * 内容SHA-256摘要（十六进制）
+     */
+    private final String contentHash;
+
+    /**
+     * 读取的字节数
+     */
+    private final long byteCount;
+
+    /**
+     * 解析后的正文
+     */
+    private final String content;
+
+    /**
+     * 摘要
+     */
+    private final String summary;
+
+    /**
+     * 按词频排序的关键词
+     */
+    private final List<String> keywords;
+}
@@ -0,0 +1,228 @@
+package com.vote.sihuibackend.ingest;
+
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Word（docx）和PowerPoint（pptx）文本抽取器
+ * 直接读取OOXML压缩包中的正文部件，用StAX逐个事件解析，文本按段落交给接收方，
+ * 不构建文档对象模型；每个部件解压后的大小受预算限制，防止压缩炸弹。
+ *
+ * @author Sihui Team
+ */
+@Component
+public class OoxmlTextExtractor implements TextExtractor {
+
+    private static final String DOCX_BODY = "word/document.xml";
+    private static final Pattern SLIDE_PART = Pattern.compile("ppt/slides/slide(\\d+)\\.xml");
+    private static final int FLUSH_THRESHOLD = 8192;
+
+    private final XMLInputFactory xmlInputFactory;
+
+    public OoxmlTextExtractor() {
+        xmlInputFactory = XMLInputFactory.newFactory();
+        // OOXML部件不需要DTD，禁用以防XXE
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    @Override
+    public Set<String> getSupportedFormats() {
+        return new HashSet<>(Arrays.asList("docx", "pptx"));
+    }
+
+    @Override
+    public void extract(Path file, String format, ExtractionBudget budget, Consumer<CharSequence> sink)
+            throws IOException {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            List<ZipEntry> parts = "pptx".equals(format) ? slideParts(zip) : bodyPart(zip);
+            if (parts.isEmpty()) {
+                throw new IllegalArgumentException("无法识别的Office文档：缺少正文内容");
+            }
+            for (ZipEntry part : parts) {
+                budget.checkpoint();
+                if (part.getSize() > budget.getMaxEntryBytes()) {
+                    throw new IllegalArgumentException("文档内容过大：" + part.getName());
+                }
+                try (InputStream in = new LimitedInputStream(zip.getInputStream(part), budget.getMaxEntryBytes())) {
+                    parsePart(in, budget, sink);
+                }
+            }
+        }
+    }
+
+    private static List<ZipEntry> bodyPart(ZipFile zip) {
+        ZipEntry body = zip.getEntry(DOCX_BODY);
+        return body == null ? Collections.emptyList() : Collections.singletonList(body);
+    }
+
+    /**
+     * 按幻灯片编号排序的幻灯片部件
+     */
+    private static List<ZipEntry> slideParts(ZipFile zip) {
+        List<ZipEntry> slides = new ArrayList<>();
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (SLIDE_PART.matcher(entry.getName()).matches()) {
+                slides.add(entry);
+            }
+        }
+        slides.sort(Comparator.comparingInt(OoxmlTextExtractor::slideNumber));
+        return slides;
+    }
+
+    private static int slideNumber(ZipEntry entry) {
+        Matcher matcher = SLIDE_PART.matcher(entry.getName());
+        return matcher.matches() ? Integer.parseInt(matcher.group(1)) : Integer.MAX_VALUE;
+    }
+
+    /**
+     * 解析一个XML部件：只收集文本元素t中的字符，段落p结束时换行，br/cr换行，
+     * 运行r中的tab输出制表符（段落属性中的tab是制表位定义，忽略）
+     */
+    private void parsePart(InputStream in, ExtractionBudget budget, Consumer<CharSequence> sink)
+            throws IOException {
+        StringBuilder paragraph = new StringBuilder();
+        XMLStreamReader reader = null;
+        try {
+            reader = xmlInputFactory.createXMLStreamReader(in);
+            int textDepth = 0;
+            int runDepth = 0;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        switch (reader.getLocalName()) {
+                            case "t":
+                                textDepth++;
+                                break;
+                            case "r":
+                                runDepth++;
+                                break;
+                            case "br":
+                            case "cr":
+                                paragraph.append('\n');
+                                break;
+                            case "tab":
+                                if (runDepth > 0) {
+                                    paragraph.append('\t');
+                                }
+                                break;
+                            default:
+                                break;
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        switch (reader.getLocalName()) {
+                            case "t":
+                                textDepth--;
+                                break;
+                            case "r":
+                                runDepth--;
+                                break;
+                            case "p":
+                                paragraph.append('\n');
+                                flush(paragraph, budget, sink);
+                                break;
+                            default:
+                                break;
+                        }
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                        if (textDepth > 0) {
+                            paragraph.append(reader.getTextCharacters(), reader.getTextStart(),
+                                    reader.getTextLength());
+                            if (paragraph.length() >= FLUSH_THRESHOLD) {
+                                flush(paragraph, budget, sink);
+                            }
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            flush(paragraph, budget, sink);
+        } catch (XMLStreamException e) {
+            throw new IOException("Office文档XML解析失败：" + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // 底层输入流由调用方关闭
+                }
+            }
+        }
+    }
+
+    private static void flush(StringBuilder paragraph, ExtractionBudget budget, Consumer<CharSequence> sink) {
+        if (paragraph.length() == 0) {
+            return;
+        }
+        budget.checkpoint();
+        budget.consumeChars(paragraph.length());
+        sink.accept(paragraph);
+        paragraph.setLength(0);
+    }
+
+    /**
+     * 读取超过上限时失败的输入流
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) {
+            count += n;
+            if (count > limit) {
+                throw new IllegalArgumentException("文档内容解压后超出限制");
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.vote.sihuibackend.ingest;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * PDF文本抽取器
+ * 使用PDFBox逐页抽取文本，解析缓冲超过内存预算的部分写入临时文件，每页开始前检查时间预算
+ *
+ * @author Sihui Team
+ */
+@Component
+public class PdfTextExtractor implements TextExtractor {
+
+    @Override
+    public Set<String> getSupportedFormats() {
+        return Collections.singleton("pdf");
+    }
+
+    @Override
+    public void extract(Path file, String format, ExtractionBudget budget, Consumer<CharSequence> sink)
+            throws IOException {
+        MemoryUsageSetting memory = MemoryUsageSetting.setupMixed(budget.getMaxMainMemoryBytes());
+        try (PDDocument document = PDDocument.load(file.toFile(), memory)) {
+            if (!document.getCurrentAccessPermission().canExtractContent()) {
+                throw new IllegalArgumentException("PDF文档不允许抽取文本");
+            }
+            new PageStripper(budget).writeText(document, new SinkWriter(budget, sink));
+        }
+    }
+
+    /**
+     * 每页开始前检查预算的文本剥离器
+     */
+    private static final class PageStripper extends PDFTextStripper {
+
+        private final ExtractionBudget budget;
+
+        PageStripper(ExtractionBudget budget) throws IOException {
+            this.budget = budget;
+        }
+
+        @Override
+        protected void startPage(PDPage page) throws IOException {
+            budget.checkpoint();
+            super.startPage(page);
+        }
+    }
+
+    /**
+     * 把剥离器输出的文本直接转交给接收方，不做缓冲
+     */
+    private static final class SinkWriter extends Writer {
+
+        private final ExtractionBudget budget;
+        private final Consumer<CharSequence> sink;
+
+        SinkWriter(ExtractionBudget budget, Consumer<CharSequence> sink) {
+            this.budget = budget;
+            this.sink = sink;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            budget.consumeChars(len);
+            sink.accept(CharBuffer.wrap(cbuf, off, len));
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            budget.consumeChars(len);
+            sink.accept(str.subSequence(off, off + len));
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
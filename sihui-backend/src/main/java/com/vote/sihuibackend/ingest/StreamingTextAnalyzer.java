@@ -0,0 +1,216 @@
+package com.vote.sihuibackend.ingest;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 流式文本分析器
+ * 按块接收UTF-8字节，一次扫描同时完成解码、正文累积、摘要截取和关键词词频统计，
+ * 结果与逐行读取后再分别生成摘要、提取关键词的方式一致。
+ *
+ * @author Sihui Team
+ */
+public class StreamingTextAnalyzer {
+
+    private static final int SUMMARY_LENGTH = 200;
+    private static final int BYTE_CARRY = 8;
+    private static final int MAX_PREALLOCATED_CHARS = 1 << 20;
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer pendingBytes = ByteBuffer.allocate(BYTE_CARRY);
+    private final CharBuffer chars = CharBuffer.allocate(8192);
+
+    // 正文：换行统一为\n，每行以\n结尾
+    private final StringBuilder content;
+    private boolean pendingCarriageReturn;
+
+    // 摘要：连续空白折叠为一个空格并去掉首尾空白
+    private final StringBuilder summary = new StringBuilder(SUMMARY_LENGTH + 1);
+    private boolean summaryPendingSpace;
+
+    // 关键词：按标点和空白切分
+    private final StringBuilder token = new StringBuilder();
+    private final Map<String, Integer> wordCount = new HashMap<>();
+    private final Set<String> stopWords;
+
+    private boolean finished;
+
+    /**
+     * @param expectedBytes 预计字节数，用于预分配正文容量（最多预分配1M字符）
+     * @param stopWords     关键词统计时忽略的停用词
+     */
+    public StreamingTextAnalyzer(long expectedBytes, Set<String> stopWords) {
+        this.content = new StringBuilder((int) Math.min(Math.max(expectedBytes, 16), MAX_PREALLOCATED_CHARS));
+        this.stopWords = stopWords;
+    }
+
+    /**
+     * 接收一块字节，块边界可以落在多字节字符中间
+     */
+    public void accept(byte[] buffer, int offset, int length) {
+        ByteBuffer input = ByteBuffer.wrap(buffer, offset, length);
+        // 先用上一块残留的不完整字符拼出完整字符
+        while (pendingBytes.position() > 0 && input.hasRemaining()) {
+            pendingBytes.put(input.get());
+            pendingBytes.flip();
+            decode(pendingBytes, false);
+            pendingBytes.compact();
+            if (pendingBytes.position() == 0) {
+                break;
+            }
+        }
+        decode(input, false);
+        // 剩余不足一个字符的字节留到下一块
+        while (input.hasRemaining()) {
+            pendingBytes.put(input.get());
+        }
+    }
+
+    /**
+     * 接收已解码的文本，用于从PDF、Office文档中抽取出的文本片段
+     */
+    public void accept(CharSequence text) {
+        consume(CharBuffer.wrap(text));
+    }
+
+    /**
+     * 输入结束，处理残留字节和末尾未结束的行
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        pendingBytes.flip();
+        decode(pendingBytes, true);
+        pendingBytes.clear();
+        chars.clear();
+        decoder.flush(chars);
+        chars.flip();
+        consume(chars);
+        if (pendingCarriageReturn) {
+            pendingCarriageReturn = false;
+        } else if (content.length() > 0 && content.charAt(content.length() - 1) != '\n') {
+            content.append('\n');
+        }
+        endToken();
+        finished = true;
+    }
+
+    public String getContent() {
+        return content.toString();
+    }
+
+    /**
+     * 摘要：折叠空白后的前200个字符，超出时以省略号结尾
+     */
+    public String getSummary() {
+        String cleanContent = summary.toString().trim();
+        if (cleanContent.length() <= SUMMARY_LENGTH) {
+            return cleanContent;
+        }
+        return cleanContent.substring(0, SUMMARY_LENGTH) + "...";
+    }
+
+    /**
+     * 按词频取前 limit 个关键词
+     */
+    public List<String> getTopKeywords(int limit) {
+        return wordCount.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private void decode(ByteBuffer input, boolean endOfInput) {
+        while (true) {
+            chars.clear();
+            CoderResult result = decoder.decode(input, chars, endOfInput);
+            chars.flip();
+            consume(chars);
+            if (!result.isOverflow()) {
+                return;
+            }
+        }
+    }
+
+    private void consume(CharBuffer decoded) {
+        while (decoded.hasRemaining()) {
+            char c = decoded.get();
+            appendContent(c);
+            appendSummary(c);
+            appendToken(c);
+        }
+    }
+
+    private void appendContent(char c) {
+        if (pendingCarriageReturn) {
+            pendingCarriageReturn = false;
+            if (c == '\n') {
+                return;
+            }
+        }
+        if (c == '\r') {
+            content.append('\n');
+            pendingCarriageReturn = true;
+        } else {
+            content.append(c);
+        }
+    }
+
+    private void appendSummary(char c) {
+        if (summary.length() > SUMMARY_LENGTH) {
+            return;
+        }
+        if (isRegexWhitespace(c)) {
+            summaryPendingSpace = summary.length() > 0;
+            return;
+        }
+        if (summaryPendingSpace) {
+            summary.append(' ');
+            summaryPendingSpace = false;
+        }
+        summary.append(c);
+    }
+
+    private void appendToken(char c) {
+        if (isRegexWhitespace(c) || isAsciiPunctuation(c)) {
+            endToken();
+        } else {
+            token.append(c);
+        }
+    }
+
+    private void endToken() {
+        if (token.length() == 0) {
+            return;
+        }
+        String word = token.toString().trim();
+        token.setLength(0);
+        if (word.length() >= 2 && !stopWords.contains(word)) {
+            wordCount.merge(word, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * 与正则 \s 一致
+     */
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    /**
+     * 与正则 \p{Punct} 一致（仅ASCII标点）
+     */
+    private static boolean isAsciiPunctuation(char c) {
+        return (c >= '!' && c <= '/') || (c >= ':' && c <= '@') || (c >= '[' && c <= '`') || (c >= '{' && c <= '~');
+    }
+}
@@ -0,0 +1,31 @@
+package com.vote.sihuibackend.ingest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 文档文本抽取器
+ * 以流式方式从二进制文档中抽取文本，按页或按段落分批交给接收方，不在内存中保留整份文档
+ *
+ * @author Sihui Team
+ */
+public interface TextExtractor {
+
+    /**
+     * 支持的文件扩展名（小写）
+     */
+    Set<String> getSupportedFormats();
+
+    /**
+     * 抽取文本
+     *
+     * @param file   文档文件
+     * @param format 文件扩展名（小写）
+     * @param budget 时间和内存预算
+     * @param sink   文本接收方，文本片段只在回调期间有效
+     */
+    void extract(Path file, String format, ExtractionBudget budget, Consumer<CharSequence> sink)
+            throws IOException;
+}
@@ -0,0 +1,69 @@
+package com.vote.sihuibackend.job;
+
+import com.vote.sihuibackend.service.ChatArchiveService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 会话归档任务
+ * 按会话ID顺序分批查找不活跃会话并逐个归档，每个会话一个事务；重复执行时已归档的会话不会再被查出
+ *
+ * @author Sihui Team
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChatArchiveJobHandler implements ProcessingJobHandler {
+
+    public static final String JOB_TYPE = "CHAT_ARCHIVE";
+
+    private final ChatArchiveService chatArchiveService;
+
+    /**
+     * 每批查找的会话数
+     */
+    @Value("${app.ai.archive.batch-size:100}")
+    private int batchSize = 100;
+
+    /**
+     * 每次任务最多处理的会话数，剩余的会话留给下一次任务
+     */
+    @Value("${app.ai.archive.max-sessions-per-run:10000}")
+    private int maxSessionsPerRun = 10000;
+
+    @Override
+    public String getJobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public void handle(String payload, JobContext context) {
+        long afterId = 0;
+        int processed = 0;
+        int archived = 0;
+        while (processed < maxSessionsPerRun) {
+            List<Long> sessionIds = chatArchiveService.findArchiveCandidates(afterId,
+                    Math.min(batchSize, maxSessionsPerRun - processed));
+            if (sessionIds.isEmpty()) {
+                break;
+            }
+            for (Long sessionId : sessionIds) {
+                if (chatArchiveService.archiveSession(sessionId)) {
+                    archived++;
+                }
+                afterId = sessionId;
+                processed++;
+            }
+            if (!context.reportProgress(Math.min(99, processed * 100 / maxSessionsPerRun))) {
+                log.warn("归档任务 {} 的租约已丢失，停止执行", context.getJobId());
+                return;
+            }
+        }
+        context.reportProgress(100);
+        log.info("归档任务 {} 完成，检查 {} 个会话，归档 {} 个", context.getJobId(), processed, archived);
+    }
+}
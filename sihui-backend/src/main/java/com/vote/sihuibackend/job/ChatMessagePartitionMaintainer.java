@@ -0,0 +1,27 @@
+package com.vote.sihuibackend.job;
+
+import com.vote.sihuibackend.service.ChatArchiveService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 消息表分区维护触发器
+ * 启动时和每天定时检查分区，月份分区始终提前建好，新消息不会落入兜底分区
+ *
+ * @author Sihui Team
+ */
+@Component
+@RequiredArgsConstructor
+public class ChatMessagePartitionMaintainer {
+
+    private final ChatArchiveService chatArchiveService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.ai.archive.partition-cron:0 15 3 * * ?}")
+    public void maintainMessagePartitions() {
+        chatArchiveService.ensureMessagePartitions();
+    }
+}
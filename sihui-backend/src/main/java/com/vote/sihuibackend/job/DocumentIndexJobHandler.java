@@ -0,0 +1,66 @@
+package com.vote.sihuibackend.job;
+
+import com.vote.sihuibackend.service.TextSearchService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 文档索引任务
+ * 参数为逗号分隔的文档ID，按批更新索引并汇报进度；词频保存到数据库，任务在哪个实例上执行，所有实例都能直接使用结果。
+ * 重复执行只会重新计算同一批索引
+ *
+ * @author Sihui Team
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentIndexJobHandler implements ProcessingJobHandler {
+
+    public static final String JOB_TYPE = "DOCUMENT_INDEX";
+
+    private static final int CHUNK_SIZE = 50;
+
+    private final TextSearchService textSearchService;
+
+    @Override
+    public String getJobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public void handle(String payload, JobContext context) {
+        List<Long> documentIds = parseIds(payload);
+        for (int from = 0; from < documentIds.size(); from += CHUNK_SIZE) {
+            int to = Math.min(from + CHUNK_SIZE, documentIds.size());
+            textSearchService.updateDocumentIndexes(documentIds.subList(from, to));
+            if (!context.reportProgress(to * 100 / documentIds.size())) {
+                log.warn("索引任务 {} 的租约已丢失，停止执行", context.getJobId());
+                return;
+            }
+        }
+    }
+
+    /**
+     * 生成任务参数
+     */
+    public static String payloadOf(List<Long> documentIds) {
+        return documentIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    private static List<Long> parseIds(String payload) {
+        if (!StringUtils.hasText(payload)) {
+            throw new IllegalArgumentException("索引任务缺少文档ID");
+        }
+        return Arrays.stream(payload.split(","))
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .map(Long::valueOf)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,30 @@
+package com.vote.sihuibackend.job;
+
+import com.vote.sihuibackend.service.TextSearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 全量重建索引任务
+ *
+ * @author Sihui Team
+ */
+@Component
+@RequiredArgsConstructor
+public class IndexRebuildJobHandler implements ProcessingJobHandler {
+
+    public static final String JOB_TYPE = "INDEX_REBUILD";
+
+    private final TextSearchService textSearchService;
+
+    @Override
+    public String getJobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public void handle(String payload, JobContext context) {
+        textSearchService.rebuildAllIndexes();
+        context.reportProgress(100);
+    }
+}
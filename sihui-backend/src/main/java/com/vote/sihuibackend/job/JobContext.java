@@ -0,0 +1,22 @@
+package com.vote.sihuibackend.job;
+
+/**
+ * 任务执行上下文
+ *
+ * @author Sihui Team
+ */
+public interface JobContext {
+
+    /**
+     * 任务ID
+     */
+    Long getJobId();
+
+    /**
+     * 汇报执行进度，同时续约
+     *
+     * @param percent 进度（0-100）
+     * @return false表示租约已丢失（任务已被其他实例接管），应尽快停止
+     */
+    boolean reportProgress(int percent);
+}
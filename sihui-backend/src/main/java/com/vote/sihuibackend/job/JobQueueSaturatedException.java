@@ -0,0 +1,14 @@
+package com.vote.sihuibackend.job;
+
+/**
+ * 处理队列已满
+ * 排队任务数达到上限时拒绝新任务，接口返回429，由客户端稍后重试
+ *
+ * @author Sihui Team
+ */
+public class JobQueueSaturatedException extends RuntimeException {
+
+    public JobQueueSaturatedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,23 @@
+package com.vote.sihuibackend.job;
+
+/**
+ * 后台任务处理器
+ * 每种任务类型对应一个处理器；任务可能在失败或实例宕机后重新执行，处理逻辑需要可重复执行
+ *
+ * @author Sihui Team
+ */
+public interface ProcessingJobHandler {
+
+    /**
+     * 处理的任务类型
+     */
+    String getJobType();
+
+    /**
+     * 执行任务，抛出异常时按退避时间重试，超过最多执行次数后标记为失败
+     *
+     * @param payload 任务参数
+     * @param context 执行上下文，用于汇报进度
+     */
+    void handle(String payload, JobContext context) throws Exception;
+}
@@ -0,0 +1,50 @@
+package com.vote.sihuibackend.job;
+
+import com.vote.sihuibackend.repository.DocumentRepository;
+import com.vote.sihuibackend.service.OssService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * 存储对象清理任务
+ * 内容去重后多个文档共享同一存储对象。永久删除最后一个引用的文档时不立即删除对象，而是提交延迟任务：
+ * 并发上传的重复文档可能在删除前找到了来源文档、删除后才写入引用，延迟足够长时这些引用都已写入。
+ * 执行时再次确认没有任何文档引用该对象才删除；重复执行时对象已不存在，删除为空操作
+ *
+ * @author Sihui Team
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StorageObjectCleanupJobHandler implements ProcessingJobHandler {
+
+    public static final String JOB_TYPE = "STORAGE_OBJECT_CLEANUP";
+
+    private final DocumentRepository documentRepository;
+    private final OssService ossService;
+
+    @Override
+    public String getJobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public void handle(String payload, JobContext context) {
+        if (!StringUtils.hasText(payload)) {
+            throw new IllegalArgumentException("清理任务缺少文件URL");
+        }
+        long references = documentRepository.countByFileUrl(payload);
+        if (references > 0) {
+            log.info("存储对象又被 {} 个文档引用，保留：{}", references, payload);
+        } else {
+            // 删除失败时抛出异常，按退避时间重试
+            if (!ossService.deleteFile(ossService.getObjectName(payload))) {
+                throw new IllegalStateException("删除存储对象失败：" + payload);
+            }
+            log.info("已删除不再被引用的存储对象：{}", payload);
+        }
+        context.reportProgress(100);
+    }
+}
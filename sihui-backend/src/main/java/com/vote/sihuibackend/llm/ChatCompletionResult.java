@@ -0,0 +1,24 @@
+package com.vote.sihuibackend.llm;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 对话补全结果
+ *
+ * @author Sihui Team
+ */
+@Getter
+@AllArgsConstructor
+public class ChatCompletionResult {
+
+    /**
+     * 回复内容
+     */
+    private final String content;
+
+    /**
+     * 是否来自回复缓存（包括与相同的并发请求共享的结果）
+     */
+    private final boolean cached;
+}
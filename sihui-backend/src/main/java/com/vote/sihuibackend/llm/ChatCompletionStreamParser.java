@@ -0,0 +1,124 @@
+package com.vote.sihuibackend.llm;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * 流式对话补全响应解析器
+ * 逐行读取OpenAI兼容接口（stream=true）返回的SSE数据，每个 {@code data:} 事件用Jackson流式解析器
+ * 只读取 choices[0].delta.content，其余字段直接跳过，不为每个分片构建JSON树
+ *
+ * @author Sihui Team
+ */
+public class ChatCompletionStreamParser {
+
+    private static final String DATA_PREFIX = "data:";
+    private static final String DONE = "[DONE]";
+
+    private final JsonFactory jsonFactory;
+
+    public ChatCompletionStreamParser(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * 解析响应流，按到达顺序回调每个文本分片
+     *
+     * @param in      响应体
+     * @param onToken 文本分片回调
+     * @return 拼接后的完整回复
+     * @throws IOException 读取失败，或流中返回了错误信息
+     */
+    public String parse(InputStream in, Consumer<String> onToken) throws IOException {
+        StringBuilder content = new StringBuilder();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.startsWith(DATA_PREFIX)) {
+                // 空行是事件分隔符，以冒号开头的是注释（心跳）
+                continue;
+            }
+            String data = line.substring(DATA_PREFIX.length()).trim();
+            if (DONE.equals(data)) {
+                break;
+            }
+            if (data.isEmpty()) {
+                continue;
+            }
+            String token = extractDeltaContent(data);
+            if (token != null && !token.isEmpty()) {
+                content.append(token);
+                onToken.accept(token);
+            }
+        }
+        return content.toString();
+    }
+
+    /**
+     * 读取一个分片中的 choices[0].delta.content
+     */
+    String extractDeltaContent(String json) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("choices".equals(field) && value == JsonToken.START_ARRAY) {
+                    return parser.nextToken() == JsonToken.START_OBJECT ? readChoice(parser) : null;
+                }
+                if ("error".equals(field)) {
+                    throw new IOException("流式响应返回错误: " + readErrorMessage(parser));
+                }
+                parser.skipChildren();
+            }
+            return null;
+        }
+    }
+
+    private static String readChoice(JsonParser parser) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("delta".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String deltaField = parser.getCurrentName();
+                    JsonToken deltaValue = parser.nextToken();
+                    if ("content".equals(deltaField)) {
+                        return deltaValue == JsonToken.VALUE_STRING ? parser.getText() : null;
+                    }
+                    parser.skipChildren();
+                }
+                return null;
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+
+    private static String readErrorMessage(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            return parser.getText();
+        }
+        String message = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("message".equals(field)) {
+                message = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return message;
+    }
+}
@@ -0,0 +1,116 @@
+package com.vote.sihuibackend.llm;
+
+/**
+ * 大模型调用的调用方信息
+ * 控制器在调用服务前设置，网关据此做每用户、每会话的限流和公平排队；
+ * 未设置时按系统后台调用处理。在其他线程中继续调用时需要显式传递。
+ * 可以附带截止时间，排队等待和HTTP调用都不会超过该时间。
+ *
+ * @author Sihui Team
+ */
+public final class LlmCallContext {
+
+    public enum Priority {
+        INTERACTIVE, BACKGROUND
+    }
+
+    public static final String SYSTEM_CALLER = "system";
+
+    /**
+     * 没有截止时间
+     */
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private static final LlmCallContext SYSTEM = new LlmCallContext(SYSTEM_CALLER, null, Priority.BACKGROUND,
+            NO_DEADLINE);
+    private static final ThreadLocal<LlmCallContext> CURRENT = new ThreadLocal<>();
+
+    private final String callerKey;
+    private final String sessionId;
+    private final Priority priority;
+    private final long deadlineMillis;
+
+    private LlmCallContext(String callerKey, String sessionId, Priority priority, long deadlineMillis) {
+        this.callerKey = callerKey;
+        this.sessionId = sessionId;
+        this.priority = priority;
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    /**
+     * 用户直接等待结果的交互式调用
+     */
+    public static LlmCallContext interactive(String callerKey, String sessionId) {
+        return new LlmCallContext(callerKey, sessionId, Priority.INTERACTIVE, NO_DEADLINE);
+    }
+
+    /**
+     * 当前线程的调用方信息，未设置时返回系统后台调用
+     */
+    public static LlmCallContext current() {
+        LlmCallContext context = CURRENT.get();
+        return context != null ? context : SYSTEM;
+    }
+
+    /**
+     * 在当前线程设置调用方信息，关闭时恢复之前的值
+     */
+    public static Scope open(LlmCallContext context) {
+        LlmCallContext previous = CURRENT.get();
+        CURRENT.set(context);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * 同一调用方的后台调用，不占用会话的交互式名额
+     */
+    public LlmCallContext asBackground() {
+        return priority == Priority.BACKGROUND ? this
+                : new LlmCallContext(callerKey, sessionId, Priority.BACKGROUND, deadlineMillis);
+    }
+
+    /**
+     * 同一调用方附带截止时间的调用，已有更早的截止时间时保留原值
+     *
+     * @param deadlineMillis 截止时间（毫秒时间戳）
+     */
+    public LlmCallContext withDeadline(long deadlineMillis) {
+        return deadlineMillis >= this.deadlineMillis ? this
+                : new LlmCallContext(callerKey, sessionId, priority, deadlineMillis);
+    }
+
+    public String getCallerKey() {
+        return callerKey;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    /**
+     * 距截止时间的剩余毫秒数，没有截止时间时返回Long.MAX_VALUE
+     */
+    public long remainingMillis() {
+        return deadlineMillis == NO_DEADLINE ? NO_DEADLINE : deadlineMillis - System.currentTimeMillis();
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,332 @@
+package com.vote.sihuibackend.llm;
+
+import com.vote.sihuibackend.config.LlmGatewayProperties;
+import com.vote.sihuibackend.llm.LlmCallContext.Priority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大模型调用网关
+ * 所有上游调用在此获取名额：全局并发、每用户和每会话的进行中调用数都有上限，后台调用另有并发上限；
+ * 拿不到名额的调用排队，交互式调用优先于后台调用，同一优先级内按用户加权轮询，单个用户的大量请求不会饿死其他用户。
+ * 排队有总长度、每用户长度和等待时间上限，超过时抛出LlmGatewayRejectedException。
+ *
+ * @author Sihui Team
+ */
+@Component
+@Slf4j
+public class LlmGateway {
+
+    static final String METRIC_QUEUE_DEPTH = "llm.gateway.queue.depth";
+    static final String METRIC_IN_FLIGHT = "llm.gateway.in.flight";
+    static final String METRIC_WAIT = "llm.gateway.wait";
+    static final String METRIC_REJECTED = "llm.gateway.rejected";
+
+    static final String REJECT_QUEUE_FULL = "queue_full";
+    static final String REJECT_USER_QUEUE_FULL = "user_queue_full";
+    static final String REJECT_TIMEOUT = "timeout";
+
+    /**
+     * 在网关名额内执行的调用
+     */
+    @FunctionalInterface
+    public interface LlmCall<T> {
+        T call() throws IOException;
+    }
+
+    private final LlmGatewayProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    // 以下状态均由this保护
+    private int inFlight;
+    private int backgroundInFlight;
+    private final Map<String, Integer> callerInFlight = new HashMap<>();
+    private final Map<String, Integer> sessionInFlight = new HashMap<>();
+    // 每个优先级一个轮询环，环中是有排队请求的调用方
+    private final Map<Priority, Deque<CallerQueue>> rings = new EnumMap<>(Priority.class);
+    private final Map<Priority, Map<String, CallerQueue>> callerQueues = new EnumMap<>(Priority.class);
+    private final Map<Priority, Integer> queued = new EnumMap<>(Priority.class);
+
+    @Autowired
+    public LlmGateway(LlmGatewayProperties properties, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this(properties, meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    public LlmGateway(LlmGatewayProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        for (Priority priority : Priority.values()) {
+            rings.put(priority, new ArrayDeque<>());
+            callerQueues.put(priority, new HashMap<>());
+            queued.put(priority, 0);
+            Gauge.builder(METRIC_QUEUE_DEPTH, this, gateway -> gateway.getQueueDepth(priority))
+                    .description("大模型调用排队数")
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+        Gauge.builder(METRIC_IN_FLIGHT, this, LlmGateway::getInFlight)
+                .description("进行中的大模型调用数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 按当前线程的调用方信息获取名额并执行调用
+     *
+     * @param call 上游调用
+     * @return 调用结果
+     * @throws IOException 调用失败，或被网关拒绝（LlmGatewayRejectedException）
+     */
+    public <T> T execute(LlmCall<T> call) throws IOException {
+        if (!properties.isEnabled()) {
+            return call.call();
+        }
+        Waiter waiter = acquire(LlmCallContext.current());
+        try {
+            return call.call();
+        } finally {
+            release(waiter);
+        }
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueueDepth(Priority priority) {
+        return queued.get(priority);
+    }
+
+    private Waiter acquire(LlmCallContext context) throws IOException {
+        Waiter waiter = new Waiter(context);
+        synchronized (this) {
+            int totalQueued = queued.get(Priority.INTERACTIVE) + queued.get(Priority.BACKGROUND);
+            if (totalQueued >= properties.getMaxQueueSize()) {
+                throw reject(REJECT_QUEUE_FULL, context);
+            }
+            CallerQueue callerQueue = callerQueues.get(context.getPriority()).get(context.getCallerKey());
+            if (callerQueue != null && callerQueue.waiters.size() >= properties.getMaxQueuedPerUser()) {
+                throw reject(REJECT_USER_QUEUE_FULL, context);
+            }
+            enqueue(waiter);
+            dispatch();
+        }
+
+        try {
+            long maxWaitMillis = Math.min(properties.getMaxWait().toMillis(), Math.max(0, context.remainingMillis()));
+            if (!waiter.granted.await(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                synchronized (this) {
+                    if (!waiter.isGranted()) {
+                        remove(waiter);
+                        throw reject(REJECT_TIMEOUT, context);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            synchronized (this) {
+                if (!waiter.isGranted()) {
+                    remove(waiter);
+                    throw new InterruptedIOException("等待大模型调用名额时被中断");
+                }
+            }
+            // 中断前已经拿到名额，照常执行，由调用方处理中断标记
+        }
+        return waiter;
+    }
+
+    private synchronized void release(Waiter waiter) {
+        LlmCallContext context = waiter.context;
+        inFlight--;
+        if (context.getPriority() == Priority.BACKGROUND) {
+            backgroundInFlight--;
+        }
+        decrement(callerInFlight, context.getCallerKey());
+        if (countsSession(context)) {
+            decrement(sessionInFlight, context.getSessionId());
+        }
+        dispatch();
+    }
+
+    /**
+     * 在名额允许的范围内按优先级和轮询顺序放行排队的请求
+     */
+    private void dispatch() {
+        while (inFlight < properties.getMaxConcurrent()) {
+            Waiter next = pollNext(Priority.INTERACTIVE);
+            if (next == null) {
+                next = pollNext(Priority.BACKGROUND);
+            }
+            if (next == null) {
+                return;
+            }
+            grant(next);
+        }
+    }
+
+    /**
+     * 从轮询环中取下一个可以执行的请求
+     * 环头的调用方有可执行的请求时放行，用完本轮权重后移到环尾；没有可执行的请求（已达到用户或会话上限）时直接移到环尾
+     */
+    private Waiter pollNext(Priority priority) {
+        if (priority == Priority.BACKGROUND && backgroundInFlight >= properties.getMaxBackgroundConcurrent()) {
+            return null;
+        }
+        Deque<CallerQueue> ring = rings.get(priority);
+        for (int i = ring.size(); i > 0; i--) {
+            CallerQueue head = ring.peekFirst();
+            Waiter waiter = head.pollEligible();
+            if (waiter == null) {
+                head.credits = weightOf(head.callerKey);
+                ring.addLast(ring.pollFirst());
+                continue;
+            }
+            queued.merge(priority, -1, Integer::sum);
+            if (head.waiters.isEmpty()) {
+                ring.pollFirst();
+                callerQueues.get(priority).remove(head.callerKey);
+            } else if (--head.credits <= 0) {
+                head.credits = weightOf(head.callerKey);
+                ring.addLast(ring.pollFirst());
+            }
+            return waiter;
+        }
+        return null;
+    }
+
+    private void grant(Waiter waiter) {
+        LlmCallContext context = waiter.context;
+        inFlight++;
+        if (context.getPriority() == Priority.BACKGROUND) {
+            backgroundInFlight++;
+        }
+        callerInFlight.merge(context.getCallerKey(), 1, Integer::sum);
+        if (countsSession(context)) {
+            sessionInFlight.merge(context.getSessionId(), 1, Integer::sum);
+        }
+        Timer.builder(METRIC_WAIT)
+                .description("大模型调用排队等待时间")
+                .tag("priority", context.getPriority().name().toLowerCase())
+                .register(meterRegistry)
+                .record(System.nanoTime() - waiter.enqueuedAt, TimeUnit.NANOSECONDS);
+        waiter.granted.countDown();
+    }
+
+    private void enqueue(Waiter waiter) {
+        Priority priority = waiter.context.getPriority();
+        CallerQueue callerQueue = callerQueues.get(priority).get(waiter.context.getCallerKey());
+        if (callerQueue == null) {
+            callerQueue = new CallerQueue(waiter.context.getCallerKey(), weightOf(waiter.context.getCallerKey()));
+            callerQueues.get(priority).put(callerQueue.callerKey, callerQueue);
+            rings.get(priority).addLast(callerQueue);
+        }
+        callerQueue.waiters.addLast(waiter);
+        queued.merge(priority, 1, Integer::sum);
+    }
+
+    private void remove(Waiter waiter) {
+        Priority priority = waiter.context.getPriority();
+        CallerQueue callerQueue = callerQueues.get(priority).get(waiter.context.getCallerKey());
+        if (callerQueue != null && callerQueue.waiters.remove(waiter)) {
+            queued.merge(priority, -1, Integer::sum);
+            if (callerQueue.waiters.isEmpty()) {
+                callerQueues.get(priority).remove(callerQueue.callerKey);
+                rings.get(priority).remove(callerQueue);
+            }
+        }
+    }
+
+    private boolean eligible(LlmCallContext context) {
+        if (callerInFlight.getOrDefault(context.getCallerKey(), 0) >= properties.getMaxPerUser()) {
+            return false;
+        }
+        return !countsSession(context)
+                || sessionInFlight.getOrDefault(context.getSessionId(), 0) < properties.getMaxPerSession();
+    }
+
+    /**
+     * 会话上限只约束交互式调用，避免超时未结束的后台阶段挡住同一会话的回答
+     */
+    private static boolean countsSession(LlmCallContext context) {
+        return context.getPriority() == Priority.INTERACTIVE && context.getSessionId() != null;
+    }
+
+    private int weightOf(String callerKey) {
+        Integer weight = properties.getWeights().get(callerKey);
+        return Math.max(1, weight != null ? weight : properties.getDefaultWeight());
+    }
+
+    private LlmGatewayRejectedException reject(String reason, LlmCallContext context) {
+        Counter.builder(METRIC_REJECTED)
+                .description("被网关拒绝的大模型调用数")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        log.warn("大模型调用被网关拒绝 - 调用方: {}, 优先级: {}, 原因: {}", context.getCallerKey(),
+                context.getPriority(), reason);
+        return new LlmGatewayRejectedException(reason, "AI服务繁忙，请稍后重试");
+    }
+
+    private static void decrement(Map<String, Integer> counts, String key) {
+        counts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * 一个调用方在某个优先级下的排队请求
+     */
+    private final class CallerQueue {
+        private final String callerKey;
+        private final Deque<Waiter> waiters = new ArrayDeque<>();
+        private int credits;
+
+        CallerQueue(String callerKey, int credits) {
+            this.callerKey = callerKey;
+            this.credits = credits;
+        }
+
+        /**
+         * 取出最早的可执行请求；同一用户的不同会话互不阻塞
+         */
+        Waiter pollEligible() {
+            for (Iterator<Waiter> it = waiters.iterator(); it.hasNext();) {
+                Waiter waiter = it.next();
+                if (eligible(waiter.context)) {
+                    it.remove();
+                    return waiter;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Waiter {
+        private final LlmCallContext context;
+        private final long enqueuedAt = System.nanoTime();
+        private final CountDownLatch granted = new CountDownLatch(1);
+
+        Waiter(LlmCallContext context) {
+            this.context = context;
+        }
+
+        boolean isGranted() {
+            return granted.getCount() == 0;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.vote.sihuibackend.llm;
+
+import java.io.IOException;
+
+/**
+ * 大模型调用被网关拒绝异常
+ * 排队已满或等待超时时抛出，调用方应提示用户稍后重试
+ *
+ * @author Sihui Team
+ */
+public class LlmGatewayRejectedException extends IOException {
+
+    private final String reason;
+
+    public LlmGatewayRejectedException(String reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,388 @@
+package com.vote.sihuibackend.llm;
+
+import com.vote.sihuibackend.config.DeepSeekClientProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.Header;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * DeepSeek HTTP客户端
+ * 使用连接池复用长连接；对限流（429）、服务端错误（5xx）和网络异常按指数退避加随机抖动重试，
+ * 服务端返回Retry-After时按其等待；上游持续失败时熔断，熔断期间直接失败，不占用连接和线程。
+ * 按结果统计请求数和耗时、每次尝试的结果、重试次数、熔断状态和连接池使用情况。
+ *
+ * @author Sihui Team
+ */
+@Component
+@Slf4j
+public class LlmHttpClient {
+
+    static final String METRIC_REQUESTS = "deepseek.client.requests";
+    static final String METRIC_ATTEMPTS = "deepseek.client.attempts";
+    static final String METRIC_RETRIES = "deepseek.client.retries";
+
+    static final String OUTCOME_SUCCESS = "success";
+    static final String OUTCOME_CLIENT_ERROR = "client_error";
+    static final String OUTCOME_SERVER_ERROR = "server_error";
+    static final String OUTCOME_RATE_LIMITED = "rate_limited";
+    static final String OUTCOME_TIMEOUT = "timeout";
+    static final String OUTCOME_IO_ERROR = "io_error";
+    static final String OUTCOME_POOL_EXHAUSTED = "pool_exhausted";
+    static final String OUTCOME_CIRCUIT_OPEN = "circuit_open";
+    static final String OUTCOME_CANCELLED = "cancelled";
+
+    /**
+     * 创建请求，每次尝试都会重新调用
+     */
+    @FunctionalInterface
+    public interface RequestFactory {
+        HttpPost create() throws IOException;
+    }
+
+    /**
+     * 处理2xx响应体
+     */
+    @FunctionalInterface
+    public interface BodyHandler<T> {
+        T handle(InputStream body) throws IOException;
+    }
+
+    private final DeepSeekClientProperties properties;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final CircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+    private final Counter retryCounter;
+    // 到达总超时后中止进行中的请求
+    private final ScheduledExecutorService deadlineScheduler;
+
+    @Autowired
+    public LlmHttpClient(DeepSeekClientProperties properties, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this(properties, meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    public LlmHttpClient(DeepSeekClientProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(properties.getMaxConnections());
+        // 只访问一个主机，单路由上限与总上限相同
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxConnections());
+        // 空闲超过2秒的连接在复用前先检查是否已被服务端关闭
+        connectionManager.setValidateAfterInactivity(2000);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(toIntMillis(properties.getConnectTimeout().toMillis()))
+                .setConnectionRequestTimeout(toIntMillis(properties.getConnectionRequestTimeout().toMillis()))
+                .setSocketTimeout(toIntMillis(properties.getReadTimeout().toMillis()))
+                .build();
+
+        long keepAliveMillis = properties.getKeepAlive().toMillis();
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long declared = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return declared > 0 ? Math.min(declared, keepAliveMillis) : keepAliveMillis;
+        };
+
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS)
+                // 重试由本类按状态码和退避策略处理
+                .disableAutomaticRetries()
+                .build();
+
+        DeepSeekClientProperties.CircuitBreaker breaker = properties.getCircuitBreaker();
+        circuitBreaker = breaker.isEnabled()
+                ? new CircuitBreaker(breaker.getWindowSize(), breaker.getMinimumCalls(),
+                        breaker.getFailureRateThreshold(), breaker.getOpenDuration().toMillis(),
+                        breaker.getHalfOpenCalls())
+                : null;
+
+        deadlineScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "deepseek-deadline");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        retryCounter = Counter.builder(METRIC_RETRIES)
+                .description("DeepSeek API重试次数")
+                .register(meterRegistry);
+        Gauge.builder("deepseek.client.pool.leased", connectionManager, m -> m.getTotalStats().getLeased())
+                .description("DeepSeek连接池已借出连接数")
+                .register(meterRegistry);
+        Gauge.builder("deepseek.client.pool.available", connectionManager, m -> m.getTotalStats().getAvailable())
+                .description("DeepSeek连接池空闲连接数")
+                .register(meterRegistry);
+        Gauge.builder("deepseek.client.pool.pending", connectionManager, m -> m.getTotalStats().getPending())
+                .description("DeepSeek连接池等待获取连接的请求数")
+                .register(meterRegistry);
+        if (circuitBreaker != null) {
+            Gauge.builder("deepseek.client.circuit.state", circuitBreaker, b -> b.getState().ordinal())
+                    .description("DeepSeek熔断状态（0关闭，1打开，2半开）")
+                    .register(meterRegistry);
+        }
+
+        log.info("DeepSeek HTTP客户端初始化完成，最大连接数: {}, 总超时: {}, 最多尝试: {}次, 熔断: {}",
+                properties.getMaxConnections(), properties.getTotalTimeout(),
+                properties.getRetry().getMaxAttempts(), breaker.isEnabled() ? "启用" : "关闭");
+    }
+
+    /**
+     * 执行非流式请求并返回响应体
+     * 所有尝试和等待的总时长不超过totalTimeout，调用方信息带有更早的截止时间时以截止时间为准
+     *
+     * @param requestFactory 请求工厂
+     * @return 2xx响应体
+     * @throws IOException 重试后仍失败、超时或熔断打开
+     */
+    public String execute(RequestFactory requestFactory) throws IOException {
+        return call(requestFactory, body -> StreamUtils.copyToString(body, StandardCharsets.UTF_8), true);
+    }
+
+    /**
+     * 执行流式请求
+     * 只在收到2xx响应之前重试；响应体交给处理器后不再重试，避免重复输出已推送的内容。
+     * 流式请求不受totalTimeout限制，由读取超时保证上游停止输出时及时失败。
+     * 处理器抛出运行时异常（如客户端已断开）时立即断开上游连接并原样抛出。
+     *
+     * @param requestFactory 请求工厂
+     * @param handler        响应体处理器
+     * @return 处理器的返回值
+     * @throws IOException 建立流之前重试后仍失败、读取中断或熔断打开
+     */
+    public <T> T executeStream(RequestFactory requestFactory, BodyHandler<T> handler) throws IOException {
+        return call(requestFactory, handler, false);
+    }
+
+    /**
+     * 当前熔断状态，未启用熔断时始终为关闭
+     */
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker != null ? circuitBreaker.getState() : CircuitBreaker.State.CLOSED;
+    }
+
+    private <T> T call(RequestFactory requestFactory, BodyHandler<T> handler, boolean replayable)
+            throws IOException {
+        long startNanos = System.nanoTime();
+        long budgetMillis = properties.getTotalTimeout().toMillis();
+        // 调用方的截止时间早于总超时时，到期中止属于调用方放弃，不说明上游故障
+        long callerRemainingMillis = LlmCallContext.current().remainingMillis();
+        boolean callerDeadline = replayable && callerRemainingMillis < budgetMillis;
+        if (callerDeadline) {
+            budgetMillis = Math.max(0, callerRemainingMillis);
+            if (budgetMillis == 0) {
+                recordRequest(OUTCOME_CANCELLED, startNanos);
+                throw new InterruptedIOException("调用方截止时间已到，未发起DeepSeek API调用");
+            }
+        }
+        long deadlineNanos = replayable ? startNanos + TimeUnit.MILLISECONDS.toNanos(budgetMillis) : Long.MAX_VALUE;
+        int maxAttempts = Math.max(1, properties.getRetry().getMaxAttempts());
+
+        for (int attempt = 1;; attempt++) {
+            // 先创建请求再申请熔断许可，创建失败时不会占用半开状态的探测名额
+            HttpPost request = requestFactory.create();
+            if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+                recordRequest(OUTCOME_CIRCUIT_OPEN, startNanos);
+                throw new UpstreamUnavailableException("DeepSeek服务暂时不可用，请稍后再试");
+            }
+
+            AtomicBoolean deadlineExceeded = new AtomicBoolean();
+            ScheduledFuture<?> deadlineTask = null;
+            if (replayable) {
+                long remainingNanos = deadlineNanos - System.nanoTime();
+                deadlineTask = deadlineScheduler.schedule(() -> {
+                    deadlineExceeded.set(true);
+                    request.abort();
+                }, Math.max(0, remainingNanos), TimeUnit.NANOSECONDS);
+            }
+
+            String outcome;
+            IOException failure;
+            long retryAfterMillis = -1;
+            boolean handedOver = false;
+            try (CloseableHttpResponse response = httpClient.execute(request)) {
+                int status = response.getStatusLine().getStatusCode();
+                if (status >= 200 && status < 300) {
+                    handedOver = !replayable;
+                    T result = handler.handle(response.getEntity().getContent());
+                    onAttempt(OUTCOME_SUCCESS);
+                    recordRequest(OUTCOME_SUCCESS, startNanos);
+                    return result;
+                }
+
+                String body = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+                failure = new IOException("DeepSeek API调用失败: " + status + " - " + body);
+                if (status == 429) {
+                    outcome = OUTCOME_RATE_LIMITED;
+                    retryAfterMillis = parseRetryAfter(response.getFirstHeader("Retry-After"));
+                } else if (status >= 500) {
+                    outcome = OUTCOME_SERVER_ERROR;
+                } else {
+                    outcome = OUTCOME_CLIENT_ERROR;
+                }
+            } catch (RuntimeException e) {
+                // 处理器要求中止，上游本身正常
+                request.abort();
+                onAttempt(OUTCOME_CANCELLED);
+                recordRequest(OUTCOME_CANCELLED, startNanos);
+                throw e;
+            } catch (ConnectionPoolTimeoutException e) {
+                outcome = OUTCOME_POOL_EXHAUSTED;
+                failure = e;
+            } catch (IOException e) {
+                if (deadlineExceeded.get()) {
+                    outcome = callerDeadline ? OUTCOME_CANCELLED : OUTCOME_TIMEOUT;
+                    failure = new InterruptedIOException("DeepSeek API调用超时: " + budgetMillis + "ms");
+                    failure.initCause(e);
+                } else {
+                    outcome = e instanceof SocketTimeoutException || e instanceof ConnectTimeoutException
+                            ? OUTCOME_TIMEOUT : OUTCOME_IO_ERROR;
+                    failure = e;
+                }
+            } finally {
+                if (deadlineTask != null) {
+                    deadlineTask.cancel(false);
+                }
+            }
+
+            onAttempt(outcome);
+            boolean retryable = !handedOver && !deadlineExceeded.get() && attempt < maxAttempts
+                    && !OUTCOME_CLIENT_ERROR.equals(outcome);
+            long backoffMillis = retryable ? backoffMillis(attempt, retryAfterMillis) : -1;
+            if (backoffMillis < 0
+                    || System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMillis) >= deadlineNanos) {
+                log.error("DeepSeek API调用失败（{}），共尝试{}次: {}", outcome, attempt, failure.getMessage());
+                recordRequest(outcome, startNanos);
+                throw failure;
+            }
+
+            log.warn("DeepSeek API第{}次调用失败（{}），{}ms后重试: {}", attempt, outcome, backoffMillis,
+                    failure.getMessage());
+            retryCounter.increment();
+            try {
+                Thread.sleep(backoffMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                recordRequest(OUTCOME_CANCELLED, startNanos);
+                throw new InterruptedIOException("等待重试时被中断");
+            }
+        }
+    }
+
+    /**
+     * 记录单次尝试的结果并更新熔断统计
+     * 服务端错误、超时和网络异常计为失败；限流、连接池耗尽和调用方取消不说明上游状况，只归还许可
+     */
+    private void onAttempt(String outcome) {
+        Counter.builder(METRIC_ATTEMPTS)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+        if (circuitBreaker == null) {
+            return;
+        }
+        switch (outcome) {
+            case OUTCOME_SERVER_ERROR:
+            case OUTCOME_TIMEOUT:
+            case OUTCOME_IO_ERROR:
+                circuitBreaker.onFailure();
+                break;
+            case OUTCOME_RATE_LIMITED:
+            case OUTCOME_POOL_EXHAUSTED:
+            case OUTCOME_CANCELLED:
+                circuitBreaker.release();
+                break;
+            default:
+                circuitBreaker.onSuccess();
+        }
+    }
+
+    private void recordRequest(String outcome, long startNanos) {
+        Timer.builder(METRIC_REQUESTS)
+                .description("DeepSeek API请求（含重试）的结果和耗时")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 计算重试等待时间：0到指数上限之间随机（full jitter），且不少于Retry-After
+     *
+     * @return 等待毫秒数，-1表示Retry-After过长不再重试
+     */
+    long backoffMillis(int attempt, long retryAfterMillis) {
+        DeepSeekClientProperties.Retry retry = properties.getRetry();
+        if (retryAfterMillis > retry.getMaxRetryAfter().toMillis()) {
+            return -1;
+        }
+        long ceiling = retry.getInitialBackoff().toMillis() << Math.min(attempt - 1, 20);
+        ceiling = Math.max(0, Math.min(ceiling, retry.getMaxBackoff().toMillis()));
+        long jittered = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        return Math.max(jittered, retryAfterMillis);
+    }
+
+    /**
+     * 解析Retry-After，支持秒数和HTTP日期两种格式
+     *
+     * @return 等待毫秒数，没有或无法解析时返回-1
+     */
+    static long parseRetryAfter(Header header) {
+        if (header == null || header.getValue() == null) {
+            return -1;
+        }
+        String value = header.getValue().trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException e) {
+            Date date = DateUtils.parseDate(value);
+            return date != null ? Math.max(0, date.getTime() - System.currentTimeMillis()) : -1;
+        }
+    }
+
+    private static int toIntMillis(long millis) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, millis));
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        deadlineScheduler.shutdownNow();
+        httpClient.close();
+    }
+}
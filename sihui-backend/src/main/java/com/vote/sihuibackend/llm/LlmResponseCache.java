@@ -0,0 +1,296 @@
+package com.vote.sihuibackend.llm;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 大模型回复缓存
+ * 以（模型、温度、最大长度、规范化后的消息列表）的SHA-256摘要为键，两级存储：
+ * 本实例内有容量上限的LRU缓存，其后是共享的aiResponses缓存（Redis），过期时间相同。
+ * 同一键的并发请求只有一个调用上游接口，其余在各自的调用截止时间内等待并共享其结果；
+ * 网关按调用方限流，发起调用的请求被网关拒绝时，等待的请求以自己的调用方身份重新调用。
+ *
+ * @author Sihui Team
+ */
+@Component
+@Slf4j
+public class LlmResponseCache {
+
+    static final String CACHE_NAME = "aiResponses";
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ObjectProvider<CacheManager> cacheManagerProvider;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, LocalEntry> localEntries = new LinkedHashMap<String, LocalEntry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LocalEntry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * 是否启用回复缓存
+     */
+    @Value("${app.ai.cache.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * 缓存时长
+     */
+    @Value("${app.ai.cache.ttl:PT1H}")
+    private Duration ttl = Duration.ofHours(1);
+
+    /**
+     * 本地缓存条目数上限
+     */
+    @Value("${app.ai.cache.max-entries:1000}")
+    private int maxEntries = 1000;
+
+    /**
+     * 单条回复的最大缓存长度（字符数），更长的回复不缓存
+     */
+    @Value("${app.ai.cache.max-value-length:20000}")
+    private int maxValueLength = 20000;
+
+    public LlmResponseCache(ObjectProvider<CacheManager> cacheManagerProvider) {
+        this.cacheManagerProvider = cacheManagerProvider;
+    }
+
+    /**
+     * 上游调用
+     */
+    @FunctionalInterface
+    public interface Loader {
+        String load() throws IOException;
+    }
+
+    /**
+     * 计算请求的缓存键
+     * 消息内容做NFKC规范化（全角字符转半角）、合并连续空白并去掉首尾空白，只在格式上不同的提问命中同一条目
+     *
+     * @param model       模型名称
+     * @param temperature 温度
+     * @param maxTokens   最大生成长度
+     * @param messages    完整消息列表（含系统提示词和对话历史）
+     * @return 十六进制摘要
+     */
+    public String keyOf(String model, Object temperature, Object maxTokens, List<Map<String, String>> messages) {
+        StringBuilder canonical = new StringBuilder();
+        canonical.append(model).append('\n').append(temperature).append('\n').append(maxTokens).append('\n');
+        for (Map<String, String> message : messages) {
+            canonical.append(message.get("role")).append('\u0001')
+                    .append(normalize(message.get("content"))).append('\u0002');
+        }
+        return toHex(sha256().digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 读取缓存，未命中时调用上游并写入缓存
+     *
+     * @param key    缓存键
+     * @param loader 上游调用
+     * @return 回复及是否来自缓存
+     * @throws IOException 上游调用失败
+     */
+    public ChatCompletionResult getOrLoad(String key, Loader loader) throws IOException {
+        if (!enabled) {
+            return new ChatCompletionResult(loader.load(), false);
+        }
+
+        String cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return new ChatCompletionResult(cached, true);
+        }
+
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, pending);
+        if (existing != null) {
+            // 相同请求正在调用上游，等待其结果
+            coalesced.incrementAndGet();
+            try {
+                return new ChatCompletionResult(await(existing), true);
+            } catch (LlmGatewayRejectedException e) {
+                log.debug("相同请求被网关拒绝（{}），自行调用上游", e.getReason());
+                String content = loader.load();
+                store(key, content);
+                return new ChatCompletionResult(content, false);
+            }
+        }
+
+        misses.incrementAndGet();
+        try {
+            String content = loader.load();
+            store(key, content);
+            pending.complete(content);
+            return new ChatCompletionResult(content, false);
+        } catch (IOException | RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    /**
+     * 清空本地缓存（共享缓存按过期时间自然失效）
+     */
+    public void clearLocal() {
+        synchronized (localEntries) {
+            localEntries.clear();
+        }
+    }
+
+    /**
+     * 命中、合并、未命中次数
+     */
+    public Map<String, Long> getStatistics() {
+        Map<String, Long> statistics = new LinkedHashMap<>();
+        statistics.put("hits", hits.get());
+        statistics.put("coalesced", coalesced.get());
+        statistics.put("misses", misses.get());
+        synchronized (localEntries) {
+            statistics.put("localEntries", (long) localEntries.size());
+        }
+        return statistics;
+    }
+
+    private String lookup(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (localEntries) {
+            LocalEntry entry = localEntries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    return entry.content;
+                }
+                localEntries.remove(key);
+            }
+        }
+
+        Cache shared = sharedCache();
+        if (shared == null) {
+            return null;
+        }
+        try {
+            String content = shared.get(key, String.class);
+            if (content != null) {
+                // 共享缓存中剩余时长未知，本地按完整时长保留，最多比共享缓存晚一个周期失效
+                putLocal(key, content, now);
+            }
+            return content;
+        } catch (RuntimeException e) {
+            log.warn("读取共享回复缓存失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void store(String key, String content) {
+        if (content == null || content.isEmpty() || content.length() > maxValueLength) {
+            return;
+        }
+        putLocal(key, content, System.currentTimeMillis());
+        Cache shared = sharedCache();
+        if (shared != null) {
+            try {
+                shared.put(key, content);
+            } catch (RuntimeException e) {
+                log.warn("写入共享回复缓存失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void putLocal(String key, String content, long now) {
+        synchronized (localEntries) {
+            localEntries.put(key, new LocalEntry(content, now + ttl.toMillis()));
+        }
+    }
+
+    private Cache sharedCache() {
+        CacheManager cacheManager = cacheManagerProvider.getIfAvailable();
+        return cacheManager != null ? cacheManager.getCache(CACHE_NAME) : null;
+    }
+
+    /**
+     * 在当前调用方的截止时间内等待相同请求的结果
+     */
+    private static String await(CompletableFuture<String> future) throws IOException {
+        long remainingMillis = LlmCallContext.current().remainingMillis();
+        try {
+            if (remainingMillis == LlmCallContext.NO_DEADLINE) {
+                return future.get();
+            }
+            return future.get(Math.max(0, remainingMillis), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new InterruptedIOException("等待相同请求的回复超过调用方截止时间");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待相同请求的回复时被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("相同请求的上游调用失败: " + cause.getMessage(), cause);
+        }
+    }
+
+    static String normalize(String content) {
+        if (content == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(Normalizer.normalize(content, Normalizer.Form.NFKC)).replaceAll(" ").trim();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static final class LocalEntry {
+        private final String content;
+        private final long expiresAt;
+
+        LocalEntry(String content, long expiresAt) {
+            this.content = content;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.vote.sihuibackend.llm;
+
+/**
+ * 文本token数估算
+ * 按DeepSeek给出的换算比例：1个中文字符约0.6个token，1个英文字符约0.3个token；
+ * 每条消息另加角色、分隔符等固定开销。只用于控制上下文长度，不要求与计费精确一致。
+ *
+ * @author Sihui Team
+ */
+public final class TokenEstimator {
+
+    /**
+     * 每条消息的固定开销
+     */
+    public static final int MESSAGE_OVERHEAD = 4;
+
+    private static final double CJK_TOKENS_PER_CHAR = 0.6;
+    private static final double OTHER_TOKENS_PER_CHAR = 0.3;
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * 估算文本的token数
+     */
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x2E80) {
+                // 中日韩文字、全角标点
+                cjk++;
+            } else if (!Character.isWhitespace(c)) {
+                other++;
+            }
+        }
+        return (int) Math.ceil(cjk * CJK_TOKENS_PER_CHAR + other * OTHER_TOKENS_PER_CHAR);
+    }
+
+    /**
+     * 估算一条消息（含固定开销）的token数
+     */
+    public static int estimateMessage(String content) {
+        return MESSAGE_OVERHEAD + estimate(content);
+    }
+}
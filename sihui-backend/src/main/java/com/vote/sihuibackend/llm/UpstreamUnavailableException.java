@@ -0,0 +1,16 @@
+package com.vote.sihuibackend.llm;
+
+import java.io.IOException;
+
+/**
+ * 上游大模型服务不可用异常
+ * 熔断打开期间直接抛出，不发起网络请求
+ *
+ * @author Sihui Team
+ */
+public class UpstreamUnavailableException extends IOException {
+
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,102 @@
+package com.vote.sihuibackend.oss;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 分片上传断点
+ * 记录OSS分片上传会话和已完成的分片，持久化为本地JSON文件，服务重启后可继续上传缺失的分片
+ *
+ * @author Sihui Team
+ */
+@Data
+@NoArgsConstructor
+public class MultipartCheckpoint {
+
+    /**
+     * OSS分片上传ID
+     */
+    private String uploadId;
+
+    /**
+     * OSS对象名（包含路径）
+     */
+    private String objectName;
+
+    /**
+     * 原始文件名
+     */
+    private String originalFilename;
+
+    /**
+     * 文件大小（字节），流式上传时为-1
+     */
+    private long fileSize;
+
+    /**
+     * 分片大小（字节），最后一片可以更小
+     */
+    private int partSize;
+
+    /**
+     * 分片总数，流式上传时为0
+     */
+    private int partCount;
+
+    /**
+     * 发起上传的用户ID，只有该用户可以继续上传、完成或取消会话；服务端内部的流式上传为null
+     */
+    private Long ownerId;
+
+    /**
+     * 已完成的分片，按分片号排序
+     */
+    private Map<Integer, Part> parts = new TreeMap<>();
+
+    /**
+     * 创建时间（毫秒）
+     */
+    private long createdAt;
+
+    /**
+     * 最后更新时间（毫秒）
+     */
+    private long updatedAt;
+
+    /**
+     * 指定分片的期望大小
+     */
+    public long expectedPartSize(int partNumber) {
+        if (partNumber < partCount) {
+            return partSize;
+        }
+        return fileSize - (long) partSize * (partCount - 1);
+    }
+
+    /**
+     * 已上传的字节数
+     */
+    public long uploadedBytes() {
+        long total = 0;
+        for (Part part : parts.values()) {
+            total += part.getSize();
+        }
+        return total;
+    }
+
+    /**
+     * 已完成的分片
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Part {
+        private String etag;
+        private long size;
+        private Long crc;
+    }
+}
@@ -0,0 +1,86 @@
+package com.vote.sihuibackend.oss;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分片上传断点文件存储
+ * 每个上传会话一个JSON文件，先写临时文件再原子替换，写入中途崩溃不会留下损坏的断点。
+ *
+ * @author Sihui Team
+ */
+@Slf4j
+public class MultipartCheckpointStore {
+
+    private static final String SUFFIX = ".json";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    public MultipartCheckpointStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public void save(MultipartCheckpoint checkpoint) throws IOException {
+        Files.createDirectories(directory);
+        Path target = pathOf(checkpoint.getUploadId());
+        Path temp = directory.resolve(checkpoint.getUploadId() + ".tmp");
+        objectMapper.writeValue(temp.toFile(), checkpoint);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return 断点，不存在时返回null
+     */
+    public MultipartCheckpoint load(String uploadId) throws IOException {
+        Path path = pathOf(uploadId);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        return objectMapper.readValue(path.toFile(), MultipartCheckpoint.class);
+    }
+
+    public void delete(String uploadId) {
+        try {
+            Files.deleteIfExists(pathOf(uploadId));
+        } catch (IOException e) {
+            log.warn("删除分片上传断点失败: {}", uploadId, e);
+        }
+    }
+
+    /**
+     * 读取全部断点，无法解析的文件跳过
+     */
+    public List<MultipartCheckpoint> loadAll() {
+        List<MultipartCheckpoint> checkpoints = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return checkpoints;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    checkpoints.add(objectMapper.readValue(file.toFile(), MultipartCheckpoint.class));
+                } catch (IOException e) {
+                    log.warn("无法读取分片上传断点: {}", file, e);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("无法列出分片上传断点目录: {}", directory, e);
+        }
+        return checkpoints;
+    }
+
+    private Path pathOf(String uploadId) {
+        return directory.resolve(uploadId + SUFFIX);
+    }
+}
@@ -0,0 +1,370 @@
+package com.vote.sihuibackend.oss;
+
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PartETag;
+import com.aliyun.oss.model.UploadPartRequest;
+import com.vote.sihuibackend.config.OssConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * OSS分片上传器
+ * 流式上传：按分片大小切分输入流，分片在共享的有界线程池上并发上传，单个文件的在途分片数受限，
+ * 内存占用不超过 (并发数 + 1) 个分片；单个分片失败只重试该分片，不会从头重传。
+ * 分块上传会话：由客户端逐片提交，已完成的分片记录在本地断点文件中，网络中断或服务重启后
+ * 客户端查询会话状态即可只补传缺失的分片。超时未完成的会话会被中止，避免OSS残留分片。
+ *
+ * @author Sihui Team
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "oss", matchIfMissing = true)
+@Slf4j
+public class OssMultipartUploader {
+
+    private static final Pattern UPLOAD_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,128}");
+    private static final long SWEEP_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final OSS ossClient;
+    private final OssConfig ossConfig;
+    private final Executor partExecutor;
+    private final MultipartCheckpointStore checkpointStore;
+    private final Map<String, MultipartCheckpoint> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweepAt = new AtomicLong(0);
+
+    public OssMultipartUploader(OSS ossClient, OssConfig ossConfig,
+            @Qualifier("ossMultipartExecutor") Executor partExecutor) {
+        this.ossClient = ossClient;
+        this.ossConfig = ossConfig;
+        this.partExecutor = partExecutor;
+        this.checkpointStore = new MultipartCheckpointStore(Paths.get(ossConfig.getMultipartCheckpointDir()));
+    }
+
+    /**
+     * 上传输入流，小于分片阈值时直接上传，否则切分为分片并发上传
+     *
+     * @param inputStream   输入流（由调用方关闭）
+     * @param objectName    对象名
+     * @param contentType   内容类型
+     * @param contentLength 内容长度，未知时传-1（不超过一个分片的内容直接上传）
+     */
+    public void upload(InputStream inputStream, String objectName, String contentType, long contentLength)
+            throws IOException {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(contentType);
+        if (contentLength >= 0 && contentLength < ossConfig.getMultipartThresholdInBytes()) {
+            metadata.setContentLength(contentLength);
+            ossClient.putObject(ossConfig.getBucketName(), objectName, inputStream, metadata);
+            return;
+        }
+
+        int partSize = ossConfig.getMultipartPartSizeInBytes();
+        byte[] first = new byte[partSize];
+        int firstLength = readFully(inputStream, first);
+        if (firstLength < partSize) {
+            metadata.setContentLength(firstLength);
+            ossClient.putObject(ossConfig.getBucketName(), objectName,
+                    new ByteArrayInputStream(first, 0, firstLength), metadata);
+            return;
+        }
+
+        MultipartCheckpoint checkpoint = initiate(objectName, null, contentType, -1, 0, null);
+        try {
+            uploadParts(checkpoint, inputStream, first);
+            complete(checkpoint);
+            log.info("分片上传完成: {}, 分片数: {}, 字节数: {}", objectName, checkpoint.getParts().size(),
+                    checkpoint.uploadedBytes());
+        } catch (IOException | RuntimeException e) {
+            abort(checkpoint);
+            throw e;
+        }
+    }
+
+    /**
+     * 创建分块上传会话
+     *
+     * @param objectName       对象名
+     * @param originalFilename 原始文件名
+     * @param contentType      内容类型
+     * @param fileSize         文件大小（字节）
+     * @param ownerId          发起上传的用户ID
+     * @return 上传会话断点
+     */
+    public MultipartCheckpoint initiate(String objectName, String originalFilename, String contentType,
+            long fileSize, Long ownerId) throws IOException {
+        int partSize = ossConfig.getMultipartPartSizeInBytes();
+        int partCount = (int) Math.max(1, (fileSize + partSize - 1) / partSize);
+        return initiate(objectName, originalFilename, contentType, fileSize, partCount, ownerId);
+    }
+
+    /**
+     * 上传一个分片，同一分片可以重复提交，以最后一次为准
+     *
+     * @return 更新后的断点
+     */
+    public MultipartCheckpoint uploadPart(String uploadId, int partNumber, InputStream inputStream, long size)
+            throws IOException {
+        MultipartCheckpoint checkpoint = getCheckpoint(uploadId);
+        if (partNumber < 1 || partNumber > checkpoint.getPartCount()) {
+            throw new IllegalArgumentException("分片号超出范围: " + partNumber);
+        }
+        long expected = checkpoint.expectedPartSize(partNumber);
+        if (size != expected) {
+            throw new IllegalArgumentException("分片 " + partNumber + " 大小应为 " + expected + " 字节，实际 " + size);
+        }
+        uploadPartOnce(checkpoint, partNumber, inputStream, size);
+        return checkpoint;
+    }
+
+    /**
+     * 获取上传会话断点，内存中没有时从断点文件恢复
+     *
+     * @throws IllegalArgumentException 会话不存在
+     */
+    public MultipartCheckpoint getCheckpoint(String uploadId) throws IOException {
+        if (uploadId == null || !UPLOAD_ID_PATTERN.matcher(uploadId).matches()) {
+            throw new IllegalArgumentException("无效的上传ID");
+        }
+        MultipartCheckpoint checkpoint = sessions.get(uploadId);
+        if (checkpoint == null) {
+            checkpoint = checkpointStore.load(uploadId);
+            if (checkpoint == null) {
+                throw new IllegalArgumentException("分片上传不存在或已结束: " + uploadId);
+            }
+            MultipartCheckpoint existing = sessions.putIfAbsent(uploadId, checkpoint);
+            if (existing != null) {
+                checkpoint = existing;
+            }
+        }
+        return checkpoint;
+    }
+
+    /**
+     * 合并分块上传会话的全部分片
+     *
+     * @return 对象名
+     * @throws IllegalArgumentException 仍有分片未上传
+     */
+    public String complete(String uploadId) throws IOException {
+        MultipartCheckpoint checkpoint = getCheckpoint(uploadId);
+        List<Integer> missing = new ArrayList<>();
+        synchronized (checkpoint) {
+            for (int partNumber = 1; partNumber <= checkpoint.getPartCount(); partNumber++) {
+                if (!checkpoint.getParts().containsKey(partNumber)) {
+                    missing.add(partNumber);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("缺少分片: " + missing);
+        }
+        complete(checkpoint);
+        log.info("分块上传合并完成: {}, 分片数: {}", checkpoint.getObjectName(), checkpoint.getPartCount());
+        return checkpoint.getObjectName();
+    }
+
+    /**
+     * 中止分块上传会话并删除已上传的分片
+     */
+    public void abort(String uploadId) throws IOException {
+        abort(getCheckpoint(uploadId));
+    }
+
+    private MultipartCheckpoint initiate(String objectName, String originalFilename, String contentType,
+            long fileSize, int partCount, Long ownerId) throws IOException {
+        sweepExpiredAsync();
+
+        InitiateMultipartUploadRequest request = new InitiateMultipartUploadRequest(ossConfig.getBucketName(),
+                objectName);
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(contentType);
+        request.setObjectMetadata(metadata);
+        String uploadId = ossClient.initiateMultipartUpload(request).getUploadId();
+
+        long now = System.currentTimeMillis();
+        MultipartCheckpoint checkpoint = new MultipartCheckpoint();
+        checkpoint.setUploadId(uploadId);
+        checkpoint.setObjectName(objectName);
+        checkpoint.setOriginalFilename(originalFilename);
+        checkpoint.setFileSize(fileSize);
+        checkpoint.setPartSize(ossConfig.getMultipartPartSizeInBytes());
+        checkpoint.setPartCount(partCount);
+        checkpoint.setOwnerId(ownerId);
+        checkpoint.setCreatedAt(now);
+        checkpoint.setUpdatedAt(now);
+        checkpointStore.save(checkpoint);
+        sessions.put(uploadId, checkpoint);
+        return checkpoint;
+    }
+
+    private void uploadParts(MultipartCheckpoint checkpoint, InputStream inputStream, byte[] first)
+            throws IOException {
+        int partSize = checkpoint.getPartSize();
+        Semaphore inFlight = new Semaphore(Math.max(1, ossConfig.getMultipartParallelism()));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        byte[] buffer = first;
+        int length = first.length;
+        int partNumber = 1;
+        try {
+            while (length > 0 && failure.get() == null) {
+                inFlight.acquire();
+                byte[] data = buffer;
+                int dataLength = length;
+                int number = partNumber;
+                try {
+                    futures.add(CompletableFuture.runAsync(() -> {
+                        try {
+                            uploadPartWithRetry(checkpoint, number, data, dataLength);
+                        } catch (IOException | RuntimeException e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            inFlight.release();
+                        }
+                    }, partExecutor));
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+                partNumber++;
+                buffer = new byte[partSize];
+                length = readFully(inputStream, buffer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("分片上传被中断");
+        } finally {
+            // 出错时也要等在途分片结束再中止会话，否则中止后仍可能有分片写入
+            try {
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            } catch (CompletionException ignored) {
+                // 分片异常已记录在failure中
+            }
+        }
+
+        Throwable cause = failure.get();
+        if (cause instanceof IOException) {
+            throw (IOException) cause;
+        }
+        if (cause != null) {
+            throw (RuntimeException) cause;
+        }
+    }
+
+    private void uploadPartWithRetry(MultipartCheckpoint checkpoint, int partNumber, byte[] data, int length)
+            throws IOException {
+        int attempts = Math.max(1, ossConfig.getMultipartPartRetries() + 1);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                uploadPartOnce(checkpoint, partNumber, new ByteArrayInputStream(data, 0, length), length);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= attempts) {
+                    throw e;
+                }
+                log.warn("分片上传失败，第{}次重试: {} #{}", attempt, checkpoint.getObjectName(), partNumber, e);
+            }
+        }
+    }
+
+    private void uploadPartOnce(MultipartCheckpoint checkpoint, int partNumber, InputStream inputStream, long size)
+            throws IOException {
+        UploadPartRequest request = new UploadPartRequest();
+        request.setBucketName(ossConfig.getBucketName());
+        request.setKey(checkpoint.getObjectName());
+        request.setUploadId(checkpoint.getUploadId());
+        request.setPartNumber(partNumber);
+        request.setPartSize(size);
+        request.setInputStream(inputStream);
+        PartETag etag = ossClient.uploadPart(request).getPartETag();
+
+        synchronized (checkpoint) {
+            checkpoint.getParts().put(partNumber,
+                    new MultipartCheckpoint.Part(etag.getETag(), size, etag.getPartCRC()));
+            checkpoint.setUpdatedAt(System.currentTimeMillis());
+            checkpointStore.save(checkpoint);
+        }
+    }
+
+    private void complete(MultipartCheckpoint checkpoint) {
+        List<PartETag> etags = new ArrayList<>();
+        synchronized (checkpoint) {
+            checkpoint.getParts().forEach((number, part) -> etags.add(
+                    new PartETag(number, part.getEtag(), part.getSize(), part.getCrc())));
+        }
+        ossClient.completeMultipartUpload(new CompleteMultipartUploadRequest(ossConfig.getBucketName(),
+                checkpoint.getObjectName(), checkpoint.getUploadId(), etags));
+        forget(checkpoint);
+    }
+
+    private void abort(MultipartCheckpoint checkpoint) {
+        try {
+            ossClient.abortMultipartUpload(new AbortMultipartUploadRequest(ossConfig.getBucketName(),
+                    checkpoint.getObjectName(), checkpoint.getUploadId()));
+        } catch (RuntimeException e) {
+            log.warn("中止分片上传失败: {}", checkpoint.getObjectName(), e);
+        }
+        forget(checkpoint);
+    }
+
+    private void forget(MultipartCheckpoint checkpoint) {
+        sessions.remove(checkpoint.getUploadId());
+        checkpointStore.delete(checkpoint.getUploadId());
+    }
+
+    /**
+     * 每小时最多一次，在后台中止超时未完成的上传会话
+     */
+    private void sweepExpiredAsync() {
+        long now = System.currentTimeMillis();
+        long last = lastSweepAt.get();
+        if (now - last < SWEEP_INTERVAL_MILLIS || !lastSweepAt.compareAndSet(last, now)) {
+            return;
+        }
+        long expireBefore = now - TimeUnit.HOURS.toMillis(ossConfig.getMultipartCheckpointTtlHours());
+        CompletableFuture.runAsync(() -> {
+            for (MultipartCheckpoint checkpoint : checkpointStore.loadAll()) {
+                if (checkpoint.getUpdatedAt() < expireBefore) {
+                    log.info("中止超时的分片上传: {}", checkpoint.getObjectName());
+                    abort(checkpoint);
+                }
+            }
+        }, partExecutor);
+    }
+
+    private static int readFully(InputStream inputStream, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int n = inputStream.read(buffer, total, buffer.length - total);
+            if (n == -1) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+}
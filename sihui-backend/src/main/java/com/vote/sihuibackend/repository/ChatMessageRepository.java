@@ -13,7 +13,7 @@ import java.util.List;
  * 聊天消息Repository接口
  */
 @Repository
-public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
+public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>, ChatMessageRepositoryCustom {
 
     /**
      * 根据会话ID查找消息列表（按时间排序）
@@ -21,7 +21,7 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
      * @param sessionId 会话ID
      * @return 消息列表
      */
-    @Query("SELECT cm FROM ChatMessage cm WHERE cm.sessionId = :sessionId ORDER BY cm.timestamp ASC")
+    @Query("SELECT cm FROM ChatMessage cm WHERE cm.sessionId = :sessionId ORDER BY cm.timestamp ASC, cm.id ASC")
     List<ChatMessage> findBySessionIdOrderByTimestamp(@Param("sessionId") Long sessionId);
 
     /**
@@ -31,7 +31,7 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
      * @param pageable  分页参数
      * @return 最近的消息列表
      */
-    @Query("SELECT cm FROM ChatMessage cm WHERE cm.sessionId = :sessionId ORDER BY cm.timestamp DESC")
+    @Query("SELECT cm FROM ChatMessage cm WHERE cm.sessionId = :sessionId ORDER BY cm.timestamp DESC, cm.id DESC")
     List<ChatMessage> findRecentMessagesBySessionId(@Param("sessionId") Long sessionId, Pageable pageable);
 
     /**
@@ -57,7 +57,7 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
      * @param limit     限制数量
      * @return 消息列表
      */
-    @Query(value = "SELECT * FROM chat_messages WHERE session_id = :sessionId ORDER BY timestamp DESC LIMIT :limit", nativeQuery = true)
+    @Query(value = "SELECT * FROM chat_messages WHERE session_id = :sessionId ORDER BY timestamp DESC, id DESC LIMIT :limit", nativeQuery = true)
     List<ChatMessage> findTopNBySessionIdOrderByTimestampDesc(@Param("sessionId") Long sessionId,
             @Param("limit") int limit);
 }
\ No newline at end of file
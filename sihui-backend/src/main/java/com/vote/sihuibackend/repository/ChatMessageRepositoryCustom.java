@@ -0,0 +1,41 @@
+package com.vote.sihuibackend.repository;
+
+import com.vote.sihuibackend.entity.ChatMessage;
+
+import java.util.List;
+
+/**
+ * 聊天消息批量写入和分区维护扩展
+ *
+ * @author Sihui Team
+ */
+public interface ChatMessageRepositoryCustom {
+
+    /**
+     * 以JDBC批处理写回归档的消息，保留原消息ID和时间
+     * 保留ID是为了让会话摘要的覆盖标记（summarized_message_id）在恢复后仍然有效
+     *
+     * @param messages  归档中的消息
+     * @param batchSize 每批写入的条数
+     */
+    void restoreAll(List<ChatMessage> messages, int batchSize);
+
+    /**
+     * 按时间顺序读取会话最早的若干条消息，返回的消息不受持久化上下文管理
+     * 归档时逐批读取并删除，会话的全部消息不会同时留在内存中
+     *
+     * @param sessionId 会话数据库ID
+     * @param limit     最多返回的条数
+     * @return 消息列表
+     */
+    List<ChatMessage> findOldestMessages(Long sessionId, int limit);
+
+    /**
+     * 为按月分区的消息表提前创建月份分区，直到指定月数之后
+     * 从兜底分区 p_future 中拆出新分区；数据库不是MySQL或消息表未分区时不做任何事
+     *
+     * @param monthsAhead 提前创建的月数（当前月之后）
+     * @return 新建的分区数
+     */
+    int addMonthlyPartitions(int monthsAhead);
+}
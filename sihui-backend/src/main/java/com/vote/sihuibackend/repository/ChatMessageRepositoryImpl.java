@@ -0,0 +1,121 @@
+package com.vote.sihuibackend.repository;
+
+import com.vote.sihuibackend.entity.ChatMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 聊天消息批量写入和分区维护实现
+ * 归档时以JDBC分批读出消息，恢复归档时以JDBC批处理写回消息并保留原ID；消息表按月分区，新月份的分区由应用提前从 p_future 中拆出
+ *
+ * @author Sihui Team
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class ChatMessageRepositoryImpl implements ChatMessageRepositoryCustom {
+
+    private static final String INSERT_SQL = "INSERT INTO chat_messages (id, session_id, role, content, "
+            + "`timestamp`, message_type, metadata) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String OLDEST_SQL = "SELECT id, session_id, role, content, `timestamp`, message_type, "
+            + "metadata FROM chat_messages WHERE session_id = ? ORDER BY `timestamp`, id LIMIT ?";
+
+    private static final String PARTITIONS_SQL = "SELECT PARTITION_DESCRIPTION FROM information_schema.PARTITIONS "
+            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'chat_messages' AND PARTITION_NAME IS NOT NULL";
+
+    private static final String FUTURE_PARTITION = "p_future";
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void restoreAll(List<ChatMessage> messages, int batchSize) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, messages, Math.max(batchSize, 1), (statement, message) -> {
+            statement.setLong(1, message.getId());
+            statement.setLong(2, message.getSessionId());
+            statement.setString(3, message.getRole());
+            statement.setString(4, message.getContent());
+            statement.setTimestamp(5, Timestamp.valueOf(message.getTimestamp()));
+            statement.setString(6, message.getMessageType());
+            statement.setString(7, message.getMetadata());
+        });
+    }
+
+    @Override
+    public List<ChatMessage> findOldestMessages(Long sessionId, int limit) {
+        return jdbcTemplate.query(OLDEST_SQL, (rs, rowNum) -> {
+            ChatMessage message = new ChatMessage();
+            message.setId(rs.getLong("id"));
+            message.setSessionId(rs.getLong("session_id"));
+            message.setRole(rs.getString("role"));
+            message.setContent(rs.getString("content"));
+            message.setTimestamp(rs.getTimestamp("timestamp").toLocalDateTime());
+            message.setMessageType(rs.getString("message_type"));
+            message.setMetadata(rs.getString("metadata"));
+            return message;
+        }, sessionId, Math.max(limit, 1));
+    }
+
+    @Override
+    public int addMonthlyPartitions(int monthsAhead) {
+        Boolean mysql = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql"));
+        if (!Boolean.TRUE.equals(mysql)) {
+            return 0;
+        }
+
+        // 现有分区的最大上界；只有 p_future 时说明表结构不是按月分区，不处理
+        LocalDate upperBound = null;
+        for (String description : jdbcTemplate.queryForList(PARTITIONS_SQL, String.class)) {
+            if (description == null || "MAXVALUE".equalsIgnoreCase(description)) {
+                continue;
+            }
+            LocalDate bound = LocalDate.parse(description.replace("'", "").substring(0, 10));
+            if (upperBound == null || bound.isAfter(upperBound)) {
+                upperBound = bound;
+            }
+        }
+        if (upperBound == null) {
+            return 0;
+        }
+
+        LocalDate target = YearMonth.now().plusMonths(monthsAhead + 1L).atDay(1);
+        List<String> partitions = new ArrayList<>();
+        for (LocalDate from = upperBound; from.isBefore(target); from = from.plusMonths(1)) {
+            partitions.add("PARTITION " + from.format(PARTITION_NAME) + " VALUES LESS THAN ('"
+                    + from.plusMonths(1) + "')");
+        }
+        if (partitions.isEmpty()) {
+            return 0;
+        }
+
+        String sql = "ALTER TABLE chat_messages REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO ("
+                + String.join(", ", partitions) + ", PARTITION " + FUTURE_PARTITION
+                + " VALUES LESS THAN (MAXVALUE))";
+        try {
+            jdbcTemplate.execute(sql);
+        } catch (DataAccessException e) {
+            // 多个实例同时启动时其他实例可能已经建好了分区，下次检查时重新计算
+            log.warn("创建消息表分区失败: {}", e.getMessage());
+            return 0;
+        }
+        log.info("消息表新增 {} 个月份分区，覆盖到 {}", partitions.size(), target);
+        return partitions.size();
+    }
+}
@@ -0,0 +1,14 @@
+package com.vote.sihuibackend.repository;
+
+import com.vote.sihuibackend.entity.ChatSessionArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 聊天会话归档数据访问层
+ *
+ * @author Sihui Team
+ */
+@Repository
+public interface ChatSessionArchiveRepository extends JpaRepository<ChatSessionArchive, Long> {
+}
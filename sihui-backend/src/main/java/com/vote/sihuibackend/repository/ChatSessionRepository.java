@@ -1,11 +1,14 @@
 package com.vote.sihuibackend.repository;
 
 import com.vote.sihuibackend.entity.ChatSession;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -57,4 +60,78 @@ public interface ChatSessionRepository extends JpaRepository<ChatSession, Long>
      * @return 会话列表
      */
     List<ChatSession> findByUserIdOrderByCreatedAtDesc(Long userId);
-}
\ No newline at end of file
+
+    /**
+     * 更新会话的最后更新时间，不加载和回写整个会话
+     *
+     * @param id        会话数据库ID
+     * @param updatedAt 更新时间
+     * @return 更新的行数
+     */
+    @Modifying
+    @Query("UPDATE ChatSession cs SET cs.updatedAt = :updatedAt WHERE cs.id = :id")
+    int touch(@Param("id") Long id, @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 读取会话当前的归档标记，不经过缓存
+     *
+     * @param id 会话数据库ID
+     * @return 会话是否已归档
+     */
+    @Query("SELECT COUNT(cs) > 0 FROM ChatSession cs WHERE cs.id = :id AND cs.archivedAt IS NOT NULL")
+    boolean isArchived(@Param("id") Long id);
+
+    /**
+     * 更新会话摘要，只在覆盖范围前进时生效，避免并发的旧摘要覆盖新摘要
+     *
+     * @param sessionId           会话ID
+     * @param summary             新摘要
+     * @param summarizedMessageId 摘要覆盖到的最后一条消息ID
+     * @return 更新的行数
+     */
+    @Modifying
+    @Query("UPDATE ChatSession cs SET cs.summary = :summary, cs.summarizedMessageId = :summarizedMessageId "
+            + "WHERE cs.sessionId = :sessionId "
+            + "AND (cs.summarizedMessageId IS NULL OR cs.summarizedMessageId < :summarizedMessageId)")
+    int updateSummary(@Param("sessionId") String sessionId, @Param("summary") String summary,
+            @Param("summarizedMessageId") Long summarizedMessageId);
+
+    /**
+     * 按ID顺序查找可以归档的会话：未归档，且最后更新和最近一次恢复都早于截止时间
+     *
+     * @param cutoff   截止时间
+     * @param afterId  只查找ID大于该值的会话，用于分批遍历
+     * @param pageable 分页参数（只取第一页）
+     * @return 会话数据库ID
+     */
+    @Query("SELECT cs.id FROM ChatSession cs WHERE cs.archivedAt IS NULL AND cs.updatedAt < :cutoff "
+            + "AND (cs.restoredAt IS NULL OR cs.restoredAt < :cutoff) AND cs.id > :afterId ORDER BY cs.id")
+    List<Long> findArchiveCandidates(@Param("cutoff") LocalDateTime cutoff, @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    /**
+     * 标记会话已归档，条件与findArchiveCandidates相同；会话在查找之后有新消息时不生效
+     *
+     * @param id         会话数据库ID
+     * @param archivedAt 归档时间
+     * @param cutoff     截止时间
+     * @return 更新的行数
+     */
+    @Modifying
+    @Query("UPDATE ChatSession cs SET cs.archivedAt = :archivedAt WHERE cs.id = :id AND cs.archivedAt IS NULL "
+            + "AND cs.updatedAt < :cutoff AND (cs.restoredAt IS NULL OR cs.restoredAt < :cutoff)")
+    int markArchived(@Param("id") Long id, @Param("archivedAt") LocalDateTime archivedAt,
+            @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * 清除会话的归档标记；并发恢复同一会话时只有一个生效
+     *
+     * @param id         会话数据库ID
+     * @param restoredAt 恢复时间
+     * @return 更新的行数
+     */
+    @Modifying
+    @Query("UPDATE ChatSession cs SET cs.archivedAt = NULL, cs.restoredAt = :restoredAt "
+            + "WHERE cs.id = :id AND cs.archivedAt IS NOT NULL")
+    int markRestored(@Param("id") Long id, @Param("restoredAt") LocalDateTime restoredAt);
+}
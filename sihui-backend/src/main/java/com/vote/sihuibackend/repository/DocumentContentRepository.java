@@ -0,0 +1,23 @@
+package com.vote.sihuibackend.repository;
+
+import com.vote.sihuibackend.entity.DocumentContent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * 文档正文数据访问层
+ *
+ * @author Sihui Team
+ */
+@Repository
+public interface DocumentContentRepository extends JpaRepository<DocumentContent, Long> {
+
+    /**
+     * 只读取正文文本
+     */
+    default Optional<String> findContent(Long documentId) {
+        return findById(documentId).map(DocumentContent::getContent);
+    }
+}
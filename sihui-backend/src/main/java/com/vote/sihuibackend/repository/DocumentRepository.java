@@ -19,7 +19,7 @@ import java.util.Optional;
  * @author Sihui Team
  */
 @Repository
-public interface DocumentRepository extends JpaRepository<Document, Long> {
+public interface DocumentRepository extends JpaRepository<Document, Long>, DocumentRepositoryCustom {
 
         /**
          * 根据ID查找文档（重写以添加缓存）
@@ -79,11 +79,12 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
         Page<Document> findByCategoryAndStatusOrderByCreatedAtDesc(String category, String status, Pageable pageable);
 
         /**
-         * 全文搜索（标题、内容、关键词）
+         * 全文搜索（标题、摘要、关键词）
+         * 正文压缩存储在document_contents表中，不参与LIKE匹配，正文检索由TF-IDF索引负责
          */
         @Query("SELECT d FROM Document d WHERE d.status = :status AND " +
                         "(LOWER(d.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-                        "LOWER(d.content) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+                        "LOWER(d.summary) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
                         "LOWER(d.keywords) LIKE LOWER(CONCAT('%', :keyword, '%')))")
         List<Document> searchByKeyword(@Param("keyword") String keyword, @Param("status") String status);
 
@@ -92,7 +93,7 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
          */
         @Query("SELECT d FROM Document d WHERE d.status = :status AND " +
                         "(LOWER(d.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-                        "LOWER(d.content) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+                        "LOWER(d.summary) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
                         "LOWER(d.keywords) LIKE LOWER(CONCAT('%', :keyword, '%')))")
         Page<Document> searchByKeyword(@Param("keyword") String keyword, @Param("status") String status,
                         Pageable pageable);
@@ -104,7 +105,7 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
                         "(:category IS NULL OR d.category = :category) AND " +
                         "(:isPublic IS NULL OR d.isPublic = :isPublic) AND " +
                         "(LOWER(d.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-                        "LOWER(d.content) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+                        "LOWER(d.summary) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
                         "LOWER(d.keywords) LIKE LOWER(CONCAT('%', :keyword, '%')))")
         Page<Document> advancedSearch(@Param("keyword") String keyword,
                         @Param("category") String category,
@@ -127,21 +128,21 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
          * 统计各分类的文档数量
          */
         @Query("SELECT d.category, COUNT(d) FROM Document d WHERE d.status = :status GROUP BY d.category")
-        @Cacheable(value = "documentStats", key = "'categoryCount:' + #status")
+        @Cacheable(value = "documentStats", key = "'categoryCount:' + #status", sync = true)
         List<Object[]> countByCategory(@Param("status") String status);
 
         /**
          * 查找最近上传的文档
          */
         @Query("SELECT d FROM Document d WHERE d.status = :status ORDER BY d.createdAt DESC")
-        @Cacheable(value = "recentDocuments", key = "#status + ':recent'")
+        @Cacheable(value = "recentDocuments", key = "#status + ':recent'", sync = true)
         List<Document> findRecentDocuments(@Param("status") String status, Pageable pageable);
 
         /**
          * 查找热门文档（按查看次数排序）
          */
         @Query("SELECT d FROM Document d WHERE d.status = :status ORDER BY d.viewCount DESC")
-        @Cacheable(value = "popularDocuments", key = "#status + ':popular'")
+        @Cacheable(value = "popularDocuments", key = "#status + ':popular'", sync = true)
         List<Document> findPopularDocuments(@Param("status") String status, Pageable pageable);
 
         /**
@@ -156,10 +157,25 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
         Optional<Document> findByOriginalFilenameAndUploaderIdAndStatus(String originalFilename, Long uploaderId,
                         String status);
 
+        /**
+         * 按内容摘要查找最早的文档（任意状态，软删除的文档仍持有OSS对象）
+         */
+        Optional<Document> findFirstByContentHashOrderByIdAsc(String contentHash);
+
+        /**
+         * 统计引用指定OSS文件的文档数量（任意状态）
+         */
+        long countByFileUrl(String fileUrl);
+
+        /**
+         * 统计引用同一OSS文件的其他文档数量
+         */
+        long countByFileUrlAndIdNot(String fileUrl, Long id);
+
         /**
          * 统计指定状态的文档数量
          */
-        @Cacheable(value = "documentStats", key = "'count:' + #status")
+        @Cacheable(value = "documentStats", key = "'count:' + #status", sync = true)
         long countByStatus(String status);
 
         /**
@@ -0,0 +1,30 @@
+package com.vote.sihuibackend.repository;
+
+import com.vote.sihuibackend.dto.DocumentCounterDelta;
+import com.vote.sihuibackend.entity.Document;
+
+import java.util.List;
+
+/**
+ * 文档批量写入扩展
+ * 
+ * @author Sihui Team
+ */
+public interface DocumentRepositoryCustom {
+
+        /**
+         * 以JDBC批处理插入新文档，并回填生成的ID和创建时间
+         * 不经过持久化上下文，调用方负责在插入后清理文档缓存
+         *
+         * @param documents 未保存的文档
+         */
+        void insertAll(List<Document> documents);
+
+        /**
+         * 以JDBC批处理累加文档的查看、下载次数（UPDATE ... SET view_count = view_count + ?）
+         * 不读取文档，也不经过持久化上下文
+         *
+         * @param deltas 各文档的计数增量
+         */
+        void incrementCounters(List<DocumentCounterDelta> deltas);
+}
@@ -0,0 +1,137 @@
+package com.vote.sihuibackend.repository;
+
+import com.vote.sihuibackend.dto.DocumentCounterDelta;
+import com.vote.sihuibackend.entity.Document;
+import com.vote.sihuibackend.util.TextCompressionUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 文档批量写入实现
+ * 文档主键为自增列，Hibernate对IDENTITY主键不做批量插入，这里直接使用JDBC批处理，
+ * MySQL连接开启 rewriteBatchedStatements 后一批只需一次往返。
+ * 文档正文在同一事务中压缩后批量写入document_contents表。
+ * 查看、下载计数由缓冲区定期以批量UPDATE累加。
+ * 
+ * @author Sihui Team
+ */
+@RequiredArgsConstructor
+public class DocumentRepositoryImpl implements DocumentRepositoryCustom {
+
+    private static final String INSERT_SQL = "INSERT INTO documents (title, original_filename, file_type, "
+            + "summary, category, keywords, file_size, file_url, content_hash, status, is_public, download_count, "
+            + "view_count, uploader_id, created_at, updated_at, version, parent_id, language) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_CONTENT_SQL = "INSERT INTO document_contents (document_id, content, "
+            + "content_length, updated_at) VALUES (?, ?, ?, ?)";
+
+    private static final String INCREMENT_COUNTERS_SQL = "UPDATE documents SET view_count = COALESCE(view_count, 0) + ?, "
+            + "download_count = COALESCE(download_count, 0) + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void insertAll(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL,
+                    Statement.RETURN_GENERATED_KEYS)) {
+                for (Document document : documents) {
+                    document.setCreatedAt(now);
+                    document.setUpdatedAt(now);
+                    bind(statement, document);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+
+                int index = 0;
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    while (keys.next() && index < documents.size()) {
+                        documents.get(index++).setId(keys.getLong(1));
+                    }
+                }
+                if (index != documents.size()) {
+                    throw new DataRetrievalFailureException(
+                            "批量插入文档返回的主键数量不符：" + index + "/" + documents.size());
+                }
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_CONTENT_SQL)) {
+                for (Document document : documents) {
+                    statement.setLong(1, document.getId());
+                    statement.setBytes(2, TextCompressionUtil.compress(document.getContent()));
+                    statement.setInt(3, document.getContent() != null ? document.getContent().length() : 0);
+                    statement.setTimestamp(4, Timestamp.valueOf(now));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    @Transactional
+    public void incrementCounters(List<DocumentCounterDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        // 按ID排序，多个实例同时刷新时按相同顺序加行锁
+        List<DocumentCounterDelta> sorted = new ArrayList<>(deltas);
+        sorted.sort(Comparator.comparing(DocumentCounterDelta::getDocumentId));
+        jdbcTemplate.batchUpdate(INCREMENT_COUNTERS_SQL, sorted, sorted.size(), (statement, delta) -> {
+            statement.setLong(1, delta.getViews());
+            statement.setLong(2, delta.getDownloads());
+            statement.setLong(3, delta.getDocumentId());
+        });
+    }
+
+    private static void bind(PreparedStatement statement, Document document) throws SQLException {
+        statement.setString(1, document.getTitle());
+        statement.setString(2, document.getOriginalFilename());
+        statement.setString(3, document.getFileType());
+        statement.setString(4, document.getSummary());
+        statement.setString(5, document.getCategory());
+        statement.setString(6, document.getKeywords());
+        setLong(statement, 7, document.getFileSize());
+        statement.setString(8, document.getFileUrl());
+        statement.setString(9, document.getContentHash());
+        statement.setString(10, document.getStatus());
+        statement.setBoolean(11, Boolean.TRUE.equals(document.getIsPublic()));
+        statement.setInt(12, document.getDownloadCount() != null ? document.getDownloadCount() : 0);
+        statement.setInt(13, document.getViewCount() != null ? document.getViewCount() : 0);
+        setLong(statement, 14, document.getUploaderId());
+        statement.setTimestamp(15, Timestamp.valueOf(document.getCreatedAt()));
+        statement.setTimestamp(16, Timestamp.valueOf(document.getUpdatedAt()));
+        statement.setInt(17, document.getVersion() != null ? document.getVersion() : 1);
+        setLong(statement, 18, document.getParentId());
+        statement.setString(19, document.getLanguage());
+    }
+
+    private static void setLong(PreparedStatement statement, int index, Long value) throws SQLException {
+        if (value != null) {
+            statement.setLong(index, value);
+        } else {
+            statement.setNull(index, Types.BIGINT);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.vote.sihuibackend.repository;
+
+import com.vote.sihuibackend.entity.DocumentTermVector;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 文档词频向量数据访问层
+ *
+ * @author Sihui Team
+ */
+@Repository
+public interface DocumentTermVectorRepository extends JpaRepository<DocumentTermVector, Long> {
+
+    /**
+     * 按文档ID游标分批读取指定状态文档的词频向量
+     */
+    @Query("SELECT v FROM DocumentTermVector v WHERE v.documentId > :afterId AND v.documentId IN "
+            + "(SELECT d.id FROM Document d WHERE d.status = :status) ORDER BY v.documentId")
+    List<DocumentTermVector> findByDocumentStatusAfter(@Param("status") String status, @Param("afterId") Long afterId,
+            Pageable pageable);
+}
@@ -0,0 +1,118 @@
+package com.vote.sihuibackend.repository;
+
+import com.vote.sihuibackend.entity.ProcessingJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 后台处理任务数据访问层
+ * 领取、续约、完成都是带条件的单行UPDATE，以影响行数判断是否成功，多个实例并发领取同一任务时只有一个成功
+ *
+ * @author Sihui Team
+ */
+@Repository
+public interface ProcessingJobRepository extends JpaRepository<ProcessingJob, Long> {
+
+    /**
+     * 查找可领取的任务：到期的待执行任务，以及租约已过期的执行中任务
+     */
+    @Query("SELECT j.id FROM ProcessingJob j WHERE (j.status = 'PENDING' AND j.nextRunAt <= :now) "
+            + "OR (j.status = 'RUNNING' AND j.leaseExpiresAt < :now) ORDER BY j.priority DESC, j.id ASC")
+    List<Long> findClaimableIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * 领取任务并获得租约
+     *
+     * @return 1表示领取成功，0表示已被其他实例领取
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE ProcessingJob j SET j.status = 'RUNNING', j.leaseOwner = :owner, j.leaseExpiresAt = :leaseUntil, "
+            + "j.attempts = j.attempts + 1, j.startedAt = :now, j.updatedAt = :now WHERE j.id = :id "
+            + "AND ((j.status = 'PENDING' AND j.nextRunAt <= :now) "
+            + "OR (j.status = 'RUNNING' AND j.leaseExpiresAt < :now))")
+    int claim(@Param("id") Long id, @Param("owner") String owner, @Param("now") LocalDateTime now,
+            @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * 放回已领取但未能开始执行的任务，不计入执行次数
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE ProcessingJob j SET j.status = 'PENDING', j.leaseOwner = NULL, j.leaseExpiresAt = NULL, "
+            + "j.attempts = j.attempts - 1 WHERE j.id = :id AND j.leaseOwner = :owner AND j.status = 'RUNNING'")
+    int release(@Param("id") Long id, @Param("owner") String owner);
+
+    /**
+     * 续约
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE ProcessingJob j SET j.leaseExpiresAt = :leaseUntil WHERE j.id IN :ids "
+            + "AND j.leaseOwner = :owner AND j.status = 'RUNNING'")
+    int renewLeases(@Param("ids") Collection<Long> ids, @Param("owner") String owner,
+            @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * 更新执行进度并续约
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE ProcessingJob j SET j.progress = :progress, j.leaseExpiresAt = :leaseUntil, "
+            + "j.updatedAt = :now WHERE j.id = :id AND j.leaseOwner = :owner AND j.status = 'RUNNING'")
+    int updateProgress(@Param("id") Long id, @Param("owner") String owner, @Param("progress") int progress,
+            @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * 结束任务（成功或最终失败）
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE ProcessingJob j SET j.status = :status, j.progress = :progress, j.message = :message, "
+            + "j.leaseOwner = NULL, j.leaseExpiresAt = NULL, j.finishedAt = :now, j.updatedAt = :now, "
+            + "j.durationMs = :durationMs WHERE j.id = :id AND j.leaseOwner = :owner AND j.status = 'RUNNING'")
+    int finish(@Param("id") Long id, @Param("owner") String owner, @Param("status") String status,
+            @Param("progress") int progress, @Param("message") String message, @Param("now") LocalDateTime now,
+            @Param("durationMs") long durationMs);
+
+    /**
+     * 执行失败后重新排队，到nextRunAt后可再次领取
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE ProcessingJob j SET j.status = 'PENDING', j.message = :message, j.leaseOwner = NULL, "
+            + "j.leaseExpiresAt = NULL, j.nextRunAt = :nextRunAt, j.updatedAt = :now, j.durationMs = :durationMs "
+            + "WHERE j.id = :id AND j.leaseOwner = :owner AND j.status = 'RUNNING'")
+    int reschedule(@Param("id") Long id, @Param("owner") String owner, @Param("message") String message,
+            @Param("now") LocalDateTime now, @Param("nextRunAt") LocalDateTime nextRunAt,
+            @Param("durationMs") long durationMs);
+
+    /**
+     * 删除早于指定时间结束的任务
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ProcessingJob j WHERE j.status IN ('SUCCEEDED', 'FAILED') AND j.finishedAt < :before")
+    int deleteFinishedBefore(@Param("before") LocalDateTime before);
+
+    long countByStatus(String status);
+
+    long countByStatusIn(Collection<String> statuses);
+
+    long countByJobTypeAndStatus(String jobType, String status);
+
+    /**
+     * 成功任务的平均耗时（毫秒）
+     */
+    @Query("SELECT AVG(j.durationMs) FROM ProcessingJob j WHERE j.status = 'SUCCEEDED'")
+    Double averageSucceededDuration();
+}
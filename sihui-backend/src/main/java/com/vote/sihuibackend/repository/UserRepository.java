@@ -145,9 +145,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * 统计各状态用户数量
      */
     @Query("SELECT u.status, COUNT(u) FROM User u GROUP BY u.status")
-    @Cacheable(value = "userStats", key = "'statusCount'")
+    @Cacheable(value = "userStats", key = "'statusCount'", sync = true)
     List<Object[]> countByStatus();
 
+    /**
+     * 按ID游标分批扫描登录标识，返回 [id, username, email, phone]
+     */
+    @Query("SELECT u.id, u.username, u.email, u.phone FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Object[]> findIdentifiersAfter(@Param("afterId") Long afterId, Pageable pageable);
+
     /**
      * 清除用户相关缓存
      */
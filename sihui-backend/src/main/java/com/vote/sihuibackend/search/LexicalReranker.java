@@ -0,0 +1,260 @@
+package com.vote.sihuibackend.search;
+
+import com.vote.sihuibackend.config.RerankProperties;
+import com.vote.sihuibackend.entity.Document;
+import com.vote.sihuibackend.service.TextSearchService.SearchResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地检索结果重排序器
+ * 不调用大模型，按检索相关性、标题和关键词命中、查询词邻近度、首次出现位置、文档热度的加权和重新排序。
+ * 中文查询按二元组切分，英文和数字按单词切分；每个文档只扫描正文开头的一段，几个候选文档的打分在微秒级完成。
+ *
+ * @author Sihui Team
+ */
+@Component
+@Slf4j
+public class LexicalReranker {
+
+    private static final Pattern TERM_RUN = Pattern.compile("[\\u4e00-\\u9fa5]+|[a-z0-9]+");
+    private static final Pattern MARK_TAG = Pattern.compile("</?mark>");
+    private static final int MAX_OCCURRENCES_PER_TERM = 64;
+
+    // 疑问词等不区分文档的二元组
+    private static final Set<String> STOP_TERMS = new HashSet<>(Arrays.asList(
+            "什么", "么是", "哪些", "哪个", "怎么", "怎样", "如何", "是否", "可以", "请问", "一下", "为什", "为何",
+            "有哪", "包括", "关于"));
+
+    // 含有这些虚词的二元组多为跨词切分，不作为查询词
+    private static final String FUNCTION_CHARS = "的了是吗呢吧啊和与及在把被";
+
+    private final RerankProperties properties;
+
+    public LexicalReranker(RerankProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 重新排序检索结果，不修改结果中的相关性分数
+     *
+     * @param query   用户查询
+     * @param results 检索结果
+     * @return 按得分从高到低排序的新列表，得分相同时保持原有顺序
+     */
+    public List<SearchResult> rerank(String query, List<SearchResult> results) {
+        if (results.size() < 2) {
+            return results;
+        }
+        List<String> terms = extractTerms(query);
+
+        double maxRelevance = 0;
+        double maxPopularity = 0;
+        for (SearchResult result : results) {
+            maxRelevance = Math.max(maxRelevance, result.getRelevanceScore());
+            maxPopularity = Math.max(maxPopularity, popularity(result.getDocument()));
+        }
+
+        List<Scored> scored = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            SearchResult result = results.get(i);
+            scored.add(new Scored(result, i, score(terms, result, maxRelevance, maxPopularity)));
+        }
+        scored.sort((a, b) -> a.score != b.score
+                ? Double.compare(b.score, a.score)
+                : Integer.compare(a.index, b.index));
+
+        List<SearchResult> reranked = new ArrayList<>(scored.size());
+        for (Scored item : scored) {
+            reranked.add(item.result);
+        }
+        if (log.isDebugEnabled()) {
+            for (Scored item : scored) {
+                log.debug("本地重排序得分: {} -> {}", item.result.getDocument().getId(), item.score);
+            }
+        }
+        return reranked;
+    }
+
+    /**
+     * 计算单个结果的得分
+     */
+    double score(List<String> terms, SearchResult result, double maxRelevance, double maxPopularity) {
+        Document document = result.getDocument();
+        double score = properties.getTfidfWeight()
+                * (maxRelevance > 0 ? result.getRelevanceScore() / maxRelevance : 0);
+        score += properties.getPopularityWeight()
+                * (maxPopularity > 0 ? popularity(document) / maxPopularity : 0);
+        if (terms.isEmpty()) {
+            return score;
+        }
+
+        score += properties.getTitleWeight() * coverage(terms, document.getTitle());
+        score += properties.getKeywordWeight() * coverage(terms, document.getKeywords());
+
+        String passage = passageOf(result);
+        if (!passage.isEmpty()) {
+            List<int[]> occurrences = findOccurrences(terms, passage);
+            score += properties.getProximityWeight() * proximity(terms, occurrences);
+            if (!occurrences.isEmpty()) {
+                double first = occurrences.get(0)[0];
+                score += properties.getPositionWeight()
+                        * (1 - Math.min(1, first / Math.max(1, properties.getPositionHorizon())));
+            }
+        }
+        return score;
+    }
+
+    /**
+     * 切分查询词：连续中文按二元组切分（两个字的整体保留），英文和数字按单词切分
+     */
+    static List<String> extractTerms(String query) {
+        if (!StringUtils.hasText(query)) {
+            return Collections.emptyList();
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        Matcher matcher = TERM_RUN.matcher(query.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            String run = matcher.group();
+            if (run.charAt(0) < 0x80) {
+                if (run.length() >= 2) {
+                    terms.add(run);
+                }
+                continue;
+            }
+            for (int i = 0; i + 2 <= run.length(); i++) {
+                if (FUNCTION_CHARS.indexOf(run.charAt(i)) < 0 && FUNCTION_CHARS.indexOf(run.charAt(i + 1)) < 0) {
+                    terms.add(run.substring(i, i + 2));
+                }
+            }
+        }
+        terms.removeAll(STOP_TERMS);
+        return new ArrayList<>(terms);
+    }
+
+    /**
+     * 文本中包含的查询词比例
+     */
+    private static double coverage(List<String> terms, String text) {
+        if (!StringUtils.hasText(text)) {
+            return 0;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int matched = 0;
+        for (String term : terms) {
+            if (lower.contains(term)) {
+                matched++;
+            }
+        }
+        return (double) matched / terms.size();
+    }
+
+    /**
+     * 查询词在正文中的出现位置，按位置排序，元素为 {位置, 查询词序号}
+     */
+    private List<int[]> findOccurrences(List<String> terms, String passage) {
+        List<int[]> occurrences = new ArrayList<>();
+        for (int t = 0; t < terms.size(); t++) {
+            String term = terms.get(t);
+            int from = 0;
+            for (int n = 0; n < MAX_OCCURRENCES_PER_TERM; n++) {
+                int index = passage.indexOf(term, from);
+                if (index < 0) {
+                    break;
+                }
+                occurrences.add(new int[] { index, t });
+                from = index + 1;
+            }
+        }
+        occurrences.sort((a, b) -> Integer.compare(a[0], b[0]));
+        return occurrences;
+    }
+
+    /**
+     * 邻近度：包含所有出现过的查询词的最短片段越短越高，再乘以出现过的查询词比例
+     */
+    private double proximity(List<String> terms, List<int[]> occurrences) {
+        int[] counts = new int[terms.size()];
+        int distinct = 0;
+        for (int[] occurrence : occurrences) {
+            if (counts[occurrence[1]]++ == 0) {
+                distinct++;
+            }
+        }
+        if (terms.size() == 1 || distinct < 2) {
+            return terms.size() == 1 && distinct == 1 ? 1 : 0;
+        }
+
+        // 滑动窗口求覆盖全部已出现查询词的最短片段
+        Arrays.fill(counts, 0);
+        int covered = 0;
+        int bestSpan = Integer.MAX_VALUE;
+        int left = 0;
+        for (int right = 0; right < occurrences.size(); right++) {
+            if (counts[occurrences.get(right)[1]]++ == 0) {
+                covered++;
+            }
+            while (covered == distinct) {
+                int[] start = occurrences.get(left);
+                int[] end = occurrences.get(right);
+                bestSpan = Math.min(bestSpan, end[0] + terms.get(end[1]).length() - start[0]);
+                if (--counts[start[1]] == 0) {
+                    covered--;
+                }
+                left++;
+            }
+        }
+        double compactness = Math.min(1, (double) properties.getProximityWindow() / Math.max(1, bestSpan));
+        return compactness * distinct / terms.size();
+    }
+
+    /**
+     * 用于打分的正文片段：优先使用正文开头，没有正文时使用高亮片段或摘要
+     */
+    private String passageOf(SearchResult result) {
+        Document document = result.getDocument();
+        String text = document.getContent();
+        if (!StringUtils.hasText(text)) {
+            text = result.getHighlightedContent() != null
+                    ? MARK_TAG.matcher(result.getHighlightedContent()).replaceAll("")
+                    : document.getSummary();
+        }
+        if (!StringUtils.hasText(text)) {
+            return "";
+        }
+        if (text.length() > properties.getMaxScanChars()) {
+            text = text.substring(0, properties.getMaxScanChars());
+        }
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private static double popularity(Document document) {
+        int views = document.getViewCount() != null ? document.getViewCount() : 0;
+        int downloads = document.getDownloadCount() != null ? document.getDownloadCount() : 0;
+        return Math.log1p(Math.max(0, views) + 2.0 * Math.max(0, downloads));
+    }
+
+    private static final class Scored {
+        private final SearchResult result;
+        private final int index;
+        private final double score;
+
+        Scored(SearchResult result, int index, double score) {
+            this.result = result;
+            this.index = index;
+            this.score = score;
+        }
+    }
+}
@@ -8,7 +8,7 @@ import java.util.concurrent.CompletableFuture;
 
 /**
  * 异步文档处理服务接口
- * 提供高性能的文档上传、处理和索引构建功能
+ * 提供高性能的文档上传、处理和索引构建功能；索引构建以持久化任务的形式提交到后台处理队列
  * 
  * @author Sihui Team
  */
@@ -44,7 +44,7 @@ public interface AsyncDocumentProcessingService {
      * 异步构建文档索引
      * 
      * @param documentId 文档ID
-     * @return 异步处理结果
+     * @return 任务入队后完成；队列已满时以 {@link com.vote.sihuibackend.job.JobQueueSaturatedException} 失败
      */
     CompletableFuture<Void> buildDocumentIndexAsync(Long documentId);
 
@@ -52,14 +52,14 @@ public interface AsyncDocumentProcessingService {
      * 异步批量构建索引
      * 
      * @param documentIds 文档ID列表
-     * @return 异步处理结果
+     * @return 任务入队后完成；队列已满时以 {@link com.vote.sihuibackend.job.JobQueueSaturatedException} 失败
      */
     CompletableFuture<Void> buildDocumentIndexesBatchAsync(List<Long> documentIds);
 
     /**
      * 异步重建所有索引
      * 
-     * @return 异步处理结果
+     * @return 任务入队后完成；队列已满时以 {@link com.vote.sihuibackend.job.JobQueueSaturatedException} 失败
      */
     CompletableFuture<Void> rebuildAllIndexesAsync();
 
@@ -72,6 +72,7 @@ public interface AsyncDocumentProcessingService {
 
     /**
      * 获取处理队列状态
+     * 索引任务数、处理总数和平均耗时来自所有实例共享的任务表，上传数为本实例统计
      * 
      * @return 队列状态信息
      */
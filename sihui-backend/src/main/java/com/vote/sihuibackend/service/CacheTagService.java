@@ -0,0 +1,18 @@
+package com.vote.sihuibackend.service;
+
+import java.util.Collection;
+
+/**
+ * 缓存标签失效服务接口
+ * 按实体标签精确失效缓存条目，替代 allEntries 方式的整表清空
+ */
+public interface CacheTagService {
+
+    /**
+     * 失效带有任一指定标签的缓存条目
+     * 在事务中调用时，Redis缓存的实际删除由事务感知装饰器推迟到提交之后
+     *
+     * @param tags 标签集合
+     */
+    void evictTags(Collection<String> tags);
+}
@@ -0,0 +1,53 @@
+package com.vote.sihuibackend.service;
+
+import java.util.List;
+
+/**
+ * 聊天会话归档服务接口
+ * 长期不活跃会话的消息移到压缩的冷存储表，读取会话时按需恢复
+ *
+ * @author Sihui Team
+ */
+public interface ChatArchiveService {
+
+    /**
+     * 按ID顺序查找可以归档的会话
+     *
+     * @param afterId 只查找ID大于该值的会话
+     * @param limit   最多返回的条数
+     * @return 会话数据库ID
+     */
+    List<Long> findArchiveCandidates(Long afterId, int limit);
+
+    /**
+     * 归档一个会话：从消息表分批读出并删除消息，序列化压缩后写入归档表
+     * 会话在查找之后有了新消息或已被其他实例归档时不做任何事
+     *
+     * @param sessionDbId 会话数据库ID
+     * @return 是否归档了该会话
+     */
+    boolean archiveSession(Long sessionDbId);
+
+    /**
+     * 把已归档会话的消息写回消息表，保留原消息ID，并删除归档
+     * 会话未归档或已被并发请求恢复时不做任何事
+     *
+     * @param sessionDbId 会话数据库ID
+     * @return 恢复的消息条数
+     */
+    int restoreSession(Long sessionDbId);
+
+    /**
+     * 提交归档任务，已有待执行的归档任务时不重复提交
+     *
+     * @return 是否提交了任务
+     */
+    boolean scheduleArchival();
+
+    /**
+     * 检查并提前创建消息表的月份分区
+     *
+     * @return 新建的分区数
+     */
+    int ensureMessagePartitions();
+}
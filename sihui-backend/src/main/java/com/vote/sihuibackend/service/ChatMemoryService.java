@@ -31,6 +31,16 @@ public interface ChatMemoryService {
      */
     ChatMessage saveMessage(String sessionId, String role, String content);
 
+    /**
+     * 在同一事务中保存一轮对话的用户消息和AI回复，并更新一次会话时间
+     *
+     * @param sessionId        会话ID
+     * @param userContent      用户消息
+     * @param assistantContent AI回复
+     * @return 保存的消息（用户消息在前）
+     */
+    List<ChatMessage> saveExchange(String sessionId, String userContent, String assistantContent);
+
     /**
      * 获取会话的完整历史
      * 
@@ -72,6 +82,40 @@ public interface ChatMemoryService {
      */
     List<Map<String, String>> convertToApiFormat(List<ChatMessage> messages);
 
+    /**
+     * 在token预算内构建对话上下文（API调用格式）
+     * 从最新的消息开始向前放入，直到达到预算；更早的对话以摘要形式作为第一条system消息
+     *
+     * @param sessionId 会话ID
+     * @return API格式的消息历史
+     */
+    List<Map<String, String>> buildConversationContext(String sessionId);
+
+    /**
+     * 获取已超出上下文预算、但尚未折叠进摘要的消息
+     *
+     * @param sessionId 会话ID
+     * @return 按时间顺序排列的消息列表
+     */
+    List<ChatMessage> getMessagesToSummarize(String sessionId);
+
+    /**
+     * 获取会话的滚动摘要
+     *
+     * @param sessionId 会话ID
+     * @return 摘要，没有时返回null
+     */
+    String getSessionSummary(String sessionId);
+
+    /**
+     * 更新会话的滚动摘要
+     *
+     * @param sessionId           会话ID
+     * @param summary             新摘要
+     * @param summarizedMessageId 摘要覆盖到的最后一条消息ID
+     */
+    void updateSessionSummary(String sessionId, String summary, Long summarizedMessageId);
+
     /**
      * 清理会话（删除会话和相关消息）
      * 
@@ -94,4 +138,13 @@ public interface ChatMemoryService {
      * @return 是否存在且激活
      */
     boolean isSessionActive(String sessionId);
+
+    /**
+     * 检查会话是否属于指定用户
+     *
+     * @param sessionId 会话ID
+     * @param userId    用户ID
+     * @return 会话存在且属于该用户时返回true
+     */
+    boolean isSessionOwnedBy(String sessionId, Long userId);
 }
\ No newline at end of file
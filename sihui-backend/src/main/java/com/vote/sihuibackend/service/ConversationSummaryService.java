@@ -0,0 +1,27 @@
+package com.vote.sihuibackend.service;
+
+/**
+ * 会话滚动摘要服务接口
+ * 将超出上下文预算的早期对话折叠进会话摘要
+ *
+ * @author Sihui Team
+ */
+public interface ConversationSummaryService {
+
+    /**
+     * 异步更新会话摘要，在每轮对话保存后调用
+     * 没有需要折叠的消息或同一会话正在更新时直接返回
+     *
+     * @param sessionId 会话ID
+     * @param callerKey 触发本轮对话的调用方，摘要调用计入该调用方的后台名额
+     */
+    void refreshSummaryAsync(String sessionId, String callerKey);
+
+    /**
+     * 同步更新会话摘要
+     *
+     * @param sessionId 会话ID
+     * @return 是否更新了摘要
+     */
+    boolean refreshSummary(String sessionId);
+}
@@ -1,8 +1,11 @@
 package com.vote.sihuibackend.service;
 
+import com.vote.sihuibackend.llm.ChatCompletionResult;
+
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * DeepSeek AI服务接口
@@ -29,6 +32,17 @@ public interface DeepSeekService {
      */
     String chat(String message, List<Map<String, String>> conversationHistory) throws IOException;
 
+    /**
+     * 发送消息到DeepSeek API，返回回复及是否命中回复缓存
+     * 
+     * @param message             用户消息
+     * @param conversationHistory 对话历史（可为null）
+     * @return 回复及缓存命中标记
+     * @throws IOException 当API调用失败时抛出
+     */
+    ChatCompletionResult complete(String message, List<Map<String, String>> conversationHistory)
+            throws IOException;
+
     /**
      * 发送消息到DeepSeek API，自动管理会话记忆
      * 
@@ -39,4 +53,27 @@ public interface DeepSeekService {
      * @throws IOException 当API调用失败时抛出
      */
     String chatWithMemory(Long userId, String message, String sessionId) throws IOException;
-}
\ No newline at end of file
+
+    /**
+     * 以流式方式发送消息到DeepSeek API，生成的文本分片到达后立即回调
+     * 
+     * @param message             用户消息
+     * @param conversationHistory 对话历史（可为null）
+     * @param onToken             文本分片回调，在调用线程中执行；抛出异常时中止请求
+     * @return 拼接后的完整回复
+     * @throws IOException 当API调用失败时抛出
+     */
+    String streamChat(String message, List<Map<String, String>> conversationHistory, Consumer<String> onToken)
+            throws IOException;
+
+    /**
+     * 以流式方式发送消息并管理会话记忆，完整回复在流正常结束后保存到会话
+     * 
+     * @param sessionId 会话ID
+     * @param message   用户消息
+     * @param onToken   文本分片回调，抛出异常时中止请求且不保存回复
+     * @return 拼接后的完整回复
+     * @throws IOException 当API调用失败时抛出
+     */
+    String streamChatWithMemory(String sessionId, String message, Consumer<String> onToken) throws IOException;
+}
@@ -0,0 +1,37 @@
+package com.vote.sihuibackend.service;
+
+/**
+ * 文档计数服务接口
+ * 查看、下载次数先在内存中累加，定期批量写入数据库
+ *
+ * @author Sihui Team
+ */
+public interface DocumentCounterService {
+
+    /**
+     * 记录一次查看
+     */
+    void recordView(Long documentId);
+
+    /**
+     * 记录一次下载
+     */
+    void recordDownload(Long documentId);
+
+    /**
+     * 尚未写入数据库的查看次数
+     */
+    long getPendingViews(Long documentId);
+
+    /**
+     * 尚未写入数据库的下载次数
+     */
+    long getPendingDownloads(Long documentId);
+
+    /**
+     * 把累加的计数写入数据库
+     *
+     * @return 本次写入的文档数
+     */
+    int flush();
+}
@@ -1,5 +1,6 @@
 package com.vote.sihuibackend.service;
 
+import com.vote.sihuibackend.dto.DocumentBatchItemResult;
 import com.vote.sihuibackend.entity.Document;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -7,6 +8,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * 文档管理服务接口
@@ -41,6 +43,34 @@ public interface DocumentService {
     List<Document> uploadDocuments(MultipartFile[] files, String category,
             Boolean isPublic, Long uploaderId);
 
+    /**
+     * 批量上传文档，并行解析上传、批量写入数据库，逐个回报处理结果
+     *
+     * @param files      文件列表
+     * @param category   文档分类
+     * @param isPublic   是否公开
+     * @param uploaderId 上传者ID
+     * @param listener   单个文档处理完成时的回调（串行调用），可为null
+     * @return 按文件顺序排列的处理结果
+     */
+    List<DocumentBatchItemResult> uploadDocuments(MultipartFile[] files, String category,
+            Boolean isPublic, Long uploaderId, Consumer<DocumentBatchItemResult> listener);
+
+    /**
+     * 登记已上传到存储的文件（如分块上传合并后的文件），不解析正文、不建立检索索引
+     *
+     * @param originalFilename 原始文件名
+     * @param fileUrl          文件访问URL
+     * @param fileSize         文件大小（字节）
+     * @param category         文件分类
+     * @param description      文件描述
+     * @param isPublic         是否公开
+     * @param uploaderId       上传者ID
+     * @return 保存的文档实体
+     */
+    Document registerUploadedFile(String originalFilename, String fileUrl, Long fileSize, String category,
+            String description, Boolean isPublic, Long uploaderId);
+
     /**
      * 根据ID查找文档
      */
@@ -28,6 +28,16 @@ public interface EnhancedCacheService {
      */
     Map<String, Double> getTfIdfVector(Long documentId);
 
+    /**
+     * 计算缓存中的文档TF-IDF向量与给定向量的余弦相似度
+     * 向量存放在堆外区域时直接在缓冲区上计算，不反序列化整个向量
+     *
+     * @param documentId  文档ID
+     * @param queryVector 查询向量
+     * @return 余弦相似度，如果文档向量不在缓存中返回null
+     */
+    Double scoreTfIdfVector(Long documentId, Map<String, Double> queryVector);
+
     /**
      * 缓存IDF值
      * 
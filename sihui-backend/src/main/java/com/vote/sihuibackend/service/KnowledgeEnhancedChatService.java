@@ -3,6 +3,7 @@ package com.vote.sihuibackend.service;
 import com.vote.sihuibackend.service.TextSearchService.SearchResult;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -126,6 +127,8 @@ public interface KnowledgeEnhancedChatService {
         private QueryAnalysisResult queryAnalysis;
         private double confidenceScore;
         private boolean hasKnowledgeSupport;
+        private Map<String, Long> stageTimings = Collections.emptyMap();
+        private List<String> skippedStages = Collections.emptyList();
 
         public KnowledgeEnhancedResponse(String answer, List<SearchResult> sourceDocuments,
                 QueryAnalysisResult queryAnalysis, double confidenceScore,
@@ -177,5 +180,27 @@ public interface KnowledgeEnhancedChatService {
         public void setHasKnowledgeSupport(boolean hasKnowledgeSupport) {
             this.hasKnowledgeSupport = hasKnowledgeSupport;
         }
+
+        /**
+         * 各阶段耗时（毫秒），按完成顺序排列
+         */
+        public Map<String, Long> getStageTimings() {
+            return stageTimings;
+        }
+
+        public void setStageTimings(Map<String, Long> stageTimings) {
+            this.stageTimings = stageTimings;
+        }
+
+        /**
+         * 因剩余时间不足、超时或失败而跳过的阶段
+         */
+        public List<String> getSkippedStages() {
+            return skippedStages;
+        }
+
+        public void setSkippedStages(List<String> skippedStages) {
+            this.skippedStages = skippedStages;
+        }
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.vote.sihuibackend.service;
 
+import com.vote.sihuibackend.dto.MultipartUploadStatus;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.InputStream;
@@ -31,6 +32,63 @@ public interface OssService {
      */
     String uploadFile(InputStream inputStream, String fileName, String folder);
 
+    /**
+     * 流式上传文件，校验类型和大小后生成唯一对象名
+     * 
+     * @param inputStream      文件流（上传结束后关闭）
+     * @param originalFilename 原始文件名，用于校验类型和生成对象名
+     * @param contentLength    内容长度（字节），未知时传-1
+     * @param folder           文件夹路径（可选）
+     * @return 对象名（包含路径），可通过 {@link #getFileUrl(String)} 获取访问URL
+     */
+    String uploadStream(InputStream inputStream, String originalFilename, long contentLength, String folder);
+
+    /**
+     * 创建分块上传会话，由客户端按返回的分片大小逐片上传
+     * 
+     * @param originalFilename 原始文件名
+     * @param fileSize         文件大小（字节）
+     * @param folder           文件夹路径（可选）
+     * @param ownerId          发起上传的用户ID
+     * @return 上传会话状态
+     */
+    MultipartUploadStatus initiateMultipartUpload(String originalFilename, long fileSize, String folder,
+            Long ownerId);
+
+    /**
+     * 上传一个分片，同一分片可以重复提交
+     * 
+     * @param uploadId    上传ID
+     * @param partNumber  分片号（从1开始）
+     * @param inputStream 分片内容
+     * @param partSize    分片大小（字节）
+     * @return 上传会话状态
+     */
+    MultipartUploadStatus uploadPart(String uploadId, int partNumber, InputStream inputStream, long partSize);
+
+    /**
+     * 查询分块上传会话状态，用于断点续传
+     * 
+     * @param uploadId 上传ID
+     * @return 上传会话状态
+     */
+    MultipartUploadStatus getMultipartUploadStatus(String uploadId);
+
+    /**
+     * 合并全部分片完成上传
+     * 
+     * @param uploadId 上传ID
+     * @return 文件访问URL
+     */
+    String completeMultipartUpload(String uploadId);
+
+    /**
+     * 中止分块上传并删除已上传的分片
+     * 
+     * @param uploadId 上传ID
+     */
+    void abortMultipartUpload(String uploadId);
+
     /**
      * 删除文件
      * 
@@ -63,6 +121,14 @@ public interface OssService {
      */
     String getFileUrl(String fileName);
 
+    /**
+     * 从访问URL还原对象名，{@link #getFileUrl(String)} 的逆操作
+     * 
+     * @param fileUrl 文件访问URL
+     * @return 对象名（包含路径）
+     */
+    String getObjectName(String fileUrl);
+
     /**
      * 获取带有过期时间的签名URL
      * 
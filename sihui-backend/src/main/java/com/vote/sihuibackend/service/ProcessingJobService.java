@@ -0,0 +1,66 @@
+package com.vote.sihuibackend.service;
+
+import com.vote.sihuibackend.dto.JobQueueStatus;
+import com.vote.sihuibackend.entity.ProcessingJob;
+
+import java.util.Optional;
+
+/**
+ * 后台处理任务服务接口
+ * 任务持久化在数据库中排队，各实例按租约领取执行，失败后按退避时间重试
+ *
+ * @author Sihui Team
+ */
+public interface ProcessingJobService {
+
+    /**
+     * 提交任务
+     *
+     * @param jobType   任务类型
+     * @param payload   任务参数
+     * @param priority  优先级，数值越大越先执行
+     * @param createdBy 创建者ID，可为null
+     * @return 已入队的任务
+     * @throws com.vote.sihuibackend.job.JobQueueSaturatedException 排队任务数已达上限
+     */
+    ProcessingJob submit(String jobType, String payload, int priority, Long createdBy);
+
+    /**
+     * 提交延迟执行的任务，到达指定时间后才会被领取
+     *
+     * @param jobType  任务类型
+     * @param payload  任务参数
+     * @param priority 优先级，数值越大越先执行
+     * @param delayMs  延迟时间（毫秒）
+     * @return 已入队的任务
+     * @throws com.vote.sihuibackend.job.JobQueueSaturatedException 排队任务数已达上限
+     */
+    ProcessingJob submitDelayed(String jobType, String payload, int priority, long delayMs);
+
+    /**
+     * 根据ID查找任务
+     */
+    Optional<ProcessingJob> findJob(Long id);
+
+    /**
+     * 指定类型的待执行任务数
+     */
+    long countPendingJobs(String jobType);
+
+    /**
+     * 排队任务数是否已达上限
+     */
+    boolean isSaturated();
+
+    /**
+     * 获取队列状态
+     */
+    JobQueueStatus getQueueStatus();
+
+    /**
+     * 按本实例的空闲执行槽领取任务并开始执行
+     *
+     * @return 本次领取的任务数
+     */
+    int pollAndDispatch();
+}
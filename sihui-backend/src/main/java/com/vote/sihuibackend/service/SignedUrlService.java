@@ -0,0 +1,36 @@
+package com.vote.sihuibackend.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 签名URL服务接口
+ * 在存储服务的签名之上缓存已签发的URL，剩余有效期充足时直接复用
+ *
+ * @author Sihui Team
+ */
+public interface SignedUrlService {
+
+    /**
+     * 获取文件签名URL
+     *
+     * @param fileName         文件名（包含路径）
+     * @param expiredInSeconds 要求的有效期（秒），返回的URL至少还有这么长的有效期
+     * @return 签名URL
+     */
+    String getSignedUrl(String fileName, int expiredInSeconds);
+
+    /**
+     * 批量获取文件签名URL
+     *
+     * @param fileNames        文件名列表
+     * @param expiredInSeconds 要求的有效期（秒）
+     * @return 文件名到签名URL的映射（按请求顺序，签名失败的文件不包含在内）
+     */
+    Map<String, String> getSignedUrls(List<String> fileNames, int expiredInSeconds);
+
+    /**
+     * 移除文件的缓存签名（文件删除或替换后调用）
+     */
+    void evict(String fileName);
+}
@@ -64,6 +64,36 @@ public interface TextSearchService {
      */
     void updateDocumentIndex(Long documentId);
 
+    /**
+     * 批量更新文档的TF-IDF索引，在一次任务中完成，IDF值在整批文档间共享
+     * 
+     * @param documentIds 文档ID列表
+     */
+    void updateDocumentIndexes(List<Long> documentIds);
+
+    /**
+     * 让目标文档复用源文档持久化的词频索引（两者内容相同），避免重新分词
+     * 
+     * @param sourceDocumentId 源文档ID
+     * @param targetDocumentId 目标文档ID
+     */
+    void copyDocumentIndex(Long sourceDocumentId, Long targetDocumentId);
+
+    /**
+     * 文档的TF-IDF索引是否已构建
+     * 
+     * @param documentId 文档ID
+     * @return 是否已构建
+     */
+    boolean hasDocumentIndex(Long documentId);
+
+    /**
+     * 删除文档的索引（持久化的词频和缓存的向量）
+     * 
+     * @param documentId 文档ID
+     */
+    void removeDocumentIndex(Long documentId);
+
     /**
      * 重建所有文档的TF-IDF索引
      */
@@ -0,0 +1,50 @@
+package com.vote.sihuibackend.service;
+
+import com.vote.sihuibackend.entity.User;
+
+import java.util.Map;
+
+/**
+ * 用户登录标识过滤服务接口
+ * 为用户名、邮箱、手机号维护布隆过滤器，只读的可用性检查判定"一定不存在"时可跳过数据库查询。
+ * 多实例部署时其他实例的写入在本地过滤器重建前不可见，判定可能过期，创建和更新用户前的唯一性校验不使用过滤器。
+ *
+ * @author Sihui Team
+ */
+public interface UserIdentifierFilterService {
+
+    enum Field {
+        USERNAME, EMAIL, PHONE
+    }
+
+    /**
+     * 判断标识是否可能已被使用
+     *
+     * @param field 标识字段
+     * @param value 标识值
+     * @return false表示一定未被使用，可跳过数据库查询；true表示需要查询数据库确认
+     */
+    boolean mightExist(Field field, String value);
+
+    /**
+     * 记录新增或修改后的用户标识
+     */
+    void recordUser(User user);
+
+    /**
+     * 记录不再使用的标识（用户删除或标识被修改），布隆过滤器无法删除，累计到阈值后重建
+     */
+    void recordRemoved(String... values);
+
+    /**
+     * 按ID游标分批扫描用户表重建过滤器
+     *
+     * @return 重建结果统计，已有重建在进行时返回当前统计
+     */
+    Map<String, Object> rebuild();
+
+    /**
+     * 获取过滤器统计信息
+     */
+    Map<String, Object> getStats();
+}
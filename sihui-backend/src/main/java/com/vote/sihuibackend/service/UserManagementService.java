@@ -86,17 +86,20 @@ public interface UserManagementService {
     void removeRolesFromUser(Long userId, List<Long> roleIds);
 
     /**
-     * 检查用户名是否存在
+     * 检查用户名是否存在，仅用于可用性提示
+     * 其他实例刚创建的用户在本地过滤器重建前可能被判定为不存在，创建和更新用户时的唯一性检查总是查询数据库
      */
     boolean existsByUsername(String username);
 
     /**
-     * 检查邮箱是否存在
+     * 检查邮箱是否存在，仅用于可用性提示
+     * 其他实例刚创建的用户在本地过滤器重建前可能被判定为不存在，创建和更新用户时的唯一性检查总是查询数据库
      */
     boolean existsByEmail(String email);
 
     /**
-     * 检查手机号是否存在
+     * 检查手机号是否存在，仅用于可用性提示
+     * 其他实例刚创建的用户在本地过滤器重建前可能被判定为不存在，创建和更新用户时的唯一性检查总是查询数据库
      */
     boolean existsByPhone(String phone);
 
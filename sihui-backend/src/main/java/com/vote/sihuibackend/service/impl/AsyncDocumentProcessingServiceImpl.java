@@ -1,8 +1,13 @@
 package com.vote.sihuibackend.service.impl;
 
+import com.vote.sihuibackend.dto.JobQueueStatus;
 import com.vote.sihuibackend.entity.Document;
+import com.vote.sihuibackend.entity.ProcessingJob;
+import com.vote.sihuibackend.job.DocumentIndexJobHandler;
+import com.vote.sihuibackend.job.IndexRebuildJobHandler;
 import com.vote.sihuibackend.service.AsyncDocumentProcessingService;
 import com.vote.sihuibackend.service.DocumentService;
+import com.vote.sihuibackend.service.ProcessingJobService;
 import com.vote.sihuibackend.service.TextSearchService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,11 +15,11 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * 异步文档处理服务实现
@@ -29,13 +34,11 @@ public class AsyncDocumentProcessingServiceImpl implements AsyncDocumentProcessi
 
     private final DocumentService documentService;
     private final TextSearchService textSearchService;
+    private final ProcessingJobService processingJobService;
 
-    // 处理统计
+    // 本实例的上传统计（索引任务统计来自任务表）
     private final AtomicInteger pendingUploads = new AtomicInteger(0);
-    private final AtomicInteger pendingIndexBuilds = new AtomicInteger(0);
     private final AtomicInteger activeTasks = new AtomicInteger(0);
-    private final AtomicLong totalProcessed = new AtomicLong(0);
-    private final AtomicLong totalProcessingTime = new AtomicLong(0);
 
     @Override
     @Async("documentProcessingExecutor")
@@ -51,12 +54,12 @@ public class AsyncDocumentProcessingServiceImpl implements AsyncDocumentProcessi
             // 上传文档
             Document document = documentService.uploadDocument(file, title, category, keywords, isPublic, uploaderId);
 
-            // 异步构建索引
-            buildDocumentIndexAsync(document.getId());
+            // 提交索引任务（内容重复的文档已复用已有索引）
+            if (!textSearchService.hasDocumentIndex(document.getId())) {
+                buildDocumentIndexAsync(document.getId());
+            }
 
             long processingTime = System.currentTimeMillis() - startTime;
-            totalProcessed.incrementAndGet();
-            totalProcessingTime.addAndGet(processingTime);
 
             log.info("文档异步上传完成: {}, 耗时: {}ms", document.getTitle(), processingTime);
             return CompletableFuture.completedFuture(document);
@@ -83,35 +86,19 @@ public class AsyncDocumentProcessingServiceImpl implements AsyncDocumentProcessi
         try {
             log.info("开始异步批量上传 {} 个文档", files.length);
 
-            List<CompletableFuture<Document>> uploadFutures = new ArrayList<>();
+            // 批量上传内部以有限并发解析上传并批量插入，不能在这里逐个调用本类的@Async方法（不经过代理，实际串行）
+            List<Document> results = documentService.uploadDocuments(files, category, isPublic, uploaderId);
 
-            // 并行处理每个文件
-            for (MultipartFile file : files) {
-                String title = generateTitleFromFilename(file.getOriginalFilename());
-                CompletableFuture<Document> uploadFuture = uploadDocumentAsync(file, title, category, null, isPublic,
-                        uploaderId);
-                uploadFutures.add(uploadFuture);
+            // 整批完成后提交一个索引任务
+            List<Long> documentIds = results.stream().map(Document::getId).collect(Collectors.toList());
+            if (!documentIds.isEmpty()) {
+                buildDocumentIndexesBatchAsync(documentIds);
             }
 
-            // 等待所有上传完成
-            CompletableFuture<Void> allUploads = CompletableFuture.allOf(
-                    uploadFutures.toArray(new CompletableFuture[0]));
-
-            return allUploads.thenApply(v -> {
-                List<Document> results = new ArrayList<>();
-                for (CompletableFuture<Document> future : uploadFutures) {
-                    try {
-                        results.add(future.get());
-                    } catch (Exception e) {
-                        log.error("批量上传中某个文档处理失败", e);
-                    }
-                }
-
-                long processingTime = System.currentTimeMillis() - startTime;
-                log.info("批量上传完成，成功: {}/{}, 耗时: {}ms", results.size(), files.length, processingTime);
+            long processingTime = System.currentTimeMillis() - startTime;
+            log.info("批量上传完成，成功: {}/{}, 耗时: {}ms", results.size(), files.length, processingTime);
 
-                return results;
-            });
+            return CompletableFuture.completedFuture(results);
 
         } catch (Exception e) {
             log.error("批量文档异步上传失败", e);
@@ -119,98 +106,40 @@ public class AsyncDocumentProcessingServiceImpl implements AsyncDocumentProcessi
             failedFuture.completeExceptionally(e);
             return failedFuture;
         } finally {
+            pendingUploads.addAndGet(-files.length);
             activeTasks.decrementAndGet();
         }
     }
 
     @Override
-    @Async("indexBuildingExecutor")
     public CompletableFuture<Void> buildDocumentIndexAsync(Long documentId) {
-        long startTime = System.currentTimeMillis();
-        pendingIndexBuilds.incrementAndGet();
-        activeTasks.incrementAndGet();
-
-        try {
-            log.debug("开始异步构建文档索引: {}", documentId);
-
-            // 更新文档索引
-            textSearchService.updateDocumentIndex(documentId);
-
-            long processingTime = System.currentTimeMillis() - startTime;
-            log.debug("文档索引构建完成: {}, 耗时: {}ms", documentId, processingTime);
-
-            return CompletableFuture.completedFuture(null);
-
-        } catch (Exception e) {
-            log.error("文档索引构建失败: {}", documentId, e);
-            CompletableFuture<Void> failedFuture = new CompletableFuture<>();
-            failedFuture.completeExceptionally(e);
-            return failedFuture;
-        } finally {
-            pendingIndexBuilds.decrementAndGet();
-            activeTasks.decrementAndGet();
-        }
+        return buildDocumentIndexesBatchAsync(Collections.singletonList(documentId));
     }
 
     @Override
-    @Async("indexBuildingExecutor")
     public CompletableFuture<Void> buildDocumentIndexesBatchAsync(List<Long> documentIds) {
-        long startTime = System.currentTimeMillis();
-        pendingIndexBuilds.addAndGet(documentIds.size());
-        activeTasks.incrementAndGet();
-
-        try {
-            log.info("开始异步批量构建 {} 个文档索引", documentIds.size());
-
-            List<CompletableFuture<Void>> indexFutures = new ArrayList<>();
-
-            // 并行构建索引
-            for (Long documentId : documentIds) {
-                CompletableFuture<Void> indexFuture = buildDocumentIndexAsync(documentId);
-                indexFutures.add(indexFuture);
-            }
-
-            // 等待所有索引构建完成
-            return CompletableFuture.allOf(indexFutures.toArray(new CompletableFuture[0]))
-                    .thenRun(() -> {
-                        long processingTime = System.currentTimeMillis() - startTime;
-                        log.info("批量索引构建完成，处理: {} 个文档, 耗时: {}ms", documentIds.size(), processingTime);
-                    });
-
-        } catch (Exception e) {
-            log.error("批量索引构建失败", e);
-            CompletableFuture<Void> failedFuture = new CompletableFuture<>();
-            failedFuture.completeExceptionally(e);
-            return failedFuture;
-        } finally {
-            activeTasks.decrementAndGet();
-        }
+        return submitJob(DocumentIndexJobHandler.JOB_TYPE, DocumentIndexJobHandler.payloadOf(documentIds),
+                ProcessingJob.PRIORITY_HIGH);
     }
 
     @Override
-    @Async("indexBuildingExecutor")
     public CompletableFuture<Void> rebuildAllIndexesAsync() {
-        long startTime = System.currentTimeMillis();
-        activeTasks.incrementAndGet();
+        return submitJob(IndexRebuildJobHandler.JOB_TYPE, null, ProcessingJob.PRIORITY_LOW);
+    }
 
+    /**
+     * 提交持久化任务，由任务线程池执行，不占用调用线程
+     */
+    private CompletableFuture<Void> submitJob(String jobType, String payload, int priority) {
         try {
-            log.info("开始异步重建所有文档索引");
-
-            // 重建所有索引
-            textSearchService.rebuildAllIndexes();
-
-            long processingTime = System.currentTimeMillis() - startTime;
-            log.info("所有文档索引重建完成，耗时: {}ms", processingTime);
-
+            ProcessingJob job = processingJobService.submit(jobType, payload, priority, null);
+            log.debug("已提交后台任务: {} #{}", jobType, job.getId());
             return CompletableFuture.completedFuture(null);
-
         } catch (Exception e) {
-            log.error("重建所有索引失败", e);
+            log.warn("提交后台任务失败: {}", jobType, e);
             CompletableFuture<Void> failedFuture = new CompletableFuture<>();
             failedFuture.completeExceptionally(e);
             return failedFuture;
-        } finally {
-            activeTasks.decrementAndGet();
         }
     }
 
@@ -248,33 +177,14 @@ public class AsyncDocumentProcessingServiceImpl implements AsyncDocumentProcessi
 
     @Override
     public ProcessingQueueStatus getQueueStatus() {
-        double averageTime = totalProcessed.get() > 0
-                ? (double) totalProcessingTime.get() / totalProcessed.get()
-                : 0.0;
+        JobQueueStatus jobStatus = processingJobService.getQueueStatus();
+        long pendingIndexBuilds = processingJobService.countPendingJobs(DocumentIndexJobHandler.JOB_TYPE);
 
         return new ProcessingQueueStatus(
                 pendingUploads.get(),
-                pendingIndexBuilds.get(),
-                activeTasks.get(),
-                totalProcessed.get(),
-                averageTime);
-    }
-
-    /**
-     * 从文件名生成标题
-     */
-    private String generateTitleFromFilename(String filename) {
-        if (filename == null) {
-            return "未命名文档";
-        }
-
-        // 移除文件扩展名
-        int lastDotIndex = filename.lastIndexOf('.');
-        if (lastDotIndex > 0) {
-            filename = filename.substring(0, lastDotIndex);
-        }
-
-        // 替换特殊字符
-        return filename.replaceAll("[_-]", " ").trim();
+                (int) pendingIndexBuilds,
+                activeTasks.get() + jobStatus.getRunning().intValue(),
+                jobStatus.getSucceeded(),
+                jobStatus.getAverageDurationMs());
     }
 }
\ No newline at end of file
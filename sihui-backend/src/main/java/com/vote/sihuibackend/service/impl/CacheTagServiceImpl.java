@@ -0,0 +1,42 @@
+package com.vote.sihuibackend.service.impl;
+
+import com.vote.sihuibackend.cache.TaggingCacheManager;
+import com.vote.sihuibackend.service.CacheTagService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+
+/**
+ * 缓存标签失效服务实现
+ * 缓存管理器支持标签时按标签精确失效，否则退化为清空全部缓存
+ */
+@Service
+@Slf4j
+public class CacheTagServiceImpl implements CacheTagService {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Override
+    public void evictTags(Collection<String> tags) {
+        if (tags.isEmpty()) {
+            return;
+        }
+        if (cacheManager instanceof TaggingCacheManager) {
+            ((TaggingCacheManager) cacheManager).evictTags(tags);
+            return;
+        }
+        // 缓存管理器不支持标签时无法定位条目，退化为清空全部缓存
+        log.debug("缓存管理器不支持标签失效，清空全部缓存 - Tags: {}", tags);
+        for (String cacheName : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.vote.sihuibackend.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.vote.sihuibackend.entity.ChatMessage;
+import com.vote.sihuibackend.entity.ChatSessionArchive;
+import com.vote.sihuibackend.entity.ProcessingJob;
+import com.vote.sihuibackend.job.ChatArchiveJobHandler;
+import com.vote.sihuibackend.repository.ChatMessageRepository;
+import com.vote.sihuibackend.repository.ChatSessionArchiveRepository;
+import com.vote.sihuibackend.repository.ChatSessionRepository;
+import com.vote.sihuibackend.service.ChatArchiveService;
+import com.vote.sihuibackend.service.ProcessingJobService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * 聊天会话归档服务实现
+ * 归档以条件UPDATE先标记会话，标记成功后在同一事务中分批读出并删除消息、写入归档行，会话在此期间有新消息时标记不生效；
+ * 写消息前先更新会话行的更新时间，与标记归档互斥：标记之后到提交之前不会有新消息写入，提交之后写消息的请求会先恢复会话。
+ * 恢复时先清除标记，并发恢复同一会话时只有一个请求写回消息，其余请求等待其提交后直接读取消息表。
+ * 归档由后台任务执行，多实例部署时同一时间只有一个实例处理。
+ *
+ * @author Sihui Team
+ */
+@Service
+@Slf4j
+public class ChatArchiveServiceImpl implements ChatArchiveService {
+
+    private static final TypeReference<List<ChatMessage>> MESSAGE_LIST = new TypeReference<List<ChatMessage>>() {
+    };
+
+    private final ChatSessionRepository chatSessionRepository;
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatSessionArchiveRepository chatSessionArchiveRepository;
+    private final ObjectMapper objectMapper;
+    // 任务处理器依赖本服务，延迟获取避免循环依赖
+    private final ObjectProvider<ProcessingJobService> processingJobServiceProvider;
+
+    /**
+     * 是否启用归档
+     */
+    @Value("${app.ai.archive.enabled:true}")
+    private boolean archiveEnabled = true;
+
+    /**
+     * 会话不活跃多少天后归档
+     */
+    @Value("${app.ai.archive.inactive-days:90}")
+    private int inactiveDays = 90;
+
+    /**
+     * 删除和写回消息时每批的条数
+     */
+    @Value("${app.ai.archive.chunk-size:500}")
+    private int chunkSize = 500;
+
+    /**
+     * 提前创建的月份分区数
+     */
+    @Value("${app.ai.archive.partition-months-ahead:3}")
+    private int partitionMonthsAhead = 3;
+
+    @Autowired
+    public ChatArchiveServiceImpl(ChatSessionRepository chatSessionRepository,
+            ChatMessageRepository chatMessageRepository,
+            ChatSessionArchiveRepository chatSessionArchiveRepository,
+            ObjectMapper objectMapper,
+            ObjectProvider<ProcessingJobService> processingJobServiceProvider) {
+        this.chatSessionRepository = chatSessionRepository;
+        this.chatMessageRepository = chatMessageRepository;
+        this.chatSessionArchiveRepository = chatSessionArchiveRepository;
+        this.objectMapper = objectMapper;
+        this.processingJobServiceProvider = processingJobServiceProvider;
+    }
+
+    @Override
+    public List<Long> findArchiveCandidates(Long afterId, int limit) {
+        return chatSessionRepository.findArchiveCandidates(cutoff(), afterId != null ? afterId : 0L,
+                PageRequest.of(0, limit));
+    }
+
+    @Override
+    @Transactional
+    public boolean archiveSession(Long sessionDbId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (chatSessionRepository.markArchived(sessionDbId, now, cutoff()) == 0) {
+            log.debug("会话 {} 已归档或有新消息，跳过", sessionDbId);
+            return false;
+        }
+
+        // 逐批读出最早的消息写入JSON数组，写完即删除，直到消息表中没有该会话的消息
+        StringWriter payload = new StringWriter();
+        int messageCount = 0;
+        LocalDateTime firstMessageAt = null;
+        LocalDateTime lastMessageAt = null;
+        try (SequenceWriter writer = objectMapper.writer().writeValuesAsArray(payload)) {
+            List<ChatMessage> chunk;
+            while (!(chunk = chatMessageRepository.findOldestMessages(sessionDbId, chunkSize)).isEmpty()) {
+                writer.writeAll(chunk);
+                if (firstMessageAt == null) {
+                    firstMessageAt = chunk.get(0).getTimestamp();
+                }
+                lastMessageAt = chunk.get(chunk.size() - 1).getTimestamp();
+                messageCount += chunk.size();
+                chatMessageRepository.deleteAllByIdInBatch(
+                        chunk.stream().map(ChatMessage::getId).collect(Collectors.toList()));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("序列化会话消息失败", e);
+        }
+
+        chatSessionArchiveRepository.save(ChatSessionArchive.builder()
+                .sessionId(sessionDbId)
+                .payload(payload.toString())
+                .messageCount(messageCount)
+                .firstMessageAt(firstMessageAt)
+                .lastMessageAt(lastMessageAt)
+                .archivedAt(now)
+                .build());
+        log.debug("会话 {} 已归档，{} 条消息", sessionDbId, messageCount);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public int restoreSession(Long sessionDbId) {
+        if (chatSessionRepository.markRestored(sessionDbId, LocalDateTime.now()) == 0) {
+            return 0;
+        }
+        Optional<ChatSessionArchive> archive = chatSessionArchiveRepository.findById(sessionDbId);
+        if (!archive.isPresent()) {
+            log.warn("会话 {} 标记为已归档，但没有找到归档数据", sessionDbId);
+            return 0;
+        }
+
+        List<ChatMessage> messages = fromJson(archive.get().getPayload());
+        chatMessageRepository.restoreAll(messages, chunkSize);
+        chatSessionArchiveRepository.delete(archive.get());
+        log.info("会话 {} 已从归档恢复，{} 条消息", sessionDbId, messages.size());
+        return messages.size();
+    }
+
+    @Override
+    @Scheduled(cron = "${app.ai.archive.cron:0 0 4 * * ?}")
+    public boolean scheduleArchival() {
+        ProcessingJobService processingJobService = processingJobServiceProvider.getIfAvailable();
+        if (!archiveEnabled || processingJobService == null
+                || processingJobService.countPendingJobs(ChatArchiveJobHandler.JOB_TYPE) > 0) {
+            return false;
+        }
+        processingJobService.submit(ChatArchiveJobHandler.JOB_TYPE, null, ProcessingJob.PRIORITY_LOW, null);
+        log.info("已提交会话归档任务");
+        return true;
+    }
+
+    @Override
+    public int ensureMessagePartitions() {
+        try {
+            return chatMessageRepository.addMonthlyPartitions(partitionMonthsAhead);
+        } catch (DataAccessException e) {
+            log.warn("检查消息表分区失败: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    private LocalDateTime cutoff() {
+        return LocalDateTime.now().minusDays(inactiveDays);
+    }
+
+    private List<ChatMessage> fromJson(String payload) {
+        try {
+            return objectMapper.readValue(payload, MESSAGE_LIST);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("解析会话归档失败", e);
+        }
+    }
+}
@@ -2,20 +2,27 @@ package com.vote.sihuibackend.service.impl;
 
 import com.vote.sihuibackend.entity.ChatMessage;
 import com.vote.sihuibackend.entity.ChatSession;
+import com.vote.sihuibackend.llm.TokenEstimator;
 import com.vote.sihuibackend.repository.ChatMessageRepository;
 import com.vote.sihuibackend.repository.ChatSessionRepository;
+import com.vote.sihuibackend.service.ChatArchiveService;
 import com.vote.sihuibackend.service.ChatMemoryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
 /**
  * 聊天记忆管理服务实现类
+ * 会话UUID到数据库ID和所属用户的映射创建后不再变化，缓存在有界LRU中，保存和读取消息时不再重复查询会话。
+ * 会话可能在缓存之后被归档，归档标记不缓存：每次读写消息前都从会话行读取归档标记，已归档时先恢复。
+ * 写消息前先更新会话行的更新时间再检查标记，与归档任务的条件标记互斥，不会把消息写进正在归档的会话。
  */
 @Service
 @Slf4j
@@ -23,12 +30,40 @@ public class ChatMemoryServiceImpl implements ChatMemoryService {
 
     private final ChatSessionRepository chatSessionRepository;
     private final ChatMessageRepository chatMessageRepository;
+    private final ChatArchiveService chatArchiveService;
+
+    /**
+     * 对话历史的token预算（不含摘要）
+     */
+    @Value("${app.ai.context.history-tokens:2000}")
+    private int historyTokens = 2000;
+
+    /**
+     * 构建上下文时最多读取的最近消息数
+     */
+    @Value("${app.ai.context.max-messages:40}")
+    private int maxContextMessages = 40;
+
+    /**
+     * 会话UUID映射缓存的最大条数
+     */
+    @Value("${app.ai.memory.session-cache-size:10000}")
+    private int sessionCacheSize = 10000;
+
+    // 会话UUID -> 数据库ID和所属用户，按访问顺序淘汰
+    private final Map<String, SessionRef> sessionRefs = new LinkedHashMap<String, SessionRef>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SessionRef> eldest) {
+            return size() > sessionCacheSize;
+        }
+    };
 
     @Autowired
     public ChatMemoryServiceImpl(ChatSessionRepository chatSessionRepository,
-            ChatMessageRepository chatMessageRepository) {
+            ChatMessageRepository chatMessageRepository, ChatArchiveService chatArchiveService) {
         this.chatSessionRepository = chatSessionRepository;
         this.chatMessageRepository = chatMessageRepository;
+        this.chatArchiveService = chatArchiveService;
     }
 
     @Override
@@ -45,6 +80,7 @@ public class ChatMemoryServiceImpl implements ChatMemoryService {
         session.setIsActive(true);
 
         ChatSession savedSession = chatSessionRepository.save(session);
+        remember(savedSession);
 
         log.info("成功创建会话: {} (DB ID: {})", sessionUuid, savedSession.getId());
         return sessionUuid;
@@ -55,55 +91,46 @@ public class ChatMemoryServiceImpl implements ChatMemoryService {
     public ChatMessage saveMessage(String sessionId, String role, String content) {
         log.debug("保存消息到会话 {}: {} - {}", sessionId, role, content);
 
-        // 查找会话
-        Optional<ChatSession> sessionOpt = chatSessionRepository.findBySessionId(sessionId);
-        if (!sessionOpt.isPresent()) {
-            throw new RuntimeException("会话不存在: " + sessionId);
-        }
-
-        Long sessionDbId = sessionOpt.get().getId();
-
-        ChatMessage message = new ChatMessage();
-        message.setSessionId(sessionDbId); // 使用数据库ID而不是UUID
-        message.setRole(role);
-        message.setContent(content);
-        message.setMessageType("text");
-
-        ChatMessage savedMessage = chatMessageRepository.save(message);
+        SessionRef ref = requireWritableSession(sessionId);
+        return chatMessageRepository.save(newMessage(ref, role, content));
+    }
 
-        // 更新会话的最后更新时间
-        updateSessionTimestamp(sessionId);
+    @Override
+    @Transactional
+    public List<ChatMessage> saveExchange(String sessionId, String userContent, String assistantContent) {
+        log.debug("保存会话 {} 的一轮对话", sessionId);
 
-        return savedMessage;
+        SessionRef ref = requireWritableSession(sessionId);
+        return chatMessageRepository.saveAll(Arrays.asList(
+                newMessage(ref, "user", userContent),
+                newMessage(ref, "assistant", assistantContent)));
     }
 
     @Override
     public List<ChatMessage> getSessionHistory(String sessionId) {
         log.debug("获取会话 {} 的完整历史", sessionId);
 
-        // 查找会话
-        Optional<ChatSession> sessionOpt = chatSessionRepository.findBySessionId(sessionId);
-        if (!sessionOpt.isPresent()) {
+        SessionRef ref = resolveSession(sessionId);
+        if (ref == null) {
             return new ArrayList<>();
         }
 
-        Long sessionDbId = sessionOpt.get().getId();
-        return chatMessageRepository.findBySessionIdOrderByTimestamp(sessionDbId);
+        restoreIfArchived(ref.id);
+        return chatMessageRepository.findBySessionIdOrderByTimestamp(ref.id);
     }
 
     @Override
     public List<ChatMessage> getRecentMessages(String sessionId, int limit) {
         log.debug("获取会话 {} 的最近 {} 条消息", sessionId, limit);
 
-        // 查找会话
-        Optional<ChatSession> sessionOpt = chatSessionRepository.findBySessionId(sessionId);
-        if (!sessionOpt.isPresent()) {
+        SessionRef ref = resolveSession(sessionId);
+        if (ref == null) {
             return new ArrayList<>();
         }
 
-        Long sessionDbId = sessionOpt.get().getId();
+        restoreIfArchived(ref.id);
         List<ChatMessage> recentMessages = chatMessageRepository
-                .findRecentMessagesBySessionId(sessionDbId, PageRequest.of(0, limit));
+                .findRecentMessagesBySessionId(ref.id, PageRequest.of(0, limit));
 
         // 因为查询是按降序排列的，需要反转列表以保持时间顺序
         Collections.reverse(recentMessages);
@@ -124,6 +151,7 @@ public class ChatMemoryServiceImpl implements ChatMemoryService {
         Optional<ChatSession> latestSession = chatSessionRepository.findLatestSessionByUserId(userId);
 
         if (latestSession.isPresent()) {
+            remember(latestSession.get());
             return latestSession.get().getSessionId();
         } else {
             return createSession(userId, "默认对话");
@@ -142,6 +170,96 @@ public class ChatMemoryServiceImpl implements ChatMemoryService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<Map<String, String>> buildConversationContext(String sessionId) {
+        // 摘要随对话更新，需要读取最新的会话行
+        Optional<ChatSession> sessionOpt = chatSessionRepository.findBySessionId(sessionId);
+        if (!sessionOpt.isPresent()) {
+            return new ArrayList<>();
+        }
+        ChatSession session = sessionOpt.get();
+        remember(session);
+        restoreIfArchived(session);
+
+        List<ChatMessage> newestFirst = chatMessageRepository
+                .findRecentMessagesBySessionId(session.getId(), PageRequest.of(0, maxContextMessages));
+        List<ChatMessage> window = new ArrayList<>(newestFirst.subList(0, fitWithinBudget(newestFirst, session)));
+        Collections.reverse(window);
+
+        List<Map<String, String>> context = new ArrayList<>(window.size() + 1);
+        if (session.getSummary() != null && !session.getSummary().trim().isEmpty()) {
+            Map<String, String> summaryMessage = new HashMap<>();
+            summaryMessage.put("role", "system");
+            summaryMessage.put("content", "以下是此前对话的摘要：\n" + session.getSummary());
+            context.add(summaryMessage);
+        }
+        context.addAll(convertToApiFormat(window));
+        log.debug("会话 {} 上下文: {} 条消息, 摘要: {}", sessionId, window.size(), context.size() > window.size());
+        return context;
+    }
+
+    @Override
+    public List<ChatMessage> getMessagesToSummarize(String sessionId) {
+        Optional<ChatSession> sessionOpt = chatSessionRepository.findBySessionId(sessionId);
+        if (!sessionOpt.isPresent()) {
+            return new ArrayList<>();
+        }
+        ChatSession session = sessionOpt.get();
+        restoreIfArchived(session);
+
+        List<ChatMessage> newestFirst = chatMessageRepository
+                .findRecentMessagesBySessionId(session.getId(), PageRequest.of(0, maxContextMessages));
+        List<ChatMessage> overflow = new ArrayList<>();
+        for (int i = fitWithinBudget(newestFirst, session); i < newestFirst.size(); i++) {
+            ChatMessage message = newestFirst.get(i);
+            if (isSummarized(message, session)) {
+                break;
+            }
+            overflow.add(message);
+        }
+        Collections.reverse(overflow);
+        return overflow;
+    }
+
+    @Override
+    public String getSessionSummary(String sessionId) {
+        return chatSessionRepository.findBySessionId(sessionId)
+                .map(ChatSession::getSummary)
+                .orElse(null);
+    }
+
+    @Override
+    @Transactional
+    public void updateSessionSummary(String sessionId, String summary, Long summarizedMessageId) {
+        int updated = chatSessionRepository.updateSummary(sessionId, summary, summarizedMessageId);
+        log.debug("更新会话 {} 的摘要，覆盖到消息 {}: {}", sessionId, summarizedMessageId,
+                updated > 0 ? "成功" : "已有更新的摘要");
+    }
+
+    /**
+     * 从最新的消息开始依次放入token预算，返回能放下的消息条数；已折叠进摘要的消息不再放入
+     */
+    private int fitWithinBudget(List<ChatMessage> newestFirst, ChatSession session) {
+        int used = 0;
+        int count = 0;
+        for (ChatMessage message : newestFirst) {
+            if (isSummarized(message, session)) {
+                break;
+            }
+            used += TokenEstimator.estimateMessage(message.getContent());
+            if (used > historyTokens) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private static boolean isSummarized(ChatMessage message, ChatSession session) {
+        return session.getSummarizedMessageId() != null && message.getId() != null
+                && message.getId() <= session.getSummarizedMessageId();
+    }
+
     @Override
     @Transactional
     public void clearSession(String sessionId) {
@@ -161,6 +279,7 @@ public class ChatMemoryServiceImpl implements ChatMemoryService {
 
         // 删除会话
         chatSessionRepository.delete(sessionOpt.get());
+        forget(sessionId);
 
         log.info("会话 {} 已清理完成", sessionId);
     }
@@ -185,15 +304,101 @@ public class ChatMemoryServiceImpl implements ChatMemoryService {
         return chatSessionRepository.existsActiveSession(sessionId);
     }
 
+    @Override
+    public boolean isSessionOwnedBy(String sessionId, Long userId) {
+        SessionRef ref = resolveSession(sessionId);
+        return ref != null && ref.userId.equals(userId);
+    }
+
     /**
-     * 更新会话的时间戳
+     * 解析会话UUID，优先使用缓存
+     *
+     * @return 会话不存在时返回null
      */
-    private void updateSessionTimestamp(String sessionId) {
+    private SessionRef resolveSession(String sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+        synchronized (sessionRefs) {
+            SessionRef ref = sessionRefs.get(sessionId);
+            if (ref != null) {
+                return ref;
+            }
+        }
         Optional<ChatSession> sessionOpt = chatSessionRepository.findBySessionId(sessionId);
-        if (sessionOpt.isPresent()) {
-            ChatSession session = sessionOpt.get();
-            // 由于使用了@PreUpdate，只需要保存即可触发时间戳更新
-            chatSessionRepository.save(session);
+        if (!sessionOpt.isPresent()) {
+            return null;
+        }
+        return remember(sessionOpt.get());
+    }
+
+    /**
+     * 按刚读取的会话行判断是否已归档，已归档时先恢复
+     */
+    private void restoreIfArchived(ChatSession session) {
+        if (session.getArchivedAt() != null) {
+            chatArchiveService.restoreSession(session.getId());
+        }
+    }
+
+    /**
+     * 从会话行读取归档标记，已归档时先恢复
+     * 并发恢复时本次恢复为0条，但消息已由另一个请求写回，之后照常查询消息表
+     */
+    private void restoreIfArchived(Long sessionDbId) {
+        if (chatSessionRepository.isArchived(sessionDbId)) {
+            chatArchiveService.restoreSession(sessionDbId);
+        }
+    }
+
+    /**
+     * 解析要写入消息的会话：先更新会话的最后更新时间，再检查归档标记
+     * 更新会话行会等待进行中的归档提交，之后归档任务也不会再选中这个会话；
+     * 没有更新到会话行说明会话已被删除（可能由其他实例删除），丢弃缓存的映射
+     */
+    private SessionRef requireWritableSession(String sessionId) {
+        SessionRef ref = resolveSession(sessionId);
+        if (ref == null || chatSessionRepository.touch(ref.id, LocalDateTime.now()) == 0) {
+            forget(sessionId);
+            throw new RuntimeException("会话不存在: " + sessionId);
+        }
+        restoreIfArchived(ref.id);
+        return ref;
+    }
+
+    private SessionRef remember(ChatSession session) {
+        SessionRef ref = new SessionRef(session.getId(), session.getUserId());
+        synchronized (sessionRefs) {
+            sessionRefs.put(session.getSessionId(), ref);
+        }
+        return ref;
+    }
+
+    private void forget(String sessionId) {
+        synchronized (sessionRefs) {
+            sessionRefs.remove(sessionId);
+        }
+    }
+
+    private static ChatMessage newMessage(SessionRef ref, String role, String content) {
+        ChatMessage message = new ChatMessage();
+        message.setSessionId(ref.id); // 使用数据库ID而不是UUID
+        message.setRole(role);
+        message.setContent(content);
+        message.setMessageType("text");
+        return message;
+    }
+
+    /**
+     * 会话的数据库ID和所属用户
+     */
+    private static final class SessionRef {
+        private final Long id;
+        private final Long userId;
+
+        SessionRef(Long id, Long userId) {
+            this.id = id;
+            this.userId = userId;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+package com.vote.sihuibackend.service.impl;
+
+import com.vote.sihuibackend.entity.ChatMessage;
+import com.vote.sihuibackend.llm.LlmCallContext;
+import com.vote.sihuibackend.service.ChatMemoryService;
+import com.vote.sihuibackend.service.ConversationSummaryService;
+import com.vote.sihuibackend.service.DeepSeekService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 会话滚动摘要服务实现类
+ * 把旧摘要和新超出预算的消息一起交给AI压缩成新摘要；AI调用失败时保留旧摘要，下一轮对话后重试
+ *
+ * @author Sihui Team
+ */
+@Service
+@Slf4j
+public class ConversationSummaryServiceImpl implements ConversationSummaryService {
+
+    private final ChatMemoryService chatMemoryService;
+    // DeepSeekServiceImpl在对话后调用本服务，延迟获取避免循环依赖
+    private final ObjectProvider<DeepSeekService> deepSeekServiceProvider;
+
+    // 正在更新摘要的会话
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 是否启用滚动摘要
+     */
+    @Value("${app.ai.context.summary-enabled:true}")
+    private boolean summaryEnabled = true;
+
+    /**
+     * 摘要的最大字数
+     */
+    @Value("${app.ai.context.summary-max-chars:500}")
+    private int summaryMaxChars = 500;
+
+    /**
+     * 单条消息放入摘要提示词的最大字数
+     */
+    @Value("${app.ai.context.summary-message-max-chars:1500}")
+    private int messageMaxChars = 1500;
+
+    @Autowired
+    public ConversationSummaryServiceImpl(ChatMemoryService chatMemoryService,
+            ObjectProvider<DeepSeekService> deepSeekServiceProvider) {
+        this.chatMemoryService = chatMemoryService;
+        this.deepSeekServiceProvider = deepSeekServiceProvider;
+    }
+
+    @Override
+    @Async("chatSummaryExecutor")
+    public void refreshSummaryAsync(String sessionId, String callerKey) {
+        // 摘要线程没有请求的调用方信息，不设置时所有摘要共用系统调用方的名额
+        try (LlmCallContext.Scope ignored = LlmCallContext.open(
+                LlmCallContext.interactive(callerKey, sessionId).asBackground())) {
+            refreshSummary(sessionId);
+        } catch (RuntimeException e) {
+            log.warn("更新会话 {} 的摘要失败: {}", sessionId, e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean refreshSummary(String sessionId) {
+        if (!summaryEnabled || !refreshing.add(sessionId)) {
+            return false;
+        }
+        try {
+            List<ChatMessage> overflow = chatMemoryService.getMessagesToSummarize(sessionId);
+            if (overflow.isEmpty()) {
+                return false;
+            }
+            DeepSeekService deepSeekService = deepSeekServiceProvider.getIfAvailable();
+            if (deepSeekService == null) {
+                return false;
+            }
+            String previousSummary = chatMemoryService.getSessionSummary(sessionId);
+            String summary = deepSeekService.chat(buildPrompt(previousSummary, overflow));
+            if (summary == null || summary.trim().isEmpty()) {
+                return false;
+            }
+            summary = summary.trim();
+            if (summary.length() > summaryMaxChars) {
+                summary = summary.substring(0, summaryMaxChars);
+            }
+
+            Long summarizedMessageId = overflow.get(overflow.size() - 1).getId();
+            chatMemoryService.updateSessionSummary(sessionId, summary, summarizedMessageId);
+            log.info("会话 {} 摘要已更新，折叠 {} 条消息，摘要长度: {}", sessionId, overflow.size(), summary.length());
+            return true;
+        } catch (Exception e) {
+            log.warn("生成会话 {} 的摘要失败，保留旧摘要: {}", sessionId, e.getMessage());
+            return false;
+        } finally {
+            refreshing.remove(sessionId);
+        }
+    }
+
+    /**
+     * 构建摘要提示词
+     */
+    private String buildPrompt(String previousSummary, List<ChatMessage> messages) {
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("请把已有摘要和新的对话内容合并成一段新的对话摘要。")
+                .append("保留用户的身份、需求、已确认的事实和结论、尚未解决的问题，省略寒暄和重复内容。")
+                .append("只输出摘要本身，不超过").append(summaryMaxChars).append("字。\n\n");
+        prompt.append("已有摘要：\n")
+                .append(previousSummary != null && !previousSummary.trim().isEmpty() ? previousSummary : "（无）")
+                .append("\n\n新的对话内容：\n");
+        for (ChatMessage message : messages) {
+            String content = message.getContent() != null ? message.getContent() : "";
+            if (content.length() > messageMaxChars) {
+                content = content.substring(0, messageMaxChars) + "……";
+            }
+            prompt.append("user".equals(message.getRole()) ? "用户" : "助手").append("：")
+                    .append(content).append("\n");
+        }
+        return prompt.toString();
+    }
+}
@@ -3,15 +3,18 @@ package com.vote.sihuibackend.service.impl;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vote.sihuibackend.config.DeepSeekConfig;
-import com.vote.sihuibackend.entity.ChatMessage;
+import com.vote.sihuibackend.llm.ChatCompletionResult;
+import com.vote.sihuibackend.llm.ChatCompletionStreamParser;
+import com.vote.sihuibackend.llm.LlmCallContext;
+import com.vote.sihuibackend.llm.LlmGateway;
+import com.vote.sihuibackend.llm.LlmHttpClient;
+import com.vote.sihuibackend.llm.LlmResponseCache;
 import com.vote.sihuibackend.service.ChatMemoryService;
+import com.vote.sihuibackend.service.ConversationSummaryService;
 import com.vote.sihuibackend.service.DeepSeekService;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.util.EntityUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -21,6 +24,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * DeepSeek服务实现类
@@ -30,19 +34,30 @@ import java.util.Map;
 @Slf4j
 public class DeepSeekServiceImpl implements DeepSeekService {
 
-    private final CloseableHttpClient httpClient;
+    private final LlmHttpClient httpClient;
+    private final LlmGateway llmGateway;
     private final DeepSeekConfig deepSeekConfig;
     private final ChatMemoryService chatMemoryService;
+    private final LlmResponseCache responseCache;
+    private final ConversationSummaryService conversationSummaryService;
     private final ObjectMapper objectMapper;
+    private final ChatCompletionStreamParser streamParser;
 
     @Autowired
-    public DeepSeekServiceImpl(CloseableHttpClient httpClient,
+    public DeepSeekServiceImpl(LlmHttpClient httpClient,
+            LlmGateway llmGateway,
             DeepSeekConfig deepSeekConfig,
-            ChatMemoryService chatMemoryService) {
+            ChatMemoryService chatMemoryService,
+            LlmResponseCache responseCache,
+            ConversationSummaryService conversationSummaryService) {
         this.httpClient = httpClient;
+        this.llmGateway = llmGateway;
         this.deepSeekConfig = deepSeekConfig;
         this.chatMemoryService = chatMemoryService;
+        this.responseCache = responseCache;
+        this.conversationSummaryService = conversationSummaryService;
         this.objectMapper = new ObjectMapper();
+        this.streamParser = new ChatCompletionStreamParser(objectMapper.getFactory());
     }
 
     @Override
@@ -52,32 +67,90 @@ public class DeepSeekServiceImpl implements DeepSeekService {
 
     @Override
     public String chat(String message, List<Map<String, String>> conversationHistory) throws IOException {
-        log.info("发送消息到DeepSeek API: {}", message);
+        return complete(message, conversationHistory).getContent();
+    }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public ChatCompletionResult complete(String message, List<Map<String, String>> conversationHistory)
+            throws IOException {
         // 构建请求体
         Map<String, Object> requestBody = buildRequestBody(message, conversationHistory);
-        String jsonRequest = objectMapper.writeValueAsString(requestBody);
+        String cacheKey = responseCache.keyOf(deepSeekConfig.getModel(), requestBody.get("temperature"),
+                requestBody.get("max_tokens"), (List<Map<String, String>>) requestBody.get("messages"));
 
-        // 创建HTTP请求
-        HttpPost httpPost = new HttpPost(deepSeekConfig.getApiUrl());
-        httpPost.setHeader("Content-Type", "application/json");
-        httpPost.setHeader("Authorization", "Bearer " + deepSeekConfig.getApiKey());
-        httpPost.setEntity(new StringEntity(jsonRequest, StandardCharsets.UTF_8));
+        ChatCompletionResult result = responseCache.getOrLoad(cacheKey, () -> execute(message, requestBody));
+        if (result.isCached()) {
+            log.info("DeepSeek回复命中缓存: {}", message);
+        }
+        return result;
+    }
 
-        try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
-            int statusCode = response.getStatusLine().getStatusCode();
-            String responseBody = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+    /**
+     * 调用DeepSeek API
+     */
+    private String execute(String message, Map<String, Object> requestBody) throws IOException {
+        log.info("发送消息到DeepSeek API: {}", message);
+
+        // 网关按调用方限流排队；重试、超时和熔断由HTTP客户端处理，每次尝试重新创建请求
+        String responseBody = llmGateway.execute(() -> httpClient.execute(() -> createRequest(requestBody)));
+        return parseResponse(responseBody);
+    }
+
+    @Override
+    public String streamChat(String message, List<Map<String, String>> conversationHistory,
+            Consumer<String> onToken) throws IOException {
+        log.info("发送流式消息到DeepSeek API: {}", message);
 
-            if (statusCode == 200) {
-                return parseResponse(responseBody);
-            } else {
-                log.error("DeepSeek API调用失败，状态码: {}, 响应: {}", statusCode, responseBody);
-                throw new IOException("DeepSeek API调用失败: " + statusCode + " - " + responseBody);
+        Map<String, Object> requestBody = buildRequestBody(message, conversationHistory);
+        requestBody.put("stream", true);
+
+        long startTime = System.currentTimeMillis();
+        boolean[] first = { true };
+        // 网关名额在整个流式回复期间占用；回调抛出运行时异常（如客户端已断开）时，HTTP客户端直接断开上游连接
+        String content = llmGateway.execute(() -> httpClient.executeStream(() -> {
+            HttpPost httpPost = createRequest(requestBody);
+            httpPost.setHeader("Accept", "text/event-stream");
+            return httpPost;
+        }, body -> streamParser.parse(body, token -> {
+            if (first[0]) {
+                first[0] = false;
+                log.debug("DeepSeek首个分片耗时: {}ms", System.currentTimeMillis() - startTime);
             }
-        } catch (Exception e) {
-            log.error("DeepSeek API调用异常", e);
-            throw new IOException("DeepSeek API调用异常: " + e.getMessage(), e);
+            onToken.accept(token);
+        })));
+        log.info("DeepSeek流式回复完成，长度: {}, 耗时: {}ms", content.length(),
+                System.currentTimeMillis() - startTime);
+        return content;
+    }
+
+    @Override
+    public String streamChatWithMemory(String sessionId, String message, Consumer<String> onToken)
+            throws IOException {
+        List<Map<String, String>> conversationHistory = chatMemoryService.buildConversationContext(sessionId);
+
+        String aiResponse;
+        try {
+            aiResponse = streamChat(message, conversationHistory, onToken);
+        } catch (IOException | RuntimeException e) {
+            // 回复未完成，只保留用户消息
+            chatMemoryService.saveMessage(sessionId, "user", message);
+            throw e;
         }
+        chatMemoryService.saveExchange(sessionId, message, aiResponse);
+        conversationSummaryService.refreshSummaryAsync(sessionId, LlmCallContext.current().getCallerKey());
+        return aiResponse;
+    }
+
+    /**
+     * 创建API请求
+     */
+    private HttpPost createRequest(Map<String, Object> requestBody) throws IOException {
+        HttpPost httpPost = new HttpPost(deepSeekConfig.getApiUrl());
+        httpPost.setHeader("Content-Type", "application/json");
+        httpPost.setHeader("Authorization", "Bearer " + deepSeekConfig.getApiKey());
+        httpPost.setEntity(new StringEntity(objectMapper.writeValueAsString(requestBody), StandardCharsets.UTF_8));
+        return httpPost;
     }
 
     /**
@@ -150,27 +223,29 @@ public class DeepSeekServiceImpl implements DeepSeekService {
         String actualSessionId = sessionId;
         if (actualSessionId == null || actualSessionId.trim().isEmpty()) {
             actualSessionId = chatMemoryService.getOrCreateDefaultSession(userId);
+        } else if (!chatMemoryService.isSessionOwnedBy(actualSessionId, userId)) {
+            throw new IllegalArgumentException("会话不存在或不属于当前用户");
         }
 
-        // 获取会话历史（最近10条消息）
-        List<ChatMessage> recentMessages = chatMemoryService.getRecentMessages(actualSessionId, 10);
-        List<Map<String, String>> conversationHistory = chatMemoryService.convertToApiFormat(recentMessages);
-
-        // 保存用户消息
-        chatMemoryService.saveMessage(actualSessionId, "user", message);
+        // 获取会话历史（token预算内的最近消息和早期对话摘要）
+        List<Map<String, String>> conversationHistory = chatMemoryService.buildConversationContext(actualSessionId);
 
         try {
             // 调用AI API
             String aiResponse = chat(message, conversationHistory);
 
-            // 保存AI回复
-            chatMemoryService.saveMessage(actualSessionId, "assistant", aiResponse);
+            // 用户消息和AI回复一起保存
+            chatMemoryService.saveExchange(actualSessionId, message, aiResponse);
+            conversationSummaryService.refreshSummaryAsync(actualSessionId,
+                    LlmCallContext.current().getCallerKey());
 
             log.info("用户 {} 会话 {} AI回复: {}", userId, actualSessionId, aiResponse);
             return aiResponse;
 
         } catch (IOException e) {
             log.error("AI API调用失败，用户: {}, 会话: {}", userId, actualSessionId, e);
+            // 保留用户消息
+            chatMemoryService.saveMessage(actualSessionId, "user", message);
             throw e;
         }
     }
@@ -0,0 +1,159 @@
+package com.vote.sihuibackend.service.impl;
+
+import com.vote.sihuibackend.dto.DocumentCounterDelta;
+import com.vote.sihuibackend.repository.DocumentRepository;
+import com.vote.sihuibackend.service.DocumentCounterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 文档计数服务实现
+ * 每个文档一组 {@link LongAdder}，请求线程只做一次无锁累加；定时任务读出增量后从累加器中减去，
+ * 刷新期间到达的新计数保留到下一轮，不会丢失。增量以批量
+ * {@code UPDATE ... SET view_count = view_count + ?} 写入，写入失败时加回累加器重试。
+ * 累加器按文档保留（数量以文档总数为上限），避免移除时与并发累加竞争。
+ * 写入后清除这些文档在 documents 缓存中的条目，否则缓存中的旧计数加上已减少的待写入计数会使显示的计数回退。
+ *
+ * @author Sihui Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentCounterServiceImpl implements DocumentCounterService {
+
+    private static final String DOCUMENTS_CACHE = "documents";
+
+    private final DocumentRepository documentRepository;
+    private final ObjectProvider<CacheManager> cacheManagerProvider;
+
+    private final Map<Long, Counters> counters = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @Override
+    public void recordView(Long documentId) {
+        countersFor(documentId).views.increment();
+    }
+
+    @Override
+    public void recordDownload(Long documentId) {
+        countersFor(documentId).downloads.increment();
+    }
+
+    @Override
+    public long getPendingViews(Long documentId) {
+        Counters pending = counters.get(documentId);
+        return pending != null ? pending.views.sum() : 0;
+    }
+
+    @Override
+    public long getPendingDownloads(Long documentId) {
+        Counters pending = counters.get(documentId);
+        return pending != null ? pending.downloads.sum() : 0;
+    }
+
+    /**
+     * 定时刷新计数
+     */
+    @Scheduled(fixedDelayString = "${app.document.counter.flush-interval-ms:5000}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("文档计数刷新失败，将在下次刷新时重试", e);
+        }
+    }
+
+    @Override
+    public int flush() {
+        flushLock.lock();
+        try {
+            List<DocumentCounterDelta> deltas = new ArrayList<>();
+            for (Map.Entry<Long, Counters> entry : counters.entrySet()) {
+                long views = entry.getValue().views.sum();
+                long downloads = entry.getValue().downloads.sum();
+                if (views == 0 && downloads == 0) {
+                    continue;
+                }
+                // 减去读出的值而不是清零，读出之后的累加留在累加器中
+                entry.getValue().views.add(-views);
+                entry.getValue().downloads.add(-downloads);
+                deltas.add(new DocumentCounterDelta(entry.getKey(), views, downloads));
+            }
+            if (deltas.isEmpty()) {
+                return 0;
+            }
+
+            try {
+                documentRepository.incrementCounters(deltas);
+            } catch (RuntimeException e) {
+                for (DocumentCounterDelta delta : deltas) {
+                    Counters pending = countersFor(delta.getDocumentId());
+                    pending.views.add(delta.getViews());
+                    pending.downloads.add(delta.getDownloads());
+                }
+                throw e;
+            }
+            evictCachedDocuments(deltas);
+            log.debug("已写入 {} 个文档的查看、下载计数", deltas.size());
+            return deltas.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 关闭前写入剩余计数
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("关闭时写入文档计数失败", e);
+        }
+    }
+
+    /**
+     * 清除已写入计数的文档缓存，键与 DocumentRepository.findById 的缓存键一致
+     */
+    private void evictCachedDocuments(List<DocumentCounterDelta> deltas) {
+        CacheManager cacheManager = cacheManagerProvider.getIfAvailable();
+        Cache cache = cacheManager != null ? cacheManager.getCache(DOCUMENTS_CACHE) : null;
+        if (cache == null) {
+            return;
+        }
+        for (DocumentCounterDelta delta : deltas) {
+            try {
+                cache.evict("id:" + delta.getDocumentId());
+            } catch (RuntimeException e) {
+                log.warn("清除文档 {} 的缓存失败: {}", delta.getDocumentId(), e.getMessage());
+            }
+        }
+    }
+
+    private Counters countersFor(Long documentId) {
+        Counters existing = counters.get(documentId);
+        return existing != null ? existing : counters.computeIfAbsent(documentId, id -> new Counters());
+    }
+
+    /**
+     * 单个文档的计数累加器
+     */
+    private static final class Counters {
+        private final LongAdder views = new LongAdder();
+        private final LongAdder downloads = new LongAdder();
+    }
+}
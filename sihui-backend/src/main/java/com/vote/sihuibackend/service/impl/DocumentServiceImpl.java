@@ -1,24 +1,47 @@
 package com.vote.sihuibackend.service.impl;
 
+import com.vote.sihuibackend.dto.DocumentBatchItemResult;
 import com.vote.sihuibackend.entity.Document;
+import com.vote.sihuibackend.entity.DocumentContent;
+import com.vote.sihuibackend.entity.ProcessingJob;
+import com.vote.sihuibackend.ingest.DocumentIngestionPipeline;
+import com.vote.sihuibackend.ingest.IngestionResult;
+import com.vote.sihuibackend.ingest.StreamingTextAnalyzer;
+import com.vote.sihuibackend.job.StorageObjectCleanupJobHandler;
+import com.vote.sihuibackend.repository.DocumentContentRepository;
 import com.vote.sihuibackend.repository.DocumentRepository;
+import com.vote.sihuibackend.service.DocumentCounterService;
 import com.vote.sihuibackend.service.DocumentService;
 import com.vote.sihuibackend.service.OssService;
-import lombok.RequiredArgsConstructor;
+import com.vote.sihuibackend.service.ProcessingJobService;
+import com.vote.sihuibackend.service.TextSearchService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -28,16 +51,40 @@ import java.util.stream.Collectors;
  * @author Sihui Team
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 @Transactional
 public class DocumentServiceImpl implements DocumentService {
 
     private final DocumentRepository documentRepository;
+    private final DocumentContentRepository documentContentRepository;
     private final OssService ossService;
+    private final DocumentIngestionPipeline ingestionPipeline;
+    private final TextSearchService textSearchService;
+    private final DocumentCounterService documentCounterService;
+    private final Executor documentProcessingExecutor;
+    private final ProcessingJobService processingJobService;
+
+    /**
+     * 批量上传时同时解析上传的文件数
+     */
+    @Value("${app.document.batch.concurrency:4}")
+    private int batchConcurrency = 4;
+
+    /**
+     * 批量上传时每次批量插入的文档数
+     */
+    @Value("${app.document.batch.insert-size:50}")
+    private int batchInsertSize = 50;
+
+    /**
+     * 永久删除文档后延迟多久清理不再被引用的存储对象（毫秒），应远大于一次上传所需的时间
+     */
+    @Value("${app.storage.object-cleanup-delay-ms:3600000}")
+    private long objectCleanupDelayMs = 3600000;
 
     // 支持的文档格式
-    private static final Set<String> SUPPORTED_FORMATS = new HashSet<>(Arrays.asList("txt", "md", "markdown"));
+    private static final Set<String> SUPPORTED_FORMATS = new HashSet<>(Arrays.asList("txt", "md", "markdown",
+            "pdf", "docx", "pptx"));
 
     // 常见停用词
     private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
@@ -46,6 +93,22 @@ public class DocumentServiceImpl implements DocumentService {
             "老", "从", "时", "用", "地", "们", "出", "什么", "进", "如果", "开始", "那", "现在", "因为", "所以", "但是", "或者", "已经", "还是",
             "只是", "这样", "那样", "这里", "那里", "怎么", "为什么", "什么时候", "哪里", "哪个", "怎样"));
 
+    public DocumentServiceImpl(DocumentRepository documentRepository,
+            DocumentContentRepository documentContentRepository, OssService ossService,
+            DocumentIngestionPipeline ingestionPipeline, TextSearchService textSearchService,
+            DocumentCounterService documentCounterService,
+            @Qualifier("documentProcessingExecutor") Executor documentProcessingExecutor,
+            ProcessingJobService processingJobService) {
+        this.documentRepository = documentRepository;
+        this.documentContentRepository = documentContentRepository;
+        this.ossService = ossService;
+        this.ingestionPipeline = ingestionPipeline;
+        this.textSearchService = textSearchService;
+        this.documentCounterService = documentCounterService;
+        this.documentProcessingExecutor = documentProcessingExecutor;
+        this.processingJobService = processingJobService;
+    }
+
     @Override
     public Document uploadDocument(MultipartFile file, String title, String category,
             String keywords, Boolean isPublic, Long uploaderId) {
@@ -61,75 +124,460 @@ public class DocumentServiceImpl implements DocumentService {
                 throw new IllegalArgumentException("文档已存在：" + file.getOriginalFilename());
             }
 
-            // 解析文档内容
-            String content = parseDocumentContent(file);
-            if (!StringUtils.hasText(content)) {
-                throw new IllegalArgumentException("文档内容为空");
+            // 内容已存在时复用已有的OSS对象、正文和索引，不再上传和分词
+            String contentHash = ingestionPipeline.contentHash(file);
+            Optional<Document> duplicate = documentRepository.findFirstByContentHashOrderByIdAsc(contentHash);
+            if (duplicate.isPresent()) {
+                return saveDuplicateDocument(file, duplicate.get(), fileExtension, title, category, keywords,
+                        isPublic, uploaderId);
             }
 
-            // 上传文件到OSS
-            String fileUrl = ossService.uploadFile(file, "knowledge/documents");
-
-            // 生成标题（如果未提供）
-            if (!StringUtils.hasText(title)) {
-                title = generateTitleFromFilename(file.getOriginalFilename());
+            // 单次读取文件：内容摘要、OSS上传、正文解析和关键词统计在同一次流式扫描中完成
+            IngestionResult ingestion = ingestionPipeline.ingest(file, "knowledge/documents", STOP_WORDS);
+            try {
+                return saveIngestedDocument(file, ingestion, fileExtension, title, category, keywords, isPublic,
+                        uploaderId);
+            } catch (RuntimeException e) {
+                // 文档未能保存时清理已上传的对象
+                ingestionPipeline.discard(ingestion);
+                throw e;
             }
 
-            // 生成摘要
-            String summary = generateSummary(content);
+        } catch (Exception e) {
+            log.error("文档上传失败：{}", file.getOriginalFilename(), e);
+            throw new RuntimeException("文档上传失败：" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 根据摄取结果创建并保存文档
+     */
+    private Document saveIngestedDocument(MultipartFile file, IngestionResult ingestion, String fileExtension,
+            String title, String category, String keywords, Boolean isPublic, Long uploaderId) {
+        Document savedDocument = saveDocument(buildIngestedDocument(file, ingestion, fileExtension,
+                title, category, keywords, isPublic, uploaderId));
+        log.info("文档上传成功：{}，SHA-256：{}", savedDocument.getTitle(), ingestion.getContentHash());
+
+        return savedDocument;
+    }
 
-            // 提取关键词（如果未提供）
-            if (!StringUtils.hasText(keywords)) {
-                List<String> extractedKeywords = extractKeywords(content);
-                keywords = String.join(",", extractedKeywords);
-            }
+    /**
+     * 保存新文档及其正文，正文写入document_contents表
+     */
+    private Document saveDocument(Document document) {
+        String content = document.getContent();
+        Document savedDocument = documentRepository.save(document);
+        documentContentRepository.save(DocumentContent.of(savedDocument.getId(), content));
+        savedDocument.setContent(content);
+        return savedDocument;
+    }
+
+    /**
+     * 根据摄取结果创建文档实体（未保存）
+     */
+    private Document buildIngestedDocument(MultipartFile file, IngestionResult ingestion, String fileExtension,
+            String title, String category, String keywords, Boolean isPublic, Long uploaderId) {
+        String content = ingestion.getContent();
+        if (!StringUtils.hasText(content)) {
+            throw new IllegalArgumentException("文档内容为空");
+        }
+        String fileUrl = ingestion.getFileUrl();
 
-            // 创建文档实体
-            Document document = Document.builder()
-                    .title(title)
-                    .originalFilename(file.getOriginalFilename())
-                    .fileType(fileExtension)
-                    .content(content)
-                    .summary(summary)
-                    .category(StringUtils.hasText(category) ? category : "四会文档")
-                    .keywords(keywords)
-                    .fileSize(file.getSize())
-                    .fileUrl(fileUrl)
-                    .status("ACTIVE")
-                    .isPublic(isPublic != null ? isPublic : false)
-                    .uploaderId(uploaderId)
-                    .language("zh-CN")
-                    .build();
-
-            // 保存到数据库
-            Document savedDocument = documentRepository.save(document);
-            log.info("文档上传成功：{}", savedDocument.getTitle());
-
-            return savedDocument;
+        // 生成标题（如果未提供）
+        if (!StringUtils.hasText(title)) {
+            title = generateTitleFromFilename(file.getOriginalFilename());
+        }
+
+        // 摘要在流式扫描中已生成
+        String summary = ingestion.getSummary();
+
+        // 提取关键词（如果未提供）
+        if (!StringUtils.hasText(keywords)) {
+            keywords = String.join(",", ingestion.getKeywords());
+        }
 
+        // 创建文档实体
+        return Document.builder()
+                .title(title)
+                .originalFilename(file.getOriginalFilename())
+                .fileType(fileExtension)
+                .content(content)
+                .summary(summary)
+                .category(StringUtils.hasText(category) ? category : "四会文档")
+                .keywords(keywords)
+                .fileSize(file.getSize())
+                .fileUrl(fileUrl)
+                .contentHash(ingestion.getContentHash())
+                .status("ACTIVE")
+                .isPublic(isPublic != null ? isPublic : false)
+                .uploaderId(uploaderId)
+                .language("zh-CN")
+                .build();
+    }
+
+    /**
+     * 基于内容相同的已有文档创建新文档，共享OSS对象并复用其解析结果和TF-IDF索引
+     */
+    private Document saveDuplicateDocument(MultipartFile file, Document source, String fileExtension,
+            String title, String category, String keywords, Boolean isPublic, Long uploaderId) {
+        Document savedDocument = saveDocument(buildDuplicateDocument(file, source, fileExtension,
+                title, category, keywords, isPublic, uploaderId));
+        try {
+            textSearchService.copyDocumentIndex(source.getId(), savedDocument.getId());
         } catch (Exception e) {
-            log.error("文档上传失败：{}", file.getOriginalFilename(), e);
-            throw new RuntimeException("文档上传失败：" + e.getMessage(), e);
+            // 索引会在首次检索时重新生成
+            log.warn("复用文档索引失败：{} -> {}", source.getId(), savedDocument.getId(), e);
+        }
+        log.info("文档内容已存在，复用文档 {} 的存储和索引：{}", source.getId(), savedDocument.getTitle());
+
+        return savedDocument;
+    }
+
+    /**
+     * 基于内容相同的文档创建文档实体（未保存），共享其OSS对象和解析结果
+     * 来源文档是已保存的文档时，其正文从正文表读取
+     */
+    private Document buildDuplicateDocument(MultipartFile file, Document source, String fileExtension,
+            String title, String category, String keywords, Boolean isPublic, Long uploaderId) {
+        if (!StringUtils.hasText(title)) {
+            title = generateTitleFromFilename(file.getOriginalFilename());
+        }
+        if (!StringUtils.hasText(keywords)) {
+            keywords = source.getKeywords();
+        }
+
+        return Document.builder()
+                .title(title)
+                .originalFilename(file.getOriginalFilename())
+                .fileType(fileExtension)
+                .content(source.getContent() != null ? source.getContent()
+                        : documentContentRepository.findContent(source.getId()).orElse(null))
+                .summary(source.getSummary())
+                .category(StringUtils.hasText(category) ? category : "四会文档")
+                .keywords(keywords)
+                .fileSize(source.getFileSize())
+                .fileUrl(source.getFileUrl())
+                .contentHash(source.getContentHash())
+                .status("ACTIVE")
+                .isPublic(isPublic != null ? isPublic : false)
+                .uploaderId(uploaderId)
+                .language(source.getLanguage())
+                .build();
+    }
+
+    @Override
+    public Document registerUploadedFile(String originalFilename, String fileUrl, Long fileSize,
+            String category, String description, Boolean isPublic, Long uploaderId) {
+        if (!StringUtils.hasText(originalFilename) || !StringUtils.hasText(fileUrl)) {
+            throw new IllegalArgumentException("文件名和文件地址不能为空");
         }
+
+        Document document = Document.builder()
+                .title(generateTitleFromFilename(originalFilename))
+                .originalFilename(originalFilename)
+                .fileType(getFileExtension(originalFilename).toLowerCase())
+                .summary(description)
+                .category(category)
+                .fileSize(fileSize)
+                .fileUrl(fileUrl)
+                .status("ACTIVE")
+                .isPublic(isPublic != null ? isPublic : false)
+                .uploaderId(uploaderId)
+                .language("zh-CN")
+                .build();
+        // 没有正文，不写正文表
+        Document savedDocument = documentRepository.save(document);
+        log.info("登记上传文件：{} -> {}", originalFilename, fileUrl);
+        return savedDocument;
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<Document> uploadDocuments(MultipartFile[] files, String category,
             Boolean isPublic, Long uploaderId) {
-        List<Document> uploadedDocuments = new ArrayList<>();
+        BatchUpload batch = uploadBatch(files, category, isPublic, uploaderId, null);
+        return Arrays.stream(batch.savedDocuments).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<DocumentBatchItemResult> uploadDocuments(MultipartFile[] files, String category,
+            Boolean isPublic, Long uploaderId, Consumer<DocumentBatchItemResult> listener) {
+        return Arrays.asList(uploadBatch(files, category, isPublic, uploaderId, listener).results);
+    }
+
+    private BatchUpload uploadBatch(MultipartFile[] files, String category, Boolean isPublic, Long uploaderId,
+            Consumer<DocumentBatchItemResult> listener) {
+        long startTime = System.currentTimeMillis();
+        BatchUpload batch = new BatchUpload(files, category, isPublic, uploaderId, listener);
+
+        // 解析和上传并行执行，文档行攒满一批后统一插入
+        runBounded(files.length, batch::prepare);
+        batch.flush(true);
+        documentRepository.clearDocumentCache();
+
+        long successCount = Arrays.stream(batch.savedDocuments).filter(Objects::nonNull).count();
+        log.info("批量上传完成，成功: {}/{}, 耗时: {}ms", successCount, files.length,
+                System.currentTimeMillis() - startTime);
+        return batch;
+    }
 
-        for (MultipartFile file : files) {
+    /**
+     * 在文档处理线程池上以有限并发执行任务
+     * 调用线程同样参与处理，线程池繁忙（或本身就在该线程池中调用）时不会因等待排队任务而死锁
+     */
+    private void runBounded(int count, IntConsumer task) {
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(count);
+        Runnable worker = () -> {
+            int index;
+            while ((index = next.getAndIncrement()) < count) {
+                try {
+                    task.accept(index);
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+
+        int helpers = Math.min(Math.max(1, batchConcurrency), count) - 1;
+        for (int i = 0; i < helpers; i++) {
+            try {
+                documentProcessingExecutor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        worker.run();
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("批量上传被中断", e);
+        }
+    }
+
+    /**
+     * 一次批量上传的处理状态
+     */
+    private final class BatchUpload {
+
+        private final MultipartFile[] files;
+        private final String category;
+        private final Boolean isPublic;
+        private final Long uploaderId;
+        private final Consumer<DocumentBatchItemResult> listener;
+        private final DocumentBatchItemResult[] results;
+        private final Document[] savedDocuments;
+
+        // 同一批次中内容相同的文件只解析上传一次，其余等待并复用其结果
+        private final Map<String, CompletableFuture<Document>> ingestedByHash = new ConcurrentHashMap<>();
+        private final Queue<PreparedDocument> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final ReentrantLock flushLock = new ReentrantLock();
+
+        BatchUpload(MultipartFile[] files, String category, Boolean isPublic, Long uploaderId,
+                Consumer<DocumentBatchItemResult> listener) {
+            this.files = files;
+            this.category = category;
+            this.isPublic = isPublic;
+            this.uploaderId = uploaderId;
+            this.listener = listener;
+            this.results = new DocumentBatchItemResult[files.length];
+            this.savedDocuments = new Document[files.length];
+        }
+
+        /**
+         * 校验、解析并上传第index个文件，生成待插入的文档
+         */
+        void prepare(int index) {
+            MultipartFile file = files[index];
             try {
+                String fileExtension = getFileExtension(file.getOriginalFilename());
+                if (!SUPPORTED_FORMATS.contains(fileExtension.toLowerCase())) {
+                    throw new IllegalArgumentException("不支持的文件格式：" + fileExtension);
+                }
+                if (documentExists(file.getOriginalFilename(), uploaderId)) {
+                    throw new IllegalArgumentException("文档已存在：" + file.getOriginalFilename());
+                }
                 String title = generateTitleFromFilename(file.getOriginalFilename());
-                Document document = uploadDocument(file, title, category, null, isPublic, uploaderId);
-                uploadedDocuments.add(document);
+
+                String contentHash = ingestionPipeline.contentHash(file);
+                CompletableFuture<Document> ingested = new CompletableFuture<>();
+                CompletableFuture<Document> leader = ingestedByHash.putIfAbsent(contentHash, ingested);
+                if (leader != null) {
+                    Document source = leader.join();
+                    enqueue(new PreparedDocument(index, buildDuplicateDocument(file, source, fileExtension, title,
+                            category, null, isPublic, uploaderId), null, true));
+                    return;
+                }
+
+                try {
+                    Optional<Document> existing = documentRepository.findFirstByContentHashOrderByIdAsc(contentHash);
+                    if (existing.isPresent()) {
+                        ingested.complete(existing.get());
+                        enqueue(new PreparedDocument(index, buildDuplicateDocument(file, existing.get(),
+                                fileExtension, title, category, null, isPublic, uploaderId), null, true));
+                        return;
+                    }
+
+                    IngestionResult ingestion = ingestionPipeline.ingest(file, "knowledge/documents", STOP_WORDS);
+                    Document document;
+                    try {
+                        document = buildIngestedDocument(file, ingestion, fileExtension, title, category, null,
+                                isPublic, uploaderId);
+                    } catch (RuntimeException e) {
+                        ingestionPipeline.discard(ingestion);
+                        throw e;
+                    }
+                    ingested.complete(document);
+                    enqueue(new PreparedDocument(index, document, ingestion, false));
+                } catch (Exception e) {
+                    ingested.completeExceptionally(e);
+                    throw e;
+                }
+            } catch (Exception e) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                log.error("批量上传中文档失败：{}", file.getOriginalFilename(), cause);
+                report(DocumentBatchItemResult.builder()
+                        .index(index)
+                        .filename(file.getOriginalFilename())
+                        .success(false)
+                        .message(cause.getMessage())
+                        .build());
+            }
+        }
+
+        private void enqueue(PreparedDocument prepared) {
+            pending.add(prepared);
+            if (pendingCount.incrementAndGet() >= batchInsertSize) {
+                flush(false);
+            }
+        }
+
+        /**
+         * 插入已就绪的文档；force为false时只在凑满一批且没有其他线程正在插入时执行
+         */
+        void flush(boolean force) {
+            if (force) {
+                flushLock.lock();
+            } else if (!flushLock.tryLock()) {
+                return;
+            }
+            try {
+                int size = Math.max(1, batchInsertSize);
+                while (force ? !pending.isEmpty() : pendingCount.get() >= size) {
+                    List<PreparedDocument> chunk = new ArrayList<>(size);
+                    PreparedDocument prepared;
+                    while (chunk.size() < size && (prepared = pending.poll()) != null) {
+                        pendingCount.decrementAndGet();
+                        chunk.add(prepared);
+                    }
+                    insert(chunk);
+                }
+            } finally {
+                flushLock.unlock();
+            }
+        }
+
+        private void insert(List<PreparedDocument> chunk) {
+            List<Document> documents = chunk.stream().map(prepared -> prepared.document).collect(Collectors.toList());
+            try {
+                documentRepository.insertAll(documents);
+                chunk.forEach(this::reportSaved);
+            } catch (RuntimeException e) {
+                // 整批插入失败时逐条保存，只让出错的文档失败
+                log.warn("批量插入 {} 个文档失败，改为逐条保存", chunk.size(), e);
+                for (PreparedDocument prepared : chunk) {
+                    try {
+                        prepared.document.setId(null);
+                        saveDocument(prepared.document);
+                        reportSaved(prepared);
+                    } catch (RuntimeException saveError) {
+                        removePartialDocument(prepared.document);
+                        if (prepared.ingestion != null) {
+                            releaseIngestedObject(prepared.ingestion);
+                        }
+                        log.error("批量上传中文档保存失败：{}", prepared.document.getOriginalFilename(), saveError);
+                        report(DocumentBatchItemResult.builder()
+                                .index(prepared.index)
+                                .filename(prepared.document.getOriginalFilename())
+                                .success(false)
+                                .message(saveError.getMessage())
+                                .build());
+                    }
+                }
+            }
+        }
+
+        /**
+         * 逐条保存不在事务中，文档行已写入而正文写入失败时删除文档行
+         */
+        private void removePartialDocument(Document document) {
+            if (document.getId() == null) {
+                return;
+            }
+            try {
+                documentRepository.deleteById(document.getId());
+            } catch (RuntimeException e) {
+                log.warn("清理未写入正文的文档失败：{}", document.getId(), e);
+            }
+        }
+
+        /**
+         * 来源文档保存失败时不立即删除已上传的对象：同一批次中内容相同的文档复用了该对象，可能已经或即将保存。
+         * 交给延迟清理任务，执行时确认没有任何文档引用该对象才删除
+         */
+        private void releaseIngestedObject(IngestionResult ingestion) {
+            try {
+                processingJobService.submitDelayed(StorageObjectCleanupJobHandler.JOB_TYPE, ingestion.getFileUrl(),
+                        ProcessingJob.PRIORITY_LOW, objectCleanupDelayMs);
             } catch (Exception e) {
-                log.error("批量上传中文档失败：{}", file.getOriginalFilename(), e);
-                // 继续处理其他文件，不中断整个批量上传过程
+                log.warn("提交OSS文件清理任务失败，文件将保留：{}", ingestion.getFileUrl(), e);
             }
         }
 
-        return uploadedDocuments;
+        private void reportSaved(PreparedDocument prepared) {
+            savedDocuments[prepared.index] = prepared.document;
+            report(DocumentBatchItemResult.builder()
+                    .index(prepared.index)
+                    .filename(prepared.document.getOriginalFilename())
+                    .success(true)
+                    .documentId(prepared.document.getId())
+                    .title(prepared.document.getTitle())
+                    .duplicate(prepared.duplicate)
+                    .build());
+        }
+
+        private synchronized void report(DocumentBatchItemResult result) {
+            results[result.getIndex()] = result;
+            if (listener != null) {
+                try {
+                    listener.accept(result);
+                } catch (RuntimeException e) {
+                    log.warn("批量上传结果回调失败：{}", result.getFilename(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 已完成解析上传、等待插入的文档
+     */
+    private static final class PreparedDocument {
+
+        private final int index;
+        private final Document document;
+        private final IngestionResult ingestion;
+        private final boolean duplicate;
+
+        PreparedDocument(int index, Document document, IngestionResult ingestion, boolean duplicate) {
+            this.index = index;
+            this.document = document;
+            this.ingestion = ingestion;
+            this.duplicate = duplicate;
+        }
     }
 
     @Override
@@ -141,10 +589,19 @@ public class DocumentServiceImpl implements DocumentService {
     @Override
     public Optional<Document> getDocumentById(Long id) {
         Optional<Document> documentOpt = documentRepository.findById(id);
-        if (documentOpt.isPresent()) {
-            incrementViewCount(id);
+        if (!documentOpt.isPresent()) {
+            return documentOpt;
         }
-        return documentOpt;
+        incrementViewCount(id);
+
+        // 查询结果可能来自缓存，复制后再填充正文和尚未写入数据库的计数，避免正文进入缓存
+        Document document = new Document();
+        BeanUtils.copyProperties(documentOpt.get(), document);
+        document.setContent(documentContentRepository.findContent(id).orElse(null));
+        document.setViewCount(countWithPending(document.getViewCount(), documentCounterService.getPendingViews(id)));
+        document.setDownloadCount(countWithPending(document.getDownloadCount(),
+                documentCounterService.getPendingDownloads(id)));
+        return Optional.of(document);
     }
 
     @Override
@@ -259,17 +716,27 @@ public class DocumentServiceImpl implements DocumentService {
 
         Document document = documentOpt.get();
 
-        // 删除OSS文件
+        // 删除OSS文件：内容去重后多个文档可能共享同一对象，最后一个引用删除时才清理对象。
+        // 并发上传的重复文档可能正要引用该对象，由延迟任务再次确认没有引用后删除
         try {
             if (StringUtils.hasText(document.getFileUrl())) {
-                String fileName = extractFileNameFromUrl(document.getFileUrl());
-                ossService.deleteFile(fileName);
+                long otherReferences = documentRepository.countByFileUrlAndIdNot(document.getFileUrl(), id);
+                if (otherReferences == 0) {
+                    processingJobService.submitDelayed(StorageObjectCleanupJobHandler.JOB_TYPE,
+                            document.getFileUrl(), ProcessingJob.PRIORITY_LOW, objectCleanupDelayMs);
+                } else {
+                    log.info("OSS文件仍被 {} 个文档引用，保留：{}", otherReferences, document.getFileUrl());
+                }
             }
         } catch (Exception e) {
-            log.warn("删除OSS文件失败：{}", document.getFileUrl(), e);
+            log.warn("提交OSS文件清理任务失败，文件将保留：{}", document.getFileUrl(), e);
         }
 
         // 删除数据库记录
+        textSearchService.removeDocumentIndex(id);
+        if (documentContentRepository.existsById(id)) {
+            documentContentRepository.deleteById(id);
+        }
         documentRepository.deleteById(id);
 
         log.info("文档已永久删除：{}", document.getTitle());
@@ -297,18 +764,12 @@ public class DocumentServiceImpl implements DocumentService {
 
     @Override
     public void incrementDownloadCount(Long id) {
-        documentRepository.findById(id).ifPresent(document -> {
-            document.setDownloadCount(document.getDownloadCount() + 1);
-            documentRepository.save(document);
-        });
+        documentCounterService.recordDownload(id);
     }
 
     @Override
     public void incrementViewCount(Long id) {
-        documentRepository.findById(id).ifPresent(document -> {
-            document.setViewCount(document.getViewCount() + 1);
-            documentRepository.save(document);
-        });
+        documentCounterService.recordView(id);
     }
 
     @Override
@@ -354,6 +815,10 @@ public class DocumentServiceImpl implements DocumentService {
                 case "md":
                 case "markdown":
                     return parseTextFile(file);
+                case "pdf":
+                case "docx":
+                case "pptx":
+                    return ingestionPipeline.extractText(file);
                 default:
                     throw new IllegalArgumentException("不支持的文件格式：" + fileExtension);
             }
@@ -429,20 +894,21 @@ public class DocumentServiceImpl implements DocumentService {
     }
 
     /**
-     * 解析文本文件内容
+     * 解析文本文件内容（按块流式解码，换行统一为\n）
      */
     private String parseTextFile(MultipartFile file) throws IOException {
-        StringBuilder content = new StringBuilder();
+        StreamingTextAnalyzer analyzer = new StreamingTextAnalyzer(file.getSize(), STOP_WORDS);
 
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line).append("\n");
+        try (InputStream in = file.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                analyzer.accept(buffer, 0, n);
             }
         }
+        analyzer.finish();
 
-        return content.toString();
+        return analyzer.getContent();
     }
 
     /**
@@ -461,6 +927,14 @@ public class DocumentServiceImpl implements DocumentService {
         return filename.substring(lastDotIndex + 1);
     }
 
+    /**
+     * 数据库中的计数加上尚未写入的增量
+     */
+    private static Integer countWithPending(Integer stored, long pending) {
+        long total = (stored != null ? stored : 0) + pending;
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
     /**
      * 从文件名生成标题
      */
@@ -477,20 +951,4 @@ public class DocumentServiceImpl implements DocumentService {
 
         return filename;
     }
-
-    /**
-     * 从URL中提取文件名
-     */
-    private String extractFileNameFromUrl(String fileUrl) {
-        if (!StringUtils.hasText(fileUrl)) {
-            return "";
-        }
-
-        int lastSlashIndex = fileUrl.lastIndexOf("/");
-        if (lastSlashIndex == -1) {
-            return fileUrl;
-        }
-
-        return fileUrl.substring(lastSlashIndex + 1);
-    }
-}
\ No newline at end of file
+}
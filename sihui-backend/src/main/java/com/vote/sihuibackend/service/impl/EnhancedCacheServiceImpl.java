@@ -2,10 +2,16 @@ package com.vote.sihuibackend.service.impl;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vote.sihuibackend.cache.OffHeapStore;
+import com.vote.sihuibackend.cache.TfIdfVectorCodec;
+import com.vote.sihuibackend.config.CachePolicyProperties;
 import com.vote.sihuibackend.service.EnhancedCacheService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -13,6 +19,7 @@ import java.util.concurrent.atomic.AtomicLong;
 /**
  * 增强缓存服务实现
  * 基于内存的高性能缓存，支持TTL和LRU策略
+ * TF-IDF向量可配置为堆外存储，减少大对象对老年代GC的压力；IDF值和相似度是小值，始终保留在堆内
  * 
  * @author Sihui Team
  */
@@ -37,10 +44,44 @@ public class EnhancedCacheServiceImpl implements EnhancedCacheService {
     private static final long DEFAULT_TTL_SECONDS = 3600; // 1小时
     private static final int MAX_CACHE_SIZE = 10000; // 最大缓存条目数
 
+    // 堆外存储区域名称
+    public static final String REGION_TFIDF_VECTORS = "tfidf-vectors";
+
+    // 堆外存储，未配置时为null，使用堆内缓存
+    private final OffHeapStore offHeapVectors;
+
+    public EnhancedCacheServiceImpl() {
+        this(new CachePolicyProperties());
+    }
+
+    @Autowired
+    public EnhancedCacheServiceImpl(CachePolicyProperties cachePolicyProperties) {
+        this.offHeapVectors = createOffHeapStore(cachePolicyProperties, REGION_TFIDF_VECTORS);
+    }
+
+    private static OffHeapStore createOffHeapStore(CachePolicyProperties properties, String regionName) {
+        CachePolicyProperties.Region region = properties.getOffHeapRegion(regionName);
+        if (region == null) {
+            return null;
+        }
+        log.info("启用堆外缓存区域: {}, 容量={}, slab={}, 条目上限={}", regionName, region.getCapacity(),
+                region.getSlabSize(), region.getMaxEntries());
+        return new OffHeapStore(regionName, region.getCapacity().toBytes(), (int) region.getSlabSize().toBytes(),
+                region.getMaxEntries(), StringUtils.hasText(region.getMappedDirectory()) ? Paths.get(region.getMappedDirectory()) : null);
+    }
+
     @Override
     public void cacheTfIdfVector(Long documentId, Map<String, Double> vector, long ttlSeconds) {
         String key = "tfidf:doc:" + documentId;
-        CacheEntry entry = new CacheEntry(vector, System.currentTimeMillis() + ttlSeconds * 1000);
+        long expirationTime = System.currentTimeMillis() + ttlSeconds * 1000;
+        if (offHeapVectors != null) {
+            TfIdfVectorCodec.Encoded encoded = TfIdfVectorCodec.encode(vector);
+            if (offHeapVectors.put(key, encoded.length(), expirationTime, encoded::writeTo)) {
+                log.debug("缓存TF-IDF向量到堆外: 文档ID={}, 向量大小={}", documentId, vector.size());
+                return;
+            }
+        }
+        CacheEntry entry = new CacheEntry(vector, expirationTime);
         tfIdfVectorCache.put(key, entry);
 
         // 检查缓存大小并清理
@@ -53,6 +94,13 @@ public class EnhancedCacheServiceImpl implements EnhancedCacheService {
     @SuppressWarnings("unchecked")
     public Map<String, Double> getTfIdfVector(Long documentId) {
         String key = "tfidf:doc:" + documentId;
+        if (offHeapVectors != null) {
+            Map<String, Double> vector = offHeapVectors.read(key, TfIdfVectorCodec::decode);
+            if (vector != null) {
+                totalHits.incrementAndGet();
+                return vector;
+            }
+        }
         CacheEntry entry = tfIdfVectorCache.get(key);
 
         if (entry == null || entry.isExpired()) {
@@ -68,6 +116,29 @@ public class EnhancedCacheServiceImpl implements EnhancedCacheService {
         return (Map<String, Double>) entry.getValue();
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public Double scoreTfIdfVector(Long documentId, Map<String, Double> queryVector) {
+        String key = "tfidf:doc:" + documentId;
+        if (offHeapVectors != null) {
+            Double score = offHeapVectors.read(key,
+                    buffer -> TfIdfVectorCodec.cosineSimilarity(buffer, queryVector));
+            if (score != null) {
+                totalHits.incrementAndGet();
+                return score;
+            }
+        }
+        CacheEntry entry = tfIdfVectorCache.get(key);
+        if (entry == null || entry.isExpired()) {
+            totalMisses.incrementAndGet();
+            return null;
+        }
+
+        totalHits.incrementAndGet();
+        entry.updateAccessTime();
+        return cosineSimilarity((Map<String, Double>) entry.getValue(), queryVector);
+    }
+
     @Override
     public void cacheIdfValue(String term, Double idfValue, long ttlSeconds) {
         String key = "idf:" + term;
@@ -232,11 +303,14 @@ public class EnhancedCacheServiceImpl implements EnhancedCacheService {
         // 清除文档相关的所有缓存
         String tfIdfKey = "tfidf:doc:" + documentId;
         tfIdfVectorCache.remove(tfIdfKey);
+        if (offHeapVectors != null) {
+            offHeapVectors.remove(tfIdfKey);
+        }
 
         // 清除相似度缓存中涉及该文档的条目
         Set<String> keysToRemove = new HashSet<>();
         for (String key : similarityCache.keySet()) {
-            if (key.contains(":" + documentId + ":") || key.endsWith(":" + documentId)) {
+            if (isSimilarityKeyOf(key, documentId)) {
                 keysToRemove.add(key);
             }
         }
@@ -250,6 +324,9 @@ public class EnhancedCacheServiceImpl implements EnhancedCacheService {
         tfIdfVectorCache.clear();
         idfValueCache.clear();
         similarityCache.clear();
+        if (offHeapVectors != null) {
+            offHeapVectors.clear();
+        }
 
         log.info("清除所有TF-IDF相关缓存");
     }
@@ -260,7 +337,7 @@ public class EnhancedCacheServiceImpl implements EnhancedCacheService {
         double hitRate = totalRequests > 0 ? (double) totalHits.get() / totalRequests : 0.0;
 
         return new CacheStats(
-                tfIdfVectorCache.size(),
+                tfIdfVectorCache.size() + offHeapSize(offHeapVectors),
                 idfValueCache.size(),
                 similarityCache.size(),
                 queryResultsCache.size(),
@@ -281,6 +358,35 @@ public class EnhancedCacheServiceImpl implements EnhancedCacheService {
         log.info("缓存预热完成");
     }
 
+    private static int offHeapSize(OffHeapStore store) {
+        return store != null ? store.size() : 0;
+    }
+
+    private static boolean isSimilarityKeyOf(String key, Long documentId) {
+        return key.contains(":" + documentId + ":") || key.endsWith(":" + documentId);
+    }
+
+    /**
+     * 计算堆内向量的余弦相似度
+     */
+    private static double cosineSimilarity(Map<String, Double> vector, Map<String, Double> queryVector) {
+        if (vector.isEmpty() || queryVector.isEmpty()) {
+            return 0.0;
+        }
+        double dotProduct = 0.0;
+        double queryNorm = 0.0;
+        for (Map.Entry<String, Double> entry : queryVector.entrySet()) {
+            double weight = entry.getValue();
+            queryNorm += weight * weight;
+            Double docWeight = vector.get(entry.getKey());
+            if (docWeight != null) {
+                dotProduct += weight * docWeight;
+            }
+        }
+        double docNorm = Math.sqrt(vector.values().stream().mapToDouble(v -> v * v).sum());
+        return (docNorm > 0 && queryNorm > 0) ? dotProduct / (docNorm * Math.sqrt(queryNorm)) : 0.0;
+    }
+
     /**
      * 构建相似度缓存键
      */
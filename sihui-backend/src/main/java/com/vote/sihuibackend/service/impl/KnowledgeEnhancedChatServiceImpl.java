@@ -3,31 +3,47 @@ package com.vote.sihuibackend.service.impl;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vote.sihuibackend.config.RerankProperties;
+import com.vote.sihuibackend.llm.LlmCallContext;
+import com.vote.sihuibackend.search.LexicalReranker;
 import com.vote.sihuibackend.service.*;
 import com.vote.sihuibackend.service.TextSearchService.SearchResult;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /**
  * 知识增强聊天服务实现
  * 集成AI上下文理解能力，提供基于文档知识的智能问答
  * 
+ * 一次问答按截止时间执行：查询分析、原始查询检索和会话历史加载并行进行；扩展关键词检索和AI重排序是可选阶段，
+ * 剩余时间不足或超时时跳过，保证为生成答案留出时间。各阶段耗时和被跳过的阶段随响应返回。
+ * 截止时间随调用方信息传给大模型调用，生成答案和降级对话都不会超过截止时间；时间用完时返回降级答复。
+ * 检索结果默认由 {@link LexicalReranker} 在本地重排序，配置为llm时才调用大模型重排序。
+ * 
  * @author Sihui Team
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class KnowledgeEnhancedChatServiceImpl implements KnowledgeEnhancedChatService {
 
     private final DeepSeekService deepSeekService;
     private final TextSearchService textSearchService;
     private final ChatMemoryService chatMemoryService;
+    private final Executor knowledgeChatExecutor;
+    private final LexicalReranker lexicalReranker;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     // 知识检索的相关性阈值
@@ -37,69 +53,203 @@ public class KnowledgeEnhancedChatServiceImpl implements KnowledgeEnhancedChatSe
     // 最大上下文长度（字符数）
     private static final int MAX_CONTEXT_LENGTH = 3000;
 
+    // 阶段名称
+    static final String STAGE_ANALYSIS = "analysis";
+    static final String STAGE_SEARCH = "search";
+    static final String STAGE_EXPANSION = "expansion";
+    static final String STAGE_RERANK = "rerank";
+    static final String STAGE_HISTORY = "history";
+    static final String STAGE_ANSWER = "answer";
+
+    // 时间预算用完时的降级答复
+    static final String DEADLINE_EXCEEDED_ANSWER = "抱歉，本次问答超出了处理时间，请稍后重试。";
+
+    /**
+     * 一次问答的总时间预算（毫秒）
+     */
+    @Value("${app.ai.knowledge.deadline-ms:30000}")
+    private long deadlineMs = 30000;
+
+    /**
+     * 为生成答案预留的时间（毫秒），查询分析等前置阶段最多等待到截止时间减去该值
+     */
+    @Value("${app.ai.knowledge.answer-reserve-ms:15000}")
+    private long answerReserveMs = 15000;
+
+    /**
+     * 执行扩展关键词检索所需的最少剩余时间（毫秒）
+     */
+    @Value("${app.ai.knowledge.expansion-min-remaining-ms:17000}")
+    private long expansionMinRemainingMs = 17000;
+
+    /**
+     * 执行AI重排序所需的最少剩余时间（毫秒）
+     */
+    @Value("${app.ai.knowledge.rerank-min-remaining-ms:20000}")
+    private long rerankMinRemainingMs = 20000;
+
+    /**
+     * 重排序方式：local、llm或none
+     */
+    @Value("${app.ai.rerank.mode:local}")
+    private String rerankMode = RerankProperties.MODE_LOCAL;
+
+    public KnowledgeEnhancedChatServiceImpl(DeepSeekService deepSeekService, TextSearchService textSearchService,
+            ChatMemoryService chatMemoryService, @Qualifier("knowledgeChatExecutor") Executor knowledgeChatExecutor,
+            LexicalReranker lexicalReranker) {
+        this.deepSeekService = deepSeekService;
+        this.textSearchService = textSearchService;
+        this.chatMemoryService = chatMemoryService;
+        this.knowledgeChatExecutor = knowledgeChatExecutor;
+        this.lexicalReranker = lexicalReranker;
+    }
+
     @Override
     public KnowledgeEnhancedResponse chatWithKnowledge(Long userId, String message, String sessionId)
             throws IOException {
         log.info("User {} initiated knowledge-enhanced conversation: {}", userId, message);
 
+        long deadline = System.currentTimeMillis() + deadlineMs;
+        Map<String, Long> stageTimings = Collections.synchronizedMap(new LinkedHashMap<>());
+        List<String> skippedStages = new ArrayList<>();
+        boolean answerStarted = false;
+
         try {
-            // 1. 分析查询意图
-            QueryAnalysisResult queryAnalysis = analyzeQuery(message);
+            // 1. 并行启动查询分析、原始查询检索和会话历史加载
+            CompletableFuture<QueryAnalysisResult> analysisFuture = runStage(STAGE_ANALYSIS, stageTimings,
+                    deadline - answerReserveMs, () -> analyzeQuery(message));
+            CompletableFuture<List<SearchResult>> searchFuture = runStage(STAGE_SEARCH, stageTimings, deadline,
+                    () -> textSearchService.intelligentSearch(message, MAX_SEARCH_RESULTS));
+            CompletableFuture<SessionContext> historyFuture = runStage(STAGE_HISTORY, stageTimings, deadline,
+                    () -> loadSessionContext(userId, sessionId));
+
+            // 2. 等待查询分析，超出前置阶段的时间预算时使用本地关键词提取
+            QueryAnalysisResult queryAnalysis = awaitOptional(analysisFuture, remaining(deadline) - answerReserveMs);
+            if (queryAnalysis == null) {
+                skippedStages.add(STAGE_ANALYSIS);
+                queryAnalysis = createFallbackAnalysis(message);
+            }
             log.info("Query analysis result: intent={}, expanded keywords={}", queryAnalysis.getIntent(),
                     queryAnalysis.getExpandedKeywords());
 
-            // 2. 使用扩展关键词进行知识检索
-            List<SearchResult> searchResults = performKnowledgeSearch(queryAnalysis);
+            // 3. 使用扩展关键词补充检索（可选）
+            List<SearchResult> allResults = new ArrayList<>(await(searchFuture, remaining(deadline)));
+            List<String> keywords = queryAnalysis.getExpandedKeywords();
+            if (!keywords.isEmpty()) {
+                boolean expanded = remaining(deadline) >= expansionMinRemainingMs
+                        && searchExpandedKeywords(keywords, allResults, stageTimings,
+                                remaining(deadline) - answerReserveMs);
+                if (!expanded) {
+                    skippedStages.add(STAGE_EXPANSION);
+                }
+            }
+            List<SearchResult> searchResults = mergeSearchResults(allResults);
             log.info("Knowledge search found {} relevant documents", searchResults.size());
 
-            // 3. AI重新排序检索结果
-            List<SearchResult> reRankedResults = reRankResults(message, searchResults);
-
-            // 4. 获取会话历史
-            String actualSessionId = sessionId;
-            if (actualSessionId == null || actualSessionId.trim().isEmpty()) {
-                actualSessionId = chatMemoryService.getOrCreateDefaultSession(userId);
+            // 4. 重新排序检索结果：本地打分直接执行，AI重排序为可选阶段
+            List<SearchResult> reRankedResults = searchResults;
+            if (searchResults.size() > 1 && RerankProperties.MODE_LOCAL.equalsIgnoreCase(rerankMode)) {
+                long rerankStart = System.nanoTime();
+                reRankedResults = lexicalReranker.rerank(message, searchResults);
+                stageTimings.put(STAGE_RERANK, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - rerankStart));
+            } else if (searchResults.size() > 1 && RerankProperties.MODE_LLM.equalsIgnoreCase(rerankMode)) {
+                if (remaining(deadline) < rerankMinRemainingMs) {
+                    skippedStages.add(STAGE_RERANK);
+                } else {
+                    List<SearchResult> ranked = awaitOptional(runStage(STAGE_RERANK, stageTimings,
+                            deadline - answerReserveMs, () -> reRankResults(message, searchResults)),
+                            remaining(deadline) - answerReserveMs);
+                    if (ranked != null) {
+                        reRankedResults = ranked;
+                    } else {
+                        skippedStages.add(STAGE_RERANK);
+                    }
+                }
             }
-            List<Map<String, String>> conversationHistory = chatMemoryService.convertToApiFormat(
-                    chatMemoryService.getRecentMessages(actualSessionId, 5));
 
-            // 5. 基于知识生成答案
+            // 5. 获取会话历史
+            SessionContext sessionContext = await(historyFuture, remaining(deadline));
+            String actualSessionId = sessionContext.sessionId;
+            List<Map<String, String>> conversationHistory = sessionContext.history;
+
+            // 6. 基于知识生成答案
             String answer;
             boolean hasKnowledgeSupport = !reRankedResults.isEmpty();
             double confidenceScore = 0.7; // 默认置信度
 
-            if (hasKnowledgeSupport) {
-                answer = generateKnowledgeBasedAnswer(message, reRankedResults, conversationHistory);
-                // 根据检索结果的相关性计算置信度
-                confidenceScore = calculateConfidenceScore(reRankedResults);
-            } else {
-                // 没有找到相关知识，使用普通AI对话
-                answer = deepSeekService.chatWithMemory(userId, message, actualSessionId);
-                confidenceScore = 0.5; // 降低置信度
+            if (remaining(deadline) <= 0) {
+                return deadlineExceededResponse(reRankedResults, queryAnalysis, stageTimings, skippedStages);
+            }
+            answerStarted = true;
+            long answerStart = System.currentTimeMillis();
+            try (LlmCallContext.Scope ignored = LlmCallContext.open(LlmCallContext.current().withDeadline(deadline))) {
+                if (hasKnowledgeSupport) {
+                    answer = generateKnowledgeBasedAnswer(message, reRankedResults, conversationHistory);
+                    // 根据检索结果的相关性计算置信度
+                    confidenceScore = calculateConfidenceScore(reRankedResults);
+                } else {
+                    // 没有找到相关知识，使用普通AI对话
+                    answer = deepSeekService.chatWithMemory(userId, message, actualSessionId);
+                    confidenceScore = 0.5; // 降低置信度
+                }
+            } finally {
+                stageTimings.put(STAGE_ANSWER, System.currentTimeMillis() - answerStart);
             }
 
-            // 6. 构建响应
+            // 7. 构建响应
             KnowledgeEnhancedResponse response = new KnowledgeEnhancedResponse(
                     answer,
                     reRankedResults,
                     queryAnalysis,
                     confidenceScore,
                     hasKnowledgeSupport);
+            response.setStageTimings(new LinkedHashMap<>(stageTimings));
+            response.setSkippedStages(skippedStages);
 
-            log.info("Knowledge-enhanced conversation completed, confidence: {}, knowledge support: {}",
-                    confidenceScore, hasKnowledgeSupport);
+            log.info("Knowledge-enhanced conversation completed, confidence: {}, knowledge support: {}, "
+                    + "stage timings: {}, skipped: {}", confidenceScore, hasKnowledgeSupport, stageTimings,
+                    skippedStages);
             return response;
 
         } catch (Exception e) {
-            log.error("Knowledge-enhanced conversation failed", e);
-            // 降级到普通AI对话
-            String fallbackAnswer = deepSeekService.chatWithMemory(userId, message, sessionId);
-            return new KnowledgeEnhancedResponse(
+            if (remaining(deadline) <= 0) {
+                // 截止时间已到，不再发起任何AI调用
+                log.warn("Knowledge-enhanced conversation exceeded its deadline, stage timings: {}", stageTimings,
+                        e);
+                return deadlineExceededResponse(Collections.emptyList(), null, stageTimings, skippedStages);
+            }
+            if (answerStarted) {
+                // 生成答案本身失败时不再用另一次完整的AI调用重试，避免延迟翻倍
+                log.error("Knowledge-enhanced answer generation failed, stage timings: {}", stageTimings, e);
+                if (e instanceof IOException) {
+                    throw (IOException) e;
+                }
+                throw new IOException("知识增强问答失败", e);
+            }
+            log.error("Knowledge-enhanced conversation failed, stage timings: {}", stageTimings, e);
+            // 降级到普通AI对话，同样受截止时间限制
+            long fallbackStart = System.currentTimeMillis();
+            String fallbackAnswer;
+            try (LlmCallContext.Scope ignored = LlmCallContext.open(LlmCallContext.current().withDeadline(deadline))) {
+                fallbackAnswer = deepSeekService.chatWithMemory(userId, message, sessionId);
+            } catch (IOException fallbackFailure) {
+                if (remaining(deadline) > 0) {
+                    throw fallbackFailure;
+                }
+                log.warn("Fallback conversation exceeded the deadline: {}", fallbackFailure.toString());
+                return deadlineExceededResponse(Collections.emptyList(), null, stageTimings, skippedStages);
+            } finally {
+                stageTimings.put(STAGE_ANSWER, System.currentTimeMillis() - fallbackStart);
+            }
+            KnowledgeEnhancedResponse response = new KnowledgeEnhancedResponse(
                     fallbackAnswer,
                     Collections.emptyList(),
                     new QueryAnalysisResult(message, "unknown", Collections.emptyList(), Collections.emptyList(), 0.0),
                     0.3,
                     false);
+            response.setStageTimings(new LinkedHashMap<>(stageTimings));
+            response.setSkippedStages(skippedStages);
+            return response;
         }
     }
 
@@ -151,23 +301,36 @@ public class KnowledgeEnhancedChatServiceImpl implements KnowledgeEnhancedChatSe
     }
 
     /**
-     * 执行知识检索
+     * 并行使用扩展关键词检索，在等待时间内完成的结果加入检索结果
+     * 
+     * @return 是否全部完成
      */
-    private List<SearchResult> performKnowledgeSearch(QueryAnalysisResult queryAnalysis) {
-        List<SearchResult> allResults = new ArrayList<>();
-
-        // 使用原始查询检索
-        List<SearchResult> originalResults = textSearchService.intelligentSearch(
-                queryAnalysis.getOriginalQuery(), MAX_SEARCH_RESULTS);
-        allResults.addAll(originalResults);
-
-        // 使用扩展关键词检索
-        for (String keyword : queryAnalysis.getExpandedKeywords()) {
-            List<SearchResult> keywordResults = textSearchService.intelligentSearch(keyword, 3);
-            allResults.addAll(keywordResults);
+    private boolean searchExpandedKeywords(List<String> keywords, List<SearchResult> allResults,
+            Map<String, Long> stageTimings, long waitMs) {
+        long stageStart = System.currentTimeMillis();
+        List<CompletableFuture<List<SearchResult>>> futures = new ArrayList<>();
+        for (String keyword : keywords) {
+            futures.add(CompletableFuture.supplyAsync(() -> textSearchService.intelligentSearch(keyword, 3),
+                    knowledgeChatExecutor));
         }
 
-        // 去重并按相关性过滤
+        boolean completed = awaitOptional(CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> Boolean.TRUE), waitMs) != null;
+        for (CompletableFuture<List<SearchResult>> future : futures) {
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                allResults.addAll(future.join());
+            } else {
+                future.cancel(true);
+            }
+        }
+        stageTimings.put(STAGE_EXPANSION, System.currentTimeMillis() - stageStart);
+        return completed;
+    }
+
+    /**
+     * 检索结果去重并按相关性过滤
+     */
+    private List<SearchResult> mergeSearchResults(List<SearchResult> allResults) {
         return allResults.stream()
                 .collect(Collectors.toMap(
                         result -> result.getDocument().getId(),
@@ -183,6 +346,96 @@ public class KnowledgeEnhancedChatServiceImpl implements KnowledgeEnhancedChatSe
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 获取或创建会话并加载token预算内的会话历史
+     */
+    private SessionContext loadSessionContext(Long userId, String sessionId) {
+        String actualSessionId = sessionId;
+        if (actualSessionId == null || actualSessionId.trim().isEmpty()) {
+            actualSessionId = chatMemoryService.getOrCreateDefaultSession(userId);
+        }
+        List<Map<String, String>> history = chatMemoryService.buildConversationContext(actualSessionId);
+        return new SessionContext(actualSessionId, history);
+    }
+
+    /**
+     * 时间预算用完时的降级响应，附带已检索到的资料，不再调用AI
+     */
+    private KnowledgeEnhancedResponse deadlineExceededResponse(List<SearchResult> results,
+            QueryAnalysisResult queryAnalysis, Map<String, Long> stageTimings, List<String> skippedStages) {
+        skippedStages.add(STAGE_ANSWER);
+        KnowledgeEnhancedResponse response = new KnowledgeEnhancedResponse(
+                DEADLINE_EXCEEDED_ANSWER,
+                results,
+                queryAnalysis != null ? queryAnalysis
+                        : new QueryAnalysisResult("", "unknown", Collections.emptyList(), Collections.emptyList(), 0.0),
+                0.0,
+                false);
+        response.setStageTimings(new LinkedHashMap<>(stageTimings));
+        response.setSkippedStages(skippedStages);
+        log.warn("Knowledge-enhanced conversation degraded after deadline, stage timings: {}, skipped: {}",
+                stageTimings, skippedStages);
+        return response;
+    }
+
+    /**
+     * 在线程池中执行一个阶段并记录耗时
+     * 阶段中的AI调用（查询分析、重排序）以当前调用方的后台调用身份经过网关，生成答案时优先；
+     * 阶段的截止时间随调用方信息传递，被放弃的阶段中的AI调用到期自行中止
+     */
+    private <T> CompletableFuture<T> runStage(String stage, Map<String, Long> stageTimings, long stageDeadline,
+            StageTask<T> task) {
+        LlmCallContext callContext = LlmCallContext.current().asBackground().withDeadline(stageDeadline);
+        return CompletableFuture.supplyAsync(() -> {
+            long stageStart = System.currentTimeMillis();
+            try (LlmCallContext.Scope ignored = LlmCallContext.open(callContext)) {
+                return task.call();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            } finally {
+                stageTimings.put(stage, System.currentTimeMillis() - stageStart);
+            }
+        }, knowledgeChatExecutor);
+    }
+
+    /**
+     * 等待必需阶段的结果，超时或失败时抛出异常，超时的阶段被取消
+     */
+    private static <T> T await(CompletableFuture<T> future, long waitMs) throws Exception {
+        try {
+            return future.get(Math.max(0, waitMs), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } catch (TimeoutException | InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    /**
+     * 等待可选阶段的结果，超时或失败时返回null；超时的阶段被取消，其中的AI调用到阶段截止时间中止
+     */
+    private static <T> T awaitOptional(CompletableFuture<T> future, long waitMs) {
+        try {
+            return future.get(Math.max(0, waitMs), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("Optional stage did not complete in time: {}", e.toString());
+            return null;
+        } catch (ExecutionException e) {
+            log.warn("Optional stage failed: {}", e.toString());
+            return null;
+        }
+    }
+
+    private static long remaining(long deadline) {
+        return deadline - System.currentTimeMillis();
+    }
+
     /**
      * 构建查询分析提示词
      */
@@ -386,4 +639,25 @@ public class KnowledgeEnhancedChatServiceImpl implements KnowledgeEnhancedChatSe
 
         return content.substring(0, maxLength) + "...";
     }
-}
\ No newline at end of file
+
+    /**
+     * 会话ID及其最近的会话历史
+     */
+    private static final class SessionContext {
+        private final String sessionId;
+        private final List<Map<String, String>> history;
+
+        SessionContext(String sessionId, List<Map<String, String>> history) {
+            this.sessionId = sessionId;
+            this.history = history;
+        }
+    }
+
+    /**
+     * 可抛出IO异常的阶段任务
+     */
+    @FunctionalInterface
+    private interface StageTask<T> {
+        T call() throws IOException;
+    }
+}
@@ -0,0 +1,724 @@
+package com.vote.sihuibackend.service.impl;
+
+import com.vote.sihuibackend.config.LocalStorageProperties;
+import com.vote.sihuibackend.dto.MultipartUploadStatus;
+import com.vote.sihuibackend.oss.MultipartCheckpoint;
+import com.vote.sihuibackend.oss.MultipartCheckpointStore;
+import com.vote.sihuibackend.service.OssService;
+import com.vote.sihuibackend.util.StorageFileUtil;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地文件存储服务
+ * app.storage.type=local 时替代OSS，用于私有化部署以及集成测试、压测的本地替身。
+ * 目录布局按内容寻址：文件内容按SHA-256存放在 objects/ab/cd/&lt;sha256&gt;，相同内容只存一份并记录引用计数；
+ * 对象名（与OSS对象名格式相同）映射为 refs/&lt;对象名&gt;.ref，记录摘要、大小和Content-Type。
+ * 写入经临时文件由FileChannel完成后原子移动到位；下载由 {@code LocalFileController} 零拷贝输出。
+ * 超过保留时间未更新的分块上传会话在创建新会话时顺带清理，避免放弃的上传残留分片。
+ *
+ * @author Sihui Team
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "local")
+@Slf4j
+public class LocalFileStorageService implements OssService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int LOCK_STRIPES = 64;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final long SWEEP_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final LocalStorageProperties properties;
+    private final Path objectsDir;
+    private final Path refsDir;
+    private final Path tmpDir;
+    private final Path multipartDir;
+    private final MultipartCheckpointStore checkpointStore;
+    private final Map<String, MultipartCheckpoint> sessions = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final AtomicLong lastSweepAt = new AtomicLong(0);
+    private final byte[] signingKey;
+
+    public LocalFileStorageService(LocalStorageProperties properties) throws IOException {
+        this.properties = properties;
+        Path root = Paths.get(properties.getRootDir()).toAbsolutePath().normalize();
+        this.objectsDir = root.resolve("objects");
+        this.refsDir = root.resolve("refs");
+        this.tmpDir = root.resolve("tmp");
+        this.multipartDir = root.resolve("multipart");
+        Files.createDirectories(objectsDir);
+        Files.createDirectories(refsDir);
+        Files.createDirectories(tmpDir);
+        this.checkpointStore = new MultipartCheckpointStore(multipartDir);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        if (StringUtils.hasText(properties.getSigningSecret())) {
+            this.signingKey = properties.getSigningSecret().getBytes(StandardCharsets.UTF_8);
+        } else {
+            this.signingKey = new byte[32];
+            new SecureRandom().nextBytes(signingKey);
+        }
+        log.info("本地文件存储已启用 - 根目录: {}", root);
+    }
+
+    @Override
+    public String uploadFile(MultipartFile file, String folder) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("文件不能为空");
+        }
+        if (!isFileTypeAllowed(file.getOriginalFilename())) {
+            throw new IllegalArgumentException("不支持的文件类型");
+        }
+        if (!isFileSizeAllowed(file.getSize())) {
+            throw new IllegalArgumentException("文件大小超出限制");
+        }
+
+        String objectName = StorageFileUtil.generateFileName(file.getOriginalFilename(), folder);
+        try {
+            store(file.getInputStream(), objectName, StorageFileUtil.getContentType(objectName));
+            return getFileUrl(objectName);
+        } catch (IOException e) {
+            log.error("文件保存失败: {}", objectName, e);
+            throw new RuntimeException("文件上传失败", e);
+        }
+    }
+
+    @Override
+    public String uploadFile(InputStream inputStream, String fileName, String folder) {
+        String objectName = folder != null ? folder + "/" + fileName : fileName;
+        try {
+            store(inputStream, objectName, StorageFileUtil.getContentType(fileName));
+            return getFileUrl(objectName);
+        } catch (IOException e) {
+            log.error("文件保存失败: {}", objectName, e);
+            throw new RuntimeException("文件上传失败", e);
+        }
+    }
+
+    @Override
+    public String uploadStream(InputStream inputStream, String originalFilename, long contentLength, String folder) {
+        if (!isFileTypeAllowed(originalFilename)) {
+            closeQuietly(inputStream);
+            throw new IllegalArgumentException("不支持的文件类型");
+        }
+        if (contentLength >= 0 && !isFileSizeAllowed(contentLength)) {
+            closeQuietly(inputStream);
+            throw new IllegalArgumentException("文件大小超出限制");
+        }
+
+        String objectName = StorageFileUtil.generateFileName(originalFilename, folder);
+        try {
+            store(inputStream, objectName, StorageFileUtil.getContentType(originalFilename));
+            log.info("文件流式保存成功: {}", objectName);
+            return objectName;
+        } catch (IOException e) {
+            throw new RuntimeException("文件上传失败", e);
+        }
+    }
+
+    @Override
+    public MultipartUploadStatus initiateMultipartUpload(String originalFilename, long fileSize, String folder,
+            Long ownerId) {
+        if (!isFileTypeAllowed(originalFilename)) {
+            throw new IllegalArgumentException("不支持的文件类型");
+        }
+        if (fileSize <= 0) {
+            throw new IllegalArgumentException("文件不能为空");
+        }
+        if (!isFileSizeAllowed(fileSize)) {
+            throw new IllegalArgumentException("文件大小超出限制");
+        }
+        sweepExpiredIfDue();
+
+        int partSize = (int) properties.getPartSize().toBytes();
+        long now = System.currentTimeMillis();
+        MultipartCheckpoint checkpoint = new MultipartCheckpoint();
+        checkpoint.setUploadId(UUID.randomUUID().toString().replace("-", ""));
+        checkpoint.setObjectName(StorageFileUtil.generateFileName(originalFilename, folder));
+        checkpoint.setOriginalFilename(originalFilename);
+        checkpoint.setFileSize(fileSize);
+        checkpoint.setPartSize(partSize);
+        checkpoint.setPartCount((int) ((fileSize + partSize - 1) / partSize));
+        checkpoint.setOwnerId(ownerId);
+        checkpoint.setCreatedAt(now);
+        checkpoint.setUpdatedAt(now);
+        try {
+            Files.createDirectories(partsDir(checkpoint.getUploadId()));
+            checkpointStore.save(checkpoint);
+        } catch (IOException e) {
+            throw new RuntimeException("创建分块上传失败", e);
+        }
+        sessions.put(checkpoint.getUploadId(), checkpoint);
+        return toStatus(checkpoint);
+    }
+
+    @Override
+    public MultipartUploadStatus uploadPart(String uploadId, int partNumber, InputStream inputStream,
+            long partSize) {
+        try {
+            MultipartCheckpoint checkpoint = getCheckpoint(uploadId);
+            if (partNumber < 1 || partNumber > checkpoint.getPartCount()) {
+                throw new IllegalArgumentException("分片号超出范围: " + partNumber);
+            }
+            long expected = checkpoint.expectedPartSize(partNumber);
+            if (partSize != expected) {
+                throw new IllegalArgumentException("分片 " + partNumber + " 大小应为 " + expected + " 字节，实际 " + partSize);
+            }
+
+            Path temp = Files.createTempFile(tmpDir, "part-", ".tmp");
+            long written;
+            try {
+                written = writeTo(inputStream, temp, null, expected);
+                if (written != expected) {
+                    throw new IllegalArgumentException("分片 " + partNumber + " 内容不完整");
+                }
+                Files.move(temp, partsDir(uploadId).resolve(partNumber + ".part"),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+
+            synchronized (checkpoint) {
+                checkpoint.getParts().put(partNumber, new MultipartCheckpoint.Part(null, written, null));
+                checkpoint.setUpdatedAt(System.currentTimeMillis());
+                checkpointStore.save(checkpoint);
+            }
+            return toStatus(checkpoint);
+        } catch (IOException e) {
+            throw new RuntimeException("分片上传失败", e);
+        } finally {
+            closeQuietly(inputStream);
+        }
+    }
+
+    @Override
+    public MultipartUploadStatus getMultipartUploadStatus(String uploadId) {
+        try {
+            return toStatus(getCheckpoint(uploadId));
+        } catch (IOException e) {
+            throw new RuntimeException("读取分块上传断点失败", e);
+        }
+    }
+
+    @Override
+    public String completeMultipartUpload(String uploadId) {
+        try {
+            MultipartCheckpoint checkpoint = getCheckpoint(uploadId);
+            List<Integer> missing = new ArrayList<>();
+            synchronized (checkpoint) {
+                for (int partNumber = 1; partNumber <= checkpoint.getPartCount(); partNumber++) {
+                    if (!checkpoint.getParts().containsKey(partNumber)) {
+                        missing.add(partNumber);
+                    }
+                }
+            }
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException("缺少分片: " + missing);
+            }
+
+            // 按顺序拼接分片，同时计算内容摘要
+            MessageDigest digest = newDigest();
+            Path temp = Files.createTempFile(tmpDir, "upload-", ".tmp");
+            long size = 0;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                for (int partNumber = 1; partNumber <= checkpoint.getPartCount(); partNumber++) {
+                    try (FileChannel in = FileChannel.open(partsDir(uploadId).resolve(partNumber + ".part"))) {
+                        while (in.read(buffer) != -1) {
+                            buffer.flip();
+                            size += copy(buffer, digest, out);
+                            buffer.clear();
+                        }
+                    }
+                }
+                out.force(false);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+
+            commit(temp, toHex(digest.digest()), size, checkpoint.getObjectName(),
+                    StorageFileUtil.getContentType(checkpoint.getOriginalFilename()));
+            forget(checkpoint);
+            log.info("分块上传合并完成: {}, 分片数: {}", checkpoint.getObjectName(), checkpoint.getPartCount());
+            return getFileUrl(checkpoint.getObjectName());
+        } catch (IOException e) {
+            throw new RuntimeException("合并分片失败", e);
+        }
+    }
+
+    @Override
+    public void abortMultipartUpload(String uploadId) {
+        try {
+            forget(getCheckpoint(uploadId));
+        } catch (IOException e) {
+            throw new RuntimeException("中止分块上传失败", e);
+        }
+    }
+
+    @Override
+    public boolean deleteFile(String fileName) {
+        try {
+            Path refPath = refPath(fileName);
+            Ref ref;
+            synchronized (lockFor(fileName)) {
+                ref = readRef(refPath);
+                if (ref == null) {
+                    log.warn("文件不存在: {}", fileName);
+                    return false;
+                }
+                Files.delete(refPath);
+            }
+            release(ref.hash);
+            log.info("文件删除成功: {}", fileName);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("文件删除失败: {}", fileName, e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean deleteFiles(List<String> fileNames) {
+        if (fileNames == null || fileNames.isEmpty()) {
+            return true;
+        }
+        boolean allDeleted = true;
+        for (String fileName : fileNames) {
+            allDeleted &= deleteFile(fileName);
+        }
+        return allDeleted;
+    }
+
+    @Override
+    public boolean doesFileExist(String fileName) {
+        try {
+            return Files.exists(refPath(fileName));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String getFileUrl(String fileName) {
+        return properties.getBaseUrl() + "/" + fileName;
+    }
+
+    @Override
+    public String getObjectName(String fileUrl) {
+        if (!StringUtils.hasText(fileUrl)) {
+            return "";
+        }
+        String prefix = properties.getBaseUrl() + "/";
+        int index = fileUrl.indexOf(prefix);
+        String objectName = index == -1 ? fileUrl : fileUrl.substring(index + prefix.length());
+        int queryIndex = objectName.indexOf('?');
+        return queryIndex == -1 ? objectName : objectName.substring(0, queryIndex);
+    }
+
+    @Override
+    public String getSignedUrl(String fileName, int expiredInSeconds) {
+        long expires = System.currentTimeMillis() / 1000 + expiredInSeconds;
+        return getFileUrl(fileName) + "?expires=" + expires + "&signature=" + sign(fileName, expires);
+    }
+
+    @Override
+    public boolean isFileTypeAllowed(String fileName) {
+        if (!StringUtils.hasText(fileName)) {
+            return false;
+        }
+        String extension = StorageFileUtil.getFileExtension(fileName);
+        return properties.getAllowedFileTypesList().contains(extension.toLowerCase());
+    }
+
+    @Override
+    public boolean isFileSizeAllowed(long fileSize) {
+        return fileSize <= properties.getMaxFileSize().toBytes();
+    }
+
+    /**
+     * 查找对象
+     *
+     * @param objectName 对象名
+     * @return 对象信息，不存在或对象名非法时为空
+     */
+    public Optional<StoredObject> findObject(String objectName) {
+        try {
+            Path refPath = refPath(objectName);
+            Ref ref = readRef(refPath);
+            if (ref == null) {
+                return Optional.empty();
+            }
+            Path blob = blobPath(ref.hash);
+            if (!Files.exists(blob)) {
+                log.warn("对象内容缺失: {} -> {}", objectName, ref.hash);
+                return Optional.empty();
+            }
+            return Optional.of(new StoredObject(objectName, blob, ref.size, ref.hash, ref.contentType,
+                    Files.getLastModifiedTime(refPath).toMillis()));
+        } catch (IOException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 校验下载请求的签名；未要求签名且请求未携带签名时视为公共读
+     */
+    public boolean isAccessAllowed(String objectName, Long expires, String signature) {
+        if (expires == null || signature == null) {
+            return !properties.isRequireSignature();
+        }
+        if (expires < System.currentTimeMillis() / 1000) {
+            return false;
+        }
+        return MessageDigest.isEqual(sign(objectName, expires).getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * 写入对象：经临时文件边写边算摘要，再按内容寻址提交
+     */
+    private void store(InputStream inputStream, String objectName, String contentType) throws IOException {
+        refPath(objectName);
+        Path temp = Files.createTempFile(tmpDir, "upload-", ".tmp");
+        try {
+            MessageDigest digest = newDigest();
+            long size = writeTo(inputStream, temp, digest, properties.getMaxFileSize().toBytes());
+            commit(temp, toHex(digest.digest()), size, objectName, contentType);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            closeQuietly(inputStream);
+        }
+    }
+
+    /**
+     * 通过FileChannel把输入流写入文件
+     *
+     * @param digest   同时更新的摘要，可为null
+     * @param maxBytes 允许写入的最大字节数
+     * @return 写入的字节数
+     */
+    private long writeTo(InputStream inputStream, Path target, MessageDigest digest, long maxBytes)
+            throws IOException {
+        long size = 0;
+        try (ReadableByteChannel in = Channels.newChannel(inputStream);
+                FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                size += copy(buffer, digest, out);
+                if (size > maxBytes) {
+                    throw new IllegalArgumentException("文件大小超出限制");
+                }
+                buffer.clear();
+            }
+            out.force(false);
+        }
+        return size;
+    }
+
+    private static int copy(ByteBuffer buffer, MessageDigest digest, FileChannel out) throws IOException {
+        int length = buffer.remaining();
+        if (digest != null) {
+            digest.update(buffer.duplicate());
+        }
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        return length;
+    }
+
+    /**
+     * 把临时文件提交为内容对象并更新对象名映射；内容已存在时丢弃临时文件，只增加引用计数
+     */
+    private void commit(Path temp, String hash, long size, String objectName, String contentType)
+            throws IOException {
+        Path blob = blobPath(hash);
+        synchronized (lockFor(hash)) {
+            if (Files.exists(blob)) {
+                Files.delete(temp);
+            } else {
+                Files.createDirectories(blob.getParent());
+                Files.move(temp, blob, StandardCopyOption.ATOMIC_MOVE);
+            }
+            adjustRefCount(hash, 1);
+        }
+
+        Path refPath = refPath(objectName);
+        Ref previous;
+        synchronized (lockFor(objectName)) {
+            previous = readRef(refPath);
+            Files.createDirectories(refPath.getParent());
+            Path tempRef = Files.createTempFile(tmpDir, "ref-", ".tmp");
+            Files.write(tempRef, (hash + "\t" + size + "\t" + contentType).getBytes(StandardCharsets.UTF_8));
+            Files.move(tempRef, refPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        if (previous != null) {
+            release(previous.hash);
+        }
+    }
+
+    /**
+     * 减少内容引用计数，最后一个引用释放时删除内容文件
+     */
+    private void release(String hash) throws IOException {
+        synchronized (lockFor(hash)) {
+            if (adjustRefCount(hash, -1) <= 0) {
+                Files.deleteIfExists(blobPath(hash));
+                Files.deleteIfExists(refCountPath(hash));
+            }
+        }
+    }
+
+    private long adjustRefCount(String hash, int delta) throws IOException {
+        Path countPath = refCountPath(hash);
+        long count = 0;
+        if (Files.exists(countPath)) {
+            count = Long.parseLong(new String(Files.readAllBytes(countPath), StandardCharsets.US_ASCII).trim());
+        }
+        count += delta;
+        if (count > 0) {
+            Files.write(countPath, Long.toString(count).getBytes(StandardCharsets.US_ASCII));
+        }
+        return count;
+    }
+
+    private Ref readRef(Path refPath) throws IOException {
+        if (!Files.exists(refPath)) {
+            return null;
+        }
+        String[] fields = new String(Files.readAllBytes(refPath), StandardCharsets.UTF_8).split("\t", 3);
+        return new Ref(fields[0], Long.parseLong(fields[1]), fields[2]);
+    }
+
+    /**
+     * 清理超过保留时间未更新的分块上传会话及其分片
+     *
+     * @return 清理的会话数
+     */
+    public int sweepExpiredMultipartUploads() {
+        long expireBefore = System.currentTimeMillis() - properties.getMultipartTtl().toMillis();
+        int swept = 0;
+        for (MultipartCheckpoint stored : checkpointStore.loadAll()) {
+            // 内存中的会话才有最新的更新时间
+            MultipartCheckpoint checkpoint = sessions.getOrDefault(stored.getUploadId(), stored);
+            synchronized (checkpoint) {
+                if (checkpoint.getUpdatedAt() > expireBefore) {
+                    continue;
+                }
+            }
+            log.info("清理超时的分块上传: {}", checkpoint.getObjectName());
+            forget(checkpoint);
+            swept++;
+        }
+        return swept;
+    }
+
+    /**
+     * 每小时最多一次，只涉及本地磁盘操作，直接在当前线程执行
+     */
+    private void sweepExpiredIfDue() {
+        long now = System.currentTimeMillis();
+        long last = lastSweepAt.get();
+        if (now - last < SWEEP_INTERVAL_MILLIS || !lastSweepAt.compareAndSet(last, now)) {
+            return;
+        }
+        try {
+            sweepExpiredMultipartUploads();
+        } catch (RuntimeException e) {
+            log.warn("清理超时的分块上传失败", e);
+        }
+    }
+
+    private MultipartCheckpoint getCheckpoint(String uploadId) throws IOException {
+        if (uploadId == null || !uploadId.matches("[A-Za-z0-9]{1,64}")) {
+            throw new IllegalArgumentException("无效的上传ID");
+        }
+        MultipartCheckpoint checkpoint = sessions.get(uploadId);
+        if (checkpoint == null) {
+            checkpoint = checkpointStore.load(uploadId);
+            if (checkpoint == null) {
+                throw new IllegalArgumentException("分片上传不存在或已结束: " + uploadId);
+            }
+            MultipartCheckpoint existing = sessions.putIfAbsent(uploadId, checkpoint);
+            if (existing != null) {
+                checkpoint = existing;
+            }
+        }
+        return checkpoint;
+    }
+
+    private void forget(MultipartCheckpoint checkpoint) {
+        sessions.remove(checkpoint.getUploadId());
+        checkpointStore.delete(checkpoint.getUploadId());
+        FileSystemUtils.deleteRecursively(partsDir(checkpoint.getUploadId()).toFile());
+    }
+
+    private MultipartUploadStatus toStatus(MultipartCheckpoint checkpoint) {
+        List<Integer> completedParts;
+        long uploadedBytes;
+        synchronized (checkpoint) {
+            completedParts = new ArrayList<>(checkpoint.getParts().keySet());
+            uploadedBytes = checkpoint.uploadedBytes();
+        }
+        return MultipartUploadStatus.builder()
+                .uploadId(checkpoint.getUploadId())
+                .originalFilename(checkpoint.getOriginalFilename())
+                .fileName(checkpoint.getObjectName())
+                .fileSize(checkpoint.getFileSize())
+                .partSize(checkpoint.getPartSize())
+                .partCount(checkpoint.getPartCount())
+                .completedParts(completedParts)
+                .uploadedBytes(uploadedBytes)
+                .ownerId(checkpoint.getOwnerId())
+                .build();
+    }
+
+    /**
+     * 对象名映射文件路径，拒绝绝对路径和 .. 等越出存储目录的对象名
+     */
+    private Path refPath(String objectName) {
+        if (!StringUtils.hasText(objectName) || objectName.startsWith("/") || objectName.contains("\\")) {
+            throw new IllegalArgumentException("无效的文件名: " + objectName);
+        }
+        Path path = refsDir.resolve(objectName + ".ref").normalize();
+        if (!path.startsWith(refsDir) || objectName.contains("..")) {
+            throw new IllegalArgumentException("无效的文件名: " + objectName);
+        }
+        return path;
+    }
+
+    private Path blobPath(String hash) {
+        return objectsDir.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private Path refCountPath(String hash) {
+        return blobPath(hash).resolveSibling(hash + ".refs");
+    }
+
+    private Path partsDir(String uploadId) {
+        return multipartDir.resolve(uploadId);
+    }
+
+    private Object lockFor(String key) {
+        return locks[(key.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+    }
+
+    private String sign(String objectName, long expires) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(signingKey, HMAC_ALGORITHM));
+            return toHex(mac.doFinal((objectName + "\n" + expires).getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("生成签名失败", e);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            log.warn("关闭输入流失败", e);
+        }
+    }
+
+    @AllArgsConstructor
+    private static final class Ref {
+        private final String hash;
+        private final long size;
+        private final String contentType;
+    }
+
+    /**
+     * 已存储的对象
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class StoredObject {
+
+        /**
+         * 对象名
+         */
+        private final String objectName;
+
+        /**
+         * 内容文件路径
+         */
+        private final Path path;
+
+        /**
+         * 文件大小（字节）
+         */
+        private final long size;
+
+        /**
+         * 内容SHA-256摘要，用作强ETag
+         */
+        private final String contentHash;
+
+        /**
+         * 内容类型
+         */
+        private final String contentType;
+
+        /**
+         * 最后修改时间（毫秒）
+         */
+        private final long lastModified;
+    }
+}
@@ -3,11 +3,15 @@ package com.vote.sihuibackend.service.impl;
 import com.aliyun.oss.OSS;
 import com.aliyun.oss.model.DeleteObjectsRequest;
 import com.aliyun.oss.model.DeleteObjectsResult;
-import com.aliyun.oss.model.ObjectMetadata;
 import com.vote.sihuibackend.config.OssConfig;
+import com.vote.sihuibackend.dto.MultipartUploadStatus;
+import com.vote.sihuibackend.oss.MultipartCheckpoint;
+import com.vote.sihuibackend.oss.OssMultipartUploader;
 import com.vote.sihuibackend.service.OssService;
+import com.vote.sihuibackend.util.StorageFileUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
@@ -15,11 +19,9 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.UUID;
 
 /**
  * OSS文件服务实现类
@@ -27,12 +29,14 @@ import java.util.UUID;
  * @author Sihui Team
  */
 @Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "oss", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class OssServiceImpl implements OssService {
 
     private final OSS ossClient;
     private final OssConfig ossConfig;
+    private final OssMultipartUploader multipartUploader;
 
     @Override
     public String uploadFile(MultipartFile file, String folder) {
@@ -50,32 +54,45 @@ public class OssServiceImpl implements OssService {
             throw new IllegalArgumentException("文件大小超出限制");
         }
 
+        InputStream inputStream;
         try {
-            String fileName = generateFileName(file.getOriginalFilename(), folder);
-            return uploadFile(file.getInputStream(), fileName, null);
+            inputStream = file.getInputStream();
         } catch (IOException e) {
             log.error("文件上传失败", e);
             throw new RuntimeException("文件上传失败", e);
         }
+        String fileName = StorageFileUtil.generateFileName(file.getOriginalFilename(), folder);
+        // 已知文件大小，超过分片阈值的文件（如培训视频）分片并发上传
+        String contentType = StorageFileUtil.getContentType(fileName);
+        return ossConfig.getFileUrl(upload(inputStream, fileName, contentType, file.getSize()));
     }
 
     @Override
     public String uploadFile(InputStream inputStream, String fileName, String folder) {
-        try {
-            String fullFileName = folder != null ? folder + "/" + fileName : fileName;
+        String fullFileName = folder != null ? folder + "/" + fileName : fileName;
+        // 长度未知：不超过一个分片的内容直接上传，否则分片并发上传
+        String contentType = StorageFileUtil.getContentType(fileName);
+        return ossConfig.getFileUrl(upload(inputStream, fullFileName, contentType, -1));
+    }
 
-            // 设置文件元数据
-            ObjectMetadata metadata = new ObjectMetadata();
-            metadata.setContentType(getContentType(fileName));
+    @Override
+    public String uploadStream(InputStream inputStream, String originalFilename, long contentLength, String folder) {
+        try {
+            if (!isFileTypeAllowed(originalFilename)) {
+                throw new IllegalArgumentException("不支持的文件类型");
+            }
+            if (contentLength >= 0 && !isFileSizeAllowed(contentLength)) {
+                throw new IllegalArgumentException("文件大小超出限制");
+            }
 
-            // 上传文件
-            ossClient.putObject(ossConfig.getBucketName(), fullFileName, inputStream, metadata);
+            String objectName = StorageFileUtil.generateFileName(originalFilename, folder);
+            String contentType = StorageFileUtil.getContentType(originalFilename);
+            multipartUploader.upload(inputStream, objectName, contentType, contentLength);
 
-            log.info("文件上传成功: {}", fullFileName);
-            return ossConfig.getFileUrl(fullFileName);
+            log.info("文件流式上传成功: {}", objectName);
+            return objectName;
 
-        } catch (Exception e) {
-            log.error("文件上传失败: {}", fileName, e);
+        } catch (IOException e) {
             throw new RuntimeException("文件上传失败", e);
         } finally {
             try {
@@ -86,6 +103,81 @@ public class OssServiceImpl implements OssService {
         }
     }
 
+    @Override
+    public MultipartUploadStatus initiateMultipartUpload(String originalFilename, long fileSize, String folder,
+            Long ownerId) {
+        if (!isFileTypeAllowed(originalFilename)) {
+            throw new IllegalArgumentException("不支持的文件类型");
+        }
+        if (fileSize <= 0) {
+            throw new IllegalArgumentException("文件不能为空");
+        }
+        if (!isFileSizeAllowed(fileSize)) {
+            throw new IllegalArgumentException("文件大小超出限制");
+        }
+
+        try {
+            String objectName = StorageFileUtil.generateFileName(originalFilename, folder);
+            MultipartCheckpoint checkpoint = multipartUploader.initiate(objectName, originalFilename,
+                    StorageFileUtil.getContentType(originalFilename), fileSize, ownerId);
+            log.info("创建分块上传: {}, 分片数: {}", objectName, checkpoint.getPartCount());
+            return toStatus(checkpoint);
+        } catch (IOException e) {
+            log.error("创建分块上传失败: {}", originalFilename, e);
+            throw new RuntimeException("创建分块上传失败", e);
+        }
+    }
+
+    @Override
+    public MultipartUploadStatus uploadPart(String uploadId, int partNumber, InputStream inputStream,
+            long partSize) {
+        try {
+            return toStatus(multipartUploader.uploadPart(uploadId, partNumber, inputStream, partSize));
+        } catch (IOException e) {
+            log.error("分片上传失败: {} #{}", uploadId, partNumber, e);
+            throw new RuntimeException("分片上传失败", e);
+        } finally {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                log.warn("关闭输入流失败", e);
+            }
+        }
+    }
+
+    @Override
+    public MultipartUploadStatus getMultipartUploadStatus(String uploadId) {
+        try {
+            return toStatus(multipartUploader.getCheckpoint(uploadId));
+        } catch (IOException e) {
+            log.error("读取分块上传断点失败: {}", uploadId, e);
+            throw new RuntimeException("读取分块上传断点失败", e);
+        }
+    }
+
+    @Override
+    public String completeMultipartUpload(String uploadId) {
+        try {
+            String objectName = multipartUploader.complete(uploadId);
+            log.info("分块上传成功: {}", objectName);
+            return ossConfig.getFileUrl(objectName);
+        } catch (IOException e) {
+            log.error("合并分片失败: {}", uploadId, e);
+            throw new RuntimeException("合并分片失败", e);
+        }
+    }
+
+    @Override
+    public void abortMultipartUpload(String uploadId) {
+        try {
+            multipartUploader.abort(uploadId);
+            log.info("分块上传已中止: {}", uploadId);
+        } catch (IOException e) {
+            log.error("中止分块上传失败: {}", uploadId, e);
+            throw new RuntimeException("中止分块上传失败", e);
+        }
+    }
+
     @Override
     public boolean deleteFile(String fileName) {
         try {
@@ -140,6 +232,24 @@ public class OssServiceImpl implements OssService {
         return ossConfig.getFileUrl(fileName);
     }
 
+    @Override
+    public String getObjectName(String fileUrl) {
+        if (!StringUtils.hasText(fileUrl)) {
+            return "";
+        }
+        String prefix = ossConfig.getFileUrl("");
+        if (fileUrl.startsWith(prefix)) {
+            return fileUrl.substring(prefix.length());
+        }
+        // 不带协议的视为对象名；域名配置变更前生成的URL去掉协议和主机部分
+        int schemeEnd = fileUrl.indexOf("://");
+        if (schemeEnd == -1) {
+            return fileUrl;
+        }
+        int pathStart = fileUrl.indexOf('/', schemeEnd + 3);
+        return pathStart == -1 ? "" : fileUrl.substring(pathStart + 1);
+    }
+
     @Override
     public String getSignedUrl(String fileName, int expiredInSeconds) {
         try {
@@ -158,7 +268,7 @@ public class OssServiceImpl implements OssService {
             return false;
         }
 
-        String extension = getFileExtension(fileName);
+        String extension = StorageFileUtil.getFileExtension(fileName);
         return ossConfig.getAllowedFileTypesList().contains(extension.toLowerCase());
     }
 
@@ -168,82 +278,46 @@ public class OssServiceImpl implements OssService {
     }
 
     /**
-     * 生成唯一文件名
+     * 上传并关闭输入流，超过分片阈值时分片并发上传
+     *
+     * @return 对象名
      */
-    private String generateFileName(String originalFileName, String folder) {
-        String extension = getFileExtension(originalFileName);
-        String uuid = UUID.randomUUID().toString().replace("-", "");
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+    private String upload(InputStream inputStream, String objectName, String contentType, long contentLength) {
+        try {
+            multipartUploader.upload(inputStream, objectName, contentType, contentLength);
 
-        String fileName = timestamp + "_" + uuid + "." + extension;
+            log.info("文件上传成功: {}", objectName);
+            return objectName;
 
-        if (StringUtils.hasText(folder)) {
-            return folder + "/" + fileName;
+        } catch (Exception e) {
+            log.error("文件上传失败: {}", objectName, e);
+            throw new RuntimeException("文件上传失败", e);
+        } finally {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                log.warn("关闭输入流失败", e);
+            }
         }
-
-        return fileName;
     }
 
-    /**
-     * 获取文件扩展名
-     */
-    private String getFileExtension(String fileName) {
-        if (!StringUtils.hasText(fileName)) {
-            return "";
-        }
-
-        int lastDotIndex = fileName.lastIndexOf(".");
-        if (lastDotIndex == -1) {
-            return "";
+    private MultipartUploadStatus toStatus(MultipartCheckpoint checkpoint) {
+        List<Integer> completedParts;
+        long uploadedBytes;
+        synchronized (checkpoint) {
+            completedParts = new ArrayList<>(checkpoint.getParts().keySet());
+            uploadedBytes = checkpoint.uploadedBytes();
         }
-
-        return fileName.substring(lastDotIndex + 1);
+        return MultipartUploadStatus.builder()
+                .uploadId(checkpoint.getUploadId())
+                .originalFilename(checkpoint.getOriginalFilename())
+                .fileName(checkpoint.getObjectName())
+                .fileSize(checkpoint.getFileSize())
+                .partSize(checkpoint.getPartSize())
+                .partCount(checkpoint.getPartCount())
+                .completedParts(completedParts)
+                .uploadedBytes(uploadedBytes)
+                .ownerId(checkpoint.getOwnerId())
+                .build();
     }
-
-    /**
-     * 根据文件扩展名获取Content-Type
-     */
-    private String getContentType(String fileName) {
-        String extension = getFileExtension(fileName).toLowerCase();
-
-        switch (extension) {
-            case "jpg":
-            case "jpeg":
-                return "image/jpeg";
-            case "png":
-                return "image/png";
-            case "gif":
-                return "image/gif";
-            case "pdf":
-                return "application/pdf";
-            case "doc":
-                return "application/msword";
-            case "docx":
-                return "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
-            case "xls":
-                return "application/vnd.ms-excel";
-            case "xlsx":
-                return "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
-            case "ppt":
-                return "application/vnd.ms-powerpoint";
-            case "pptx":
-                return "application/vnd.openxmlformats-officedocument.presentationml.presentation";
-            case "txt":
-                return "text/plain";
-            case "mp4":
-                return "video/mp4";
-            case "avi":
-                return "video/x-msvideo";
-            case "mov":
-                return "video/quicktime";
-            case "wmv":
-                return "video/x-ms-wmv";
-            case "flv":
-                return "video/x-flv";
-            case "mkv":
-                return "video/x-matroska";
-            default:
-                return "application/octet-stream";
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,333 @@
+package com.vote.sihuibackend.service.impl;
+
+import com.vote.sihuibackend.dto.JobQueueStatus;
+import com.vote.sihuibackend.entity.ProcessingJob;
+import com.vote.sihuibackend.job.JobContext;
+import com.vote.sihuibackend.job.JobQueueSaturatedException;
+import com.vote.sihuibackend.job.ProcessingJobHandler;
+import com.vote.sihuibackend.repository.ProcessingJobRepository;
+import com.vote.sihuibackend.service.ProcessingJobService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 后台处理任务服务实现
+ * 定时按空闲执行槽数领取任务：先查出到期任务的ID，再逐个以条件UPDATE抢占租约，抢占成功的任务交给任务线程池执行。
+ * 执行期间定时续约，实例宕机后租约过期，任务由其他实例重新领取；失败的任务按指数退避重新排队，
+ * 超过最多执行次数后标记为失败。排队任务数达到上限时拒绝新任务（近似上限，并发提交时可能略微超出）。
+ *
+ * @author Sihui Team
+ */
+@Service
+@Slf4j
+public class ProcessingJobServiceImpl implements ProcessingJobService {
+
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+
+    private final ProcessingJobRepository jobRepository;
+    private final Map<String, ProcessingJobHandler> handlers = new HashMap<>();
+    private final Executor processingJobExecutor;
+
+    // 实例标识，用作租约持有者
+    private final String workerId = ManagementFactory.getRuntimeMXBean().getName() + "-"
+            + UUID.randomUUID().toString().substring(0, 8);
+    private final Set<Long> runningJobs = ConcurrentHashMap.newKeySet();
+    private volatile boolean shuttingDown;
+
+    /**
+     * 本实例是否执行任务（只接收请求的实例可关闭）
+     */
+    @Value("${app.jobs.worker-enabled:true}")
+    private boolean workerEnabled = true;
+
+    /**
+     * 本实例同时执行的任务数
+     */
+    @Value("${app.jobs.concurrency:2}")
+    private int concurrency = 2;
+
+    /**
+     * 排队（待执行和执行中）任务数上限
+     */
+    @Value("${app.jobs.max-queued:1000}")
+    private int maxQueued = 1000;
+
+    /**
+     * 租约时长（毫秒）
+     */
+    @Value("${app.jobs.lease-ms:60000}")
+    private long leaseMs = 60000;
+
+    /**
+     * 首次重试的退避时间（毫秒），之后每次翻倍
+     */
+    @Value("${app.jobs.retry-backoff-ms:10000}")
+    private long retryBackoffMs = 10000;
+
+    /**
+     * 最长退避时间（毫秒）
+     */
+    @Value("${app.jobs.max-retry-backoff-ms:600000}")
+    private long maxRetryBackoffMs = 600000;
+
+    /**
+     * 已结束任务的保留天数
+     */
+    @Value("${app.jobs.retention-days:7}")
+    private int retentionDays = 7;
+
+    public ProcessingJobServiceImpl(ProcessingJobRepository jobRepository, List<ProcessingJobHandler> handlers,
+            @Qualifier("processingJobExecutor") Executor processingJobExecutor) {
+        this.jobRepository = jobRepository;
+        this.processingJobExecutor = processingJobExecutor;
+        for (ProcessingJobHandler handler : handlers) {
+            this.handlers.put(handler.getJobType(), handler);
+        }
+    }
+
+    @Override
+    public ProcessingJob submit(String jobType, String payload, int priority, Long createdBy) {
+        return enqueue(jobType, payload, priority, createdBy, LocalDateTime.now());
+    }
+
+    @Override
+    public ProcessingJob submitDelayed(String jobType, String payload, int priority, long delayMs) {
+        return enqueue(jobType, payload, priority, null, LocalDateTime.now().plus(delayMs, ChronoUnit.MILLIS));
+    }
+
+    private ProcessingJob enqueue(String jobType, String payload, int priority, Long createdBy, LocalDateTime runAt) {
+        if (!handlers.containsKey(jobType)) {
+            throw new IllegalArgumentException("不支持的任务类型：" + jobType);
+        }
+        if (isSaturated()) {
+            throw new JobQueueSaturatedException("处理队列已满，请稍后重试");
+        }
+        ProcessingJob job = ProcessingJob.builder()
+                .jobType(jobType)
+                .payload(payload)
+                .priority(priority)
+                .createdBy(createdBy)
+                .nextRunAt(runAt)
+                .build();
+        ProcessingJob saved = jobRepository.save(job);
+        log.debug("任务已入队: {} #{}", jobType, saved.getId());
+        return saved;
+    }
+
+    @Override
+    public Optional<ProcessingJob> findJob(Long id) {
+        return jobRepository.findById(id);
+    }
+
+    @Override
+    public long countPendingJobs(String jobType) {
+        return jobRepository.countByJobTypeAndStatus(jobType, ProcessingJob.STATUS_PENDING);
+    }
+
+    @Override
+    public boolean isSaturated() {
+        return jobRepository.countByStatusIn(Arrays.asList(ProcessingJob.STATUS_PENDING,
+                ProcessingJob.STATUS_RUNNING)) >= maxQueued;
+    }
+
+    @Override
+    public JobQueueStatus getQueueStatus() {
+        long pending = jobRepository.countByStatus(ProcessingJob.STATUS_PENDING);
+        long running = jobRepository.countByStatus(ProcessingJob.STATUS_RUNNING);
+        Double averageDuration = jobRepository.averageSucceededDuration();
+        return JobQueueStatus.builder()
+                .pending(pending)
+                .running(running)
+                .succeeded(jobRepository.countByStatus(ProcessingJob.STATUS_SUCCEEDED))
+                .failed(jobRepository.countByStatus(ProcessingJob.STATUS_FAILED))
+                .capacity(maxQueued)
+                .saturated(pending + running >= maxQueued)
+                .averageDurationMs(averageDuration != null ? averageDuration : 0.0)
+                .localRunning(runningJobs.size())
+                .build();
+    }
+
+    @Override
+    public synchronized int pollAndDispatch() {
+        int free = concurrency - runningJobs.size();
+        if (free <= 0 || shuttingDown) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int claimed = 0;
+        for (Long jobId : jobRepository.findClaimableIds(now, PageRequest.of(0, free))) {
+            if (jobRepository.claim(jobId, workerId, now, now.plus(leaseMs, ChronoUnit.MILLIS)) == 0) {
+                // 已被其他实例领取
+                continue;
+            }
+            runningJobs.add(jobId);
+            try {
+                processingJobExecutor.execute(() -> run(jobId));
+                claimed++;
+            } catch (RejectedExecutionException e) {
+                runningJobs.remove(jobId);
+                jobRepository.release(jobId, workerId);
+                break;
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * 定时领取任务
+     */
+    @Scheduled(fixedDelayString = "${app.jobs.poll-interval-ms:2000}")
+    public void scheduledPoll() {
+        if (!workerEnabled) {
+            return;
+        }
+        try {
+            pollAndDispatch();
+        } catch (Exception e) {
+            log.warn("领取后台任务失败", e);
+        }
+    }
+
+    /**
+     * 为本实例执行中的任务续约
+     */
+    @Scheduled(fixedDelayString = "${app.jobs.lease-renew-interval-ms:20000}")
+    public void renewLeases() {
+        List<Long> jobIds = new ArrayList<>(runningJobs);
+        if (jobIds.isEmpty()) {
+            return;
+        }
+        try {
+            LocalDateTime leaseUntil = LocalDateTime.now().plus(leaseMs, ChronoUnit.MILLIS);
+            int renewed = jobRepository.renewLeases(jobIds, workerId, leaseUntil);
+            if (renewed < jobIds.size()) {
+                log.warn("部分任务续约失败（已结束或租约已被其他实例接管）: {}/{}", renewed, jobIds.size());
+            }
+        } catch (Exception e) {
+            log.warn("任务续约失败", e);
+        }
+    }
+
+    /**
+     * 清理保留期之前结束的任务
+     */
+    @Scheduled(cron = "${app.jobs.cleanup-cron:0 30 3 * * ?}")
+    public void purgeFinishedJobs() {
+        int deleted = jobRepository.deleteFinishedBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (deleted > 0) {
+            log.info("清理已结束的后台任务 {} 个", deleted);
+        }
+    }
+
+    /**
+     * 停止领取新任务；执行中的任务由线程池关闭时等待完成，未完成的在租约过期后由其他实例接管
+     */
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+    }
+
+    private void run(Long jobId) {
+        long startTime = System.currentTimeMillis();
+        ProcessingJob job = null;
+        try {
+            job = jobRepository.findById(jobId).orElse(null);
+            if (job == null) {
+                return;
+            }
+            ProcessingJobHandler handler = handlers.get(job.getJobType());
+            if (handler == null) {
+                jobRepository.finish(jobId, workerId, ProcessingJob.STATUS_FAILED, job.getProgress(),
+                        "不支持的任务类型：" + job.getJobType(), LocalDateTime.now(), 0);
+                return;
+            }
+            // 执行中的实例宕机也会计入执行次数，避免反复导致宕机的任务无限重试
+            if (job.getAttempts() > job.getMaxAttempts()) {
+                jobRepository.finish(jobId, workerId, ProcessingJob.STATUS_FAILED, job.getProgress(),
+                        abbreviate("超过最多执行次数" + (job.getMessage() != null ? "：" + job.getMessage() : "")),
+                        LocalDateTime.now(), 0);
+                return;
+            }
+
+            handler.handle(job.getPayload(), new LeasedJobContext(jobId));
+            jobRepository.finish(jobId, workerId, ProcessingJob.STATUS_SUCCEEDED, 100, null, LocalDateTime.now(),
+                    System.currentTimeMillis() - startTime);
+            log.debug("任务执行完成: {} #{}", job.getJobType(), jobId);
+        } catch (Exception e) {
+            onFailure(jobId, job, e, System.currentTimeMillis() - startTime);
+        } finally {
+            runningJobs.remove(jobId);
+        }
+    }
+
+    private void onFailure(Long jobId, ProcessingJob job, Exception e, long duration) {
+        String message = abbreviate(StringUtils.hasText(e.getMessage()) ? e.getMessage() : e.getClass().getName());
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            if (job != null && job.getAttempts() < job.getMaxAttempts()) {
+                long backoff = Math.min(maxRetryBackoffMs,
+                        retryBackoffMs << Math.min(20, Math.max(0, job.getAttempts() - 1)));
+                jobRepository.reschedule(jobId, workerId, message, now, now.plus(backoff, ChronoUnit.MILLIS),
+                        duration);
+                log.warn("任务执行失败，{}ms后重试: {} #{}", backoff, job.getJobType(), jobId, e);
+            } else {
+                jobRepository.finish(jobId, workerId, ProcessingJob.STATUS_FAILED,
+                        job != null ? job.getProgress() : 0, message, now, duration);
+                log.error("任务执行失败: #{}", jobId, e);
+            }
+        } catch (Exception updateError) {
+            // 状态未能写回时任务在租约过期后重新领取
+            log.error("更新任务状态失败: #{}", jobId, updateError);
+        }
+    }
+
+    private static String abbreviate(String message) {
+        return message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) : message;
+    }
+
+    /**
+     * 持有租约的执行上下文，汇报进度时顺带续约
+     */
+    private final class LeasedJobContext implements JobContext {
+
+        private final Long jobId;
+
+        LeasedJobContext(Long jobId) {
+            this.jobId = jobId;
+        }
+
+        @Override
+        public Long getJobId() {
+            return jobId;
+        }
+
+        @Override
+        public boolean reportProgress(int percent) {
+            LocalDateTime now = LocalDateTime.now();
+            return jobRepository.updateProgress(jobId, workerId, Math.max(0, Math.min(100, percent)), now,
+                    now.plus(leaseMs, ChronoUnit.MILLIS)) > 0;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.vote.sihuibackend.service.impl;
+
+import com.vote.sihuibackend.service.OssService;
+import com.vote.sihuibackend.service.SignedUrlService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 签名URL服务实现
+ * 缓存键为（对象名, 有效期档位），请求的有效期向上取整到档位，同一档位的请求共享签名。
+ * 签发时在档位基础上多签一段复用窗口，只要剩余有效期不少于本次请求的有效期就复用，
+ * 低于该阈值时才重新签名，因此调用方拿到的URL有效期始终不短于请求值。
+ *
+ * @author Sihui Team
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SignedUrlServiceImpl implements SignedUrlService {
+
+    private final OssService ossService;
+
+    private final Map<CacheKey, SignedUrl> cache = new ConcurrentHashMap<>();
+    private Clock clock = Clock.systemUTC();
+
+    /**
+     * 是否缓存签名URL
+     */
+    @Value("${app.storage.signed-url.cache-enabled:true}")
+    private boolean cacheEnabled = true;
+
+    /**
+     * 有效期档位（秒）
+     */
+    @Value("${app.storage.signed-url.bucket-seconds:300}")
+    private int bucketSeconds = 300;
+
+    /**
+     * 复用窗口占档位有效期的比例，签发的有效期为 档位 * (1 + 比例)
+     */
+    @Value("${app.storage.signed-url.reuse-ratio:0.25}")
+    private double reuseRatio = 0.25;
+
+    /**
+     * 最多缓存的签名数
+     */
+    @Value("${app.storage.signed-url.max-entries:10000}")
+    private int maxEntries = 10000;
+
+    /**
+     * 批量签名单次最多的文件数
+     */
+    @Value("${app.storage.signed-url.max-batch-size:100}")
+    private int maxBatchSize = 100;
+
+    @Override
+    public String getSignedUrl(String fileName, int expiredInSeconds) {
+        if (!StringUtils.hasText(fileName)) {
+            throw new IllegalArgumentException("文件名不能为空");
+        }
+        if (expiredInSeconds <= 0) {
+            throw new IllegalArgumentException("过期时间必须大于0");
+        }
+        if (!cacheEnabled) {
+            return ossService.getSignedUrl(fileName, expiredInSeconds);
+        }
+
+        long bucket = bucketOf(expiredInSeconds);
+        long requiredUntil = clock.millis() + expiredInSeconds * 1000L;
+        CacheKey key = new CacheKey(fileName, bucket);
+        SignedUrl cached = cache.get(key);
+        if (cached != null && cached.expiresAt >= requiredUntil) {
+            return cached.url;
+        }
+
+        // 并发的重签只保留一个结果，其余调用方复用
+        SignedUrl signed = cache.compute(key, (k, current) -> {
+            if (current != null && current.expiresAt >= requiredUntil) {
+                return current;
+            }
+            long validity = bucket + (long) Math.ceil(bucket * reuseRatio);
+            long issuedAt = clock.millis();
+            return new SignedUrl(ossService.getSignedUrl(fileName, (int) Math.min(validity, Integer.MAX_VALUE)),
+                    issuedAt + validity * 1000L);
+        });
+        if (cache.size() > maxEntries) {
+            evictStale();
+        }
+        return signed.url;
+    }
+
+    @Override
+    public Map<String, String> getSignedUrls(List<String> fileNames, int expiredInSeconds) {
+        if (fileNames == null || fileNames.isEmpty()) {
+            throw new IllegalArgumentException("文件列表不能为空");
+        }
+        if (fileNames.size() > maxBatchSize) {
+            throw new IllegalArgumentException("单次最多签名" + maxBatchSize + "个文件");
+        }
+        if (expiredInSeconds <= 0) {
+            throw new IllegalArgumentException("过期时间必须大于0");
+        }
+
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (String fileName : new LinkedHashSet<>(fileNames)) {
+            if (!StringUtils.hasText(fileName)) {
+                continue;
+            }
+            try {
+                urls.put(fileName, getSignedUrl(fileName, expiredInSeconds));
+            } catch (RuntimeException e) {
+                log.warn("批量签名中文件签名失败: {}", fileName, e);
+            }
+        }
+        return urls;
+    }
+
+    @Override
+    public void evict(String fileName) {
+        cache.keySet().removeIf(key -> key.fileName.equals(fileName));
+    }
+
+    private long bucketOf(int expiredInSeconds) {
+        long size = Math.max(1, bucketSeconds);
+        return (expiredInSeconds + size - 1) / size * size;
+    }
+
+    /**
+     * 超出容量时先移除已过期的签名，仍然超出则清空（下次请求重新签名）
+     */
+    private void evictStale() {
+        long now = clock.millis();
+        cache.values().removeIf(signed -> signed.expiresAt <= now);
+        if (cache.size() > maxEntries) {
+            log.info("签名URL缓存超出容量 {}，清空缓存", maxEntries);
+            cache.clear();
+        }
+    }
+
+    /**
+     * 缓存键：对象名和有效期档位
+     */
+    private static final class CacheKey {
+
+        private final String fileName;
+        private final long bucket;
+
+        CacheKey(String fileName, long bucket) {
+            this.fileName = fileName;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return bucket == other.bucket && fileName.equals(other.fileName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fileName, bucket);
+        }
+    }
+
+    /**
+     * 已签发的URL及其过期时间
+     */
+    private static final class SignedUrl {
+
+        private final String url;
+        private final long expiresAt;
+
+        SignedUrl(String url, long expiresAt) {
+            this.url = url;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package com.vote.sihuibackend.service.impl;
 
 import com.vote.sihuibackend.entity.Document;
+import com.vote.sihuibackend.entity.DocumentContent;
+import com.vote.sihuibackend.entity.DocumentTermVector;
+import com.vote.sihuibackend.repository.DocumentContentRepository;
 import com.vote.sihuibackend.repository.DocumentRepository;
+import com.vote.sihuibackend.repository.DocumentTermVectorRepository;
 import com.vote.sihuibackend.service.TextSearchService;
 import com.vote.sihuibackend.service.EnhancedCacheService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
@@ -17,6 +24,10 @@ import java.util.stream.Collectors;
 /**
  * 文本检索服务实现
  * 基于TF-IDF算法的高级文本检索功能
+ * 文档词频持久化在 document_term_vectors 表中：索引任务在任一实例上计算后保存，其他实例和重启后直接加载，
+ * 本地缓存只保存按当前IDF计算出的TF-IDF向量。
+ * IDF由文档频率快照直接计算：快照扫描一次持久化的词频统计每个词出现的文档数，索引变化后标记过期，
+ * 下次计算IDF时重新统计（两次统计之间至少间隔一段时间），不再为每个词单独扫描语料库
  * 
  * @author Sihui Team
  */
@@ -26,6 +37,8 @@ import java.util.stream.Collectors;
 public class TextSearchServiceImpl implements TextSearchService {
 
     private final DocumentRepository documentRepository;
+    private final DocumentContentRepository documentContentRepository;
+    private final DocumentTermVectorRepository documentTermVectorRepository;
     private final EnhancedCacheService cacheService;
 
     // 停用词集合
@@ -35,11 +48,26 @@ public class TextSearchServiceImpl implements TextSearchService {
             "老", "从", "时", "用", "地", "们", "出", "什么", "进", "如果", "开始", "那", "现在", "因为", "所以", "但是", "或者", "已经", "还是",
             "只是", "这样", "那样", "这里", "那里", "怎么", "为什么", "什么时候", "哪里", "哪个", "怎样", "等", "等等", "可能", "应该", "必须"));
 
-    // 缓存文档的TF-IDF向量
-    private final Map<Long, Map<String, Double>> documentVectors = new HashMap<>();
+    /**
+     * 文档频率快照的最长使用时间（毫秒）
+     */
+    @Value("${app.search.df-refresh-ms:600000}")
+    private long dfRefreshMs = 600000;
 
-    // 缓存IDF值
-    private final Map<String, Double> idfCache = new HashMap<>();
+    /**
+     * 索引变化后重新统计文档频率的最短间隔（毫秒），持续导入文档时限制扫描语料库的频率
+     */
+    @Value("${app.search.df-min-refresh-ms:30000}")
+    private long dfMinRefreshMs = 30000;
+
+    /**
+     * 统计文档频率时每批读取的词频向量数
+     */
+    @Value("${app.search.df-scan-batch-size:200}")
+    private int dfScanBatchSize = 200;
+
+    private volatile DocumentFrequencies documentFrequencies;
+    private volatile boolean documentFrequenciesStale;
 
     @Override
     public List<SearchResult> intelligentSearch(String query, int limit) {
@@ -61,28 +89,45 @@ public class TextSearchServiceImpl implements TextSearchService {
             }
 
             // 计算相关性分数
-            List<SearchResult> results = new ArrayList<>();
+            List<SearchResult> scored = new ArrayList<>();
             Map<String, Double> queryVector = generateQueryVector(queryTerms);
 
             for (Document doc : candidateDocuments) {
-                Map<String, Double> docVector = generateTfIdfVector(doc.getId());
-                double similarity = calculateCosineSimilarity(queryVector, docVector);
+                double similarity = scoreAgainstDocument(doc.getId(), queryVector);
 
                 if (similarity > 0.01) { // 过滤掉相关性太低的结果
-                    String highlightedContent = highlightKeywords(doc.getContent(), queryTerms);
-                    List<String> matchedKeywords = findMatchedKeywords(doc.getContent(), queryTerms);
-
-                    SearchResult result = new SearchResult(doc, similarity, highlightedContent, matchedKeywords);
-                    results.add(result);
+                    scored.add(new SearchResult(doc, similarity));
                 }
             }
 
             // 按相关性排序并限制结果数量
-            return results.stream()
+            List<SearchResult> topResults = scored.stream()
                     .sorted((r1, r2) -> Double.compare(r2.getRelevanceScore(), r1.getRelevanceScore()))
                     .limit(limit)
                     .collect(Collectors.toList());
 
+            // 只为返回的结果加载正文，用于高亮和构建对话上下文
+            Map<Long, String> contents = documentContentRepository.findAllById(topResults.stream()
+                    .map(result -> result.getDocument().getId())
+                    .collect(Collectors.toList()))
+                    .stream()
+                    .filter(content -> content.getContent() != null)
+                    .collect(Collectors.toMap(DocumentContent::getDocumentId, DocumentContent::getContent));
+
+            List<SearchResult> results = new ArrayList<>(topResults.size());
+            for (SearchResult scoredResult : topResults) {
+                // 候选文档可能来自缓存，复制后再填充正文
+                Document doc = new Document();
+                BeanUtils.copyProperties(scoredResult.getDocument(), doc);
+                doc.setContent(contents.get(doc.getId()));
+
+                String highlightedContent = highlightKeywords(doc.getContent(), queryTerms);
+                List<String> matchedKeywords = findMatchedKeywords(doc.getContent(), queryTerms);
+                results.add(new SearchResult(doc, scoredResult.getRelevanceScore(), highlightedContent,
+                        matchedKeywords));
+            }
+            return results;
+
         } catch (Exception e) {
             log.error("智能检索失败", e);
             return Collections.emptyList();
@@ -110,8 +155,7 @@ public class TextSearchServiceImpl implements TextSearchService {
 
             for (Document doc : allDocuments) {
                 if (!doc.getId().equals(documentId)) {
-                    Map<String, Double> docVector = generateTfIdfVector(doc.getId());
-                    double similarity = calculateCosineSimilarity(targetVector, docVector);
+                    double similarity = scoreAgainstDocument(doc.getId(), targetVector);
 
                     if (similarity > 0.05) { // 相似度阈值
                         SearchResult result = new SearchResult(doc, similarity);
@@ -134,10 +178,16 @@ public class TextSearchServiceImpl implements TextSearchService {
 
     @Override
     public double calculateDocumentSimilarity(Long doc1Id, Long doc2Id) {
+        Double cachedSimilarity = cacheService.getDocumentSimilarity(doc1Id, doc2Id);
+        if (cachedSimilarity != null) {
+            return cachedSimilarity;
+        }
+
         try {
             Map<String, Double> vector1 = generateTfIdfVector(doc1Id);
-            Map<String, Double> vector2 = generateTfIdfVector(doc2Id);
-            return calculateCosineSimilarity(vector1, vector2);
+            double similarity = scoreAgainstDocument(doc2Id, vector1);
+            cacheService.cacheDocumentSimilarity(doc1Id, doc2Id, similarity, 3600); // 1小时TTL
+            return similarity;
         } catch (Exception e) {
             log.error("计算文档相似度失败: {} vs {}", doc1Id, doc2Id, e);
             return 0.0;
@@ -152,44 +202,13 @@ public class TextSearchServiceImpl implements TextSearchService {
             return cachedVector;
         }
 
-        // 检查内存缓存
-        if (documentVectors.containsKey(documentId)) {
-            return documentVectors.get(documentId);
-        }
-
         try {
-            Optional<Document> docOpt = documentRepository.findById(documentId);
-            if (!docOpt.isPresent()) {
-                return Collections.emptyMap();
-            }
-
-            Document document = docOpt.get();
-            String content = document.getContent();
-
-            if (!StringUtils.hasText(content)) {
-                return Collections.emptyMap();
+            // 其他实例的索引任务可能已经计算并保存了词频
+            Optional<DocumentTermVector> persisted = documentTermVectorRepository.findById(documentId);
+            if (persisted.isPresent()) {
+                return cacheVector(documentId, persisted.get());
             }
-
-            // 预处理文本
-            List<String> terms = preprocessText(content);
-
-            // 计算TF值
-            Map<String, Double> tfMap = calculateTermFrequency(terms);
-
-            // 计算TF-IDF向量
-            Map<String, Double> tfidfVector = new HashMap<>();
-            for (Map.Entry<String, Double> entry : tfMap.entrySet()) {
-                String term = entry.getKey();
-                double tf = entry.getValue();
-                double idf = getIdfValue(term);
-                tfidfVector.put(term, tf * idf);
-            }
-
-            // 缓存结果到内存和增强缓存
-            documentVectors.put(documentId, tfidfVector);
-            cacheService.cacheTfIdfVector(documentId, tfidfVector, 3600); // 1小时TTL
-
-            return tfidfVector;
+            return indexDocument(documentId);
 
         } catch (Exception e) {
             log.error("生成TF-IDF向量失败: {}", documentId, e);
@@ -200,72 +219,186 @@ public class TextSearchServiceImpl implements TextSearchService {
     @Override
     public void updateDocumentIndex(Long documentId) {
         // 清除所有相关缓存，强制重新计算
-        documentVectors.remove(documentId);
         cacheService.invalidateDocumentCache(documentId);
-        generateTfIdfVector(documentId);
+        reindexDocument(documentId);
+        documentFrequenciesStale = true;
+    }
+
+    @Override
+    public void updateDocumentIndexes(List<Long> documentIds) {
+        long startTime = System.currentTimeMillis();
+        for (Long documentId : documentIds) {
+            cacheService.invalidateDocumentCache(documentId);
+        }
+        for (Long documentId : documentIds) {
+            reindexDocument(documentId);
+        }
+        documentFrequenciesStale = true;
+        log.info("完成批量更新 {} 个文档的TF-IDF索引，耗时: {}ms", documentIds.size(),
+                System.currentTimeMillis() - startTime);
+    }
+
+    @Override
+    public void copyDocumentIndex(Long sourceDocumentId, Long targetDocumentId) {
+        Optional<DocumentTermVector> source = documentTermVectorRepository.findById(sourceDocumentId);
+        if (!source.isPresent()) {
+            generateTfIdfVector(sourceDocumentId);
+            source = documentTermVectorRepository.findById(sourceDocumentId);
+        }
+        if (!source.isPresent()) {
+            return;
+        }
+        // 内容相同则词频相同，直接复制持久化的词频
+        DocumentTermVector copy = documentTermVectorRepository.save(DocumentTermVector.builder()
+                .documentId(targetDocumentId)
+                .termCounts(source.get().getTermCounts())
+                .termTotal(source.get().getTermTotal())
+                .build());
+        cacheVector(targetDocumentId, copy);
+        documentFrequenciesStale = true;
+    }
+
+    @Override
+    public boolean hasDocumentIndex(Long documentId) {
+        return cacheService.getTfIdfVector(documentId) != null || documentTermVectorRepository.existsById(documentId);
+    }
+
+    @Override
+    public void removeDocumentIndex(Long documentId) {
+        if (documentTermVectorRepository.existsById(documentId)) {
+            documentTermVectorRepository.deleteById(documentId);
+        }
+        cacheService.invalidateDocumentCache(documentId);
+        documentFrequenciesStale = true;
     }
 
     @Override
     public void rebuildAllIndexes() {
         log.info("开始重建所有文档的TF-IDF索引");
 
-        // 清除所有缓存
-        documentVectors.clear();
-        idfCache.clear();
-
-        // 重新计算所有文档的向量
+        // 清除所有缓存，重新计算并保存所有文档的词频
+        cacheService.invalidateAllTfIdfCache();
         List<Document> allDocuments = documentRepository.findByStatus("ACTIVE");
         for (Document doc : allDocuments) {
-            generateTfIdfVector(doc.getId());
+            reindexDocument(doc.getId());
         }
 
+        // 按新的文档频率重新计算权重
+        refreshDocumentFrequencies();
+        cacheService.invalidateAllTfIdfCache();
+
         log.info("完成重建 {} 个文档的TF-IDF索引", allDocuments.size());
     }
 
-    @Override
-    public double getIdfValue(String term) {
-        // 首先检查增强缓存
-        Double cachedIdf = cacheService.getIdfValue(term);
-        if (cachedIdf != null) {
-            return cachedIdf;
+    /**
+     * 重新分词并保存文档的词频，失败时记录日志，不影响同批其他文档
+     */
+    private void reindexDocument(Long documentId) {
+        try {
+            indexDocument(documentId);
+        } catch (Exception e) {
+            log.error("更新文档索引失败: {}", documentId, e);
         }
+    }
 
-        // 检查内存缓存
-        if (idfCache.containsKey(term)) {
-            return idfCache.get(term);
+    /**
+     * 读取正文分词，保存词频并缓存TF-IDF向量
+     */
+    private Map<String, Double> indexDocument(Long documentId) {
+        String content = documentContentRepository.findContent(documentId).orElse(null);
+        if (!StringUtils.hasText(content)) {
+            return Collections.emptyMap();
         }
 
-        try {
-            // 获取包含该词的文档数量
-            long documentsContainingTerm = documentRepository.findByStatus("ACTIVE").stream()
-                    .mapToLong(doc -> {
-                        String content = doc.getContent();
-                        if (StringUtils.hasText(content)) {
-                            List<String> terms = preprocessText(content);
-                            return terms.contains(term) ? 1 : 0;
-                        }
-                        return 0;
-                    })
-                    .sum();
-
-            // 总文档数
-            long totalDocuments = documentRepository.countByStatus("ACTIVE");
-
-            // 计算IDF值
-            double idf = documentsContainingTerm > 0
-                    ? Math.log((double) totalDocuments / documentsContainingTerm)
-                    : 0.0;
+        Map<String, Integer> counts = new HashMap<>();
+        for (String term : preprocessText(content)) {
+            counts.merge(term, 1, Integer::sum);
+        }
+        if (counts.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        DocumentTermVector termVector = documentTermVectorRepository.save(DocumentTermVector.of(documentId, counts));
+        return cacheVector(documentId, termVector);
+    }
 
-            // 缓存结果到内存和增强缓存
-            idfCache.put(term, idf);
-            cacheService.cacheIdfValue(term, idf, 7200); // 2小时TTL
+    /**
+     * 按当前的文档频率计算TF-IDF向量，缓存到增强缓存（可配置为堆外存储，不在本服务中另存一份）
+     */
+    private Map<String, Double> cacheVector(Long documentId, DocumentTermVector termVector) {
+        int total = termVector.getTermTotal() != null ? termVector.getTermTotal() : 0;
+        Map<String, Double> tfidfVector = new HashMap<>();
+        if (total > 0) {
+            for (Map.Entry<String, Integer> entry : termVector.counts().entrySet()) {
+                double tf = (double) entry.getValue() / total;
+                tfidfVector.put(entry.getKey(), tf * getIdfValue(entry.getKey()));
+            }
+        }
+        cacheService.cacheTfIdfVector(documentId, tfidfVector, 3600); // 1小时TTL
+        return tfidfVector;
+    }
 
-            return idf;
+    @Override
+    public double getIdfValue(String term) {
+        return currentDocumentFrequencies().idf(term);
+    }
 
+    /**
+     * 取当前的文档频率快照，快照不存在或已过期时重新统计
+     */
+    private DocumentFrequencies currentDocumentFrequencies() {
+        DocumentFrequencies snapshot = documentFrequencies;
+        if (snapshot != null && !needsRefresh(snapshot)) {
+            return snapshot;
+        }
+        synchronized (this) {
+            snapshot = documentFrequencies;
+            if (snapshot == null || needsRefresh(snapshot)) {
+                snapshot = refreshDocumentFrequencies();
+            }
+            return snapshot;
+        }
+    }
+
+    private boolean needsRefresh(DocumentFrequencies snapshot) {
+        long age = System.currentTimeMillis() - snapshot.builtAt;
+        return age > dfRefreshMs || (documentFrequenciesStale && age > dfMinRefreshMs);
+    }
+
+    /**
+     * 分批扫描一次有效文档的词频向量，统计每个词出现的文档数；尚未建立索引的文档不计入
+     * 统计失败时保留旧快照，没有旧快照时使用空快照，等到下次过期再重试
+     */
+    private synchronized DocumentFrequencies refreshDocumentFrequencies() {
+        long startTime = System.currentTimeMillis();
+        documentFrequenciesStale = false;
+        try {
+            Map<String, Integer> frequencies = new HashMap<>();
+            int totalDocuments = 0;
+            long afterId = 0;
+            List<DocumentTermVector> batch;
+            do {
+                batch = documentTermVectorRepository.findByDocumentStatusAfter("ACTIVE", afterId,
+                        PageRequest.of(0, dfScanBatchSize));
+                for (DocumentTermVector termVector : batch) {
+                    afterId = termVector.getDocumentId();
+                    totalDocuments++;
+                    for (String term : termVector.counts().keySet()) {
+                        frequencies.merge(term, 1, Integer::sum);
+                    }
+                }
+            } while (batch.size() == dfScanBatchSize);
+
+            documentFrequencies = new DocumentFrequencies(frequencies, totalDocuments, startTime);
+            log.info("完成文档频率统计：{} 个文档，{} 个词，耗时: {}ms", totalDocuments, frequencies.size(),
+                    System.currentTimeMillis() - startTime);
         } catch (Exception e) {
-            log.error("计算IDF值失败: {}", term, e);
-            return 0.0;
+            log.error("统计文档频率失败", e);
+            DocumentFrequencies previous = documentFrequencies;
+            documentFrequencies = new DocumentFrequencies(
+                    previous != null ? previous.frequencies : Collections.emptyMap(),
+                    previous != null ? previous.totalDocuments : 0, startTime);
         }
+        return documentFrequencies;
     }
 
     /**
@@ -342,6 +475,17 @@ public class TextSearchServiceImpl implements TextSearchService {
         return (norm1 > 0 && norm2 > 0) ? dotProduct / (norm1 * norm2) : 0.0;
     }
 
+    /**
+     * 计算文档与给定向量的相似度，优先直接使用缓存中的文档向量计算
+     */
+    private double scoreAgainstDocument(Long documentId, Map<String, Double> vector) {
+        Double score = cacheService.scoreTfIdfVector(documentId, vector);
+        if (score != null) {
+            return score;
+        }
+        return calculateCosineSimilarity(vector, generateTfIdfVector(documentId));
+    }
+
     /**
      * 生成查询向量
      */
@@ -420,4 +564,26 @@ public class TextSearchServiceImpl implements TextSearchService {
 
         return matched;
     }
-}
\ No newline at end of file
+
+    /**
+     * 文档频率快照，创建后不再修改
+     */
+    private static final class DocumentFrequencies {
+        private final Map<String, Integer> frequencies;
+        private final int totalDocuments;
+        private final long builtAt;
+
+        DocumentFrequencies(Map<String, Integer> frequencies, int totalDocuments, long builtAt) {
+            this.frequencies = frequencies;
+            this.totalDocuments = totalDocuments;
+            this.builtAt = builtAt;
+        }
+
+        double idf(String term) {
+            int documentsContainingTerm = frequencies.getOrDefault(term, 0);
+            return documentsContainingTerm > 0
+                    ? Math.log((double) totalDocuments / documentsContainingTerm)
+                    : 0.0;
+        }
+    }
+}
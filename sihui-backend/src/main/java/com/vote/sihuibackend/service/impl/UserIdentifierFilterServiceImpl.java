@@ -0,0 +1,244 @@
+package com.vote.sihuibackend.service.impl;
+
+import com.vote.sihuibackend.cache.BloomFilter;
+import com.vote.sihuibackend.entity.User;
+import com.vote.sihuibackend.repository.UserRepository;
+import com.vote.sihuibackend.service.UserIdentifierFilterService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户登录标识过滤服务实现
+ * 为用户名、邮箱、手机号各维护一个布隆过滤器。过滤器在启动后异步构建，用户增删改时同步更新；
+ * 删除和修改留下的旧值在重建时清除。由于多实例部署时其他实例的写入不会同步到本地过滤器，过滤器按固定间隔自动重建。
+ *
+ * @author Sihui Team
+ */
+@Service
+@Slf4j
+public class UserIdentifierFilterServiceImpl implements UserIdentifierFilterService {
+
+    private static final int SCAN_BATCH_SIZE = 1000;
+
+    private final UserRepository userRepository;
+    private final Executor rebuildExecutor;
+
+    @Value("${app.user.identifier-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.user.identifier-filter.expected-insertions:100000}")
+    private long expectedInsertions;
+
+    @Value("${app.user.identifier-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.user.identifier-filter.rebuild-interval:PT30M}")
+    private Duration rebuildInterval;
+
+    /**
+     * 已失效的值（删除或修改前的旧值）超过已插入值的该比例时自动重建
+     */
+    @Value("${app.user.identifier-filter.stale-ratio:0.2}")
+    private double staleRatio;
+
+    private volatile Filters filters;
+    private volatile Filters rebuilding;
+    private volatile LocalDateTime lastBuiltAt;
+    private final AtomicBoolean rebuildInProgress = new AtomicBoolean(false);
+    private final AtomicLong staleValues = new AtomicLong(0);
+    private final AtomicLong skippedQueries = new AtomicLong(0);
+    private final AtomicLong passedQueries = new AtomicLong(0);
+
+    public UserIdentifierFilterServiceImpl(UserRepository userRepository,
+            @Qualifier("taskExecutor") Executor rebuildExecutor) {
+        this.userRepository = userRepository;
+        this.rebuildExecutor = rebuildExecutor;
+    }
+
+    /**
+     * 应用启动完成后异步构建过滤器，构建完成前所有检查都回退到数据库
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            rebuildAsync();
+        }
+    }
+
+    @Override
+    public boolean mightExist(Field field, String value) {
+        Filters current = filters;
+        if (!enabled || current == null || !StringUtils.hasText(value)) {
+            return true;
+        }
+        scheduleRebuildIfNeeded(current);
+        if (current.get(field).mightContain(normalize(value))) {
+            passedQueries.incrementAndGet();
+            return true;
+        }
+        skippedQueries.incrementAndGet();
+        return false;
+    }
+
+    @Override
+    public void recordUser(User user) {
+        // 重建期间的写入同时记入新过滤器，避免扫描已越过该ID时漏掉；先读新过滤器，保证切换前后都不会遗漏
+        Filters next = rebuilding;
+        if (next != null) {
+            next.add(user.getUsername(), user.getEmail(), user.getPhone());
+        }
+        Filters current = filters;
+        if (current != null && current != next) {
+            current.add(user.getUsername(), user.getEmail(), user.getPhone());
+        }
+    }
+
+    @Override
+    public void recordRemoved(String... values) {
+        for (String value : values) {
+            if (StringUtils.hasText(value)) {
+                staleValues.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> rebuild() {
+        if (!rebuildInProgress.compareAndSet(false, true)) {
+            log.info("用户标识过滤器正在重建中，跳过本次请求");
+            return getStats();
+        }
+        try {
+            long startTime = System.currentTimeMillis();
+            long expected = Math.max(expectedInsertions, userRepository.count() * 2);
+            Filters next = new Filters(expected, falsePositiveRate);
+            rebuilding = next;
+            long staleBefore = staleValues.get();
+
+            long lastId = 0L;
+            long scanned = 0;
+            List<Object[]> batch;
+            do {
+                batch = userRepository.findIdentifiersAfter(lastId, PageRequest.of(0, SCAN_BATCH_SIZE));
+                for (Object[] row : batch) {
+                    lastId = (Long) row[0];
+                    next.add((String) row[1], (String) row[2], (String) row[3]);
+                }
+                scanned += batch.size();
+            } while (batch.size() == SCAN_BATCH_SIZE);
+
+            filters = next;
+            rebuilding = null;
+            staleValues.addAndGet(-staleBefore);
+            lastBuiltAt = LocalDateTime.now();
+            log.info("用户标识过滤器重建完成 - Users: {}, Expected: {}, Time: {}ms",
+                    scanned, expected, System.currentTimeMillis() - startTime);
+        } catch (RuntimeException e) {
+            rebuilding = null;
+            log.error("用户标识过滤器重建失败", e);
+            throw e;
+        } finally {
+            rebuildInProgress.set(false);
+        }
+        return getStats();
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Filters current = filters;
+        stats.put("enabled", enabled);
+        stats.put("ready", current != null);
+        stats.put("rebuilding", rebuildInProgress.get());
+        stats.put("lastBuiltAt", lastBuiltAt);
+        stats.put("staleValues", staleValues.get());
+        stats.put("skippedQueries", skippedQueries.get());
+        stats.put("passedQueries", passedQueries.get());
+        if (current != null) {
+            for (Field field : Field.values()) {
+                BloomFilter filter = current.get(field);
+                Map<String, Object> fieldStats = new LinkedHashMap<>();
+                fieldStats.put("insertions", filter.getInsertions());
+                fieldStats.put("bits", filter.getBitCount());
+                fieldStats.put("hashFunctions", filter.getHashFunctions());
+                fieldStats.put("expectedFalsePositiveRate", filter.expectedFalsePositiveRate());
+                stats.put(field.name().toLowerCase(Locale.ROOT), fieldStats);
+            }
+        }
+        return stats;
+    }
+
+    private void scheduleRebuildIfNeeded(Filters current) {
+        boolean expired = lastBuiltAt != null
+                && lastBuiltAt.plus(rebuildInterval).isBefore(LocalDateTime.now());
+        boolean tooStale = staleValues.get() > current.get(Field.USERNAME).getInsertions() * staleRatio;
+        if ((expired || tooStale) && !rebuildInProgress.get()) {
+            rebuildAsync();
+        }
+    }
+
+    private void rebuildAsync() {
+        try {
+            rebuildExecutor.execute(() -> {
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    // 已在rebuild中记录，过滤器保持旧状态
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("用户标识过滤器重建任务被拒绝，稍后重试");
+        }
+    }
+
+    /**
+     * 数据库默认排序规则不区分大小写，写入和查询前统一转为小写
+     */
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Filters {
+        private final Map<Field, BloomFilter> byField = new EnumMap<>(Field.class);
+
+        private Filters(long expectedInsertions, double falsePositiveRate) {
+            for (Field field : Field.values()) {
+                byField.put(field, new BloomFilter(expectedInsertions, falsePositiveRate));
+            }
+        }
+
+        private BloomFilter get(Field field) {
+            return byField.get(field);
+        }
+
+        private void add(String username, String email, String phone) {
+            put(Field.USERNAME, username);
+            put(Field.EMAIL, email);
+            put(Field.PHONE, phone);
+        }
+
+        private void put(Field field, String value) {
+            if (StringUtils.hasText(value)) {
+                byField.get(field).put(normalize(value));
+            }
+        }
+    }
+}
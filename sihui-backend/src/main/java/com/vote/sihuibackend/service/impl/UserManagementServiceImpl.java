@@ -1,5 +1,6 @@
 package com.vote.sihuibackend.service.impl;
 
+import com.vote.sihuibackend.cache.UserCacheTags;
 import com.vote.sihuibackend.dto.UserCreateRequest;
 import com.vote.sihuibackend.dto.UserUpdateRequest;
 import com.vote.sihuibackend.dto.UserResponse;
@@ -7,6 +8,9 @@ import com.vote.sihuibackend.entity.Role;
 import com.vote.sihuibackend.entity.User;
 import com.vote.sihuibackend.repository.RoleRepository;
 import com.vote.sihuibackend.repository.UserRepository;
+import com.vote.sihuibackend.service.CacheTagService;
+import com.vote.sihuibackend.service.UserIdentifierFilterService;
+import com.vote.sihuibackend.service.UserIdentifierFilterService.Field;
 import com.vote.sihuibackend.service.UserManagementService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +30,8 @@ import java.util.stream.Collectors;
 /**
  * 用户管理服务实现类
  * 优化版本：添加缓存支持、批量操作优化、性能改进
+ * 写操作按实体标签（用户ID、角色、状态、登录标识）精确失效缓存，不再整表清空
+ * 用户名、邮箱、手机号的存在性检查先经过布隆过滤器，判定不存在时不查询数据库
  */
 @Service
 @RequiredArgsConstructor
@@ -36,9 +42,10 @@ public class UserManagementServiceImpl implements UserManagementService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CacheTagService cacheTagService;
+    private final UserIdentifierFilterService identifierFilter;
 
     @Override
-    @CacheEvict(value = { "users", "usersByStatus", "usersByRole", "userStats" }, allEntries = true)
     public UserResponse createUser(UserCreateRequest request) {
         log.info("Creating user with username: {}", request.getUsername());
 
@@ -69,6 +76,11 @@ public class UserManagementServiceImpl implements UserManagementService {
 
         User savedUser = userRepository.save(user);
         log.info("User created successfully with ID: {}", savedUser.getId());
+        identifierFilter.recordUser(savedUser);
+
+        Set<String> cacheTags = cacheTagsOf(savedUser);
+        cacheTags.add(UserCacheTags.USER_SET);
+        cacheTagService.evictTags(cacheTags);
 
         return convertToResponse(savedUser);
     }
@@ -98,13 +110,18 @@ public class UserManagementServiceImpl implements UserManagementService {
     }
 
     @Override
-    @CacheEvict(value = { "users", "usersByStatus", "usersByRole", "userStats" }, allEntries = true)
     public UserResponse updateUser(Long id, UserUpdateRequest request) {
         log.info("Updating user with ID: {}", id);
 
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("用户不存在: " + id));
 
+        // 记录变更前的标签，旧邮箱、旧状态、旧角色对应的缓存条目同样需要失效
+        Set<String> cacheTags = cacheTagsOf(user);
+        User.UserStatus previousStatus = user.getStatus();
+        String previousEmail = user.getEmail();
+        String previousPhone = user.getPhone();
+
         // 批量验证唯一性（排除当前用户）
         if (hasFieldChanges(user, request)) {
             validateUserUniqueness(
@@ -124,21 +141,37 @@ public class UserManagementServiceImpl implements UserManagementService {
 
         User updatedUser = userRepository.save(user);
         log.info("User updated successfully: {}", updatedUser.getId());
+        if (!Objects.equals(previousEmail, updatedUser.getEmail())
+                || !Objects.equals(previousPhone, updatedUser.getPhone())) {
+            identifierFilter.recordUser(updatedUser);
+            identifierFilter.recordRemoved(
+                    Objects.equals(previousEmail, updatedUser.getEmail()) ? null : previousEmail,
+                    Objects.equals(previousPhone, updatedUser.getPhone()) ? null : previousPhone);
+        }
+
+        cacheTags.addAll(cacheTagsOf(updatedUser));
+        if (previousStatus != updatedUser.getStatus()) {
+            cacheTags.add(UserCacheTags.USER_SET);
+        }
+        cacheTagService.evictTags(cacheTags);
 
         return convertToResponse(updatedUser);
     }
 
     @Override
-    @CacheEvict(value = { "users", "usersByStatus", "usersByRole", "userStats" }, allEntries = true)
     public void deleteUser(Long id) {
         log.info("Deleting user with ID: {}", id);
 
-        if (!userRepository.existsById(id)) {
-            throw new IllegalArgumentException("用户不存在: " + id);
-        }
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("用户不存在: " + id));
+        Set<String> cacheTags = cacheTagsOf(user);
+        cacheTags.add(UserCacheTags.USER_SET);
 
-        userRepository.deleteById(id);
+        userRepository.delete(user);
         log.info("User deleted successfully: {}", id);
+        identifierFilter.recordRemoved(user.getUsername(), user.getEmail(), user.getPhone());
+
+        cacheTagService.evictTags(cacheTags);
     }
 
     @Override
@@ -180,7 +213,6 @@ public class UserManagementServiceImpl implements UserManagementService {
     }
 
     @Override
-    @CacheEvict(value = { "users", "usersByStatus", "usersByRole", "userStats" }, allEntries = true)
     public void deleteUsersBatch(List<Long> userIds) {
         log.info("Batch deleting users: {}", userIds);
 
@@ -194,13 +226,19 @@ public class UserManagementServiceImpl implements UserManagementService {
             throw new IllegalArgumentException("用户不存在: " + missingIds);
         }
 
+        Set<String> cacheTags = new HashSet<>();
+        cacheTags.add(UserCacheTags.USER_SET);
+        users.forEach(user -> cacheTags.addAll(cacheTagsOf(user)));
+
         // 批量删除
         userRepository.deleteAllInBatch(users);
         log.info("Batch deleted {} users", userIds.size());
+        users.forEach(user -> identifierFilter.recordRemoved(user.getUsername(), user.getEmail(), user.getPhone()));
+
+        cacheTagService.evictTags(cacheTags);
     }
 
     @Override
-    @CacheEvict(value = { "usersByRole", "userPermissions" }, allEntries = true)
     public void assignRolesToUser(Long userId, List<Long> roleIds) {
         log.info("Assigning roles {} to user {}", roleIds, userId);
 
@@ -226,13 +264,17 @@ public class UserManagementServiceImpl implements UserManagementService {
             currentRoles.addAll(newRoles);
             userRepository.save(user);
             log.info("Added {} new roles to user {}", newRoles.size(), userId);
+
+            Set<String> cacheTags = new HashSet<>();
+            cacheTags.add(UserCacheTags.user(userId));
+            newRoles.forEach(role -> addRoleTags(cacheTags, role));
+            cacheTagService.evictTags(cacheTags);
         } else {
             log.info("No new roles to add for user {}", userId);
         }
     }
 
     @Override
-    @CacheEvict(value = { "usersByRole", "userPermissions" }, allEntries = true)
     public void removeRolesFromUser(Long userId, List<Long> roleIds) {
         log.info("Removing roles {} from user {}", roleIds, userId);
 
@@ -245,29 +287,37 @@ public class UserManagementServiceImpl implements UserManagementService {
                 .filter(role -> !roleIdSet.contains(role.getId()))
                 .collect(Collectors.toSet());
 
+        Set<String> cacheTags = new HashSet<>();
+        cacheTags.add(UserCacheTags.user(userId));
+        user.getRoles().stream()
+                .filter(role -> roleIdSet.contains(role.getId()))
+                .forEach(role -> addRoleTags(cacheTags, role));
+
         int removedCount = user.getRoles().size() - rolesToKeep.size();
         user.setRoles(rolesToKeep);
         userRepository.save(user);
 
         log.info("Removed {} roles from user {}", removedCount, userId);
+
+        cacheTagService.evictTags(cacheTags);
     }
 
     @Override
     @Transactional(readOnly = true)
     public boolean existsByUsername(String username) {
-        return userRepository.existsByUsername(username);
+        return identifierFilter.mightExist(Field.USERNAME, username) && userRepository.existsByUsername(username);
     }
 
     @Override
     @Transactional(readOnly = true)
     public boolean existsByEmail(String email) {
-        return userRepository.existsByEmail(email);
+        return identifierFilter.mightExist(Field.EMAIL, email) && userRepository.existsByEmail(email);
     }
 
     @Override
     @Transactional(readOnly = true)
     public boolean existsByPhone(String phone) {
-        return userRepository.existsByPhone(phone);
+        return identifierFilter.mightExist(Field.PHONE, phone) && userRepository.existsByPhone(phone);
     }
 
     @Override
@@ -293,6 +343,7 @@ public class UserManagementServiceImpl implements UserManagementService {
 
     /**
      * 批量验证用户唯一性
+     * 总是查询数据库：各实例的布隆过滤器只在重建时才包含其他实例新建的用户，不能据此跳过检查
      */
     private void validateUserUniqueness(String username, String email, String phone, Long excludeUserId) {
         List<String> errors = new ArrayList<>();
@@ -325,6 +376,24 @@ public class UserManagementServiceImpl implements UserManagementService {
         }
     }
 
+    /**
+     * 计算用户相关缓存条目的标签（用户ID、状态、登录标识、角色）
+     */
+    private Set<String> cacheTagsOf(User user) {
+        Set<String> tags = UserCacheTags.tagsOf(user);
+        if (user.getRoles() != null) {
+            user.getRoles().forEach(role -> addRoleTags(tags, role));
+        }
+        return tags;
+    }
+
+    private void addRoleTags(Set<String> tags, Role role) {
+        tags.add(UserCacheTags.role(role.getId()));
+        if (role.getName() != null) {
+            tags.add(UserCacheTags.roleName(role.getName()));
+        }
+    }
+
     /**
      * 检查是否有字段变更
      */
@@ -0,0 +1,97 @@
+package com.vote.sihuibackend.util;
+
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+/**
+ * 存储文件命名工具类
+ * OSS和本地存储共用的对象名生成、扩展名和Content-Type推断
+ */
+public final class StorageFileUtil {
+
+    private StorageFileUtil() {
+    }
+
+    /**
+     * 生成唯一文件名
+     */
+    public static String generateFileName(String originalFileName, String folder) {
+        String extension = getFileExtension(originalFileName);
+        String uuid = UUID.randomUUID().toString().replace("-", "");
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+
+        String fileName = timestamp + "_" + uuid + "." + extension;
+
+        if (StringUtils.hasText(folder)) {
+            return folder + "/" + fileName;
+        }
+
+        return fileName;
+    }
+
+    /**
+     * 获取文件扩展名
+     */
+    public static String getFileExtension(String fileName) {
+        if (!StringUtils.hasText(fileName)) {
+            return "";
+        }
+
+        int lastDotIndex = fileName.lastIndexOf(".");
+        if (lastDotIndex == -1) {
+            return "";
+        }
+
+        return fileName.substring(lastDotIndex + 1);
+    }
+
+    /**
+     * 根据文件扩展名获取Content-Type
+     */
+    public static String getContentType(String fileName) {
+        String extension = getFileExtension(fileName).toLowerCase();
+
+        switch (extension) {
+            case "jpg":
+            case "jpeg":
+                return "image/jpeg";
+            case "png":
+                return "image/png";
+            case "gif":
+                return "image/gif";
+            case "pdf":
+                return "application/pdf";
+            case "doc":
+                return "application/msword";
+            case "docx":
+                return "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+            case "xls":
+                return "application/vnd.ms-excel";
+            case "xlsx":
+                return "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+            case "ppt":
+                return "application/vnd.ms-powerpoint";
+            case "pptx":
+                return "application/vnd.openxmlformats-officedocument.presentationml.presentation";
+            case "txt":
+                return "text/plain";
+            case "mp4":
+                return "video/mp4";
+            case "avi":
+                return "video/x-msvideo";
+            case "mov":
+                return "video/quicktime";
+            case "wmv":
+                return "video/x-ms-wmv";
+            case "flv":
+                return "video/x-flv";
+            case "mkv":
+                return "video/x-matroska";
+            default:
+                return "application/octet-stream";
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.vote.sihuibackend.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 文本压缩工具类
+ * 压缩结果首字节为编码标识：
+ * <ul>
+ * <li>{@link #RAW}：其后为UTF-8原文，用于短文本或压缩后不变小的文本</li>
+ * <li>{@link #DEFLATE}：其后与MySQL COMPRESS()的输出格式相同（4字节小端原文长度 + zlib数据），
+ * 数据库迁移可直接用 COMPRESS() 转换已有数据（其结果末尾可能多出的 "." 会被忽略）</li>
+ * </ul>
+ */
+public final class TextCompressionUtil {
+
+    public static final byte RAW = 0;
+    public static final byte DEFLATE = 1;
+
+    /**
+     * 小于该字节数的文本不压缩
+     */
+    private static final int MIN_COMPRESS_BYTES = 256;
+    private static final int BUFFER_SIZE = 8192;
+
+    private TextCompressionUtil() {
+    }
+
+    /**
+     * 压缩文本
+     */
+    public static byte[] compress(String text) {
+        if (text == null) {
+            return null;
+        }
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        if (raw.length >= MIN_COMPRESS_BYTES) {
+            byte[] deflated = deflate(raw);
+            if (deflated.length < raw.length) {
+                return deflated;
+            }
+        }
+        byte[] result = new byte[raw.length + 1];
+        result[0] = RAW;
+        System.arraycopy(raw, 0, result, 1, raw.length);
+        return result;
+    }
+
+    /**
+     * 解压由 {@link #compress(String)} 生成的数据
+     */
+    public static String decompress(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length == 0) {
+            return "";
+        }
+        switch (data[0]) {
+            case RAW:
+                return new String(data, 1, data.length - 1, StandardCharsets.UTF_8);
+            case DEFLATE:
+                return new String(inflate(data), StandardCharsets.UTF_8);
+            default:
+                throw new IllegalArgumentException("未知的文本压缩格式：" + data[0]);
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 3 + 16);
+            out.write(DEFLATE);
+            out.write(raw.length & 0xFF);
+            out.write((raw.length >>> 8) & 0xFF);
+            out.write((raw.length >>> 16) & 0xFF);
+            out.write((raw.length >>> 24) & 0xFF);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data) {
+        // MySQL COMPRESS('') 的结果为空串，此处对应只有标识字节的情况
+        if (data.length < 5) {
+            return new byte[0];
+        }
+        int length = (data[1] & 0xFF) | (data[2] & 0xFF) << 8 | (data[3] & 0xFF) << 16 | (data[4] & 0xFF) << 24;
+        if (length < 0) {
+            throw new IllegalArgumentException("压缩文本长度无效：" + length);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, 5, data.length - 5);
+            byte[] raw = new byte[length];
+            int offset = 0;
+            while (offset < length && !inflater.finished()) {
+                int n = inflater.inflate(raw, offset, length - offset);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += n;
+            }
+            if (offset != length) {
+                throw new IllegalArgumentException("压缩文本已损坏：" + offset + "/" + length);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("压缩文本已损坏", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
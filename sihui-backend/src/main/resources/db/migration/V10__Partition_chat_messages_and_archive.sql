@@ -0,0 +1,77 @@
+-- 聊天消息按月分区，长期不活跃的会话归档到压缩的冷存储表
+-- V3 建的消息表与实体不一致：session_id 是会话字符串ID、时间列是 created_at。这里先对齐到实体：
+-- session_id 改为 chat_sessions.id，新增 timestamp 列并用 created_at 回填；sequence_number 由应用按时间排序代替，改为可空
+-- 分区表不支持外键，且主键必须包含分区列：去掉 session_id 外键（删除会话时由应用先删除消息），主键改为 (id, timestamp)
+-- 按现有消息的时间范围逐月建分区（pYYYYMM，与应用按月追加分区的命名一致），p_future 兜底；之后的月份分区由应用每天检查并提前创建
+
+-- 去掉消息表上的外键（约束名由建表时自动生成，按实际名称删除）
+SET @fk_name := (SELECT CONSTRAINT_NAME FROM information_schema.TABLE_CONSTRAINTS
+                 WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'chat_messages'
+                   AND CONSTRAINT_TYPE = 'FOREIGN KEY' LIMIT 1);
+SET @sql := IF(@fk_name IS NULL, 'DO 0', CONCAT('ALTER TABLE chat_messages DROP FOREIGN KEY `', @fk_name, '`'));
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 会话引用改为会话数据库ID，消息时间改为 timestamp 列
+ALTER TABLE chat_messages
+    ADD COLUMN session_ref BIGINT NULL COMMENT '会话数据库ID',
+    ADD COLUMN `timestamp` DATETIME(6) NULL COMMENT '消息时间';
+
+UPDATE chat_messages m
+    JOIN chat_sessions s ON s.session_id = m.session_id
+SET m.session_ref = s.id,
+    m.`timestamp` = m.created_at;
+
+-- 原外键级联删除，不应有找不到会话的消息；万一存在也无法再关联到会话
+DELETE FROM chat_messages WHERE session_ref IS NULL;
+
+ALTER TABLE chat_messages DROP COLUMN session_id;
+
+ALTER TABLE chat_messages
+    CHANGE COLUMN session_ref session_id BIGINT NOT NULL COMMENT '会话数据库ID（chat_sessions.id）',
+    MODIFY COLUMN `timestamp` DATETIME(6) NOT NULL COMMENT '消息时间',
+    MODIFY COLUMN sequence_number INT NULL COMMENT '消息序号（已不使用）',
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, `timestamp`);
+
+-- 对应按会话取最近消息的查询：WHERE session_id = ? ORDER BY timestamp, id
+CREATE INDEX idx_chat_messages_session_time ON chat_messages(session_id, `timestamp`, id);
+
+-- 从最早一条消息所在月份到当前月份逐月建分区
+SET SESSION group_concat_max_len = 1048576;
+SET @first_month := DATE_FORMAT(LEAST(COALESCE((SELECT MIN(`timestamp`) FROM chat_messages), CURDATE()), CURDATE()),
+                                '%Y-%m-01');
+SET @last_month := DATE_FORMAT(CURDATE(), '%Y-%m-01');
+SET @partitions := (
+    WITH RECURSIVE months (month_start) AS (
+        SELECT CAST(@first_month AS DATE)
+        UNION ALL
+        SELECT DATE_ADD(month_start, INTERVAL 1 MONTH) FROM months WHERE month_start < CAST(@last_month AS DATE)
+    )
+    SELECT GROUP_CONCAT(CONCAT('PARTITION p', DATE_FORMAT(month_start, '%Y%m'), ' VALUES LESS THAN (''',
+                               DATE_ADD(month_start, INTERVAL 1 MONTH), ''')')
+                        ORDER BY month_start SEPARATOR ', ')
+    FROM months);
+SET @sql := CONCAT('ALTER TABLE chat_messages PARTITION BY RANGE COLUMNS(`timestamp`) (',
+                   @partitions, ', PARTITION p_future VALUES LESS THAN (MAXVALUE))');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 会话归档状态：archived_at 非空表示消息已移到冷存储，restored_at 为最近一次按需恢复的时间
+ALTER TABLE chat_sessions
+    ADD COLUMN archived_at DATETIME COMMENT '归档时间',
+    ADD COLUMN restored_at DATETIME COMMENT '最近一次从归档恢复的时间',
+    ADD INDEX idx_chat_sessions_archive (archived_at, updated_at);
+
+-- 冷存储：每个归档会话一行，消息序列化为JSON后压缩存储（格式同 document_contents.content）
+CREATE TABLE chat_session_archives (
+    session_id BIGINT PRIMARY KEY COMMENT '会话数据库ID',
+    payload LONGBLOB NOT NULL COMMENT '压缩后的消息JSON',
+    message_count INT NOT NULL DEFAULT 0 COMMENT '消息条数',
+    first_message_at DATETIME(6) COMMENT '第一条消息时间',
+    last_message_at DATETIME(6) COMMENT '最后一条消息时间',
+    archived_at DATETIME NOT NULL COMMENT '归档时间',
+    CONSTRAINT fk_chat_session_archives_session FOREIGN KEY (session_id) REFERENCES chat_sessions(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='聊天会话归档表';
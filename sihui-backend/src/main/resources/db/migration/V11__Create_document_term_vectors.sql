@@ -0,0 +1,10 @@
+-- 文档词频向量：索引任务在任一实例上计算后持久化，各实例按需加载，重启后无需重新分词
+-- 只保存词频，TF-IDF权重在加载时按当前的文档频率计算；词频压缩存储（格式同 document_contents.content）
+
+CREATE TABLE document_term_vectors (
+    document_id BIGINT PRIMARY KEY COMMENT '文档ID',
+    term_counts LONGBLOB NOT NULL COMMENT '压缩后的词频，每行一个 词\t次数',
+    term_total INT NOT NULL DEFAULT 0 COMMENT '总词数',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    CONSTRAINT fk_document_term_vectors_document FOREIGN KEY (document_id) REFERENCES documents(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='文档词频向量表';
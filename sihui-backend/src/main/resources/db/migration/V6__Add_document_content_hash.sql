@@ -0,0 +1,6 @@
+-- 文档内容去重：记录文件内容SHA-256摘要
+-- 内容相同的文档复用同一个OSS对象和索引，OSS对象在最后一个引用删除时才删除
+
+ALTER TABLE documents ADD COLUMN content_hash CHAR(64) NULL COMMENT '文件内容SHA-256摘要' AFTER file_url;
+
+CREATE INDEX idx_documents_content_hash ON documents(content_hash);
@@ -0,0 +1,18 @@
+-- 文档正文与元数据分表：列表、统计查询不再读取正文
+-- 正文压缩存储：首字节为编码标识，0x01 之后与 COMPRESS() 输出相同（4字节小端原文长度 + zlib数据）
+
+CREATE TABLE document_contents (
+    document_id BIGINT PRIMARY KEY COMMENT '文档ID',
+    content LONGBLOB COMMENT '压缩后的文档正文',
+    content_length INT DEFAULT 0 COMMENT '正文字符数',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    CONSTRAINT fk_document_contents_document FOREIGN KEY (document_id) REFERENCES documents(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='知识文档正文表';
+
+INSERT INTO document_contents (document_id, content, content_length, updated_at)
+SELECT id, CONCAT(X'01', COMPRESS(content)), CHAR_LENGTH(content), updated_at
+FROM documents
+WHERE content IS NOT NULL;
+
+-- 正文不再参与LIKE/全文匹配，正文检索由TF-IDF索引负责
+ALTER TABLE documents DROP INDEX ft_title_content, DROP INDEX ft_content, DROP COLUMN content;
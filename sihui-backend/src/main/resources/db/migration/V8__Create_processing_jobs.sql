@@ -0,0 +1,27 @@
+-- 后台处理任务表
+-- 文档索引等任务持久化排队，各实例按租约领取，实例重启后未完成的任务在租约过期后由其他实例继续执行
+
+CREATE TABLE processing_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    job_type VARCHAR(50) NOT NULL COMMENT '任务类型',
+    payload TEXT COMMENT '任务参数',
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING' COMMENT '任务状态',
+    priority INT NOT NULL DEFAULT 5 COMMENT '优先级，数值越大越先执行',
+    attempts INT NOT NULL DEFAULT 0 COMMENT '已执行次数',
+    max_attempts INT NOT NULL DEFAULT 3 COMMENT '最多执行次数',
+    progress INT NOT NULL DEFAULT 0 COMMENT '执行进度（0-100）',
+    message VARCHAR(1000) COMMENT '失败原因或完成说明',
+    lease_owner VARCHAR(100) COMMENT '持有租约的实例',
+    lease_expires_at DATETIME COMMENT '租约到期时间',
+    next_run_at DATETIME NOT NULL COMMENT '最早可执行时间',
+    created_by BIGINT COMMENT '创建者ID',
+    started_at DATETIME COMMENT '最近一次开始执行时间',
+    finished_at DATETIME COMMENT '完成时间',
+    duration_ms BIGINT COMMENT '最近一次执行耗时（毫秒）',
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+
+    INDEX idx_jobs_claim (status, priority, next_run_at),
+    INDEX idx_jobs_lease (status, lease_expires_at),
+    INDEX idx_jobs_type_status (job_type, status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='后台处理任务表';
@@ -0,0 +1,6 @@
+-- 会话滚动摘要
+-- 超出上下文token预算的早期消息折叠进摘要，随对话异步更新
+
+ALTER TABLE chat_sessions
+    ADD COLUMN summary TEXT COMMENT '早期对话摘要',
+    ADD COLUMN summarized_message_id BIGINT COMMENT '摘要已覆盖到的最后一条消息ID';
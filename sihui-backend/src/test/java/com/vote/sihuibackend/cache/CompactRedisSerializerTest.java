@@ -0,0 +1,110 @@
+package com.vote.sihuibackend.cache;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vote.sihuibackend.entity.Document;
+import com.vote.sihuibackend.entity.User;
+import com.vote.sihuibackend.enums.Permission;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CompactRedisSerializer测试类
+ */
+public class CompactRedisSerializerTest {
+
+    private GenericJackson2JsonRedisSerializer jsonSerializer;
+    private CompactRedisSerializer serializer;
+
+    @BeforeEach
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        objectMapper.activateDefaultTyping(objectMapper.getPolymorphicTypeValidator(),
+                ObjectMapper.DefaultTyping.NON_FINAL);
+        jsonSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+        serializer = new CompactRedisSerializer(CacheSchemaRegistry.defaultRegistry(), 1024, jsonSerializer);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDocumentListRoundTrip() {
+        List<Document> documents = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            documents.add(Document.builder().id((long) i).title("文档" + i).category("培训").viewCount(i * 10)
+                    .status("ACTIVE").build());
+        }
+
+        List<Document> restored = (List<Document>) serializer.deserialize(serializer.serialize(documents));
+
+        assertEquals(3, restored.size());
+        assertEquals("文档2", restored.get(1).getTitle());
+        assertEquals(Integer.valueOf(30), restored.get(2).getViewCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testScalarsAndAggregatesRoundTrip() {
+        List<Object[]> counts = new ArrayList<>();
+        counts.add(new Object[] { User.UserStatus.ACTIVE, 12L });
+        counts.add(new Object[] { "培训", 3L });
+        Set<Permission> permissions = EnumSet.of(Permission.USER_READ, Permission.USER_CREATE);
+
+        List<Object[]> restoredCounts = (List<Object[]>) serializer.deserialize(serializer.serialize(counts));
+        Set<Permission> restoredPermissions = (Set<Permission>) serializer
+                .deserialize(serializer.serialize(permissions));
+
+        assertEquals(User.UserStatus.ACTIVE, restoredCounts.get(0)[0]);
+        assertEquals(12L, restoredCounts.get(0)[1]);
+        assertEquals(permissions, restoredPermissions);
+        assertEquals(42L, serializer.deserialize(serializer.serialize(42L)));
+        assertEquals(Boolean.TRUE, serializer.deserialize(serializer.serialize(true)));
+    }
+
+    @Test
+    public void testTimestampedValueRoundTrip() {
+        RefreshAheadCache.TimestampedValue value = new RefreshAheadCache.TimestampedValue(7L, 123456789L);
+
+        RefreshAheadCache.TimestampedValue restored = (RefreshAheadCache.TimestampedValue) serializer
+                .deserialize(serializer.serialize(value));
+
+        assertEquals(123456789L, restored.getWrittenAt());
+        assertEquals(7L, restored.getValue());
+    }
+
+    @Test
+    public void testLargeValuesAreCompressedAndSmallerThanJson() {
+        Map<String, Double> vector = new LinkedHashMap<>();
+        for (int i = 0; i < 500; i++) {
+            vector.put("term" + i, i / 7.0);
+        }
+
+        byte[] compact = serializer.serialize(vector);
+        byte[] json = jsonSerializer.serialize(vector);
+
+        assertEquals(CompactRedisSerializer.MAGIC, compact[0]);
+        assertEquals(1, compact[1], "超过阈值的值应被压缩");
+        assertTrue(compact.length < json.length / 2, "紧凑编码应明显小于JSON编码");
+        assertEquals(vector, serializer.deserialize(compact));
+    }
+
+    @Test
+    public void testReadsLegacyJsonEntries() {
+        byte[] legacy = jsonSerializer.serialize(new ArrayList<>(Arrays.asList("a", "b")));
+
+        assertEquals(Arrays.asList("a", "b"), serializer.deserialize(legacy));
+    }
+
+    @Test
+    public void testUnregisteredTypeFallsBackToJson() {
+        Date date = new Date(1000L);
+
+        assertEquals(date, serializer.deserialize(serializer.serialize(date)));
+    }
+}
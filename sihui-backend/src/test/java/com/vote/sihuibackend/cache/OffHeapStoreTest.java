@@ -0,0 +1,94 @@
+package com.vote.sihuibackend.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OffHeapStore和TfIdfVectorCodec测试类
+ */
+public class OffHeapStoreTest {
+
+    private static final long NEVER = Long.MAX_VALUE;
+
+    @Test
+    public void testVectorRoundTripAndScoringAgainstBuffer() {
+        OffHeapStore store = new OffHeapStore("test", 64 * 1024, 16 * 1024, 100, null);
+        Map<String, Double> vector = new HashMap<>();
+        vector.put("培训", 0.8);
+        vector.put("安全", 0.3);
+        vector.put("manual", 0.5);
+        TfIdfVectorCodec.Encoded encoded = TfIdfVectorCodec.encode(vector);
+
+        assertTrue(store.put("doc:1", encoded.length(), NEVER, encoded::writeTo));
+
+        assertEquals(vector, store.read("doc:1", TfIdfVectorCodec::decode));
+        Map<String, Double> query = new HashMap<>();
+        query.put("培训", 1.0);
+        query.put("不存在", 1.0);
+        double expected = 0.8 / (Math.sqrt(0.64 + 0.09 + 0.25) * Math.sqrt(2.0));
+        assertEquals(expected, store.read("doc:1", buffer -> TfIdfVectorCodec.cosineSimilarity(buffer, query)),
+                1e-12);
+    }
+
+    @Test
+    public void testOldestSlabIsRecycledWhenFull() {
+        OffHeapStore store = new OffHeapStore("test", 2 * 64, 64, 100, null);
+        for (int i = 0; i < 6; i++) {
+            long value = i;
+            assertTrue(store.put("k" + i, 32, NEVER, buffer -> {
+                buffer.putLong(value);
+                buffer.position(buffer.limit());
+            }));
+        }
+
+        // 每个slab容纳两个条目，第三个slab复用了最早的slab
+        assertNull(store.read("k0", buffer -> buffer.getLong(0)));
+        assertNull(store.read("k1", buffer -> buffer.getLong(0)));
+        assertEquals(Long.valueOf(5), store.read("k5", buffer -> buffer.getLong(0)));
+        assertEquals(4, store.size());
+        assertEquals(2, store.getEvictedEntries());
+        assertEquals(128, store.allocatedBytes());
+    }
+
+    @Test
+    public void testEntryCapRecyclesSlabsBeforeTheyAreFull() {
+        OffHeapStore store = new OffHeapStore("test", 2 * 1024, 1024, 4, null);
+        for (int i = 0; i < 5; i++) {
+            double value = i;
+            assertTrue(store.put("k" + i, 8, NEVER, buffer -> buffer.putDouble(value)));
+        }
+        // 每个slab最多两个条目：k4复用了k0、k1所在的slab；覆盖写入的k2与k4在同一slab
+        assertTrue(store.put("k2", 8, NEVER, buffer -> buffer.putDouble(10.0)));
+        assertTrue(store.put("k5", 8, NEVER, buffer -> buffer.putDouble(5.0)));
+
+        // k5回收了k2、k3原来所在的slab，k2的新位置不受影响
+        assertNull(store.read("k0", buffer -> buffer.getDouble(0)));
+        assertNull(store.read("k3", buffer -> buffer.getDouble(0)));
+        assertEquals(Double.valueOf(10.0), store.read("k2", buffer -> buffer.getDouble(0)));
+        assertEquals(Double.valueOf(4.0), store.read("k4", buffer -> buffer.getDouble(0)));
+        assertEquals(Double.valueOf(5.0), store.read("k5", buffer -> buffer.getDouble(0)));
+        assertEquals(3, store.size());
+        assertEquals(3, store.getEvictedEntries());
+        assertEquals(2048, store.allocatedBytes());
+    }
+
+    @Test
+    public void testExpiredOversizedAndRemovedEntries() {
+        OffHeapStore store = new OffHeapStore("test", 1024, 256, 100, null);
+        store.put("expired", 8, System.currentTimeMillis() - 1, buffer -> buffer.putDouble(1.0));
+        store.put("sim:1:2", 8, NEVER, buffer -> buffer.putDouble(0.5));
+        store.put("sim:2:3", 8, NEVER, buffer -> buffer.putDouble(0.7));
+
+        assertNull(store.read("expired", buffer -> buffer.getDouble(0)));
+        assertFalse(store.put("huge", 512, NEVER, ByteBuffer::clear));
+
+        store.removeIf(key -> key.startsWith("sim:1:"));
+        assertFalse(store.contains("sim:1:2"));
+        assertEquals(Double.valueOf(0.7), store.read("sim:2:3", buffer -> buffer.getDouble(0)));
+    }
+}
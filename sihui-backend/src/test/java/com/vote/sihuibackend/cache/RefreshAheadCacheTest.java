@@ -0,0 +1,75 @@
+package com.vote.sihuibackend.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RefreshAheadCache测试类
+ */
+public class RefreshAheadCacheTest {
+
+    private final List<Runnable> pendingRefreshes = new ArrayList<>();
+    private RefreshAheadCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new RefreshAheadCache(new ConcurrentMapCache("recentDocuments"),
+                Duration.ofMillis(50), Duration.ofMillis(300), pendingRefreshes::add);
+    }
+
+    @Test
+    public void testFreshEntryDoesNotTriggerRefresh() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get("k", () -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", cache.get("k", () -> "v" + loads.incrementAndGet()));
+
+        assertEquals(1, loads.get(), "未过期条目不应重新加载");
+        assertTrue(pendingRefreshes.isEmpty());
+    }
+
+    @Test
+    public void testSoftExpiredEntryServesStaleAndRefreshesInBackground() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("k", () -> "v" + loads.incrementAndGet());
+
+        Thread.sleep(80);
+
+        assertEquals("v1", cache.get("k", () -> "v" + loads.incrementAndGet()), "软过期后应返回旧值");
+        assertEquals("v1", cache.get("k", () -> "v" + loads.incrementAndGet()), "刷新完成前仍返回旧值");
+        assertEquals(1, pendingRefreshes.size(), "同一个键只应提交一个刷新任务");
+
+        pendingRefreshes.get(0).run();
+
+        assertEquals("v2", cache.get("k", () -> "v" + loads.incrementAndGet()), "刷新完成后应返回新值");
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testHardExpiredEntryIsReloadedSynchronously() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("k", () -> "v" + loads.incrementAndGet());
+
+        Thread.sleep(350);
+
+        assertNull(cache.get("k"), "硬过期条目不应再返回");
+        assertEquals("v2", cache.get("k", () -> "v" + loads.incrementAndGet()));
+        assertTrue(pendingRefreshes.isEmpty());
+    }
+
+    @Test
+    public void testPutAndGetUnwrapValue() {
+        cache.put("k", 42L);
+
+        assertEquals(42L, cache.get("k").get());
+        assertEquals(Long.valueOf(42L), cache.get("k", Long.class));
+    }
+}
@@ -0,0 +1,82 @@
+package com.vote.sihuibackend.cache;
+
+import com.vote.sihuibackend.dto.UserResponse;
+import com.vote.sihuibackend.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TaggingCacheManager测试类
+ */
+public class TaggingCacheManagerTest {
+
+    private TaggingCacheManager cacheManager;
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager = new TaggingCacheManager(
+                new ConcurrentMapCacheManager("users", "usersByStatus", "usersByRole", "userStats",
+                        "userPermissions"),
+                new InMemoryCacheTagIndex(), UserCacheTags.resolvers());
+    }
+
+    @Test
+    public void testEvictUserTagOnlyRemovesEntriesOfThatUser() {
+        Cache users = cacheManager.getCache("users");
+        Cache usersByStatus = cacheManager.getCache("usersByStatus");
+        users.put("id:1", userResponse(1L));
+        users.put("id:2", userResponse(2L));
+        usersByStatus.put("ACTIVE", Arrays.asList(userResponse(1L), userResponse(3L)));
+        usersByStatus.put("LOCKED", Collections.singletonList(userResponse(2L)));
+
+        cacheManager.evictTags(Collections.singleton(UserCacheTags.user(1L)));
+
+        assertNull(users.get("id:1"));
+        assertNull(usersByStatus.get("ACTIVE"), "包含该用户的列表应失效");
+        assertNotNull(users.get("id:2"), "其他用户的条目应保留");
+        assertNotNull(usersByStatus.get("LOCKED"));
+    }
+
+    @Test
+    public void testEvictStatusAndUserSetTags() {
+        Cache usersByStatus = cacheManager.getCache("usersByStatus");
+        Cache userStats = cacheManager.getCache("userStats");
+        usersByStatus.put("ACTIVE", Collections.emptyList());
+        usersByStatus.put("LOCKED", Collections.emptyList());
+        usersByStatus.put("all", Collections.emptyList());
+        userStats.put("statusCount", Collections.emptyList());
+
+        cacheManager.evictTags(Arrays.asList(UserCacheTags.status(User.UserStatus.ACTIVE), UserCacheTags.USER_SET));
+
+        assertNull(usersByStatus.get("ACTIVE"));
+        assertNull(usersByStatus.get("all"));
+        assertNull(userStats.get("statusCount"));
+        assertNotNull(usersByStatus.get("LOCKED"));
+    }
+
+    @Test
+    public void testKeyDerivedTagsCoverNegativeLookupsAndPermissions() {
+        Cache users = cacheManager.getCache("users");
+        Cache userPermissions = cacheManager.getCache("userPermissions");
+        users.put("username:newbie", null);
+        userPermissions.put("5_user:read", true);
+        userPermissions.put("6_user:read", false);
+
+        cacheManager.evictTags(Arrays.asList(UserCacheTags.identity("newbie"), UserCacheTags.user(5L)));
+
+        assertNull(users.get("username:newbie"), "按用户名查询的空结果应失效");
+        assertNull(userPermissions.get("5_user:read"));
+        assertNotNull(userPermissions.get("6_user:read"));
+    }
+
+    private UserResponse userResponse(Long id) {
+        return UserResponse.builder().id(id).username("user" + id).build();
+    }
+}
@@ -1,6 +1,7 @@
 package com.vote.sihuibackend.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vote.sihuibackend.llm.ChatCompletionResult;
 import com.vote.sihuibackend.service.DeepSeekService;
 import com.vote.sihuibackend.service.ChatMemoryService;
 import com.vote.sihuibackend.service.KnowledgeEnhancedChatService;
@@ -18,6 +19,7 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
@@ -48,6 +50,9 @@ public class AiChatControllerSecurityTest {
     @MockBean
     private KnowledgeEnhancedChatService knowledgeEnhancedChatService;
 
+    @MockBean(name = "aiStreamingExecutor")
+    private Executor aiStreamingExecutor;
+
     @MockBean
     private JwtUtil jwtUtil;
 
@@ -73,7 +78,7 @@ public class AiChatControllerSecurityTest {
         // 测试SQL注入攻击防护
         String maliciousInput = "'; DROP TABLE users; --";
 
-        when(deepSeekService.chat(anyString())).thenReturn("正常回复");
+        when(deepSeekService.complete(anyString(), isNull())).thenReturn(new ChatCompletionResult("正常回复", false));
 
         mockMvc.perform(post("/api/ai/chat")
                 .param("message", maliciousInput)
@@ -0,0 +1,303 @@
+package com.vote.sihuibackend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vote.sihuibackend.config.TestSecurityConfig;
+import com.vote.sihuibackend.llm.MockLlmServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AI聊天接口压测场景
+ * 用离线的大模型接口替身代替DeepSeek，按目标RPS开环发送请求（延迟从计划发送时刻算起，避免协调遗漏），
+ * 报告各接口端到端和各阶段延迟的P50/P95/P99。
+ *
+ * <p>默认只跑几秒的小流量，作为冒烟测试；加大压力时通过系统属性调整，例如：
+ * {@code mvn test -Dtest=AiChatLoadScenarioTest -Dloadtest.rps=100 -Dloadtest.duration-seconds=60 -Dloadtest.error-rate=0.05}
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@Slf4j
+@Import(TestSecurityConfig.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;MODE=MySQL",
+        // 安全过滤已关闭，对话和流式对话接口的请求都算作同一个匿名调用方，放宽每用户上限
+        "app.ai.gateway.max-per-user=32",
+        "app.ai.gateway.max-queued-per-user=64",
+        "management.metrics.distribution.percentiles.llm.gateway.wait=0.5,0.95,0.99",
+        "management.metrics.distribution.percentiles.deepseek.client.requests=0.5,0.95,0.99",
+        // 测试配置只输出ERROR日志，压测报告需要单独放开
+        "logging.level.com.vote.sihuibackend.controller.AiChatLoadScenarioTest=INFO"
+})
+public class AiChatLoadScenarioTest {
+
+    private static final int RPS = Integer.getInteger("loadtest.rps", 10);
+    private static final long DURATION_SECONDS = Long.getLong("loadtest.duration-seconds", 3);
+    private static final int USERS = Integer.getInteger("loadtest.users", 20);
+    private static final double ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.error-rate", "0"));
+    private static final double RATE_LIMIT_RATE = Double.parseDouble(System.getProperty("loadtest.rate-limit-rate", "0"));
+    private static final double MID_STREAM_ERROR_RATE = Double
+            .parseDouble(System.getProperty("loadtest.mid-stream-error-rate", "0"));
+
+    private static MockLlmServer mockLlmServer;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, List<Long>> latencies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> outcomes = new ConcurrentHashMap<>();
+
+    @DynamicPropertySource
+    static void mockLlmProperties(DynamicPropertyRegistry registry) throws IOException {
+        mockLlmServer = new MockLlmServer(new MockLlmServer.Config()
+                .firstTokenLatency(Duration.ofMillis(Long.getLong("loadtest.ttft-median-ms", 50)),
+                        Duration.ofMillis(Long.getLong("loadtest.ttft-p99-ms", 300)))
+                .tokensPerSecond(Double.parseDouble(System.getProperty("loadtest.tokens-per-second", "100")))
+                .responseTokens(Integer.getInteger("loadtest.response-tokens", 20))
+                .errorRate(ERROR_RATE, 503)
+                .rateLimitRate(RATE_LIMIT_RATE, 1)
+                .midStreamErrorRate(MID_STREAM_ERROR_RATE));
+        registry.add("deepseek.api.url", mockLlmServer::url);
+        registry.add("deepseek.api.key", () -> "mock-key");
+    }
+
+    @AfterAll
+    static void stopMockLlm() {
+        if (mockLlmServer != null) {
+            mockLlmServer.close();
+        }
+    }
+
+    @Test
+    public void testChatEndpointsUnderTargetRps() throws InterruptedException {
+        int total = (int) (RPS * DURATION_SECONDS);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / RPS;
+        ExecutorService clients = Executors.newCachedThreadPool();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long scheduledAt = start + i * intervalNanos;
+            long wait = scheduledAt - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int sequence = i;
+            clients.execute(() -> runRequest(sequence, scheduledAt));
+        }
+        long sendNanos = System.nanoTime() - start;
+        clients.shutdown();
+        assertTrue(clients.awaitTermination(5, TimeUnit.MINUTES), "压测请求未在5分钟内完成");
+
+        printReport(total, sendNanos);
+
+        int completed = outcomes.values().stream().mapToInt(AtomicInteger::get).sum();
+        assertEquals(total, completed);
+        assertTrue(mockLlmServer.requestCount() >= total);
+        assertFalse(samples("stream ttft").isEmpty());
+        if (ERROR_RATE == 0 && RATE_LIMIT_RATE == 0 && MID_STREAM_ERROR_RATE == 0) {
+            assertEquals(completed, outcomes.entrySet().stream()
+                    .filter(entry -> entry.getKey().endsWith(" ok"))
+                    .mapToInt(entry -> entry.getValue().get()).sum(), "未注入错误时所有请求都应成功: " + outcomes);
+        }
+    }
+
+    /**
+     * 按序号轮流使用各接口，消息带序号，避免命中回复缓存
+     */
+    private void runRequest(int sequence, long scheduledAt) {
+        long userId = sequence % USERS + 1;
+        String message = "第" + sequence + "个问题：培训证书怎么领取？";
+        String endpoint;
+        Map<String, Object> body = new HashMap<>();
+        body.put("message", message);
+        switch (sequence % 4) {
+            case 0:
+                endpoint = "/api/ai/chat/conversation";
+                break;
+            case 1:
+                endpoint = "/api/ai/chat/stream";
+                break;
+            case 2:
+                endpoint = "/api/ai/chat/memory";
+                body.put("userId", userId);
+                break;
+            default:
+                endpoint = "/api/ai/chat/knowledge";
+                body.put("userId", userId);
+                break;
+        }
+        String name = endpoint.substring("/api/ai/chat".length());
+        name = name.isEmpty() ? "chat" : name.substring(1);
+
+        String outcome;
+        try {
+            HttpURLConnection connection = post(endpoint, body);
+            int status = connection.getResponseCode();
+            if (endpoint.endsWith("/stream") && status == 200) {
+                outcome = readStream(connection, scheduledAt);
+            } else {
+                outcome = status == 200 ? "ok" : String.valueOf(status);
+                JsonNode response = readJson(connection, status);
+                if (status == 200 && response != null) {
+                    recordStageTimings(response.path("data").path("stageTimings"));
+                }
+            }
+        } catch (IOException e) {
+            outcome = "io_error";
+        }
+        record(name + " e2e", elapsedMillis(scheduledAt));
+        outcomes.computeIfAbsent(name + " " + outcome, key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private HttpURLConnection post(String path, Map<String, Object> body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + path)
+                .openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setConnectTimeout(10000);
+        connection.setReadTimeout(120000);
+        connection.setRequestProperty("Content-Type", "application/json");
+        try (OutputStream out = connection.getOutputStream()) {
+            objectMapper.writeValue(out, body);
+        }
+        return connection;
+    }
+
+    /**
+     * 读取事件流，记录首个token的延迟，返回 ok 或 error_event
+     */
+    private String readStream(HttpURLConnection connection, long scheduledAt) throws IOException {
+        boolean firstToken = true;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("event:token") && firstToken) {
+                    record("stream ttft", elapsedMillis(scheduledAt));
+                    firstToken = false;
+                } else if (line.startsWith("event:done")) {
+                    return "ok";
+                } else if (line.startsWith("event:error")) {
+                    return "error_event";
+                }
+            }
+        }
+        return "truncated";
+    }
+
+    private JsonNode readJson(HttpURLConnection connection, int status) throws IOException {
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (in == null) {
+            return null;
+        }
+        try (InputStream body = in) {
+            return objectMapper.readTree(body);
+        }
+    }
+
+    private void recordStageTimings(JsonNode stageTimings) {
+        for (Iterator<Map.Entry<String, JsonNode>> it = stageTimings.fields(); it.hasNext();) {
+            Map.Entry<String, JsonNode> stage = it.next();
+            record("knowledge stage " + stage.getKey(), stage.getValue().asLong());
+        }
+    }
+
+    private void record(String name, long millis) {
+        latencies.computeIfAbsent(name, key -> Collections.synchronizedList(new ArrayList<>())).add(millis);
+    }
+
+    private List<Long> samples(String name) {
+        return latencies.getOrDefault(name, Collections.emptyList());
+    }
+
+    private static long elapsedMillis(long fromNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - fromNanos);
+    }
+
+    private void printReport(int total, long sendNanos) {
+        double seconds = sendNanos / 1e9;
+        log.info(String.format("AI聊天压测: 目标 %d RPS, 计划 %d 个请求, 发送耗时 %.1fs, 实际 %.1f RPS, 上游请求 %d 个 (流式 %d, 注入错误 %d)",
+                RPS, total, seconds, total / seconds, mockLlmServer.requestCount(), mockLlmServer.streamCount(),
+                mockLlmServer.injectedErrorCount()));
+        log.info(String.format("%-36s %7s %8s %8s %8s %8s", "指标(ms)", "样本", "P50", "P95", "P99", "最大"));
+        for (Map.Entry<String, List<Long>> entry : new TreeMap<>(latencies).entrySet()) {
+            List<Long> sorted;
+            synchronized (entry.getValue()) {
+                sorted = new ArrayList<>(entry.getValue());
+            }
+            Collections.sort(sorted);
+            log.info(String.format("%-36s %7d %8d %8d %8d %8d", entry.getKey(), sorted.size(),
+                    percentile(sorted, 0.5), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    sorted.get(sorted.size() - 1)));
+        }
+        printTimer("gateway wait", meterRegistry.find("llm.gateway.wait").timers());
+        printTimer("upstream request", meterRegistry.find("deepseek.client.requests").timers());
+        log.info("结果: {}", new TreeMap<>(outcomes));
+    }
+
+    /**
+     * 打印服务端计时器的客户端百分位，同名计时器按标签分行
+     */
+    private static void printTimer(String name, Iterable<Timer> timers) {
+        for (Timer timer : timers) {
+            Map<Double, Long> values = new HashMap<>();
+            for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+                values.put(value.percentile(), Math.round(value.value(TimeUnit.MILLISECONDS)));
+            }
+            String label = name + " " + timer.getId().getTags().stream()
+                    .map(tag -> tag.getValue()).reduce((a, b) -> a + "," + b).orElse("");
+            log.info(String.format("%-36s %7d %8s %8s %8s %8d", label.trim(), timer.count(),
+                    values.getOrDefault(0.5, -1L), values.getOrDefault(0.95, -1L), values.getOrDefault(0.99, -1L),
+                    Math.round(timer.max(TimeUnit.MILLISECONDS))));
+        }
+    }
+
+    /**
+     * 最近秩法求百分位
+     */
+    private static long percentile(List<Long> sorted, double p) {
+        int rank = (int) Math.ceil(p * sorted.size());
+        return sorted.get(Math.max(0, rank - 1));
+    }
+}
@@ -1,6 +1,8 @@
 package com.vote.sihuibackend.controller;
 
+import com.vote.sihuibackend.service.DocumentService;
 import com.vote.sihuibackend.service.OssService;
+import com.vote.sihuibackend.service.SignedUrlService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,6 +41,12 @@ class ContentControllerTest {
         @MockBean
         private OssService ossService;
 
+        @MockBean
+        private SignedUrlService signedUrlService;
+
+        @MockBean
+        private DocumentService documentService;
+
         @MockBean
         private com.vote.sihuibackend.util.JwtUtil jwtUtil;
 
@@ -2,7 +2,9 @@ package com.vote.sihuibackend.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vote.sihuibackend.entity.Document;
+import com.vote.sihuibackend.service.AsyncDocumentProcessingService;
 import com.vote.sihuibackend.service.DocumentService;
+import com.vote.sihuibackend.service.ProcessingJobService;
 import com.vote.sihuibackend.service.TextSearchService;
 import com.vote.sihuibackend.service.PermissionService;
 import com.vote.sihuibackend.util.JwtUtil;
@@ -54,6 +56,12 @@ class KnowledgeDocumentControllerTest {
         @MockBean
         private TextSearchService textSearchService;
 
+        @MockBean
+        private AsyncDocumentProcessingService asyncDocumentProcessingService;
+
+        @MockBean
+        private ProcessingJobService processingJobService;
+
         @MockBean
         private PermissionService permissionService;
 
@@ -137,8 +145,8 @@ class KnowledgeDocumentControllerTest {
         void uploadDocument_UnsupportedFormat() throws Exception {
                 MockMultipartFile file = new MockMultipartFile(
                                 "file",
-                                "test.pdf",
-                                MediaType.APPLICATION_PDF_VALUE,
+                                "test.xlsx",
+                                MediaType.APPLICATION_OCTET_STREAM_VALUE,
                                 "测试内容".getBytes());
 
                 mockMvc.perform(multipart("/api/knowledge/documents/upload")
@@ -146,7 +154,7 @@ class KnowledgeDocumentControllerTest {
                                 .with(csrf()))
                                 .andExpect(status().isBadRequest())
                                 .andExpect(jsonPath("$.success").value(false))
-                                .andExpect(jsonPath("$.message").value("不支持的文件格式，仅支持 .txt, .md, .markdown 格式"));
+                                .andExpect(jsonPath("$.message").value("不支持的文件格式，仅支持 .txt, .md, .markdown, .pdf, .docx, .pptx 格式"));
         }
 
         @Test
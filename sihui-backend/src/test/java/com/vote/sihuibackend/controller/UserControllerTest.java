@@ -5,6 +5,7 @@ import com.vote.sihuibackend.dto.UserCreateRequest;
 import com.vote.sihuibackend.dto.UserUpdateRequest;
 import com.vote.sihuibackend.dto.UserResponse;
 import com.vote.sihuibackend.entity.User;
+import com.vote.sihuibackend.service.UserIdentifierFilterService;
 import com.vote.sihuibackend.service.UserManagementService;
 import com.vote.sihuibackend.service.PermissionService;
 import com.vote.sihuibackend.enums.Permission;
@@ -47,6 +48,9 @@ class UserControllerTest {
         @MockBean
         private UserManagementService userManagementService;
 
+        @MockBean
+        private UserIdentifierFilterService identifierFilterService;
+
         @MockBean
         private PermissionService permissionService;
 
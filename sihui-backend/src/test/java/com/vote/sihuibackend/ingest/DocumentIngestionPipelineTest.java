@@ -0,0 +1,110 @@
+package com.vote.sihuibackend.ingest;
+
+import com.vote.sihuibackend.config.DocumentExtractionProperties;
+import com.vote.sihuibackend.service.OssService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.StreamUtils;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * DocumentIngestionPipeline测试类
+ */
+public class DocumentIngestionPipelineTest {
+
+    private OssService ossService;
+    private ExecutorService executor;
+    private DocumentIngestionPipeline pipeline;
+    private final AtomicReference<byte[]> uploaded = new AtomicReference<>();
+
+    @BeforeEach
+    public void setUp() {
+        ossService = mock(OssService.class);
+        when(ossService.uploadStream(any(InputStream.class), anyString(), anyLong(), anyString()))
+                .thenAnswer(invocation -> {
+                    try (InputStream in = invocation.getArgument(0)) {
+                        uploaded.set(StreamUtils.copyToByteArray(in));
+                    }
+                    return "knowledge/documents/a.txt";
+                });
+        when(ossService.getFileUrl(anyString())).thenAnswer(invocation -> "https://oss/" + invocation.getArgument(0));
+        executor = Executors.newFixedThreadPool(2);
+        pipeline = new DocumentIngestionPipeline(ossService, executor, executor, new DocumentExtractionProperties(),
+                Collections.emptyList());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSinglePassTeesUploadDigestAndAnalysis() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            // 多字节字符会跨越64KB块边界
+            text.append("四会培训 安全手册,第").append(i % 7).append("章\r\n");
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        MockMultipartFile file = new MockMultipartFile("file", "a.txt", "text/plain", bytes);
+
+        IngestionResult result = pipeline.ingest(file, "knowledge/documents",
+                new HashSet<>(Collections.singletonList("的")));
+
+        assertArrayEquals(bytes, uploaded.get(), "上传内容应与原文件一致");
+        assertEquals(toHex(MessageDigest.getInstance("SHA-256").digest(bytes)), result.getContentHash());
+        assertEquals(bytes.length, result.getByteCount());
+        assertEquals(text.toString().replace("\r\n", "\n"), result.getContent());
+        assertTrue(result.getSummary().startsWith("四会培训 安全手册,第0章 四会培训"));
+        assertTrue(result.getSummary().endsWith("..."));
+        assertTrue(result.getKeywords().containsAll(Arrays.asList("四会培训", "安全手册")));
+        assertEquals("https://oss/knowledge/documents/a.txt", result.getFileUrl());
+    }
+
+    @Test
+    public void testLastLineWithoutNewlineIsTerminated() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "a.txt", "text/plain",
+                "第一行\n第二行".getBytes(StandardCharsets.UTF_8));
+
+        IngestionResult result = pipeline.ingest(file, "knowledge/documents", Collections.emptySet());
+
+        assertEquals("第一行\n第二行\n", result.getContent());
+        assertEquals("第一行 第二行", result.getSummary());
+    }
+
+    @Test
+    public void testUploadFailureIsReported() {
+        when(ossService.uploadStream(any(InputStream.class), anyString(), anyLong(), anyString()))
+                .thenThrow(new IllegalArgumentException("不支持的文件类型"));
+        byte[] bytes = new byte[DocumentIngestionPipeline.CHUNK_SIZE * (DocumentIngestionPipeline.PIPE_CAPACITY + 4)];
+        Arrays.fill(bytes, (byte) 'a');
+        MockMultipartFile file = new MockMultipartFile("file", "a.exe", "application/octet-stream", bytes);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> pipeline.ingest(file, "knowledge/documents", Collections.emptySet()));
+        assertEquals("不支持的文件类型", e.getMessage());
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,193 @@
+package com.vote.sihuibackend.ingest;
+
+import com.vote.sihuibackend.config.DocumentExtractionProperties;
+import com.vote.sihuibackend.service.OssService;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * PDF、Word、PowerPoint文本抽取测试类
+ */
+public class TextExtractorTest {
+
+    private static final String W = "xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\"";
+    private static final String A = "xmlns:a=\"http://schemas.openxmlformats.org/drawingml/2006/main\" "
+            + "xmlns:p=\"http://schemas.openxmlformats.org/presentationml/2006/main\"";
+
+    @TempDir
+    Path tempDir;
+
+    private DocumentExtractionProperties properties;
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new DocumentExtractionProperties();
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testDocxParagraphsAreExtractedInOrder() throws Exception {
+        byte[] docx = zip(Collections.singletonMap("word/document.xml", "<w:document " + W + "><w:body>"
+                + "<w:p><w:pPr><w:tabs><w:tab w:val=\"left\" w:pos=\"720\"/></w:tabs></w:pPr>"
+                + "<w:r><w:t>四会</w:t></w:r><w:r><w:tab/><w:t xml:space=\"preserve\">培训 </w:t></w:r></w:p>"
+                + "<w:p><w:r><w:t>安全</w:t><w:br/><w:t>手册</w:t></w:r><w:r><w:instrText>PAGE</w:instrText></w:r></w:p>"
+                + "</w:body></w:document>"));
+
+        assertEquals("四会\t培训 \n安全\n手册\n", extract(new OoxmlTextExtractor(), docx, "docx"));
+    }
+
+    @Test
+    public void testPptxSlidesAreOrderedByNumber() throws Exception {
+        Map<String, String> parts = new LinkedHashMap<>();
+        parts.put("ppt/slides/slide10.xml", slide("第十页"));
+        parts.put("ppt/slides/slide2.xml", slide("第二页"));
+        parts.put("ppt/slides/_rels/slide2.xml.rels", "<Relationships/>");
+        parts.put("ppt/slides/slide1.xml", slide("第一页"));
+
+        assertEquals("第一页\n第二页\n第十页\n", extract(new OoxmlTextExtractor(), zip(parts), "pptx"));
+    }
+
+    @Test
+    public void testOversizedPartIsRejected() throws Exception {
+        properties.setMaxEntrySize(DataSize.ofBytes(64));
+        StringBuilder body = new StringBuilder("<w:document " + W + "><w:body>");
+        for (int i = 0; i < 100; i++) {
+            body.append("<w:p><w:r><w:t>内容</w:t></w:r></w:p>");
+        }
+        byte[] docx = zip(Collections.singletonMap("word/document.xml", body.append("</w:body></w:document>")
+                .toString()));
+
+        assertThrows(IllegalArgumentException.class, () -> extract(new OoxmlTextExtractor(), docx, "docx"));
+    }
+
+    @Test
+    public void testPdfPagesAreExtracted() throws Exception {
+        String text = extract(new PdfTextExtractor(), pdf("Safety manual", "Chapter two"), "pdf");
+
+        assertTrue(text.contains("Safety manual"));
+        assertTrue(text.indexOf("Safety manual") < text.indexOf("Chapter two"));
+    }
+
+    @Test
+    public void testExtractionStopsWhenCharacterLimitIsExceeded() throws Exception {
+        properties.setMaxChars(5);
+        byte[] pdf = pdf("Safety manual");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> extract(new PdfTextExtractor(), pdf, "pdf"));
+        assertEquals("文档文本内容超出限制", e.getMessage());
+    }
+
+    @Test
+    public void testPipelineUploadsOriginalAndAnalyzesExtractedText() throws Exception {
+        OssService ossService = mock(OssService.class);
+        AtomicReference<byte[]> uploaded = new AtomicReference<>();
+        when(ossService.uploadStream(any(InputStream.class), anyString(), anyLong(), anyString()))
+                .thenAnswer(invocation -> {
+                    try (InputStream in = invocation.getArgument(0)) {
+                        uploaded.set(StreamUtils.copyToByteArray(in));
+                    }
+                    return "knowledge/documents/a.docx";
+                });
+        when(ossService.getFileUrl(anyString())).thenAnswer(invocation -> "https://oss/" + invocation.getArgument(0));
+        DocumentIngestionPipeline pipeline = new DocumentIngestionPipeline(ossService, executor, executor,
+                properties, Arrays.asList(new PdfTextExtractor(), new OoxmlTextExtractor()));
+        byte[] docx = zip(Collections.singletonMap("word/document.xml", "<w:document " + W + "><w:body>"
+                + "<w:p><w:r><w:t>四会培训 安全手册</w:t></w:r></w:p></w:body></w:document>"));
+
+        IngestionResult result = pipeline.ingest(new MockMultipartFile("file", "a.docx", null, docx),
+                "knowledge/documents", Collections.emptySet());
+
+        assertArrayEquals(docx, uploaded.get(), "上传的应是原始文档");
+        assertEquals(docx.length, result.getByteCount());
+        assertEquals("四会培训 安全手册\n", result.getContent());
+        assertTrue(result.getKeywords().contains("安全手册"));
+
+        // 解析失败时删除已上传的对象
+        properties.setTimeout(Duration.ofSeconds(5));
+        MockMultipartFile broken = new MockMultipartFile("file", "b.docx", null, "not a zip".getBytes());
+        assertThrows(IOException.class, () -> pipeline.ingest(broken, "knowledge/documents",
+                Collections.emptySet()));
+        verify(ossService).deleteFile("knowledge/documents/a.docx");
+    }
+
+    private String extract(TextExtractor extractor, byte[] content, String format) throws IOException {
+        Path file = Files.createTempFile(tempDir, "doc", "." + format);
+        Files.write(file, content);
+        StringBuilder text = new StringBuilder();
+        extractor.extract(file, format, new ExtractionBudget(properties), text::append);
+        return text.toString();
+    }
+
+    private static String slide(String text) {
+        return "<p:sld " + A + "><p:cSld><p:spTree><p:sp><p:txBody><a:p><a:r><a:t>" + text
+                + "</a:t></a:r></a:p></p:txBody></p:sp></p:spTree></p:cSld></p:sld>";
+    }
+
+    private static byte[] zip(Map<String, String> parts) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, String> part : parts.entrySet()) {
+                out.putNextEntry(new ZipEntry(part.getKey()));
+                out.write(part.getValue().getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] pdf(String... pages) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (String text : pages) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 12);
+                    content.newLineAtOffset(72, 700);
+                    content.showText(text);
+                    content.endText();
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.vote.sihuibackend.llm;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ChatCompletionStreamParser测试类
+ */
+public class ChatCompletionStreamParserTest {
+
+    private final ChatCompletionStreamParser parser = new ChatCompletionStreamParser(new JsonFactory());
+
+    @Test
+    public void testParseForwardsTokensInOrder() throws IOException {
+        String body = ": keep-alive\n\n"
+                + "data: {\"id\":\"1\",\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\",\"content\":\"\"}}]}\n\n"
+                + "data: {\"id\":\"1\",\"choices\":[{\"index\":0,\"delta\":{\"content\":\"你好\"},\"logprobs\":null}]}\n\n"
+                + "data: {\"id\":\"1\",\"usage\":{\"total_tokens\":3},\"choices\":[{\"delta\":{\"content\":\"，世界\"}}]}\n\n"
+                + "data: {\"id\":\"1\",\"choices\":[{\"index\":0,\"delta\":{},\"finish_reason\":\"stop\"}]}\n\n"
+                + "data: [DONE]\n\n"
+                + "data: {\"choices\":[{\"delta\":{\"content\":\"忽略\"}}]}\n\n";
+        List<String> tokens = new ArrayList<>();
+
+        String content = parser.parse(stream(body), tokens::add);
+
+        assertEquals(Arrays.asList("你好", "，世界"), tokens);
+        assertEquals("你好，世界", content);
+    }
+
+    @Test
+    public void testParseThrowsOnErrorEvent() {
+        String body = "data: {\"choices\":[{\"delta\":{\"content\":\"部分\"}}]}\n\n"
+                + "data: {\"error\":{\"message\":\"rate limited\",\"type\":\"server_error\"}}\n\n";
+
+        IOException e = assertThrows(IOException.class, () -> parser.parse(stream(body), token -> {
+        }));
+        assertTrue(e.getMessage().contains("rate limited"));
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
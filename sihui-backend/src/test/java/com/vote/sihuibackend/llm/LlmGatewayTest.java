@@ -0,0 +1,218 @@
+package com.vote.sihuibackend.llm;
+
+import com.vote.sihuibackend.config.LlmGatewayProperties;
+import com.vote.sihuibackend.llm.LlmCallContext.Priority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LlmGateway测试类
+ * 每个调用开始后记录名称并阻塞，直到测试放行，以此观察名额分配和排队顺序
+ */
+public class LlmGatewayTest {
+
+    private LlmGatewayProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private LlmGateway gateway;
+    private ExecutorService executor;
+    private final List<String> started = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, CountDownLatch> releases = new HashMap<>();
+
+    @BeforeEach
+    public void setUp() {
+        properties = new LlmGatewayProperties();
+        properties.setMaxConcurrent(1);
+        properties.setMaxPerUser(10);
+        properties.setMaxPerSession(10);
+        properties.setMaxWait(Duration.ofSeconds(5));
+        meterRegistry = new SimpleMeterRegistry();
+        gateway = new LlmGateway(properties, meterRegistry);
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        releases.values().forEach(CountDownLatch::countDown);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testUsersAreServedRoundRobin() throws Exception {
+        submit("a1", interactive("user:a", null));
+        awaitStarted("a1");
+        submit("a2", interactive("user:a", null));
+        submit("a3", interactive("user:a", null));
+        awaitQueued(Priority.INTERACTIVE, 2);
+        submit("b1", interactive("user:b", null));
+        awaitQueued(Priority.INTERACTIVE, 3);
+
+        release("a1");
+        awaitStarted("a2");
+        release("a2");
+        awaitStarted("b1");
+        release("b1");
+        awaitStarted("a3");
+
+        // b1后到，但排在a的第二个请求之前
+        assertEquals(Arrays.asList("a1", "a2", "b1", "a3"), started);
+    }
+
+    @Test
+    public void testPerUserAndPerSessionLimits() throws Exception {
+        properties.setMaxConcurrent(4);
+        properties.setMaxPerUser(1);
+        properties.setMaxPerSession(1);
+        submit("a1", interactive("user:a", null));
+        awaitStarted("a1");
+        submit("a2", interactive("user:a", null));
+        submit("b1", interactive("user:b", "s-1"));
+        awaitStarted("b1");
+        submit("c1", interactive("user:c", "s-1"));
+        awaitQueued(Priority.INTERACTIVE, 2);
+
+        assertEquals(2, gateway.getInFlight());
+        assertEquals(Arrays.asList("a1", "b1"), started);
+
+        release("b1");
+        awaitStarted("c1");
+        release("a1");
+        awaitStarted("a2");
+        assertEquals(0, gateway.getQueueDepth(Priority.INTERACTIVE));
+    }
+
+    @Test
+    public void testInteractiveCallsGoBeforeBackgroundCalls() throws Exception {
+        submit("a1", interactive("user:a", null));
+        awaitStarted("a1");
+        submit("bg", interactive("user:b", null).asBackground());
+        awaitQueued(Priority.BACKGROUND, 1);
+        submit("c1", interactive("user:c", null));
+        awaitQueued(Priority.INTERACTIVE, 1);
+
+        release("a1");
+        awaitStarted("c1");
+        release("c1");
+        awaitStarted("bg");
+
+        assertEquals(Arrays.asList("a1", "c1", "bg"), started);
+        assertEquals(2, meterRegistry.get(LlmGateway.METRIC_WAIT).tag("priority", "interactive").timer().count());
+    }
+
+    @Test
+    public void testBackgroundConcurrencyIsCapped() throws Exception {
+        properties.setMaxConcurrent(4);
+        properties.setMaxBackgroundConcurrent(1);
+        submit("bg1", LlmCallContext.current());
+        awaitStarted("bg1");
+        submit("bg2", LlmCallContext.current());
+        awaitQueued(Priority.BACKGROUND, 1);
+        submit("a1", interactive("user:a", null));
+        awaitStarted("a1");
+
+        assertEquals(2, gateway.getInFlight());
+        assertEquals(1, gateway.getQueueDepth(Priority.BACKGROUND));
+    }
+
+    @Test
+    public void testRejectsWhenQueueIsFullOrWaitTimesOut() throws Exception {
+        properties.setMaxQueueSize(1);
+        properties.setMaxWait(Duration.ofMillis(1000));
+        submit("a1", interactive("user:a", null));
+        awaitStarted("a1");
+        Future<?> queued = submit("b1", interactive("user:b", null));
+        awaitQueued(Priority.INTERACTIVE, 1);
+
+        LlmGatewayRejectedException full = assertThrows(LlmGatewayRejectedException.class,
+                () -> runAs(interactive("user:c", null)));
+        assertEquals(LlmGateway.REJECT_QUEUE_FULL, full.getReason());
+
+        Exception timeout = assertThrows(Exception.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertTrue(timeout.getCause() instanceof LlmGatewayRejectedException);
+        assertEquals(LlmGateway.REJECT_TIMEOUT, ((LlmGatewayRejectedException) timeout.getCause()).getReason());
+        assertEquals(0, gateway.getQueueDepth(Priority.INTERACTIVE));
+        assertEquals(1.0, meterRegistry.get(LlmGateway.METRIC_REJECTED)
+                .tag("reason", LlmGateway.REJECT_TIMEOUT).counter().count());
+    }
+
+    @Test
+    public void testRejectsWhenUserQueueIsFull() throws Exception {
+        properties.setMaxQueuedPerUser(1);
+        submit("a1", interactive("user:a", null));
+        awaitStarted("a1");
+        submit("a2", interactive("user:a", null));
+        awaitQueued(Priority.INTERACTIVE, 1);
+
+        LlmGatewayRejectedException rejected = assertThrows(LlmGatewayRejectedException.class,
+                () -> runAs(interactive("user:a", null)));
+        assertEquals(LlmGateway.REJECT_USER_QUEUE_FULL, rejected.getReason());
+        assertEquals("AI服务繁忙，请稍后重试", rejected.getMessage());
+    }
+
+    private static LlmCallContext interactive(String callerKey, String sessionId) {
+        return LlmCallContext.interactive(callerKey, sessionId);
+    }
+
+    private Future<?> submit(String name, LlmCallContext context) {
+        CountDownLatch release = new CountDownLatch(1);
+        releases.put(name, release);
+        return executor.submit(() -> {
+            try (LlmCallContext.Scope ignored = LlmCallContext.open(context)) {
+                return gateway.execute(() -> {
+                    started.add(name);
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return name;
+                });
+            }
+        });
+    }
+
+    private void runAs(LlmCallContext context) throws Exception {
+        try (LlmCallContext.Scope ignored = LlmCallContext.open(context)) {
+            gateway.execute(() -> "done");
+        }
+    }
+
+    private void release(String name) {
+        releases.get(name).countDown();
+    }
+
+    private void awaitStarted(String name) throws InterruptedException {
+        awaitCondition(() -> started.contains(name), name + " 未开始执行");
+    }
+
+    private void awaitQueued(Priority priority, int depth) throws InterruptedException {
+        awaitCondition(() -> gateway.getQueueDepth(priority) == depth, priority + " 排队数不是 " + depth);
+    }
+
+    private static void awaitCondition(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail(message);
+            }
+            Thread.sleep(5);
+        }
+    }
+}
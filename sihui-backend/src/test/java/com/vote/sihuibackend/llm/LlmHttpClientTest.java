@@ -0,0 +1,186 @@
+package com.vote.sihuibackend.llm;
+
+import com.vote.sihuibackend.config.DeepSeekClientProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.client.methods.HttpPost;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LlmHttpClient测试类
+ * 使用本地接口桩模拟限流、服务端错误和响应缓慢
+ */
+public class LlmHttpClientTest {
+
+    private StubLlmServer server;
+    private DeepSeekClientProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private LlmHttpClient client;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new StubLlmServer();
+        properties = new DeepSeekClientProperties();
+        properties.getRetry().setInitialBackoff(Duration.ofMillis(10));
+        properties.getRetry().setMaxBackoff(Duration.ofMillis(20));
+        properties.getCircuitBreaker().setWindowSize(4);
+        properties.getCircuitBreaker().setMinimumCalls(4);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        if (client != null) {
+            client.close();
+        }
+        server.close();
+    }
+
+    @Test
+    public void testRetriesServerErrorThenSucceeds() throws IOException {
+        server.reply(503, "busy").reply(502, "bad gateway").reply(200, StubLlmServer.completion("你好"));
+        client = new LlmHttpClient(properties, meterRegistry);
+
+        String body = client.execute(this::request);
+
+        assertTrue(body.contains("你好"));
+        assertEquals(3, server.requestCount());
+        assertEquals(2.0, meterRegistry.get(LlmHttpClient.METRIC_RETRIES).counter().count());
+        assertEquals(1, meterRegistry.get(LlmHttpClient.METRIC_REQUESTS)
+                .tag("outcome", LlmHttpClient.OUTCOME_SUCCESS).timer().count());
+        assertEquals(2.0, meterRegistry.get(LlmHttpClient.METRIC_ATTEMPTS)
+                .tag("outcome", LlmHttpClient.OUTCOME_SERVER_ERROR).counter().count());
+    }
+
+    @Test
+    public void testHonoursRetryAfterOnRateLimit() throws IOException {
+        server.reply(429, "slow down", 0, Collections.singletonMap("Retry-After", "1"))
+                .reply(200, StubLlmServer.completion("ok"));
+        client = new LlmHttpClient(properties, meterRegistry);
+
+        long start = System.nanoTime();
+        client.execute(this::request);
+
+        assertTrue(System.nanoTime() - start >= 900_000_000L);
+        assertEquals(2, server.requestCount());
+    }
+
+    @Test
+    public void testGivesUpWhenRetryAfterIsTooLong() {
+        server.reply(429, "slow down", 0, Collections.singletonMap("Retry-After", "120"));
+        client = new LlmHttpClient(properties, meterRegistry);
+
+        IOException e = assertThrows(IOException.class, () -> client.execute(this::request));
+
+        assertTrue(e.getMessage().contains("429"));
+        assertEquals(1, server.requestCount());
+    }
+
+    @Test
+    public void testClientErrorIsNotRetried() {
+        server.reply(400, "invalid request");
+        client = new LlmHttpClient(properties, meterRegistry);
+
+        IOException e = assertThrows(IOException.class, () -> client.execute(this::request));
+
+        assertEquals("DeepSeek API调用失败: 400 - invalid request", e.getMessage());
+        assertEquals(1, server.requestCount());
+    }
+
+    @Test
+    public void testTotalTimeoutAbortsSlowUpstream() {
+        server.reply(200, StubLlmServer.completion("late"), 3000, null);
+        properties.setTotalTimeout(Duration.ofMillis(300));
+        client = new LlmHttpClient(properties, meterRegistry);
+
+        long start = System.nanoTime();
+        assertThrows(InterruptedIOException.class, () -> client.execute(this::request));
+
+        assertTrue(System.nanoTime() - start < 2_000_000_000L);
+        assertEquals(1, meterRegistry.get(LlmHttpClient.METRIC_REQUESTS)
+                .tag("outcome", LlmHttpClient.OUTCOME_TIMEOUT).timer().count());
+    }
+
+    @Test
+    public void testCallerDeadlineAbortsBeforeTotalTimeout() {
+        server.reply(200, StubLlmServer.completion("late"), 3000, null);
+        client = new LlmHttpClient(properties, meterRegistry);
+
+        long start = System.nanoTime();
+        LlmCallContext context = LlmCallContext.interactive("user-1", "session-1")
+                .withDeadline(System.currentTimeMillis() + 300);
+        try (LlmCallContext.Scope ignored = LlmCallContext.open(context)) {
+            assertThrows(InterruptedIOException.class, () -> client.execute(this::request));
+        }
+
+        assertTrue(System.nanoTime() - start < 2_000_000_000L);
+        assertEquals(1, meterRegistry.get(LlmHttpClient.METRIC_REQUESTS)
+                .tag("outcome", LlmHttpClient.OUTCOME_CANCELLED).timer().count());
+    }
+
+    @Test
+    public void testCircuitOpensAndFailsFast() {
+        server.reply(500, "down");
+        properties.getRetry().setMaxAttempts(1);
+        client = new LlmHttpClient(properties, meterRegistry);
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IOException.class, () -> client.execute(this::request));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+
+        assertThrows(UpstreamUnavailableException.class, () -> client.execute(this::request));
+        assertEquals(4, server.requestCount());
+    }
+
+    @Test
+    public void testHalfOpenProbeIsNotConsumedByFailedRequestCreationOrCancellation() throws Exception {
+        server.reply(500, "down");
+        properties.getRetry().setMaxAttempts(1);
+        properties.getCircuitBreaker().setOpenDuration(Duration.ofMillis(50));
+        properties.getCircuitBreaker().setHalfOpenCalls(1);
+        client = new LlmHttpClient(properties, meterRegistry);
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IOException.class, () -> client.execute(this::request));
+        }
+        Thread.sleep(100);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, client.getCircuitState());
+
+        // 请求创建失败和调用方取消都不占用探测名额，也不改变熔断状态
+        assertThrows(IOException.class, () -> client.execute(() -> {
+            throw new IOException("序列化请求失败");
+        }));
+        server.reply(200, StubLlmServer.completion("ok"));
+        assertThrows(IllegalStateException.class, () -> client.executeStream(this::request, body -> {
+            throw new IllegalStateException("客户端已断开");
+        }));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, client.getCircuitState());
+
+        assertTrue(client.execute(this::request).contains("ok"));
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitState());
+    }
+
+    @Test
+    public void testStreamIsAbortedWhenHandlerFails() {
+        client = new LlmHttpClient(properties, meterRegistry);
+
+        assertThrows(IllegalStateException.class, () -> client.executeStream(this::request, body -> {
+            throw new IllegalStateException("客户端已断开");
+        }));
+
+        assertEquals(1, server.requestCount());
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitState());
+    }
+
+    private HttpPost request() {
+        return new HttpPost(server.url());
+    }
+}
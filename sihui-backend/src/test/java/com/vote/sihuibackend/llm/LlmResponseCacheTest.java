@@ -0,0 +1,194 @@
+package com.vote.sihuibackend.llm;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LlmResponseCache测试类
+ */
+public class LlmResponseCacheTest {
+
+    private StaticListableBeanFactory beanFactory;
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("cacheManager", new ConcurrentMapCacheManager(LlmResponseCache.CACHE_NAME));
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testKeyIgnoresFormattingDifferences() {
+        LlmResponseCache cache = newCache();
+
+        String key = cache.keyOf("deepseek-chat", 0.7, 1000, messages("什么是四会培训？"));
+
+        assertEquals(key, cache.keyOf("deepseek-chat", 0.7, 1000, messages("  什么是四会培训?\n")));
+        assertNotEquals(key, cache.keyOf("deepseek-chat", 0.2, 1000, messages("什么是四会培训？")));
+        assertNotEquals(key, cache.keyOf("deepseek-chat", 0.7, 1000, messages("什么是培训？")));
+    }
+
+    @Test
+    public void testHitsLocalThenSharedTier() throws IOException {
+        LlmResponseCache cache = newCache();
+        AtomicInteger calls = new AtomicInteger();
+        String key = cache.keyOf("deepseek-chat", 0.7, 1000, messages("你好"));
+
+        ChatCompletionResult first = cache.getOrLoad(key, () -> "回复" + calls.incrementAndGet());
+        ChatCompletionResult second = cache.getOrLoad(key, () -> "回复" + calls.incrementAndGet());
+        // 另一个实例只能从共享缓存读取
+        ChatCompletionResult other = newCache().getOrLoad(key, () -> "回复" + calls.incrementAndGet());
+
+        assertFalse(first.isCached());
+        assertTrue(second.isCached());
+        assertTrue(other.isCached());
+        assertEquals("回复1", other.getContent());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testCoalescesConcurrentIdenticalRequests() throws Exception {
+        LlmResponseCache cache = newCache();
+        String key = cache.keyOf("deepseek-chat", 0.7, 1000, messages("如何报名培训？"));
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<ChatCompletionResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(executor.submit(() -> cache.getOrLoad(key, () -> {
+                calls.incrementAndGet();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "报名方式";
+            })));
+        }
+        // 等待其余请求进入等待状态后再放行上游调用
+        Thread.sleep(200);
+        release.countDown();
+
+        int cached = 0;
+        for (Future<ChatCompletionResult> future : futures) {
+            ChatCompletionResult result = future.get(5, TimeUnit.SECONDS);
+            assertEquals("报名方式", result.getContent());
+            cached += result.isCached() ? 1 : 0;
+        }
+        assertEquals(1, calls.get());
+        assertEquals(3, cached);
+    }
+
+    @Test
+    public void testFollowerStopsWaitingAtItsDeadline() throws Exception {
+        LlmResponseCache cache = newCache();
+        String key = cache.keyOf("deepseek-chat", 0.7, 1000, messages("培训什么时候开始？"));
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<ChatCompletionResult> leader = executor.submit(() -> cache.getOrLoad(key, () -> {
+            leaderStarted.countDown();
+            awaitRelease(release);
+            return "下周一";
+        }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        long start = System.currentTimeMillis();
+        try (LlmCallContext.Scope ignored = LlmCallContext.open(
+                LlmCallContext.interactive("user:7", "s-1").withDeadline(start + 200))) {
+            assertThrows(InterruptedIOException.class, () -> cache.getOrLoad(key, () -> "不应调用"));
+        }
+        assertTrue(System.currentTimeMillis() - start < 2000);
+
+        release.countDown();
+        assertEquals("下周一", leader.get(5, TimeUnit.SECONDS).getContent());
+    }
+
+    @Test
+    public void testFollowerLoadsItselfWhenLeaderIsRejectedByGateway() throws Exception {
+        LlmResponseCache cache = newCache();
+        String key = cache.keyOf("deepseek-chat", 0.7, 1000, messages("证书怎么领取？"));
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<ChatCompletionResult> leader = executor.submit(() -> cache.getOrLoad(key, () -> {
+            leaderStarted.countDown();
+            awaitRelease(release);
+            throw new LlmGatewayRejectedException("user-queue-full", "AI服务繁忙，请稍后重试");
+        }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        Future<ChatCompletionResult> follower = executor.submit(() -> cache.getOrLoad(key, () -> "在个人中心下载"));
+        Thread.sleep(200);
+        release.countDown();
+
+        ExecutionException leaderFailure = assertThrows(ExecutionException.class,
+                () -> leader.get(5, TimeUnit.SECONDS));
+        assertTrue(leaderFailure.getCause() instanceof LlmGatewayRejectedException);
+        // 被拒绝的是发起调用的请求，等待的请求以自己的身份重新调用
+        ChatCompletionResult result = follower.get(5, TimeUnit.SECONDS);
+        assertFalse(result.isCached());
+        assertEquals("在个人中心下载", result.getContent());
+    }
+
+    @Test
+    public void testFailuresAreNotCached() throws IOException {
+        LlmResponseCache cache = newCache();
+        String key = cache.keyOf("deepseek-chat", 0.7, 1000, messages("你好"));
+
+        assertThrows(IOException.class, () -> cache.getOrLoad(key, () -> {
+            throw new IOException("API调用失败");
+        }));
+        ChatCompletionResult result = cache.getOrLoad(key, () -> "你好！");
+
+        assertFalse(result.isCached());
+        assertEquals("你好！", result.getContent());
+    }
+
+    private static void awaitRelease(CountDownLatch release) {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private LlmResponseCache newCache() {
+        return new LlmResponseCache(beanFactory.getBeanProvider(CacheManager.class));
+    }
+
+    private static List<Map<String, String>> messages(String question) {
+        Map<String, String> system = new HashMap<>();
+        system.put("role", "system");
+        system.put("content", "你是四会培训平台的智能助手。");
+        Map<String, String> user = new HashMap<>();
+        user.put("role", "user");
+        user.put("content", question);
+        return Collections.unmodifiableList(Arrays.asList(system, user));
+    }
+}
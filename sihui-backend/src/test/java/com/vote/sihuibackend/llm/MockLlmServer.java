@@ -0,0 +1,356 @@
+package com.vote.sihuibackend.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 离线的大模型接口替身
+ * 实现OpenAI兼容的 /v1/chat/completions 接口（含 stream=true 的SSE响应），用于压测和联调时代替付费的DeepSeek接口。
+ * 首个token延迟服从对数正态分布（由中位数和P99确定），之后按固定速率输出token；
+ * 可按比例注入429限流、5xx错误和流中途的错误事件。
+ * 提示词要求只返回JSON（查询分析、重排序）时返回固定的JSON，其余请求返回固定的中文回答。
+ *
+ * <p>单独运行：{@code java MockLlmServer [端口]}，再把 deepseek.api.url 指向 http://127.0.0.1:端口/v1/chat/completions。
+ */
+@Slf4j
+public class MockLlmServer implements AutoCloseable {
+
+    private static final double Z_99 = 2.326;
+    private static final String ANSWER = "根据四会培训平台的相关规定，学员完成全部课程并通过考核后，可以在个人中心下载电子证书。"
+            + "如需纸质证书，请联系所在单位的培训管理员统一申领。";
+    private static final String QUERY_ANALYSIS = "{\"intent\":\"information_query\",\"confidence\":0.8,"
+            + "\"expandedKeywords\":[\"证书\",\"下载\"],\"entities\":[\"培训证书\"]}";
+    private static final String RERANK = "[1]";
+
+    private final Config config;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger streamCount = new AtomicInteger();
+    private final AtomicInteger injectedErrorCount = new AtomicInteger();
+    private final AtomicLong idSequence = new AtomicLong();
+
+    public MockLlmServer(Config config) throws IOException {
+        this(config, 0);
+    }
+
+    public MockLlmServer(Config config, int port) throws IOException {
+        this.config = config;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/v1/chat/completions", this::handle);
+        server.createContext("/chat/completions", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 18080;
+        MockLlmServer server = new MockLlmServer(new Config(), port);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        log.info("Mock LLM server listening on {}", server.url());
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/chat/completions";
+    }
+
+    public int requestCount() {
+        return requestCount.get();
+    }
+
+    public int streamCount() {
+        return streamCount.get();
+    }
+
+    public int injectedErrorCount() {
+        return injectedErrorCount.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendJson(exchange, 405, error("method not allowed", "invalid_request_error"));
+                return;
+            }
+            JsonNode request;
+            try (InputStream in = exchange.getRequestBody()) {
+                request = objectMapper.readTree(in);
+            }
+            if (request == null || !request.path("messages").isArray()) {
+                sendJson(exchange, 400, error("messages is required", "invalid_request_error"));
+                return;
+            }
+            boolean stream = request.path("stream").asBoolean(false);
+            String model = request.path("model").asText("deepseek-chat");
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            double roll = random.nextDouble();
+            if (roll < config.rateLimitRate) {
+                injectedErrorCount.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", String.valueOf(config.retryAfterSeconds));
+                sendJson(exchange, 429, error("rate limit reached", "rate_limit_error"));
+                return;
+            }
+            if (roll < config.rateLimitRate + config.errorRate) {
+                injectedErrorCount.incrementAndGet();
+                sleep(sampleFirstTokenLatency(random));
+                sendJson(exchange, config.errorStatus, error("server overloaded", "server_error"));
+                return;
+            }
+
+            String[] tokens = tokenize(request.path("messages"), config.responseTokens);
+            int promptTokens = promptTokens(request.path("messages"));
+            sleep(sampleFirstTokenLatency(random));
+            if (stream) {
+                streamCount.incrementAndGet();
+                boolean failMidStream = random.nextDouble() < config.midStreamErrorRate;
+                if (failMidStream) {
+                    injectedErrorCount.incrementAndGet();
+                }
+                streamCompletion(exchange, model, tokens, failMidStream);
+            } else {
+                // 非流式响应也要等全部token生成完
+                sleep(tokenInterval() * (tokens.length - 1));
+                sendJson(exchange, 200, completion(model, String.join("", tokens), promptTokens, tokens.length));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // 客户端已断开
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void streamCompletion(HttpExchange exchange, String model, String[] tokens, boolean failMidStream)
+            throws IOException, InterruptedException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        String id = nextId();
+        try (OutputStream out = exchange.getResponseBody()) {
+            writeEvent(out, chunk(id, model, "role", "assistant", null));
+            for (int i = 0; i < tokens.length; i++) {
+                if (i > 0) {
+                    sleep(tokenInterval());
+                }
+                if (failMidStream && i == tokens.length / 2) {
+                    writeEvent(out, objectMapper.writeValueAsString(error("stream interrupted", "server_error")));
+                    return;
+                }
+                writeEvent(out, chunk(id, model, "content", tokens[i], null));
+            }
+            writeEvent(out, chunk(id, model, null, null, "stop"));
+            writeEvent(out, "[DONE]");
+        }
+    }
+
+    private void writeEvent(OutputStream out, String data) throws IOException {
+        out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private String chunk(String id, String model, String field, String value, String finishReason)
+            throws IOException {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("id", id);
+        root.put("object", "chat.completion.chunk");
+        root.put("created", System.currentTimeMillis() / 1000);
+        root.put("model", model);
+        ObjectNode choice = root.putArray("choices").addObject();
+        choice.put("index", 0);
+        ObjectNode delta = choice.putObject("delta");
+        if (field != null) {
+            delta.put(field, value);
+        }
+        if (finishReason != null) {
+            choice.put("finish_reason", finishReason);
+        } else {
+            choice.putNull("finish_reason");
+        }
+        return objectMapper.writeValueAsString(root);
+    }
+
+    private ObjectNode completion(String model, String content, int promptTokens, int completionTokens) {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("id", nextId());
+        root.put("object", "chat.completion");
+        root.put("created", System.currentTimeMillis() / 1000);
+        root.put("model", model);
+        ObjectNode choice = root.putArray("choices").addObject();
+        choice.put("index", 0);
+        ObjectNode message = choice.putObject("message");
+        message.put("role", "assistant");
+        message.put("content", content);
+        choice.put("finish_reason", "stop");
+        ObjectNode usage = root.putObject("usage");
+        usage.put("prompt_tokens", promptTokens);
+        usage.put("completion_tokens", completionTokens);
+        usage.put("total_tokens", promptTokens + completionTokens);
+        return root;
+    }
+
+    private ObjectNode error(String message, String type) {
+        ObjectNode root = objectMapper.createObjectNode();
+        ObjectNode error = root.putObject("error");
+        error.put("message", message);
+        error.put("type", type);
+        return root;
+    }
+
+    private void sendJson(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * 首个token延迟：对数正态分布，μ取中位数的对数，σ由P99反推
+     */
+    private long sampleFirstTokenLatency(ThreadLocalRandom random) {
+        double median = Math.max(1, config.firstTokenLatencyMedian.toMillis());
+        double p99 = Math.max(median, config.firstTokenLatencyP99.toMillis());
+        double sigma = Math.log(p99 / median) / Z_99;
+        return Math.round(median * Math.exp(sigma * random.nextGaussian()));
+    }
+
+    private long tokenInterval() {
+        return config.tokensPerSecond > 0 ? Math.round(1000.0 / config.tokensPerSecond) : 0;
+    }
+
+    /**
+     * 按提示词选择回答并切成分片，每个分片视为一个token；普通回答循环截取到指定的token数
+     */
+    private static String[] tokenize(JsonNode messages, int count) {
+        String prompt = messages.size() > 0 ? messages.get(messages.size() - 1).path("content").asText("") : "";
+        String content = ANSWER;
+        int total = Math.max(1, count);
+        if (prompt.contains("Only return JSON array")) {
+            content = RERANK;
+            total = (content.length() + 1) / 2;
+        } else if (prompt.contains("Only return JSON")) {
+            content = QUERY_ANALYSIS;
+            total = (content.length() + 1) / 2;
+        }
+        String[] tokens = new String[total];
+        for (int i = 0; i < total; i++) {
+            int start = (i * 2) % content.length();
+            tokens[i] = content.substring(start, Math.min(start + 2, content.length()));
+        }
+        return tokens;
+    }
+
+    private static int promptTokens(JsonNode messages) {
+        int tokens = 0;
+        for (JsonNode message : (ArrayNode) messages) {
+            tokens += TokenEstimator.estimateMessage(message.path("content").asText(""));
+        }
+        return tokens;
+    }
+
+    private String nextId() {
+        return "chatcmpl-mock-" + idSequence.incrementAndGet();
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        if (millis > 0) {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * 替身的延迟、输出速率和错误注入配置
+     */
+    public static class Config {
+        private Duration firstTokenLatencyMedian = Duration.ofMillis(300);
+        private Duration firstTokenLatencyP99 = Duration.ofMillis(1500);
+        private double tokensPerSecond = 50;
+        private int responseTokens = 40;
+        private double rateLimitRate;
+        private int retryAfterSeconds = 1;
+        private double errorRate;
+        private int errorStatus = 503;
+        private double midStreamErrorRate;
+
+        /**
+         * 首个token延迟的中位数和P99
+         */
+        public Config firstTokenLatency(Duration median, Duration p99) {
+            this.firstTokenLatencyMedian = median;
+            this.firstTokenLatencyP99 = p99;
+            return this;
+        }
+
+        /**
+         * 首个token之后每秒输出的token数，0表示一次性输出
+         */
+        public Config tokensPerSecond(double tokensPerSecond) {
+            this.tokensPerSecond = tokensPerSecond;
+            return this;
+        }
+
+        /**
+         * 每个回答的token数
+         */
+        public Config responseTokens(int responseTokens) {
+            this.responseTokens = responseTokens;
+            return this;
+        }
+
+        /**
+         * 返回429的比例，以及响应中的Retry-After秒数
+         */
+        public Config rateLimitRate(double rateLimitRate, int retryAfterSeconds) {
+            this.rateLimitRate = rateLimitRate;
+            this.retryAfterSeconds = retryAfterSeconds;
+            return this;
+        }
+
+        /**
+         * 返回服务端错误的比例和状态码
+         */
+        public Config errorRate(double errorRate, int errorStatus) {
+            this.errorRate = errorRate;
+            this.errorStatus = errorStatus;
+            return this;
+        }
+
+        /**
+         * 流式响应输出一半后改为发送错误事件的比例
+         */
+        public Config midStreamErrorRate(double midStreamErrorRate) {
+            this.midStreamErrorRate = midStreamErrorRate;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.vote.sihuibackend.llm;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试用的本地大模型接口桩
+ * 按顺序返回预先排好的响应，排完后重复最后一个；记录收到的请求数
+ */
+public class StubLlmServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Queue<Reply> replies = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private volatile Reply lastReply = new Reply(200, completion("ok"), 0, null);
+
+    public StubLlmServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/v1/chat/completions", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/chat/completions";
+    }
+
+    public StubLlmServer reply(int status, String body) {
+        return reply(status, body, 0, null);
+    }
+
+    public StubLlmServer reply(int status, String body, long delayMillis, Map<String, String> headers) {
+        replies.add(new Reply(status, body, delayMillis, headers));
+        return this;
+    }
+
+    public int requestCount() {
+        return requestCount.get();
+    }
+
+    public static String completion(String content) {
+        return "{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"" + content + "\"}}]}";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        Reply reply = replies.poll();
+        if (reply == null) {
+            reply = lastReply;
+        } else {
+            lastReply = reply;
+        }
+        try {
+            if (reply.delayMillis > 0) {
+                Thread.sleep(reply.delayMillis);
+            }
+            byte[] body = reply.body.getBytes(StandardCharsets.UTF_8);
+            if (reply.headers != null) {
+                reply.headers.forEach((name, value) -> exchange.getResponseHeaders().add(name, value));
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(reply.status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // 客户端已断开
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static final class Reply {
+        private final int status;
+        private final String body;
+        private final long delayMillis;
+        private final Map<String, String> headers;
+
+        Reply(int status, String body, long delayMillis, Map<String, String> headers) {
+            this.status = status;
+            this.body = body;
+            this.delayMillis = delayMillis;
+            this.headers = headers;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.vote.sihuibackend.oss;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadResult;
+import com.aliyun.oss.model.UploadPartRequest;
+import com.aliyun.oss.model.UploadPartResult;
+import com.vote.sihuibackend.config.OssConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * OSS分片上传器单元测试
+ */
+class OssMultipartUploaderTest {
+
+    private static final int PART_SIZE = 100 * 1024;
+
+    @TempDir
+    Path checkpointDir;
+
+    private OSS ossClient;
+    private OssConfig ossConfig;
+    private ExecutorService executor;
+    private final Map<Integer, byte[]> uploadedParts = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ossClient = mock(OSS.class);
+        ossConfig = new OssConfig();
+        ossConfig.setBucketName("bucket");
+        ossConfig.setMultipartThreshold("150KB");
+        ossConfig.setMultipartPartSize("100KB");
+        ossConfig.setMultipartParallelism(2);
+        ossConfig.setMultipartPartRetries(1);
+        ossConfig.setMultipartCheckpointDir(checkpointDir.toString());
+        executor = Executors.newFixedThreadPool(4);
+
+        InitiateMultipartUploadResult initiated = new InitiateMultipartUploadResult();
+        initiated.setUploadId("upload1");
+        when(ossClient.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenReturn(initiated);
+        when(ossClient.uploadPart(any(UploadPartRequest.class)))
+                .thenAnswer(invocation -> storePart(invocation.getArgument(0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void streamIsSplitIntoPartsAndCompletedInOrder() throws IOException {
+        byte[] content = content(PART_SIZE * 3 + 1234);
+        AtomicBoolean failedOnce = new AtomicBoolean(false);
+        // 第2片首次失败，只重试该分片
+        doAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            if (request.getPartNumber() == 2 && failedOnce.compareAndSet(false, true)) {
+                throw new ClientException("connection reset");
+            }
+            return storePart(request);
+        }).when(ossClient).uploadPart(any(UploadPartRequest.class));
+
+        newUploader().upload(new ByteArrayInputStream(content), "videos/a.mp4", "video/mp4", -1);
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete = ArgumentCaptor
+                .forClass(CompleteMultipartUploadRequest.class);
+        verify(ossClient).completeMultipartUpload(complete.capture());
+        assertEquals(4, complete.getValue().getPartETags().size());
+        assertEquals("1,2,3,4", complete.getValue().getPartETags().stream()
+                .map(tag -> String.valueOf(tag.getPartNumber())).collect(Collectors.joining(",")));
+        assertArrayEquals(content, concatParts(4));
+        assertTrue(failedOnce.get());
+        // 完成后断点文件被删除
+        assertEquals(0, checkpointDir.toFile().list().length);
+    }
+
+    @Test
+    void sessionResumesFromCheckpointAfterRestart() throws IOException {
+        byte[] content = content(PART_SIZE * 2 + 10);
+        MultipartCheckpoint checkpoint = newUploader().initiate("videos/b.mp4", "b.mp4", "video/mp4",
+                content.length, 7L);
+        assertEquals(3, checkpoint.getPartCount());
+        newUploader().uploadPart("upload1", 1, new ByteArrayInputStream(content, 0, PART_SIZE), PART_SIZE);
+
+        // 服务重启：新实例从断点文件恢复会话，只需补传缺失分片
+        OssMultipartUploader restarted = newUploader();
+        MultipartCheckpoint restored = restarted.getCheckpoint("upload1");
+        assertEquals(1, restored.getParts().size());
+        assertEquals(7L, restored.getOwnerId());
+        assertThrows(IllegalArgumentException.class, () -> restarted.complete("upload1"));
+        assertThrows(IllegalArgumentException.class, () -> restarted.uploadPart("upload1", 3,
+                new ByteArrayInputStream(new byte[5]), 5));
+
+        restarted.uploadPart("upload1", 2, new ByteArrayInputStream(content, PART_SIZE, PART_SIZE), PART_SIZE);
+        restarted.uploadPart("upload1", 3, new ByteArrayInputStream(content, PART_SIZE * 2, 10), 10);
+        assertEquals("videos/b.mp4", restarted.complete("upload1"));
+
+        assertArrayEquals(content, concatParts(3));
+        assertThrows(IllegalArgumentException.class, () -> restarted.getCheckpoint("upload1"));
+    }
+
+    @Test
+    void smallStreamIsUploadedWithSingleRequest() throws IOException {
+        newUploader().upload(new ByteArrayInputStream(content(1000)), "images/c.png", "image/png", -1);
+
+        verify(ossClient).putObject(eq("bucket"), eq("images/c.png"), any(InputStream.class), any());
+        verify(ossClient, never()).initiateMultipartUpload(any(InitiateMultipartUploadRequest.class));
+    }
+
+    private UploadPartResult storePart(UploadPartRequest request) throws IOException {
+        byte[] data = readAll(request.getInputStream());
+        uploadedParts.put(request.getPartNumber(), data);
+        UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setETag("etag-" + request.getPartNumber());
+        result.setPartSize(data.length);
+        return result;
+    }
+
+    private OssMultipartUploader newUploader() {
+        return new OssMultipartUploader(ossClient, ossConfig, executor);
+    }
+
+    private byte[] concatParts(int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 1; i <= count; i++) {
+            byte[] part = uploadedParts.get(i);
+            out.write(part, 0, part.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] content(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) (i * 31 + i / 7);
+        }
+        return content;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
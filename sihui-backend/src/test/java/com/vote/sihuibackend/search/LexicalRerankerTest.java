@@ -0,0 +1,97 @@
+package com.vote.sihuibackend.search;
+
+import com.vote.sihuibackend.config.RerankProperties;
+import com.vote.sihuibackend.entity.Document;
+import com.vote.sihuibackend.service.TextSearchService.SearchResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LexicalReranker测试类
+ */
+public class LexicalRerankerTest {
+
+    private final RerankProperties properties = new RerankProperties();
+    private final LexicalReranker reranker = new LexicalReranker(properties);
+
+    @Test
+    public void testExtractTermsSplitsChineseIntoBigrams() {
+        List<String> terms = LexicalReranker.extractTerms("什么是四会培训? PPT模板");
+
+        assertEquals(Arrays.asList("四会", "会培", "培训", "ppt", "模板"), terms);
+    }
+
+    @Test
+    public void testTitleAndProximityOutweighSmallRelevanceGap() {
+        // 检索分数略高但只零散提到查询词的文档
+        SearchResult scattered = result(1L, "培训通知", 0.62,
+                "本次培训安排如下……" + repeat("其他内容", 200) + "四会相关说明见附件。", 0, 0);
+        // 标题命中且查询词紧挨着出现的文档
+        SearchResult focused = result(2L, "四会培训实施方案", 0.58,
+                "四会培训的实施需要制定详细的方案和计划。", 0, 0);
+
+        List<SearchResult> reranked = reranker.rerank("四会培训实施方案", Arrays.asList(scattered, focused));
+
+        assertEquals(2L, reranked.get(0).getDocument().getId());
+        // 不修改检索相关性分数
+        assertEquals(0.62, scattered.getRelevanceScore(), 1e-9);
+    }
+
+    @Test
+    public void testPopularityBreaksTiesAndOrderIsStableOtherwise() {
+        SearchResult quiet = result(1L, "四会培训", 0.5, "四会培训内容", 0, 0);
+        SearchResult popular = result(2L, "四会培训", 0.5, "四会培训内容", 300, 40);
+        SearchResult sameAsQuiet = result(3L, "四会培训", 0.5, "四会培训内容", 0, 0);
+
+        List<SearchResult> reranked = reranker.rerank("四会培训", Arrays.asList(quiet, popular, sameAsQuiet));
+
+        assertEquals(Arrays.asList(2L, 1L, 3L), Arrays.asList(reranked.get(0).getDocument().getId(),
+                reranked.get(1).getDocument().getId(), reranked.get(2).getDocument().getId()));
+    }
+
+    @Test
+    public void testWeightsAreConfigurable() {
+        SearchResult highRelevance = result(1L, "通知", 0.9, "无关内容", 0, 0);
+        SearchResult titleMatch = result(2L, "四会培训", 0.3, "无关内容", 0, 0);
+        List<SearchResult> results = Arrays.asList(highRelevance, titleMatch);
+
+        properties.setTfidfWeight(1.0);
+        properties.setTitleWeight(0.0);
+        assertEquals(1L, reranker.rerank("四会培训", results).get(0).getDocument().getId());
+
+        properties.setTfidfWeight(0.1);
+        properties.setTitleWeight(1.0);
+        assertEquals(2L, reranker.rerank("四会培训", results).get(0).getDocument().getId());
+    }
+
+    @Test
+    public void testSingleResultIsReturnedAsIs() {
+        List<SearchResult> single = Collections.singletonList(result(1L, "四会培训", 0.5, "内容", 0, 0));
+
+        assertSame(single, reranker.rerank("四会培训", single));
+    }
+
+    private static SearchResult result(Long id, String title, double relevance, String content, int views,
+            int downloads) {
+        Document document = new Document();
+        document.setId(id);
+        document.setTitle(title);
+        document.setContent(content);
+        document.setViewCount(views);
+        document.setDownloadCount(downloads);
+        return new SearchResult(document, relevance);
+    }
+
+    private static String repeat(String text, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,207 @@
+package com.vote.sihuibackend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vote.sihuibackend.entity.ChatMessage;
+import com.vote.sihuibackend.entity.ChatSession;
+import com.vote.sihuibackend.entity.ChatSessionArchive;
+import com.vote.sihuibackend.job.ChatArchiveJobHandler;
+import com.vote.sihuibackend.job.JobContext;
+import com.vote.sihuibackend.repository.ChatMessageRepository;
+import com.vote.sihuibackend.repository.ChatSessionArchiveRepository;
+import com.vote.sihuibackend.repository.ChatSessionRepository;
+import com.vote.sihuibackend.service.impl.ChatArchiveServiceImpl;
+import com.vote.sihuibackend.service.impl.ChatMemoryServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 聊天会话归档和按需恢复测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ChatArchiveServiceTest {
+
+    @Mock
+    private ChatSessionRepository chatSessionRepository;
+
+    @Mock
+    private ChatMessageRepository chatMessageRepository;
+
+    @Mock
+    private ChatSessionArchiveRepository chatSessionArchiveRepository;
+
+    @Captor
+    private ArgumentCaptor<List<ChatMessage>> restored;
+
+    private ChatArchiveServiceImpl archiveService;
+
+    @BeforeEach
+    void setUp() {
+        archiveService = new ChatArchiveServiceImpl(chatSessionRepository, chatMessageRepository,
+                chatSessionArchiveRepository, new ObjectMapper().findAndRegisterModules(),
+                new StaticListableBeanFactory().getBeanProvider(ProcessingJobService.class));
+        ReflectionTestUtils.setField(archiveService, "chunkSize", 2);
+    }
+
+    @Test
+    void testSessionWithNewMessagesIsNotArchived() {
+        when(chatSessionRepository.markArchived(eq(5L), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(0);
+
+        assertFalse(archiveService.archiveSession(5L));
+        verify(chatMessageRepository, never()).findOldestMessages(anyLong(), anyInt());
+        verify(chatSessionArchiveRepository, never()).save(any(ChatSessionArchive.class));
+    }
+
+    @Test
+    void testArchiveStoresMessagesAndDeletesThemInChunks() throws Exception {
+        List<ChatMessage> messages = Arrays.asList(message(11L, "user", "证书怎么领取"),
+                message(12L, "assistant", "在个人中心下载"), message(13L, "user", "谢谢"));
+        when(chatSessionRepository.markArchived(eq(5L), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(1);
+        when(chatMessageRepository.findOldestMessages(5L, 2)).thenReturn(messages.subList(0, 2),
+                messages.subList(2, 3), Collections.emptyList());
+
+        assertTrue(archiveService.archiveSession(5L));
+
+        ArgumentCaptor<ChatSessionArchive> archive = ArgumentCaptor.forClass(ChatSessionArchive.class);
+        verify(chatSessionArchiveRepository).save(archive.capture());
+        assertEquals(5L, archive.getValue().getSessionId());
+        assertEquals(3, archive.getValue().getMessageCount());
+        assertEquals(messages.get(0).getTimestamp(), archive.getValue().getFirstMessageAt());
+        assertEquals(messages.get(2).getTimestamp(), archive.getValue().getLastMessageAt());
+        verify(chatMessageRepository).deleteAllByIdInBatch(Arrays.asList(11L, 12L));
+        verify(chatMessageRepository).deleteAllByIdInBatch(Collections.singletonList(13L));
+    }
+
+    @Test
+    void testRestoreWritesBackOriginalMessages() {
+        List<ChatMessage> messages = Arrays.asList(message(11L, "user", "证书怎么领取"),
+                message(12L, "assistant", "在个人中心下载"));
+        when(chatSessionRepository.markArchived(eq(5L), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(1);
+        when(chatMessageRepository.findOldestMessages(5L, 2)).thenReturn(messages, Collections.emptyList());
+        archiveService.archiveSession(5L);
+        ArgumentCaptor<ChatSessionArchive> saved = ArgumentCaptor.forClass(ChatSessionArchive.class);
+        verify(chatSessionArchiveRepository).save(saved.capture());
+
+        when(chatSessionRepository.markRestored(eq(5L), any(LocalDateTime.class))).thenReturn(1);
+        when(chatSessionArchiveRepository.findById(5L)).thenReturn(Optional.of(saved.getValue()));
+
+        assertEquals(2, archiveService.restoreSession(5L));
+
+        verify(chatMessageRepository).restoreAll(restored.capture(), eq(2));
+        // 保留原消息ID，会话摘要的覆盖标记仍然有效
+        assertEquals(11L, restored.getValue().get(0).getId());
+        assertEquals(5L, restored.getValue().get(0).getSessionId());
+        assertEquals("在个人中心下载", restored.getValue().get(1).getContent());
+        assertEquals(messages.get(1).getTimestamp(), restored.getValue().get(1).getTimestamp());
+        verify(chatSessionArchiveRepository).delete(saved.getValue());
+    }
+
+    @Test
+    void testRestoreOfSessionThatIsNotArchivedDoesNothing() {
+        when(chatSessionRepository.markRestored(eq(5L), any(LocalDateTime.class))).thenReturn(0);
+
+        assertEquals(0, archiveService.restoreSession(5L));
+        verify(chatSessionArchiveRepository, never()).findById(anyLong());
+        verify(chatMessageRepository, never()).restoreAll(ArgumentMatchers.<ChatMessage>anyList(), anyInt());
+    }
+
+    @Test
+    void testHistoryOfArchivedSessionIsRestoredOnDemand() {
+        ChatArchiveService chatArchiveService = mock(ChatArchiveService.class);
+        ChatMemoryServiceImpl memoryService = new ChatMemoryServiceImpl(chatSessionRepository,
+                chatMessageRepository, chatArchiveService);
+        when(chatSessionRepository.findBySessionId("s-1")).thenReturn(Optional.of(session()));
+        List<ChatMessage> messages = Collections.singletonList(message(11L, "user", "你好"));
+        when(chatMessageRepository.findBySessionIdOrderByTimestamp(5L)).thenReturn(messages);
+        when(chatSessionRepository.isArchived(5L)).thenReturn(true, true, false);
+
+        assertEquals(messages, memoryService.getSessionHistory("s-1"));
+        verify(chatArchiveService).restoreSession(5L);
+
+        // 会话在缓存之后被归档：缓存只有会话ID，每次读取都重新检查归档标记
+        assertEquals(messages, memoryService.getSessionHistory("s-1"));
+        verify(chatArchiveService, times(2)).restoreSession(5L);
+
+        assertEquals(messages, memoryService.getSessionHistory("s-1"));
+        verify(chatArchiveService, times(2)).restoreSession(5L);
+        verify(chatSessionRepository, times(1)).findBySessionId("s-1");
+    }
+
+    @Test
+    void testWriteToArchivedSessionRestoresItFirst() {
+        ChatArchiveService chatArchiveService = mock(ChatArchiveService.class);
+        ChatMemoryServiceImpl memoryService = new ChatMemoryServiceImpl(chatSessionRepository,
+                chatMessageRepository, chatArchiveService);
+        when(chatSessionRepository.findBySessionId("s-1")).thenReturn(Optional.of(session()));
+        when(chatSessionRepository.touch(eq(5L), any(LocalDateTime.class))).thenReturn(1);
+        when(chatSessionRepository.isArchived(5L)).thenReturn(true);
+
+        memoryService.saveMessage("s-1", "user", "还在吗");
+
+        // 先更新会话行与归档互斥，再检查标记并恢复，最后写入消息
+        InOrder inOrder = inOrder(chatSessionRepository, chatArchiveService, chatMessageRepository);
+        inOrder.verify(chatSessionRepository).touch(eq(5L), any(LocalDateTime.class));
+        inOrder.verify(chatSessionRepository).isArchived(5L);
+        inOrder.verify(chatArchiveService).restoreSession(5L);
+        inOrder.verify(chatMessageRepository).save(any(ChatMessage.class));
+    }
+
+    @Test
+    void testArchiveJobWalksCandidatesInBatches() {
+        ChatArchiveService chatArchiveService = mock(ChatArchiveService.class);
+        ChatArchiveJobHandler handler = new ChatArchiveJobHandler(chatArchiveService);
+        ReflectionTestUtils.setField(handler, "batchSize", 2);
+        when(chatArchiveService.findArchiveCandidates(0L, 2)).thenReturn(Arrays.asList(3L, 4L));
+        when(chatArchiveService.findArchiveCandidates(4L, 2)).thenReturn(Collections.singletonList(9L));
+        when(chatArchiveService.findArchiveCandidates(9L, 2)).thenReturn(Collections.emptyList());
+        when(chatArchiveService.archiveSession(anyLong())).thenReturn(true);
+        JobContext context = mock(JobContext.class);
+        when(context.reportProgress(anyInt())).thenReturn(true);
+
+        handler.handle(null, context);
+
+        verify(chatArchiveService).archiveSession(3L);
+        verify(chatArchiveService).archiveSession(4L);
+        verify(chatArchiveService).archiveSession(9L);
+        verify(context).reportProgress(100);
+    }
+
+    private static ChatSession session() {
+        ChatSession session = new ChatSession();
+        session.setId(5L);
+        session.setSessionId("s-1");
+        session.setUserId(7L);
+        return session;
+    }
+
+    private static ChatMessage message(Long id, String role, String content) {
+        ChatMessage message = new ChatMessage();
+        message.setId(id);
+        message.setSessionId(5L);
+        message.setRole(role);
+        message.setContent(content);
+        message.setTimestamp(LocalDateTime.of(2024, 3, 1, 10, 0).plusMinutes(id));
+        return message;
+    }
+}
@@ -0,0 +1,141 @@
+package com.vote.sihuibackend.service;
+
+import com.vote.sihuibackend.entity.ChatMessage;
+import com.vote.sihuibackend.entity.ChatSession;
+import com.vote.sihuibackend.repository.ChatMessageRepository;
+import com.vote.sihuibackend.repository.ChatSessionRepository;
+import com.vote.sihuibackend.service.impl.ChatMemoryServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 聊天记忆服务的会话缓存和批量写入测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ChatMemoryServiceTest {
+
+    @Mock
+    private ChatSessionRepository chatSessionRepository;
+
+    @Mock
+    private ChatMessageRepository chatMessageRepository;
+
+    @Mock
+    private ChatArchiveService chatArchiveService;
+
+    private ChatMemoryServiceImpl chatMemoryService;
+
+    @BeforeEach
+    void setUp() {
+        chatMemoryService = new ChatMemoryServiceImpl(chatSessionRepository, chatMessageRepository, chatArchiveService);
+    }
+
+    @Test
+    void testExchangeIsSavedInOneBatchWithoutSessionLookups() {
+        when(chatSessionRepository.save(any(ChatSession.class))).thenAnswer(invocation -> {
+            ChatSession session = invocation.getArgument(0);
+            session.setId(10L);
+            return session;
+        });
+        when(chatMessageRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(chatSessionRepository.touch(eq(10L), any(LocalDateTime.class))).thenReturn(1);
+        String sessionId = chatMemoryService.createSession(1L, "培训咨询");
+
+        chatMemoryService.saveExchange(sessionId, "证书怎么领取", "在个人中心下载");
+        chatMemoryService.saveExchange(sessionId, "需要审核吗", "不需要");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ChatMessage>> batch = ArgumentCaptor.forClass(List.class);
+        verify(chatMessageRepository, times(2)).saveAll(batch.capture());
+        List<ChatMessage> first = batch.getAllValues().get(0);
+        assertEquals("user", first.get(0).getRole());
+        assertEquals("assistant", first.get(1).getRole());
+        assertEquals(10L, first.get(1).getSessionId());
+
+        verify(chatSessionRepository, times(2)).touch(eq(10L), any(LocalDateTime.class));
+        verify(chatSessionRepository, never()).findBySessionId(anyString());
+        // 只有创建会话时保存过一次会话实体
+        verify(chatSessionRepository, times(1)).save(any(ChatSession.class));
+    }
+
+    @Test
+    void testSessionIsLookedUpOnceAndOwnershipComesFromCache() {
+        when(chatSessionRepository.findBySessionId("s-1")).thenReturn(Optional.of(session(20L, "s-1", 7L)));
+        when(chatSessionRepository.touch(eq(20L), any(LocalDateTime.class))).thenReturn(1);
+
+        chatMemoryService.saveMessage("s-1", "user", "你好");
+        chatMemoryService.getRecentMessages("s-1", 10);
+
+        assertTrue(chatMemoryService.isSessionOwnedBy("s-1", 7L));
+        assertFalse(chatMemoryService.isSessionOwnedBy("s-1", 8L));
+        verify(chatSessionRepository, times(1)).findBySessionId("s-1");
+    }
+
+    @Test
+    void testUnknownSessionIsNotOwnedAndCannotBeWritten() {
+        when(chatSessionRepository.findBySessionId("missing")).thenReturn(Optional.empty());
+
+        assertFalse(chatMemoryService.isSessionOwnedBy("missing", 7L));
+        assertThrows(RuntimeException.class, () -> chatMemoryService.saveExchange("missing", "问", "答"));
+        verify(chatMessageRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testSessionDeletedByAnotherInstanceCannotBeWrittenAndIsForgotten() {
+        when(chatSessionRepository.findBySessionId("s-1")).thenReturn(Optional.of(session(20L, "s-1", 7L)),
+                Optional.empty());
+        assertTrue(chatMemoryService.isSessionOwnedBy("s-1", 7L));
+
+        // 会话在其他实例上被删除：更新不到会话行，不写入消息并丢弃缓存的映射
+        when(chatSessionRepository.touch(eq(20L), any(LocalDateTime.class))).thenReturn(0);
+        assertThrows(RuntimeException.class, () -> chatMemoryService.saveExchange("s-1", "问", "答"));
+        verify(chatMessageRepository, never()).saveAll(anyList());
+
+        assertFalse(chatMemoryService.isSessionOwnedBy("s-1", 7L));
+        verify(chatSessionRepository, times(2)).findBySessionId("s-1");
+    }
+
+    @Test
+    void testClearedSessionIsEvictedAndCacheIsBounded() {
+        ReflectionTestUtils.setField(chatMemoryService, "sessionCacheSize", 2);
+        when(chatSessionRepository.findBySessionId(anyString())).thenAnswer(invocation -> {
+            String sessionId = invocation.getArgument(0);
+            return Optional.of(session((long) sessionId.hashCode(), sessionId, 7L));
+        });
+
+        chatMemoryService.isSessionOwnedBy("a", 7L);
+        chatMemoryService.isSessionOwnedBy("b", 7L);
+        chatMemoryService.isSessionOwnedBy("c", 7L);
+        // a已被淘汰，需要重新查询；c仍在缓存中
+        chatMemoryService.isSessionOwnedBy("a", 7L);
+        chatMemoryService.isSessionOwnedBy("c", 7L);
+        verify(chatSessionRepository, times(2)).findBySessionId("a");
+        verify(chatSessionRepository, times(1)).findBySessionId("c");
+
+        chatMemoryService.clearSession("c");
+        chatMemoryService.isSessionOwnedBy("c", 7L);
+        // 清理时查询一次，清理后缓存失效再查询一次
+        verify(chatSessionRepository, times(3)).findBySessionId("c");
+    }
+
+    private static ChatSession session(Long id, String sessionId, Long userId) {
+        ChatSession session = new ChatSession();
+        session.setId(id);
+        session.setSessionId(sessionId);
+        session.setUserId(userId);
+        return session;
+    }
+}
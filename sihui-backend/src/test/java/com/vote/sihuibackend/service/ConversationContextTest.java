@@ -0,0 +1,186 @@
+package com.vote.sihuibackend.service;
+
+import com.vote.sihuibackend.entity.ChatMessage;
+import com.vote.sihuibackend.entity.ChatSession;
+import com.vote.sihuibackend.llm.LlmCallContext;
+import com.vote.sihuibackend.llm.TokenEstimator;
+import com.vote.sihuibackend.repository.ChatMessageRepository;
+import com.vote.sihuibackend.repository.ChatSessionRepository;
+import com.vote.sihuibackend.service.impl.ChatMemoryServiceImpl;
+import com.vote.sihuibackend.service.impl.ConversationSummaryServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 对话上下文预算和滚动摘要测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ConversationContextTest {
+
+    private static final String SESSION_ID = "session-1";
+
+    @Mock
+    private ChatSessionRepository chatSessionRepository;
+
+    @Mock
+    private ChatMessageRepository chatMessageRepository;
+
+    @Mock
+    private ChatArchiveService chatArchiveService;
+
+    @Mock
+    private ChatMemoryService chatMemoryService;
+
+    @Mock
+    private DeepSeekService deepSeekService;
+
+    private ChatMemoryServiceImpl memoryService;
+    private ConversationSummaryServiceImpl summaryService;
+
+    @BeforeEach
+    void setUp() {
+        memoryService = new ChatMemoryServiceImpl(chatSessionRepository, chatMessageRepository,
+                chatArchiveService);
+        ReflectionTestUtils.setField(memoryService, "historyTokens", 100);
+
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("deepSeekService", deepSeekService);
+        summaryService = new ConversationSummaryServiceImpl(chatMemoryService,
+                beanFactory.getBeanProvider(DeepSeekService.class));
+    }
+
+    @Test
+    void testEstimateTokens() {
+        assertEquals(0, TokenEstimator.estimate(null));
+        assertEquals(3, TokenEstimator.estimate("四会培训"));
+        assertEquals(3, TokenEstimator.estimate("hello world"));
+        assertEquals(TokenEstimator.MESSAGE_OVERHEAD + 3, TokenEstimator.estimateMessage("四会培训"));
+    }
+
+    @Test
+    void testContextFillsBudgetFromNewestAndPrependsSummary() {
+        ChatSession session = session("用户是四会培训讲师", 2L);
+        when(chatSessionRepository.findBySessionId(SESSION_ID)).thenReturn(Optional.of(session));
+        // 最新的消息在前：8、7能放进100个token的预算，6放不下
+        when(chatMessageRepository.findRecentMessagesBySessionId(eq(1L), any(Pageable.class)))
+                .thenAnswer(invocation -> new ArrayList<>(Arrays.asList(
+                        message(8L, "assistant", "好的"),
+                        message(7L, "user", repeat("问", 50)),
+                        message(6L, "assistant", repeat("答", 100)),
+                        message(5L, "user", "第二个问题"),
+                        message(2L, "assistant", "已折叠进摘要的回答"))));
+
+        List<Map<String, String>> context = memoryService.buildConversationContext(SESSION_ID);
+
+        assertEquals(3, context.size());
+        assertEquals("system", context.get(0).get("role"));
+        assertTrue(context.get(0).get("content").contains("用户是四会培训讲师"));
+        assertEquals(repeat("问", 50), context.get(1).get("content"));
+        assertEquals("好的", context.get(2).get("content"));
+
+        List<ChatMessage> overflow = memoryService.getMessagesToSummarize(SESSION_ID);
+        assertEquals(Arrays.asList(5L, 6L), Arrays.asList(overflow.get(0).getId(), overflow.get(1).getId()));
+    }
+
+    @Test
+    void testSummaryFoldsOverflowAndAdvancesMarker() throws IOException {
+        when(chatMemoryService.getMessagesToSummarize(SESSION_ID)).thenReturn(Arrays.asList(
+                message(5L, "user", "培训证书怎么领取"),
+                message(6L, "assistant", "在个人中心下载")));
+        when(chatMemoryService.getSessionSummary(SESSION_ID)).thenReturn("用户是四会培训讲师");
+        when(deepSeekService.chat(anyString())).thenReturn(" 讲师询问了证书领取方式，已告知在个人中心下载。 ");
+
+        assertTrue(summaryService.refreshSummary(SESSION_ID));
+
+        ArgumentCaptor<String> prompt = ArgumentCaptor.forClass(String.class);
+        verify(deepSeekService).chat(prompt.capture());
+        assertTrue(prompt.getValue().contains("用户是四会培训讲师"));
+        assertTrue(prompt.getValue().contains("用户：培训证书怎么领取"));
+        verify(chatMemoryService).updateSessionSummary(SESSION_ID, "讲师询问了证书领取方式，已告知在个人中心下载。", 6L);
+    }
+
+    @Test
+    void testAsyncSummaryRunsAsBackgroundCallOfTheRequestingCaller() throws IOException {
+        when(chatMemoryService.getMessagesToSummarize(SESSION_ID))
+                .thenReturn(Collections.singletonList(message(5L, "user", "问题")));
+        List<LlmCallContext> contexts = new ArrayList<>();
+        when(deepSeekService.chat(anyString())).thenAnswer(invocation -> {
+            contexts.add(LlmCallContext.current());
+            return "摘要";
+        });
+
+        summaryService.refreshSummaryAsync(SESSION_ID, "user:7");
+
+        // 摘要计入触发对话的调用方的后台名额，而不是所有摘要共用的系统调用方
+        assertEquals(1, contexts.size());
+        assertEquals("user:7", contexts.get(0).getCallerKey());
+        assertEquals(SESSION_ID, contexts.get(0).getSessionId());
+        assertEquals(LlmCallContext.Priority.BACKGROUND, contexts.get(0).getPriority());
+        assertEquals(LlmCallContext.SYSTEM_CALLER, LlmCallContext.current().getCallerKey());
+    }
+
+    @Test
+    void testSummaryIsSkippedWhenNothingOverflows() throws IOException {
+        when(chatMemoryService.getMessagesToSummarize(SESSION_ID)).thenReturn(Collections.emptyList());
+
+        assertFalse(summaryService.refreshSummary(SESSION_ID));
+
+        verify(deepSeekService, never()).chat(anyString());
+    }
+
+    @Test
+    void testSummaryFailureKeepsPreviousSummary() throws IOException {
+        when(chatMemoryService.getMessagesToSummarize(SESSION_ID))
+                .thenReturn(Collections.singletonList(message(5L, "user", "问题")));
+        when(deepSeekService.chat(anyString())).thenThrow(new IOException("DeepSeek API调用失败: 503 - busy"));
+
+        assertFalse(summaryService.refreshSummary(SESSION_ID));
+
+        verify(chatMemoryService, never()).updateSessionSummary(anyString(), anyString(), anyLong());
+    }
+
+    private static ChatSession session(String summary, Long summarizedMessageId) {
+        ChatSession session = new ChatSession();
+        session.setId(1L);
+        session.setSessionId(SESSION_ID);
+        session.setSummary(summary);
+        session.setSummarizedMessageId(summarizedMessageId);
+        return session;
+    }
+
+    private static ChatMessage message(Long id, String role, String content) {
+        ChatMessage message = new ChatMessage();
+        message.setId(id);
+        message.setSessionId(1L);
+        message.setRole(role);
+        message.setContent(content);
+        return message;
+    }
+
+    private static String repeat(String text, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,169 @@
+package com.vote.sihuibackend.service;
+
+import com.vote.sihuibackend.dto.DocumentBatchItemResult;
+import com.vote.sihuibackend.entity.Document;
+import com.vote.sihuibackend.ingest.DocumentIngestionPipeline;
+import com.vote.sihuibackend.ingest.IngestionResult;
+import com.vote.sihuibackend.job.StorageObjectCleanupJobHandler;
+import com.vote.sihuibackend.repository.DocumentContentRepository;
+import com.vote.sihuibackend.repository.DocumentRepository;
+import com.vote.sihuibackend.service.impl.DocumentServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 文档批量上传单元测试
+ */
+class DocumentBatchUploadTest {
+
+    private DocumentRepository documentRepository;
+    private DocumentIngestionPipeline ingestionPipeline;
+    private ProcessingJobService processingJobService;
+    private ExecutorService executor;
+    private DocumentServiceImpl documentService;
+    private final List<Integer> insertedBatchSizes = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() throws Exception {
+        documentRepository = mock(DocumentRepository.class);
+        ingestionPipeline = mock(DocumentIngestionPipeline.class);
+        processingJobService = mock(ProcessingJobService.class);
+        executor = Executors.newFixedThreadPool(3);
+        documentService = new DocumentServiceImpl(documentRepository, mock(DocumentContentRepository.class),
+                mock(OssService.class), ingestionPipeline, mock(TextSearchService.class),
+                mock(DocumentCounterService.class), executor, processingJobService);
+        ReflectionTestUtils.setField(documentService, "batchConcurrency", 3);
+        ReflectionTestUtils.setField(documentService, "batchInsertSize", 2);
+
+        when(documentRepository.findByOriginalFilenameAndUploaderIdAndStatus(anyString(), anyLong(), anyString()))
+                .thenReturn(Optional.empty());
+        when(documentRepository.findFirstByContentHashOrderByIdAsc(anyString())).thenReturn(Optional.empty());
+        when(ingestionPipeline.contentHash(any())).thenAnswer(invocation -> {
+            MultipartFile file = invocation.getArgument(0);
+            return "hash-" + new String(file.getBytes(), StandardCharsets.UTF_8);
+        });
+        when(ingestionPipeline.ingest(any(), anyString(), any())).thenAnswer(invocation -> {
+            MultipartFile file = invocation.getArgument(0);
+            String content = new String(file.getBytes(), StandardCharsets.UTF_8);
+            return new IngestionResult("knowledge/documents/" + file.getOriginalFilename(),
+                    "https://bucket.oss/knowledge/documents/" + file.getOriginalFilename(), "hash-" + content,
+                    file.getSize(), content, content, Collections.singletonList(content));
+        });
+        AtomicLong ids = new AtomicLong();
+        doAnswer(invocation -> {
+            List<Document> documents = invocation.getArgument(0);
+            insertedBatchSizes.add(documents.size());
+            documents.forEach(document -> document.setId(ids.incrementAndGet()));
+            return null;
+        }).when(documentRepository).insertAll(anyList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void filesAreIngestedInParallelAndInsertedInBatches() throws Exception {
+        MultipartFile[] files = {
+                file("a.txt", "四会教学"),
+                file("b.txt", "四会教学"),
+                file("c.md", "会说会写"),
+                file("d.xlsx", "不支持"),
+                file("e.txt", "会做会教"),
+        };
+        List<DocumentBatchItemResult> reported = Collections.synchronizedList(new ArrayList<>());
+
+        List<DocumentBatchItemResult> results = documentService.uploadDocuments(files, null, false, 7L,
+                reported::add);
+
+        assertEquals(5, results.size());
+        assertEquals(5, reported.size());
+        for (int i = 0; i < files.length; i++) {
+            assertEquals(i, results.get(i).getIndex());
+            assertEquals(files[i].getOriginalFilename(), results.get(i).getFilename());
+        }
+        assertFalse(results.get(3).getSuccess());
+        assertTrue(results.get(3).getMessage().contains("xlsx"));
+
+        // 内容相同的a、b只解析上传一次，另一个复用其存储
+        verify(ingestionPipeline, times(3)).ingest(any(), anyString(), any());
+        assertTrue(results.get(0).getDuplicate() ^ results.get(1).getDuplicate());
+        assertEquals(4, results.stream().filter(DocumentBatchItemResult::getSuccess).count());
+        assertEquals(4, insertedBatchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(insertedBatchSizes.stream().allMatch(size -> size <= 2));
+        verify(documentRepository, never()).save(any(Document.class));
+        verify(documentRepository).clearDocumentCache();
+    }
+
+    @Test
+    void failedBatchInsertFallsBackToSingleSaves() {
+        doThrow(new IllegalStateException("batch failed")).when(documentRepository).insertAll(anyList());
+        when(documentRepository.save(any(Document.class))).thenAnswer(invocation -> {
+            Document document = invocation.getArgument(0);
+            if (document.getOriginalFilename().startsWith("bad")) {
+                throw new IllegalStateException("constraint violation");
+            }
+            document.setId(100L);
+            return document;
+        });
+        MultipartFile[] files = { file("good.txt", "内容一"), file("bad.txt", "内容二") };
+
+        List<Document> documents = documentService.uploadDocuments(files, null, false, 7L);
+
+        assertEquals(1, documents.size());
+        assertEquals("good.txt", documents.get(0).getOriginalFilename());
+        verify(processingJobService).submitDelayed(eq(StorageObjectCleanupJobHandler.JOB_TYPE),
+                endsWith("bad.txt"), anyInt(), anyLong());
+        verify(ingestionPipeline, never()).discard(any());
+    }
+
+    @Test
+    void failedSourceDocumentKeepsObjectForSavedDuplicates() {
+        ReflectionTestUtils.setField(documentService, "batchConcurrency", 1);
+        doThrow(new IllegalStateException("batch failed")).when(documentRepository).insertAll(anyList());
+        when(documentRepository.save(any(Document.class))).thenAnswer(invocation -> {
+            Document document = invocation.getArgument(0);
+            // 来源文档的对象以其自身文件名命名，复用该对象的重复文档保存成功
+            if (document.getFileUrl().endsWith(document.getOriginalFilename())) {
+                throw new IllegalStateException("constraint violation");
+            }
+            document.setId(100L);
+            return document;
+        });
+        MultipartFile[] files = { file("source.txt", "四会教学"), file("copy.txt", "四会教学") };
+
+        List<DocumentBatchItemResult> results = documentService.uploadDocuments(files, null, false, 7L,
+                result -> {
+                });
+
+        assertFalse(results.get(0).getSuccess());
+        assertTrue(results.get(1).getSuccess());
+        assertTrue(results.get(1).getDuplicate());
+        // 重复文档引用来源文档上传的对象，只提交延迟清理任务，由任务确认没有引用后再删除
+        verify(ingestionPipeline, never()).discard(any());
+        verify(processingJobService).submitDelayed(eq(StorageObjectCleanupJobHandler.JOB_TYPE),
+                endsWith("source.txt"), anyInt(), anyLong());
+    }
+
+    private static MockMultipartFile file(String name, String content) {
+        return new MockMultipartFile("files", name, "text/plain", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
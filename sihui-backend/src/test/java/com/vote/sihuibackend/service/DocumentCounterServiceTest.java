@@ -0,0 +1,114 @@
+package com.vote.sihuibackend.service;
+
+import com.vote.sihuibackend.dto.DocumentCounterDelta;
+import com.vote.sihuibackend.repository.DocumentRepository;
+import com.vote.sihuibackend.service.impl.DocumentCounterServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 文档计数缓冲单元测试
+ */
+class DocumentCounterServiceTest {
+
+    private DocumentRepository documentRepository;
+    private DocumentCounterServiceImpl counterService;
+    private final CacheManager cacheManager = new ConcurrentMapCacheManager("documents");
+    private final Map<Long, long[]> persisted = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        documentRepository = mock(DocumentRepository.class);
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("cacheManager", cacheManager);
+        counterService = new DocumentCounterServiceImpl(documentRepository,
+                beanFactory.getBeanProvider(CacheManager.class));
+        doAnswer(invocation -> {
+            List<DocumentCounterDelta> deltas = invocation.getArgument(0);
+            for (DocumentCounterDelta delta : deltas) {
+                long[] counts = persisted.computeIfAbsent(delta.getDocumentId(), id -> new long[2]);
+                counts[0] += delta.getViews();
+                counts[1] += delta.getDownloads();
+            }
+            return null;
+        }).when(documentRepository).incrementCounters(anyList());
+    }
+
+    @Test
+    void concurrentIncrementsAreFlushedWithoutLoss() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    counterService.recordView(1L + i % 3);
+                    if (i % 10 == 0) {
+                        counterService.recordDownload(1L);
+                    }
+                }
+                done.countDown();
+            });
+        }
+        // 累加过程中反复刷新
+        while (done.getCount() > 0) {
+            counterService.flush();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        counterService.flush();
+
+        long totalViews = persisted.values().stream().mapToLong(counts -> counts[0]).sum();
+        assertEquals(80000, totalViews);
+        assertEquals(8000, persisted.get(1L)[1]);
+        assertEquals(0, counterService.getPendingViews(1L));
+        verify(documentRepository, never()).findById(anyLong());
+        verify(documentRepository, never()).save(any());
+    }
+
+    @Test
+    void failedFlushKeepsCountsForRetry() {
+        counterService.recordView(5L);
+        counterService.recordView(5L);
+        counterService.recordDownload(5L);
+        doThrow(new IllegalStateException("database unavailable"))
+                .when(documentRepository).incrementCounters(anyList());
+
+        assertThrows(IllegalStateException.class, () -> counterService.flush());
+        assertEquals(2, counterService.getPendingViews(5L));
+        assertEquals(1, counterService.getPendingDownloads(5L));
+
+        reset(documentRepository);
+        assertEquals(1, counterService.flush());
+        verify(documentRepository).incrementCounters(argThat(deltas -> deltas.size() == 1
+                && deltas.get(0).getViews() == 2 && deltas.get(0).getDownloads() == 1));
+        assertEquals(0, counterService.flush());
+    }
+
+    @Test
+    void flushEvictsCachedDocumentsWithStaleCounts() {
+        cacheManager.getCache("documents").put("id:5", "cached");
+        cacheManager.getCache("documents").put("id:6", "cached");
+        counterService.recordView(5L);
+
+        assertEquals(1, counterService.flush());
+
+        // 刷新后缓存中的旧计数不再与减少后的待写入计数相加
+        assertNull(cacheManager.getCache("documents").get("id:5"));
+        assertNotNull(cacheManager.getCache("documents").get("id:6"));
+    }
+}
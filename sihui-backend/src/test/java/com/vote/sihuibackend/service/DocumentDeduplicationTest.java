@@ -0,0 +1,125 @@
+package com.vote.sihuibackend.service;
+
+import com.vote.sihuibackend.entity.Document;
+import com.vote.sihuibackend.entity.ProcessingJob;
+import com.vote.sihuibackend.ingest.DocumentIngestionPipeline;
+import com.vote.sihuibackend.job.JobContext;
+import com.vote.sihuibackend.job.StorageObjectCleanupJobHandler;
+import com.vote.sihuibackend.repository.DocumentContentRepository;
+import com.vote.sihuibackend.repository.DocumentRepository;
+import com.vote.sihuibackend.service.impl.DocumentServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 文档内容去重单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class DocumentDeduplicationTest {
+
+    private static final String FILE_URL = "https://bucket.oss/knowledge/documents/20240101_abc.txt";
+    private static final String OBJECT_NAME = "knowledge/documents/20240101_abc.txt";
+
+    @Mock
+    private DocumentRepository documentRepository;
+
+    @Mock
+    private DocumentContentRepository documentContentRepository;
+
+    @Mock
+    private OssService ossService;
+
+    @Mock
+    private DocumentIngestionPipeline ingestionPipeline;
+
+    @Mock
+    private TextSearchService textSearchService;
+
+    @Mock
+    private ProcessingJobService processingJobService;
+
+    @InjectMocks
+    private DocumentServiceImpl documentService;
+
+    @Test
+    void duplicateContentReusesStoredObjectAndIndex() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "副本.txt", "text/plain",
+                "四会教学内容".getBytes(StandardCharsets.UTF_8));
+        Document source = Document.builder().id(1L).title("原文").originalFilename("原文.txt")
+                .content("四会教学内容\n").summary("四会教学内容").keywords("四会教学内容")
+                .fileSize(file.getSize()).fileUrl(FILE_URL).contentHash("hash").build();
+
+        when(documentRepository.findByOriginalFilenameAndUploaderIdAndStatus("副本.txt", 7L, "ACTIVE"))
+                .thenReturn(Optional.empty());
+        when(ingestionPipeline.contentHash(file)).thenReturn("hash");
+        when(documentRepository.findFirstByContentHashOrderByIdAsc("hash")).thenReturn(Optional.of(source));
+        when(documentRepository.save(any(Document.class))).thenAnswer(invocation -> {
+            Document saved = invocation.getArgument(0);
+            saved.setId(2L);
+            return saved;
+        });
+
+        Document document = documentService.uploadDocument(file, null, null, null, true, 7L);
+
+        assertEquals(FILE_URL, document.getFileUrl());
+        assertEquals("hash", document.getContentHash());
+        assertEquals(source.getContent(), document.getContent());
+        assertEquals("副本", document.getTitle());
+        verify(ingestionPipeline, never()).ingest(any(), anyString(), any());
+        verify(textSearchService).copyDocumentIndex(1L, 2L);
+    }
+
+    @Test
+    void permanentDeleteKeepsObjectWhileStillReferenced() {
+        Document document = Document.builder().id(2L).title("副本").fileUrl(FILE_URL).build();
+        when(documentRepository.findById(2L)).thenReturn(Optional.of(document));
+        when(documentRepository.countByFileUrlAndIdNot(FILE_URL, 2L)).thenReturn(1L);
+
+        assertTrue(documentService.permanentDeleteDocument(2L));
+
+        verify(ossService, never()).deleteFile(anyString());
+        verify(documentRepository).deleteById(2L);
+    }
+
+    @Test
+    void permanentDeleteSchedulesCleanupOfLastReference() {
+        Document document = Document.builder().id(1L).title("原文").fileUrl(FILE_URL).build();
+        when(documentRepository.findById(1L)).thenReturn(Optional.of(document));
+        when(documentRepository.countByFileUrlAndIdNot(FILE_URL, 1L)).thenReturn(0L);
+
+        assertTrue(documentService.permanentDeleteDocument(1L));
+
+        // 并发上传的重复文档可能正要引用该对象，不立即删除
+        verify(ossService, never()).deleteFile(anyString());
+        verify(processingJobService).submitDelayed(eq(StorageObjectCleanupJobHandler.JOB_TYPE), eq(FILE_URL),
+                eq(ProcessingJob.PRIORITY_LOW), anyLong());
+        verify(documentRepository).deleteById(1L);
+    }
+
+    @Test
+    void cleanupDeletesObjectOnlyWhenNoDocumentReferencesIt() {
+        StorageObjectCleanupJobHandler handler = new StorageObjectCleanupJobHandler(documentRepository, ossService);
+        JobContext context = mock(JobContext.class);
+        when(documentRepository.countByFileUrl(FILE_URL)).thenReturn(1L, 0L);
+        when(ossService.getObjectName(FILE_URL)).thenReturn(OBJECT_NAME);
+        when(ossService.deleteFile(OBJECT_NAME)).thenReturn(true);
+
+        // 延迟期间有重复上传引用了该对象
+        handler.handle(FILE_URL, context);
+        verify(ossService, never()).deleteFile(anyString());
+
+        handler.handle(FILE_URL, context);
+        verify(ossService).deleteFile(OBJECT_NAME);
+    }
+}
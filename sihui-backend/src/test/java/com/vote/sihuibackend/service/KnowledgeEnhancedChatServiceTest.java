@@ -1,18 +1,26 @@
 package com.vote.sihuibackend.service;
 
+import com.vote.sihuibackend.config.RerankProperties;
+import com.vote.sihuibackend.llm.LlmCallContext;
+import com.vote.sihuibackend.search.LexicalReranker;
 import com.vote.sihuibackend.service.impl.KnowledgeEnhancedChatServiceImpl;
 import com.vote.sihuibackend.service.TextSearchService.SearchResult;
 import com.vote.sihuibackend.service.KnowledgeEnhancedChatService.QueryAnalysisResult;
 import com.vote.sihuibackend.service.KnowledgeEnhancedChatService.KnowledgeEnhancedResponse;
 import com.vote.sihuibackend.entity.Document;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -33,12 +41,21 @@ class KnowledgeEnhancedChatServiceTest {
         @Mock
         private ChatMemoryService chatMemoryService;
 
+        private ExecutorService executor;
+
         private KnowledgeEnhancedChatServiceImpl knowledgeEnhancedChatService;
 
         @BeforeEach
         void setUp() {
+                executor = Executors.newCachedThreadPool();
                 knowledgeEnhancedChatService = new KnowledgeEnhancedChatServiceImpl(
-                                deepSeekService, textSearchService, chatMemoryService);
+                                deepSeekService, textSearchService, chatMemoryService, executor,
+                                new LexicalReranker(new RerankProperties()));
+        }
+
+        @AfterEach
+        void tearDown() {
+                executor.shutdownNow();
         }
 
         @Test
@@ -133,8 +150,7 @@ class KnowledgeEnhancedChatServiceTest {
 
                 // Mock会话管理
                 lenient().when(chatMemoryService.getOrCreateDefaultSession(userId)).thenReturn(sessionId);
-                lenient().when(chatMemoryService.getRecentMessages(sessionId, 5)).thenReturn(new ArrayList<>());
-                lenient().when(chatMemoryService.convertToApiFormat(any())).thenReturn(new ArrayList<>());
+                lenient().when(chatMemoryService.buildConversationContext(sessionId)).thenReturn(new ArrayList<>());
 
                 // Mock AI调用 - 使用lenient避免不必要的stubbing错误
                 lenient().when(deepSeekService.chat(anyString()))
@@ -159,6 +175,79 @@ class KnowledgeEnhancedChatServiceTest {
                 assertFalse(response.getSourceDocuments().isEmpty());
         }
 
+        @Test
+        void testChatWithKnowledge_SkipsOptionalStagesWhenBudgetIsLow() throws IOException {
+                // 准备测试数据 - 查询分析超过时间预算
+                Long userId = 1L;
+                String message = "四会培训包括哪些内容？";
+                String sessionId = "test-session";
+                ReflectionTestUtils.setField(knowledgeEnhancedChatService, "deadlineMs", 600L);
+                ReflectionTestUtils.setField(knowledgeEnhancedChatService, "answerReserveMs", 300L);
+                ReflectionTestUtils.setField(knowledgeEnhancedChatService, "expansionMinRemainingMs", 500L);
+                ReflectionTestUtils.setField(knowledgeEnhancedChatService, "rerankMinRemainingMs", 500L);
+                ReflectionTestUtils.setField(knowledgeEnhancedChatService, "rerankMode", RerankProperties.MODE_LLM);
+
+                lenient().when(chatMemoryService.buildConversationContext(sessionId)).thenReturn(new ArrayList<>());
+                lenient().when(deepSeekService.chat(anyString())).thenAnswer(invocation -> {
+                        Thread.sleep(3000);
+                        return "{\"intent\":\"信息查询\",\"expandedKeywords\":[\"培训内容\"],\"confidence\":0.8}";
+                });
+                lenient().when(deepSeekService.chat(anyString(), any())).thenReturn("根据知识库，四会培训主要包括...");
+                lenient().when(textSearchService.intelligentSearch(anyString(), anyInt()))
+                                .thenReturn(createMockSearchResults());
+
+                // 执行测试
+                long start = System.currentTimeMillis();
+                KnowledgeEnhancedResponse response = knowledgeEnhancedChatService
+                                .chatWithKnowledge(userId, message, sessionId);
+                long elapsed = System.currentTimeMillis() - start;
+
+                // 验证结果：不等待查询分析完成，跳过扩展检索和重排序，仍基于原始查询的检索结果作答
+                assertTrue(elapsed < 2000, "不应等待超时的查询分析: " + elapsed + "ms");
+                assertEquals("根据知识库，四会培训主要包括...", response.getAnswer());
+                assertTrue(response.isHasKnowledgeSupport());
+                assertEquals(Arrays.asList("analysis", "expansion", "rerank"), response.getSkippedStages());
+                assertTrue(response.getStageTimings().containsKey("search"));
+                assertTrue(response.getStageTimings().containsKey("history"));
+                assertTrue(response.getStageTimings().containsKey("answer"));
+                verify(deepSeekService, times(1)).chat(anyString());
+                verify(textSearchService, times(1)).intelligentSearch(anyString(), anyInt());
+        }
+
+        @Test
+        void testChatWithKnowledge_DegradesWhenAnswerExceedsDeadline() throws IOException {
+                // 准备测试数据 - 生成答案耗时超过剩余时间
+                Long userId = 1L;
+                String message = "四会培训包括哪些内容？";
+                String sessionId = "test-session";
+                ReflectionTestUtils.setField(knowledgeEnhancedChatService, "deadlineMs", 600L);
+                ReflectionTestUtils.setField(knowledgeEnhancedChatService, "answerReserveMs", 300L);
+
+                lenient().when(chatMemoryService.buildConversationContext(sessionId)).thenReturn(new ArrayList<>());
+                lenient().when(deepSeekService.chat(anyString())).thenReturn("{}");
+                lenient().when(textSearchService.intelligentSearch(anyString(), anyInt()))
+                                .thenReturn(createMockSearchResults());
+                // 模拟HTTP客户端：按调用方信息中的截止时间中止请求
+                when(deepSeekService.chat(anyString(), any())).thenAnswer(invocation -> {
+                        long remaining = LlmCallContext.current().remainingMillis();
+                        assertTrue(remaining <= 600, "生成答案应带有截止时间: " + remaining);
+                        Thread.sleep(Math.max(0, remaining) + 10);
+                        throw new InterruptedIOException("DeepSeek API调用超时");
+                });
+
+                // 执行测试
+                long start = System.currentTimeMillis();
+                KnowledgeEnhancedResponse response = knowledgeEnhancedChatService
+                                .chatWithKnowledge(userId, message, sessionId);
+                long elapsed = System.currentTimeMillis() - start;
+
+                // 验证结果：返回降级答复，不再发起不受限的降级对话
+                assertTrue(elapsed < 1500, "不应超出截止时间太多: " + elapsed + "ms");
+                assertEquals("抱歉，本次问答超出了处理时间，请稍后重试。", response.getAnswer());
+                assertTrue(response.getSkippedStages().contains("answer"));
+                verify(deepSeekService, never()).chatWithMemory(anyLong(), anyString(), any());
+        }
+
         /**
          * 创建模拟的搜索结果
          */
@@ -0,0 +1,160 @@
+package com.vote.sihuibackend.service;
+
+import com.vote.sihuibackend.config.LocalStorageProperties;
+import com.vote.sihuibackend.controller.LocalFileController;
+import com.vote.sihuibackend.dto.MultipartUploadStatus;
+import com.vote.sihuibackend.service.impl.LocalFileStorageService;
+import com.vote.sihuibackend.service.impl.LocalFileStorageService.StoredObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 本地文件存储服务单元测试
+ */
+class LocalFileStorageServiceTest {
+
+    @TempDir
+    Path rootDir;
+
+    private LocalStorageProperties properties;
+    private LocalFileStorageService storageService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties = new LocalStorageProperties();
+        properties.setRootDir(rootDir.toString());
+        properties.setSigningSecret("test-secret");
+        storageService = new LocalFileStorageService(properties);
+    }
+
+    @Test
+    void identicalContentIsStoredOnceAndReleasedWithLastReference() {
+        byte[] content = "相同的文档内容".getBytes(StandardCharsets.UTF_8);
+        String first = storageService.uploadFile(new ByteArrayInputStream(content), "a.txt", "docs");
+        String second = storageService.uploadFile(new ByteArrayInputStream(content), "b.txt", "docs");
+
+        StoredObject a = storageService.findObject(storageService.getObjectName(first)).get();
+        StoredObject b = storageService.findObject(storageService.getObjectName(second)).get();
+        assertEquals(a.getPath(), b.getPath());
+        assertEquals(content.length, a.getSize());
+        assertEquals("text/plain", a.getContentType());
+
+        assertTrue(storageService.deleteFile("docs/a.txt"));
+        assertTrue(Files.exists(b.getPath()));
+        assertFalse(storageService.doesFileExist("docs/a.txt"));
+
+        assertTrue(storageService.deleteFile("docs/b.txt"));
+        assertFalse(Files.exists(b.getPath()));
+        assertFalse(storageService.deleteFile("docs/b.txt"));
+    }
+
+    @Test
+    void objectNamesOutsideStorageRootAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> storageService.uploadFile(
+                new ByteArrayInputStream(new byte[1]), "../escape.txt", "docs/.."));
+        assertFalse(storageService.findObject("../../etc/passwd").isPresent());
+        assertFalse(storageService.deleteFile("/etc/passwd"));
+    }
+
+    @Test
+    void abandonedMultipartUploadsAreSweptAfterTtl() {
+        byte[] content = "0123456789".getBytes(StandardCharsets.US_ASCII);
+        String uploadId = storageService.initiateMultipartUpload("video.mp4", content.length, "videos", 7L)
+                .getUploadId();
+        storageService.uploadPart(uploadId, 1, new ByteArrayInputStream(content), content.length);
+
+        assertEquals(0, storageService.sweepExpiredMultipartUploads());
+        assertEquals(1, storageService.getMultipartUploadStatus(uploadId).getCompletedParts().size());
+
+        properties.setMultipartTtl(Duration.ZERO);
+        assertEquals(1, storageService.sweepExpiredMultipartUploads());
+        assertThrows(IllegalArgumentException.class, () -> storageService.getMultipartUploadStatus(uploadId));
+        assertFalse(Files.exists(rootDir.resolve("multipart").resolve(uploadId)));
+    }
+
+    @Test
+    void multipartUploadIsAssembledFromParts() {
+        properties.setPartSize(DataSize.ofBytes(4));
+        byte[] content = "0123456789".getBytes(StandardCharsets.US_ASCII);
+        MultipartUploadStatus status = storageService.initiateMultipartUpload("video.mp4", content.length, "videos",
+                7L);
+        assertEquals(3, status.getPartCount());
+
+        String uploadId = status.getUploadId();
+        storageService.uploadPart(uploadId, 3, new ByteArrayInputStream(content, 8, 2), 2);
+        storageService.uploadPart(uploadId, 1, new ByteArrayInputStream(content, 0, 4), 4);
+        assertThrows(IllegalArgumentException.class, () -> storageService.completeMultipartUpload(uploadId));
+        assertThrows(IllegalArgumentException.class, () -> storageService.uploadPart(uploadId, 2,
+                new ByteArrayInputStream(content, 4, 3), 3));
+
+        // 重新创建服务实例，会话从断点文件恢复
+        LocalFileStorageService restarted = newService();
+        assertEquals(7L, restarted.getMultipartUploadStatus(uploadId).getOwnerId());
+        restarted.uploadPart(uploadId, 2, new ByteArrayInputStream(content, 4, 4), 4);
+        String url = restarted.completeMultipartUpload(uploadId);
+
+        StoredObject object = restarted.findObject(restarted.getObjectName(url)).get();
+        assertEquals(content.length, object.getSize());
+        assertThrows(IllegalArgumentException.class, () -> restarted.getMultipartUploadStatus(uploadId));
+    }
+
+    @Test
+    void downloadSupportsRangeAndConditionalRequests() throws Exception {
+        byte[] content = "abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+        String url = storageService.uploadFile(new MockMultipartFile("file", "letters.txt", "text/plain", content),
+                "docs");
+        String etag = "\"" + storageService.findObject(storageService.getObjectName(url)).get().getContentHash()
+                + "\"";
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("localFileStorageService", storageService);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new LocalFileController(
+                beanFactory.getBeanProvider(LocalFileStorageService.class))).build();
+
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().bytes(content));
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/26"))
+                .andExpect(content().bytes(Arrays.copyOfRange(content, 2, 6)));
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=100-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=0-0").header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(content));
+        mockMvc.perform(get(url + "?expires=1&signature=bad"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get(storageService.getSignedUrl(storageService.getObjectName(url), 60)))
+                .andExpect(status().isOk());
+    }
+
+    private LocalFileStorageService newService() {
+        try {
+            return new LocalFileStorageService(properties);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
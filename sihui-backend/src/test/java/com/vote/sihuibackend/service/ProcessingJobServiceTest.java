@@ -0,0 +1,147 @@
+package com.vote.sihuibackend.service;
+
+import com.vote.sihuibackend.config.CommonTestConfiguration;
+import com.vote.sihuibackend.entity.ProcessingJob;
+import com.vote.sihuibackend.job.DocumentIndexJobHandler;
+import com.vote.sihuibackend.job.IndexRebuildJobHandler;
+import com.vote.sihuibackend.job.JobQueueSaturatedException;
+import com.vote.sihuibackend.repository.ProcessingJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 后台处理任务队列测试
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@Import(CommonTestConfiguration.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:jobtest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;MODE=MySQL",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false",
+        "app.jobs.worker-enabled=false",
+        "app.jobs.retry-backoff-ms=0"
+})
+class ProcessingJobServiceTest {
+
+    @Autowired
+    private ProcessingJobService processingJobService;
+
+    @Autowired
+    private ProcessingJobRepository jobRepository;
+
+    @Autowired
+    private TextSearchService textSearchService;
+
+    @BeforeEach
+    void setUp() {
+        jobRepository.deleteAll();
+        reset(textSearchService);
+    }
+
+    @Test
+    void jobsAreClaimedByPriorityAndReportProgress() throws Exception {
+        ProcessingJob rebuild = processingJobService.submit(IndexRebuildJobHandler.JOB_TYPE, null,
+                ProcessingJob.PRIORITY_LOW, null);
+        ProcessingJob index = processingJobService.submit(DocumentIndexJobHandler.JOB_TYPE,
+                DocumentIndexJobHandler.payloadOf(Arrays.asList(1L, 2L, 3L)), ProcessingJob.PRIORITY_HIGH, 7L);
+        ReflectionTestUtils.setField(processingJobService, "concurrency", 1);
+
+        assertEquals(1, processingJobService.pollAndDispatch());
+        ProcessingJob finished = awaitFinished(index.getId());
+        assertEquals(ProcessingJob.STATUS_SUCCEEDED, finished.getStatus());
+        assertEquals(100, finished.getProgress());
+        assertNull(finished.getLeaseOwner());
+        verify(textSearchService).updateDocumentIndexes(Arrays.asList(1L, 2L, 3L));
+        assertEquals(ProcessingJob.STATUS_PENDING, jobRepository.findById(rebuild.getId()).get().getStatus());
+
+        assertEquals(1, processingJobService.pollAndDispatch());
+        assertEquals(ProcessingJob.STATUS_SUCCEEDED, awaitFinished(rebuild.getId()).getStatus());
+        assertEquals(2L, processingJobService.getQueueStatus().getSucceeded());
+    }
+
+    @Test
+    void failedJobsAreRetriedUntilMaxAttempts() throws Exception {
+        doThrow(new IllegalStateException("索引失败")).when(textSearchService).updateDocumentIndexes(anyList());
+        ProcessingJob job = processingJobService.submit(DocumentIndexJobHandler.JOB_TYPE, "5", 5, null);
+
+        for (int attempt = 1; attempt <= job.getMaxAttempts(); attempt++) {
+            assertEquals(1, processingJobService.pollAndDispatch());
+            awaitNotRunning(job.getId());
+        }
+
+        ProcessingJob failed = jobRepository.findById(job.getId()).get();
+        assertEquals(ProcessingJob.STATUS_FAILED, failed.getStatus());
+        assertEquals(3, failed.getAttempts());
+        assertEquals("索引失败", failed.getMessage());
+        assertEquals(0, processingJobService.pollAndDispatch());
+    }
+
+    @Test
+    void expiredLeasesAreReclaimed() throws Exception {
+        ProcessingJob job = processingJobService.submit(IndexRebuildJobHandler.JOB_TYPE, null, 5, null);
+        // 模拟领取任务的实例宕机：任务仍为执行中，但租约已过期
+        LocalDateTime now = LocalDateTime.now();
+        assertEquals(1, jobRepository.claim(job.getId(), "crashed-worker", now, now.minusSeconds(1)));
+
+        assertEquals(1, processingJobService.pollAndDispatch());
+        ProcessingJob finished = awaitFinished(job.getId());
+        assertEquals(ProcessingJob.STATUS_SUCCEEDED, finished.getStatus());
+        assertEquals(2, finished.getAttempts());
+        // 原持有者的续约和完成不再生效
+        assertEquals(0, jobRepository.finish(job.getId(), "crashed-worker", ProcessingJob.STATUS_FAILED, 0, null,
+                now, 0));
+    }
+
+    @Test
+    void submitIsRejectedWhenQueueIsSaturated() {
+        ReflectionTestUtils.setField(processingJobService, "maxQueued", 1);
+        try {
+            processingJobService.submit(IndexRebuildJobHandler.JOB_TYPE, null, 5, null);
+            assertTrue(processingJobService.isSaturated());
+            assertThrows(JobQueueSaturatedException.class,
+                    () -> processingJobService.submit(IndexRebuildJobHandler.JOB_TYPE, null, 5, null));
+            assertThrows(IllegalArgumentException.class,
+                    () -> processingJobService.submit("UNKNOWN", null, 5, null));
+        } finally {
+            ReflectionTestUtils.setField(processingJobService, "maxQueued", 1000);
+        }
+    }
+
+    private ProcessingJob awaitFinished(Long jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            ProcessingJob job = jobRepository.findById(jobId).get();
+            if (job.isFinished()) {
+                return job;
+            }
+            Thread.sleep(20);
+        }
+        return fail("任务未在预期时间内结束: " + jobId);
+    }
+
+    private void awaitNotRunning(Long jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            if (!ProcessingJob.STATUS_RUNNING.equals(jobRepository.findById(jobId).get().getStatus())
+                    && processingJobService.getQueueStatus().getLocalRunning() == 0) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        fail("任务未在预期时间内结束: " + jobId);
+    }
+}
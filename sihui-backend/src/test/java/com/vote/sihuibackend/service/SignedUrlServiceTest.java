@@ -0,0 +1,79 @@
+package com.vote.sihuibackend.service;
+
+import com.vote.sihuibackend.service.impl.SignedUrlServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 签名URL缓存单元测试
+ */
+class SignedUrlServiceTest {
+
+    private OssService ossService;
+    private SignedUrlServiceImpl signedUrlService;
+    private long now = 1_700_000_000_000L;
+
+    @BeforeEach
+    void setUp() {
+        ossService = mock(OssService.class);
+        AtomicInteger signatures = new AtomicInteger();
+        when(ossService.getSignedUrl(anyString(), anyInt())).thenAnswer(invocation ->
+                invocation.getArgument(0) + "?signature=" + signatures.incrementAndGet());
+        signedUrlService = new SignedUrlServiceImpl(ossService);
+        setClock();
+    }
+
+    @Test
+    void signedUrlIsReusedUntilRemainingValidityDropsBelowRequest() {
+        String first = signedUrlService.getSignedUrl("thumbs/a.jpg", 3600);
+        // 同一档位内的有效期共享签名，签发时多签了25%的复用窗口
+        assertEquals(first, signedUrlService.getSignedUrl("thumbs/a.jpg", 3590));
+        verify(ossService).getSignedUrl("thumbs/a.jpg", 4500);
+
+        now += 900_000L;
+        setClock();
+        assertEquals(first, signedUrlService.getSignedUrl("thumbs/a.jpg", 3600));
+
+        now += 1_000L;
+        setClock();
+        assertNotEquals(first, signedUrlService.getSignedUrl("thumbs/a.jpg", 3600));
+        verify(ossService, times(2)).getSignedUrl("thumbs/a.jpg", 4500);
+
+        signedUrlService.evict("thumbs/a.jpg");
+        signedUrlService.getSignedUrl("thumbs/a.jpg", 3600);
+        verify(ossService, times(3)).getSignedUrl("thumbs/a.jpg", 4500);
+    }
+
+    @Test
+    void batchSigningDeduplicatesAndSkipsFailures() {
+        when(ossService.getSignedUrl(eq("thumbs/broken.jpg"), anyInt())).thenThrow(new RuntimeException("生成签名URL失败"));
+
+        Map<String, String> urls = signedUrlService.getSignedUrls(
+                Arrays.asList("thumbs/b.jpg", "thumbs/broken.jpg", "thumbs/a.jpg", "thumbs/b.jpg"), 600);
+
+        assertEquals(Arrays.asList("thumbs/b.jpg", "thumbs/a.jpg"), Arrays.asList(urls.keySet().toArray()));
+        verify(ossService, times(1)).getSignedUrl("thumbs/b.jpg", 750);
+
+        ReflectionTestUtils.setField(signedUrlService, "maxBatchSize", 1);
+        assertThrows(IllegalArgumentException.class,
+                () -> signedUrlService.getSignedUrls(Arrays.asList("thumbs/a.jpg", "thumbs/b.jpg"), 600));
+    }
+
+    private void setClock() {
+        ReflectionTestUtils.setField(signedUrlService, "clock", Clock.fixed(Instant.ofEpochMilli(now), ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,133 @@
+package com.vote.sihuibackend.service;
+
+import com.vote.sihuibackend.entity.DocumentTermVector;
+import com.vote.sihuibackend.repository.DocumentContentRepository;
+import com.vote.sihuibackend.repository.DocumentRepository;
+import com.vote.sihuibackend.repository.DocumentTermVectorRepository;
+import com.vote.sihuibackend.service.impl.TextSearchServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * TF-IDF索引的持久化和文档频率统计测试
+ */
+@ExtendWith(MockitoExtension.class)
+class TextSearchIndexTest {
+
+    @Mock
+    private DocumentRepository documentRepository;
+
+    @Mock
+    private DocumentContentRepository documentContentRepository;
+
+    @Mock
+    private DocumentTermVectorRepository documentTermVectorRepository;
+
+    @Mock
+    private EnhancedCacheService cacheService;
+
+    private TextSearchServiceImpl textSearchService;
+
+    @BeforeEach
+    void setUp() {
+        textSearchService = new TextSearchServiceImpl(documentRepository, documentContentRepository,
+                documentTermVectorRepository, cacheService);
+        ReflectionTestUtils.setField(textSearchService, "dfScanBatchSize", 2);
+    }
+
+    @Test
+    void testDocumentFrequenciesAreCountedInOneScan() {
+        when(documentTermVectorRepository.findByDocumentStatusAfter(eq("ACTIVE"), eq(0L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(vector(1L, "教学 计划 教学"),
+                        vector(2L, "教学 总结")));
+        when(documentTermVectorRepository.findByDocumentStatusAfter(eq("ACTIVE"), eq(2L), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(vector(5L, "学生 名单")));
+
+        assertEquals(Math.log(3.0 / 2), textSearchService.getIdfValue("教学"), 1e-9);
+        assertEquals(Math.log(3.0), textSearchService.getIdfValue("总结"), 1e-9);
+        assertEquals(0.0, textSearchService.getIdfValue("不存在"), 1e-9);
+
+        // 逐词计算IDF不再重复扫描语料库
+        verify(documentTermVectorRepository, times(2)).findByDocumentStatusAfter(anyString(), anyLong(),
+                any(Pageable.class));
+    }
+
+    @Test
+    void testIndexChangesRefreshFrequenciesAfterMinimumInterval() {
+        ReflectionTestUtils.setField(textSearchService, "dfMinRefreshMs", 0L);
+        when(documentTermVectorRepository.findByDocumentStatusAfter(eq("ACTIVE"), eq(0L), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(vector(1L, "教学 计划")),
+                        Arrays.asList(vector(1L, "教学 计划"), vector(2L, "总结")));
+        when(documentTermVectorRepository.findByDocumentStatusAfter(eq("ACTIVE"), eq(2L), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+
+        assertEquals(0.0, textSearchService.getIdfValue("教学"), 1e-9);
+        textSearchService.updateDocumentIndexes(Collections.singletonList(2L));
+
+        assertEquals(Math.log(2.0), textSearchService.getIdfValue("教学"), 1e-9);
+    }
+
+    @Test
+    void testIndexedTermCountsArePersistedAndReusedByOtherInstances() {
+        when(documentContentRepository.findContent(3L)).thenReturn(Optional.of("教学 计划 教学"));
+        when(documentTermVectorRepository.save(any(DocumentTermVector.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        textSearchService.updateDocumentIndexes(Collections.singletonList(3L));
+
+        ArgumentCaptor<DocumentTermVector> saved = ArgumentCaptor.forClass(DocumentTermVector.class);
+        verify(documentTermVectorRepository).save(saved.capture());
+        assertEquals(2, saved.getValue().counts().get("教学"));
+        assertEquals(3, saved.getValue().getTermTotal());
+
+        // 另一个实例的本地缓存中没有向量，直接加载持久化的词频，不再读取正文
+        TextSearchServiceImpl otherInstance = new TextSearchServiceImpl(documentRepository,
+                documentContentRepository, documentTermVectorRepository, cacheService);
+        when(cacheService.getTfIdfVector(3L)).thenReturn(null);
+        when(documentTermVectorRepository.findById(3L)).thenReturn(Optional.of(saved.getValue()));
+        Map<String, Double> vector = otherInstance.generateTfIdfVector(3L);
+
+        assertEquals(saved.getValue().counts().keySet(), vector.keySet());
+        verify(documentContentRepository, times(1)).findContent(3L);
+    }
+
+    @Test
+    void testDuplicateDocumentCopiesPersistedIndex() {
+        DocumentTermVector source = vector(1L, "教学 计划");
+        when(documentTermVectorRepository.findById(1L)).thenReturn(Optional.of(source));
+        when(documentTermVectorRepository.save(any(DocumentTermVector.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        textSearchService.copyDocumentIndex(1L, 2L);
+
+        ArgumentCaptor<DocumentTermVector> copy = ArgumentCaptor.forClass(DocumentTermVector.class);
+        verify(documentTermVectorRepository).save(copy.capture());
+        assertEquals(2L, copy.getValue().getDocumentId());
+        assertEquals(source.getTermCounts(), copy.getValue().getTermCounts());
+        verify(documentContentRepository, never()).findContent(anyLong());
+    }
+
+    private static DocumentTermVector vector(Long documentId, String text) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String term : text.split(" ")) {
+            counts.merge(term, 1, Integer::sum);
+        }
+        return DocumentTermVector.of(documentId, counts);
+    }
+}
@@ -0,0 +1,65 @@
+package com.vote.sihuibackend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TextCompressionUtil测试类
+ */
+public class TextCompressionUtilTest {
+
+    @Test
+    public void testLongTextIsCompressedAndRestored() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append("四会教学：会说、会写、会做、会教。第").append(i).append("节\n");
+        }
+
+        byte[] compressed = TextCompressionUtil.compress(text.toString());
+
+        assertEquals(TextCompressionUtil.DEFLATE, compressed[0]);
+        assertTrue(compressed.length < text.toString().getBytes(StandardCharsets.UTF_8).length / 4);
+        assertEquals(text.toString(), TextCompressionUtil.decompress(compressed));
+    }
+
+    @Test
+    public void testShortTextIsStoredRaw() {
+        byte[] stored = TextCompressionUtil.compress("四会");
+
+        assertEquals(TextCompressionUtil.RAW, stored[0]);
+        assertEquals("四会", TextCompressionUtil.decompress(stored));
+        assertEquals("", TextCompressionUtil.decompress(TextCompressionUtil.compress("")));
+        assertNull(TextCompressionUtil.decompress(null));
+    }
+
+    @Test
+    public void testMysqlCompressOutputIsReadable() {
+        // 模拟迁移脚本 CONCAT(X'01', COMPRESS(content)) 的结果：原文以空格结尾时COMPRESS会追加"."
+        String text = "迁移前的文档正文 ";
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater();
+        deflater.setInput(raw);
+        deflater.finish();
+        byte[] buffer = new byte[256];
+        int n = deflater.deflate(buffer);
+        deflater.end();
+
+        ByteArrayOutputStream migrated = new ByteArrayOutputStream();
+        migrated.write(TextCompressionUtil.DEFLATE);
+        migrated.write(raw.length);
+        migrated.write(0);
+        migrated.write(0);
+        migrated.write(0);
+        migrated.write(buffer, 0, n);
+        migrated.write('.');
+
+        assertEquals(text, TextCompressionUtil.decompress(migrated.toByteArray()));
+        // COMPRESS('') 的结果为空串
+        assertEquals("", TextCompressionUtil.decompress(new byte[] { TextCompressionUtil.DEFLATE }));
+    }
+}
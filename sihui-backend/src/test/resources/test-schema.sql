@@ -7,6 +7,7 @@ DROP TABLE IF EXISTS question_options CASCADE;
 DROP TABLE IF EXISTS questions CASCADE;
 DROP TABLE IF EXISTS questionnaire_responses CASCADE;
 DROP TABLE IF EXISTS questionnaires CASCADE;
+DROP TABLE IF EXISTS chat_session_archives CASCADE;
 DROP TABLE IF EXISTS chat_messages CASCADE;
 DROP TABLE IF EXISTS chat_sessions CASCADE;
 DROP TABLE IF EXISTS documents CASCADE;
@@ -65,6 +66,10 @@ CREATE TABLE chat_sessions (
     is_active BOOLEAN DEFAULT TRUE NOT NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    summary TEXT,
+    summarized_message_id BIGINT,
+    archived_at TIMESTAMP,
+    restored_at TIMESTAMP,
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 );
 
@@ -80,6 +85,17 @@ CREATE TABLE chat_messages (
     FOREIGN KEY (session_id) REFERENCES chat_sessions(id) ON DELETE CASCADE
 );
 
+-- 创建聊天会话归档表
+CREATE TABLE chat_session_archives (
+    session_id BIGINT PRIMARY KEY,
+    payload BLOB NOT NULL,
+    message_count INT DEFAULT 0 NOT NULL,
+    first_message_at TIMESTAMP,
+    last_message_at TIMESTAMP,
+    archived_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (session_id) REFERENCES chat_sessions(id) ON DELETE CASCADE
+);
+
 -- 创建文档表（如果需要）
 CREATE TABLE documents (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,